@@ -0,0 +1,69 @@
+package com.example.budgetwise.analytics.service;
+
+import com.example.budgetwise.analytics.dto.GainerDeclinerResponse;
+import com.example.budgetwise.analytics.dto.PriceHistoryPoint;
+import com.example.budgetwise.analytics.dto.PriceMovement;
+import com.example.budgetwise.benchmark.SyntheticData;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory parts of the analytics endpoints (the queries are not included):
+ * gap filling of getProductAnalytics and the top-k mover ranking of getMarketTopMovements
+ * (price pairs as returned by the windowed movers query).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalyticsServiceBenchmark {
+
+    /** Chart range of getProductAnalytics (7 days to one year). */
+    @Param({"7", "90", "365"})
+    int days;
+
+    /** Products reported in one market on one date. */
+    @Param({"200", "" + SyntheticData.PRODUCTS})
+    int products;
+
+    List<PriceHistoryPoint> history;
+    LocalDate startDate;
+    LocalDate endDate;
+    List<MarketMoversService.PriceChange> changes;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        endDate = LocalDate.now();
+        startDate = endDate.minusDays(days - 1);
+        // About 1 report day in 4 is missing
+        history = SyntheticData.priceHistory(random, days, 0.25);
+        List<PriceMovement> pastPrices = SyntheticData.marketPrices(random, products, null);
+        List<PriceMovement> currentPrices = SyntheticData.marketPrices(random, products, pastPrices);
+        Map<String, Double> pastByName = pastPrices.stream()
+                .collect(Collectors.toMap(PriceMovement::productName, PriceMovement::currentPrice));
+        changes = currentPrices.stream()
+                .filter(current -> pastByName.containsKey(current.productName()))
+                .map(current -> new MarketMoversService.PriceChange(current.productName(),
+                        current.currentPrice(), pastByName.get(current.productName())))
+                .toList();
+    }
+
+    @Benchmark
+    public List<PriceHistoryPoint> fillDailyGaps() {
+        return AnalyticsService.fillDailyGaps(history, startDate, endDate, 100.0);
+    }
+
+    @Benchmark
+    public GainerDeclinerResponse rankMovements() {
+        return MarketMoversService.rank(changes, MarketMoversService.TOP_K);
+    }
+}
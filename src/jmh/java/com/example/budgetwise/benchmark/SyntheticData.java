@@ -0,0 +1,160 @@
+package com.example.budgetwise.benchmark;
+
+import com.example.budgetwise.analytics.dto.PriceHistoryPoint;
+import com.example.budgetwise.analytics.dto.PriceMovement;
+import com.example.budgetwise.budgetplan.entity.DietaryTag;
+import com.example.budgetwise.budgetplan.entity.ProductDietaryTag;
+import com.example.budgetwise.market.entity.MarketLocation;
+import com.example.budgetwise.product.entity.ProductInfo;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic (seeded) generators for benchmark inputs at production-like volumes:
+ * a daily price-monitoring feed of ~700 products across ~60 markets, with skipped
+ * report days, scraped market names with stray whitespace and duplicates, and products
+ * carrying 0-4 dietary tags.
+ */
+public final class SyntheticData {
+
+    public static final int PRODUCTS = 700;
+    public static final int MARKETS = 60;
+    public static final int DAYS = 365;
+
+    private static final String[] CATEGORIES = {
+            "Rice", "Corn", "Fish Products", "Beef", "Pork Meat Products", "Chicken", "Processed Meat",
+            "Vegetables", "Fruits", "Spices", "Canned Goods", "Other Basic Commodities"
+    };
+
+    private static final String[] TAGS = {
+            "Vegan", "Vegetarian", "Pescatarian", "Halal", "High Protein", "Low Calorie", "Low Fat", "Gluten Free"
+    };
+
+    private SyntheticData() {
+    }
+
+    /**
+     * Random walk around {@code basePrice}, one point per day, oldest first.
+     */
+    public static double[] priceWindow(Random random, int points, double basePrice) {
+        double[] prices = new double[points];
+        double price = basePrice;
+        for (int i = 0; i < points; i++) {
+            price = Math.max(1.0, price + random.nextGaussian() * basePrice * 0.02);
+            prices[i] = Math.round(price * 100.0) / 100.0;
+        }
+        return prices;
+    }
+
+    /**
+     * Reported prices of one product over {@code days} days ending today; each day is
+     * skipped with probability {@code gapRatio} (no report, weekends, holidays).
+     */
+    public static List<PriceHistoryPoint> priceHistory(Random random, int days, double gapRatio) {
+        LocalDate start = LocalDate.now().minusDays(days - 1);
+        double[] prices = priceWindow(random, days, 50 + random.nextDouble() * 400);
+        List<PriceHistoryPoint> history = new ArrayList<>(days);
+        for (int i = 0; i < days; i++) {
+            if (random.nextDouble() >= gapRatio) {
+                history.add(new PriceHistoryPoint(start.plusDays(i), prices[i]));
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Prices of {@code products} products in one market on one date.
+     *
+     * @param previous If not null, prices move -15%..+15% from it (same products);
+     *                 a few products are missing, as when a product was not reported.
+     */
+    public static List<PriceMovement> marketPrices(Random random, int products, List<PriceMovement> previous) {
+        List<PriceMovement> prices = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            if (previous != null && random.nextDouble() < 0.05) continue;
+            double price = previous != null && i < previous.size()
+                    ? previous.get(i).currentPrice() * (0.85 + random.nextDouble() * 0.30)
+                    : 20 + random.nextDouble() * 480;
+            prices.add(new PriceMovement(productName(i), price, null, null, null));
+        }
+        return prices;
+    }
+
+    /**
+     * ACTIVE products with their tag links populated in memory (no persistence context).
+     */
+    public static List<ProductInfo> products(Random random, int count) {
+        List<DietaryTag> tags = new ArrayList<>();
+        for (int t = 0; t < TAGS.length; t++) {
+            DietaryTag tag = new DietaryTag();
+            tag.setId((long) t + 1);
+            tag.setTagName(TAGS[t]);
+            tag.setStatus(DietaryTag.Status.ACTIVE);
+            tags.add(tag);
+        }
+
+        List<ProductInfo> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ProductInfo product = new ProductInfo();
+            product.setId((long) i + 1);
+            product.setProductName(productName(i));
+            product.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            product.setStatus(ProductInfo.Status.ACTIVE);
+            product.setUpdatedAt(LocalDateTime.now());
+
+            List<ProductDietaryTag> links = new ArrayList<>();
+            int tagCount = random.nextInt(5);
+            for (int t = 0; t < tagCount; t++) {
+                ProductDietaryTag link = new ProductDietaryTag();
+                link.setProductInfo(product);
+                link.setDietaryTag(tags.get(random.nextInt(tags.size())));
+                links.add(link);
+            }
+            product.setProductDietaryTags(links);
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * Market names as scraped from {@code reports} price reports: repeated across reports,
+     * sometimes padded with whitespace.
+     */
+    public static List<String> scrapedMarketNames(Random random, int reports, int markets) {
+        List<String> names = new ArrayList<>(reports * 8);
+        for (int r = 0; r < reports; r++) {
+            for (int m = 0; m < 8; m++) {
+                String name = marketName(random.nextInt(markets));
+                names.add(random.nextDouble() < 0.2 ? "  " + name + " " : name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * The first {@code count} markets, as already stored.
+     */
+    public static List<MarketLocation> existingMarkets(int count) {
+        List<MarketLocation> markets = new ArrayList<>(count);
+        for (int m = 0; m < count; m++) {
+            MarketLocation market = new MarketLocation();
+            market.setId((long) m + 1);
+            market.setMarketLocation(marketName(m));
+            market.setStatus(MarketLocation.Status.ACTIVE);
+            markets.add(market);
+        }
+        return markets;
+    }
+
+    public static String productName(int index) {
+        return "Product " + index;
+    }
+
+    public static String marketName(int index) {
+        return "Public Market " + index;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.budgetwise.budgetplan.service;
+
+import com.example.budgetwise.benchmark.SyntheticData;
+import com.example.budgetwise.budgetplan.dto.QualityIssueResponse;
+import com.example.budgetwise.product.entity.ProductInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rule evaluation of QualityManagementService.scanForQualityIssues over loaded products
+ * (the product / tag query is not included).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QualityScanBenchmark {
+
+    @Param({"" + SyntheticData.PRODUCTS, "5000"})
+    int products;
+
+    List<ProductInfo> catalog;
+
+    @Setup
+    public void setUp() {
+        catalog = SyntheticData.products(new Random(42), products);
+    }
+
+    @Benchmark
+    public List<QualityIssueResponse> scan() {
+        return QualityManagementService.findQualityIssues(catalog);
+    }
+}
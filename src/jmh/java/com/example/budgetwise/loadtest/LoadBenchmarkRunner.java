@@ -0,0 +1,360 @@
+package com.example.budgetwise.loadtest;
+
+import com.example.budgetwise.prediction.service.BulkForecastService;
+import com.example.budgetwise.prediction.service.PricePredictionService;
+import com.example.budgetwise.security.JwtService;
+import com.example.budgetwise.user.entity.User;
+import com.example.budgetwise.user.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Database-level load benchmark: seeds a realistic price history, then replays a weighted
+ * mix of admin API reads over HTTP and records latency percentiles per endpoint.
+ * <p>
+ * Run against a SCRATCH database (it is seeded with {@code years} years of data):
+ * {@code docker run -d -p 5433:5432 -e POSTGRES_PASSWORD=postgres -e POSTGRES_DB=budgetwise_load postgres:16}
+ * {@code ./mvnw -P benchmarks spring-boot:test-run -Dspring-boot.run.profiles=load-benchmark}
+ * (benchmarks profile only: the harness creates an ADMIN user and mints its JWT, so it is
+ * never part of the application build)
+ * <p>
+ * LOGIC:
+ * 1. {@link LoadDataSeeder} seeds (or reuses) the dataset; a FULL bulk forecast then fills
+ *    the prediction tables, and its duration is part of the report.
+ * 2. A local ADMIN user is created and a JWT is issued for it, so the requests go through
+ *    the real security filter chain.
+ * 3. The request sequence is drawn from a seeded RNG (same parameters = same requests),
+ *    run once as warm-up, then measured with {@code loadtest.concurrency} workers.
+ * 4. The report (JSON, stable key order) is written to {@code loadtest.report-dir}; diff
+ *    two reports to compare releases.
+ */
+@Component
+@Profile("load-benchmark")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class LoadBenchmarkRunner implements CommandLineRunner {
+
+    private static final String ADMIN_EMAIL = "loadtest-admin@budgetwise.local";
+    private static final String API = "/api/v1/admin";
+
+    private final LoadDataSeeder seeder;
+    private final PricePredictionService predictionService;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtService jwtService;
+    private final Environment environment;
+    private final ConfigurableApplicationContext context;
+    private final ObjectMapper objectMapper;
+
+    private final int years;
+    private final int products;
+    private final int markets;
+    private final long seed;
+    private final int warmupRequests;
+    private final int requests;
+    private final int concurrency;
+    private final String reportDir;
+    private final boolean exitWhenDone;
+
+    /** One endpoint of the mix: relative weight and a generator of concrete request paths. */
+    private record Scenario(String name, int weight, Function<Random, String> path) {}
+
+    private record Call(Scenario scenario, String path) {}
+
+    public LoadBenchmarkRunner(LoadDataSeeder seeder, PricePredictionService predictionService, UserRepository userRepository, PasswordEncoder passwordEncoder, JwtService jwtService, Environment environment, ConfigurableApplicationContext context, ObjectMapper objectMapper, @Value("${loadtest.years:1}") int years, @Value("${loadtest.products:200}") int products, @Value("${loadtest.markets:40}") int markets, @Value("${loadtest.seed:42}") long seed, @Value("${loadtest.warmup-requests:200}") int warmupRequests, @Value("${loadtest.requests:2000}") int requests, @Value("${loadtest.concurrency:8}") int concurrency, @Value("${loadtest.report-dir:target/load-reports}") String reportDir, @Value("${loadtest.exit-when-done:false}") boolean exitWhenDone) {
+        this.seeder = seeder;
+        this.predictionService = predictionService;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jwtService = jwtService;
+        this.environment = environment;
+        this.context = context;
+        this.objectMapper = objectMapper;
+        this.years = years;
+        this.products = products;
+        this.markets = markets;
+        this.seed = seed;
+        this.warmupRequests = warmupRequests;
+        this.requests = requests;
+        this.concurrency = Math.max(1, concurrency);
+        this.reportDir = reportDir;
+        this.exitWhenDone = exitWhenDone;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        // --- STEP 1: DATASET & PREDICTIONS ---
+        LoadDataSeeder.Dataset dataset = seeder.seed(years, products, markets, seed);
+        log.info("Load benchmark dataset: {} markets, {} products, {} price records (reused: {})",
+                dataset.marketIds().size(), dataset.productNames().size(), dataset.priceRecords(), dataset.reused());
+
+        long bulkStart = System.currentTimeMillis();
+        BulkForecastService.Summary bulk = predictionService.runBulkPrediction(BulkForecastService.Mode.FULL)
+                .completion().join();
+        long bulkMs = System.currentTimeMillis() - bulkStart;
+
+        // --- STEP 2: AUTH ---
+        String token = "Bearer " + jwtService.generateToken(adminUser(), Map.of("role", User.Role.ADMIN.name()));
+        String baseUrl = "http://localhost:" + environment.getProperty("local.server.port", "8080");
+
+        // --- STEP 3: WARM-UP & MEASURED RUN ---
+        List<Scenario> scenarios = scenarios(dataset);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+        execute(client, baseUrl, token, draw(scenarios, warmupRequests, new Random(seed + 1)), null);
+
+        List<Call> calls = draw(scenarios, requests, new Random(seed));
+        Map<String, EndpointStats> stats = new TreeMap<>();
+        for (Scenario scenario : scenarios) {
+            stats.put(scenario.name(), new EndpointStats(requests));
+        }
+
+        long runStart = System.nanoTime();
+        execute(client, baseUrl, token, calls, stats);
+        long runMs = (System.nanoTime() - runStart) / 1_000_000;
+
+        // --- STEP 4: REPORT ---
+        Path report = writeReport(dataset, bulk, bulkMs, runMs, stats);
+        log.info("Load benchmark: {} requests in {} ms ({} req/s), report written to {}",
+                requests, runMs, String.format("%.1f", requests * 1000.0 / Math.max(1, runMs)), report);
+        stats.forEach((name, s) -> log.info("  {} n={} err={} p50={}ms p90={}ms p99={}ms max={}ms",
+                String.format("%-28s", name), s.count(), s.errors.get(),
+                s.percentileMs(50), s.percentileMs(90), s.percentileMs(99), s.percentileMs(100)));
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    private User adminUser() {
+        return userRepository.findByEmail(ADMIN_EMAIL).orElseGet(() -> userRepository.save(User.builder()
+                .name("Load Test Admin")
+                .email(ADMIN_EMAIL)
+                .password(passwordEncoder.encode(UUID.randomUUID().toString()))
+                .role(User.Role.ADMIN)
+                .authProvider(User.AuthProvider.LOCAL)
+                .status(User.Status.ACTIVE)
+                .build()));
+    }
+
+    /**
+     * Read mix of the admin dashboard: analytics charts, market pages, prediction grids.
+     */
+    private static List<Scenario> scenarios(LoadDataSeeder.Dataset dataset) {
+        List<Long> marketIds = dataset.marketIds();
+        List<String> productNames = dataset.productNames();
+        Function<Random, Long> market = r -> marketIds.get(r.nextInt(marketIds.size()));
+        Function<Random, String> product = r -> URLEncoder.encode(
+                productNames.get(r.nextInt(productNames.size())), StandardCharsets.UTF_8);
+
+        return List.of(
+                new Scenario("analytics.product.market", 20,
+                        r -> API + "/analytics/product?productName=" + product.apply(r) + "&marketId=" + market.apply(r) + "&days=30"),
+                new Scenario("analytics.product.national", 10,
+                        r -> API + "/analytics/product?productName=" + product.apply(r) + "&days=90"),
+                new Scenario("analytics.market-comparison", 12,
+                        r -> API + "/analytics/market-comparison?productName=" + product.apply(r) + "&marketId=" + market.apply(r) + "&days=7"),
+                new Scenario("analytics.market-movements", 12,
+                        r -> API + "/analytics/market-movements?marketId=" + market.apply(r) + "&days=7"),
+                new Scenario("analytics.discovery", 4, r -> API + "/analytics/discovery"),
+                new Scenario("markets.stats", 4, r -> API + "/markets/stats"),
+                new Scenario("markets.table", 6, r -> API + "/markets/displayMarkets?page=" + r.nextInt(3)),
+                new Scenario("markets.products", 8, r -> API + "/markets/market-products/" + market.apply(r)),
+                new Scenario("markets.view", 4, r -> API + "/markets/view/" + market.apply(r)),
+                new Scenario("predictions.calibration", 10,
+                        r -> API + "/predictions/calibration-table/" + market.apply(r) + "?page=" + r.nextInt(5)
+                                + "&size=20&sortBy=" + (r.nextBoolean() ? "trendPercentage" : "productName")),
+                new Scenario("predictions.products", 5, r -> API + "/predictions/products?page=" + r.nextInt(5) + "&size=10"),
+                new Scenario("predictions.dashboard", 5, r -> API + "/predictions/dashboard/stats")
+        );
+    }
+
+    private static List<Call> draw(List<Scenario> scenarios, int count, Random random) {
+        int totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+        List<Call> calls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int pick = random.nextInt(totalWeight);
+            for (Scenario scenario : scenarios) {
+                pick -= scenario.weight();
+                if (pick < 0) {
+                    calls.add(new Call(scenario, scenario.path().apply(random)));
+                    break;
+                }
+            }
+        }
+        return calls;
+    }
+
+    /**
+     * Runs the calls with {@code concurrency} workers pulling from a shared cursor.
+     *
+     * @param stats Where latencies go; null for the warm-up.
+     */
+    private void execute(HttpClient client, String baseUrl, String token, List<Call> calls,
+                         Map<String, EndpointStats> stats) throws InterruptedException {
+        AtomicInteger cursor = new AtomicInteger();
+        try (ExecutorService workers = Executors.newFixedThreadPool(concurrency)) {
+            for (int w = 0; w < concurrency; w++) {
+                workers.submit(() -> {
+                    int i;
+                    while ((i = cursor.getAndIncrement()) < calls.size()) {
+                        Call call = calls.get(i);
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + call.path()))
+                                .header("Authorization", token)
+                                .timeout(Duration.ofSeconds(60))
+                                .GET()
+                                .build();
+
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            ok = response.statusCode() < 400;
+                        } catch (IOException e) {
+                            ok = false;
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        long nanos = System.nanoTime() - start;
+
+                        if (stats != null) {
+                            stats.get(call.scenario().name()).record(nanos, ok);
+                        }
+                    }
+                });
+            }
+            workers.shutdown();
+            workers.awaitTermination(1, TimeUnit.HOURS);
+        }
+    }
+
+    private Path writeReport(LoadDataSeeder.Dataset dataset, BulkForecastService.Summary bulk, long bulkMs,
+                             long runMs, Map<String, EndpointStats> stats) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", LocalDateTime.now().toString());
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("years", years);
+        data.put("products", dataset.productNames().size());
+        data.put("markets", dataset.marketIds().size());
+        data.put("priceRecords", dataset.priceRecords());
+        data.put("seed", seed);
+        report.put("dataset", data);
+
+        Map<String, Object> forecast = new LinkedHashMap<>();
+        forecast.put("pairsScanned", bulk.pairsScanned());
+        forecast.put("pairsForecasted", bulk.pairsForecasted());
+        forecast.put("durationMs", bulkMs);
+        report.put("bulkForecast", forecast);
+
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("requests", requests);
+        run.put("warmupRequests", warmupRequests);
+        run.put("concurrency", concurrency);
+        run.put("durationMs", runMs);
+        run.put("throughputRps", Math.round(requests * 10000.0 / Math.max(1, runMs)) / 10.0);
+        report.put("run", run);
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((name, s) -> {
+            Map<String, Object> e = new LinkedHashMap<>();
+            e.put("count", s.count());
+            e.put("errors", s.errors.get());
+            e.put("meanMs", s.meanMs());
+            e.put("p50Ms", s.percentileMs(50));
+            e.put("p90Ms", s.percentileMs(90));
+            e.put("p99Ms", s.percentileMs(99));
+            e.put("maxMs", s.percentileMs(100));
+            endpoints.put(name, e);
+        });
+        report.put("endpoints", endpoints);
+
+        Path dir = Path.of(reportDir);
+        Files.createDirectories(dir);
+        Path file = dir.resolve("load-report-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        return file;
+    }
+
+    /**
+     * Latencies of one endpoint (lock-free: each worker claims a slot).
+     */
+    private static final class EndpointStats {
+
+        private final AtomicLongArray nanos;
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+
+        EndpointStats(int capacity) {
+            this.nanos = new AtomicLongArray(capacity);
+        }
+
+        void record(long latencyNanos, boolean ok) {
+            nanos.set(size.getAndIncrement(), latencyNanos);
+            if (!ok) errors.incrementAndGet();
+        }
+
+        int count() {
+            return size.get();
+        }
+
+        private long[] sorted() {
+            long[] values = new long[count()];
+            for (int i = 0; i < values.length; i++) values[i] = nanos.get(i);
+            Arrays.sort(values);
+            return values;
+        }
+
+        /** Nearest-rank percentile in ms (2 decimals), 0 when there are no samples. */
+        double percentileMs(int percentile) {
+            long[] values = sorted();
+            if (values.length == 0) return 0.0;
+            int rank = (int) Math.ceil(percentile / 100.0 * values.length);
+            return toMs(values[Math.max(0, rank - 1)]);
+        }
+
+        double meanMs() {
+            long[] values = sorted();
+            if (values.length == 0) return 0.0;
+            long total = 0;
+            for (long v : values) total += v;
+            return toMs(total / values.length);
+        }
+
+        private static double toMs(long nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+    }
+}
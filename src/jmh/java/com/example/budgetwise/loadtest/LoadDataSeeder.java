@@ -0,0 +1,179 @@
+package com.example.budgetwise.loadtest;
+
+import com.example.budgetwise.analytics.service.PriceRollupService;
+import com.example.budgetwise.market.entity.MarketLocation;
+import com.example.budgetwise.market.repository.MarketLocationRepository;
+import com.example.budgetwise.prediction.service.RegressionStateService;
+import com.example.budgetwise.price_report.entity.PriceReport;
+import com.example.budgetwise.price_report.repository.PriceReportRepository;
+import com.example.budgetwise.product.entity.ProductInfo;
+import com.example.budgetwise.product.repository.DailyPriceRecordCopyRepository;
+import com.example.budgetwise.product.repository.ProductInfoRepository;
+import com.example.budgetwise.product.service.LatestPriceService;
+import com.example.budgetwise.product.service.PriceRecordPartitionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds a scratch database with synthetic DA price-monitoring history for the load benchmark.
+ * <p>
+ * LOGIC:
+ * 1. Creates {@code markets} markets and {@code products} products (names prefixed with
+ *    {@link #PRODUCT_PREFIX} / {@link #MARKET_PREFIX}), then one COMPLETED price report per
+ *    day over {@code years} years, ending today.
+ * 2. Each day ~85% of the markets report, and each of those reports ~90% of the products.
+ *    Prices follow a per-(product, market) random walk around a per-product base price,
+ *    with a supermarket markup.
+ * 3. Each day's rows go through {@link DailyPriceRecordCopyRepository} (COPY) in their own
+ *    transaction. The derived tables (latest price, regression state, analytics rollups)
+ *    are rebuilt at the end.
+ * 4. The generator is seeded, so the same parameters always produce the same dataset.
+ *    A dataset that already exists is reused, not seeded twice.
+ */
+@Component
+@Profile("load-benchmark")
+@RequiredArgsConstructor
+@Slf4j
+public class LoadDataSeeder {
+
+    static final String PRODUCT_PREFIX = "LT Product ";
+    static final String MARKET_PREFIX = "LT Market ";
+
+    private static final String[] CATEGORIES = {
+            "Rice", "Corn", "Fish Products", "Beef", "Pork Meat Products", "Chicken",
+            "Vegetables", "Fruits", "Spices", "Other Basic Commodities"
+    };
+
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final MarketLocationRepository marketRepository;
+    private final ProductInfoRepository productRepository;
+    private final PriceReportRepository reportRepository;
+    private final DailyPriceRecordCopyRepository copyRepository;
+    private final LatestPriceService latestPriceService;
+    private final RegressionStateService regressionStateService;
+    private final PriceRecordPartitionService partitionService;
+    private final PriceRollupService priceRollupService;
+
+    /**
+     * What the benchmark can query: the seeded ids / names and the dataset size.
+     */
+    public record Dataset(List<Long> marketIds, List<String> productNames, long priceRecords, boolean reused) {}
+
+    public Dataset seed(int years, int productCount, int marketCount, long seed) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_info WHERE product_name LIKE ?", Integer.class, PRODUCT_PREFIX + "%");
+        if (existing != null && existing > 0) {
+            log.info("Load benchmark: reusing the existing dataset ({} products)", existing);
+            priceRollupService.rollupPendingReports();
+            return loadDataset(true);
+        }
+
+        Random random = new Random(seed);
+        LocalDate today = LocalDate.now();
+        LocalDate start = today.minusYears(years).plusDays(1);
+
+        List<MarketLocation> markets = transactionTemplate.execute(status -> {
+            List<MarketLocation> created = new ArrayList<>(marketCount);
+            for (int m = 0; m < marketCount; m++) {
+                MarketLocation market = new MarketLocation();
+                market.setMarketLocation(MARKET_PREFIX + m);
+                market.setType(m % 5 == 0 ? MarketLocation.Type.SUPERMARKET : MarketLocation.Type.WET_MARKET);
+                market.setStatus(MarketLocation.Status.ACTIVE);
+                created.add(market);
+            }
+            return marketRepository.saveAll(created);
+        });
+
+        List<ProductInfo> products = transactionTemplate.execute(status -> {
+            List<ProductInfo> created = new ArrayList<>(productCount);
+            for (int p = 0; p < productCount; p++) {
+                ProductInfo product = new ProductInfo();
+                product.setProductName(PRODUCT_PREFIX + p);
+                product.setCategory(CATEGORIES[p % CATEGORIES.length]);
+                product.setStatus(ProductInfo.Status.ACTIVE);
+                created.add(product);
+            }
+            return productRepository.saveAll(created);
+        });
+
+        // Random walk state per (product, market)
+        double[][] prices = new double[productCount][marketCount];
+        for (int p = 0; p < productCount; p++) {
+            double base = 20 + random.nextDouble() * 480;
+            for (int m = 0; m < marketCount; m++) {
+                double markup = markets.get(m).getType() == MarketLocation.Type.SUPERMARKET ? 1.15 : 1.0;
+                prices[p][m] = base * markup * (0.95 + random.nextDouble() * 0.10);
+            }
+        }
+
+        partitionService.ensurePartitions(start, today);
+
+        long totalRows = 0;
+        long started = System.currentTimeMillis();
+        for (LocalDate date = start; !date.isAfter(today); date = date.plusDays(1)) {
+            LocalDate reportDate = date;
+            Long rows = transactionTemplate.execute(status -> {
+                PriceReport report = new PriceReport();
+                report.setDateReported(reportDate);
+                report.setDateProcessed(reportDate.atStartOfDay());
+                report.setStatus(PriceReport.Status.COMPLETED);
+                report.setDataSource(PriceReport.DataSource.SYSTEM_GENERATED);
+                reportRepository.saveAndFlush(report);
+
+                List<DailyPriceRecordCopyRepository.Row> dayRows = new ArrayList<>();
+                for (int m = 0; m < marketCount; m++) {
+                    if (random.nextDouble() >= 0.85) continue;
+                    for (int p = 0; p < productCount; p++) {
+                        // Walk even when the product is not reported, so gaps don't freeze its price
+                        prices[p][m] = Math.max(1.0, prices[p][m] * (1.0 + random.nextGaussian() * 0.015));
+                        if (random.nextDouble() >= 0.90) continue;
+                        dayRows.add(new DailyPriceRecordCopyRepository.Row(
+                                products.get(p).getId(), report.getId(), markets.get(m).getId(),
+                                Math.round(prices[p][m] * 100.0) / 100.0, "kg", "Local", reportDate));
+                    }
+                }
+                return copyRepository.copy(dayRows);
+            });
+            totalRows += rows != null ? rows : 0;
+
+            if (date.getDayOfMonth() == 1) {
+                log.info("Load benchmark: seeded up to {} ({} rows, {} s)",
+                        date, totalRows, (System.currentTimeMillis() - started) / 1000);
+            }
+        }
+
+        log.info("Load benchmark: {} price records seeded in {} s, rebuilding derived tables",
+                totalRows, (System.currentTimeMillis() - started) / 1000);
+        latestPriceService.rebuildAll();
+        regressionStateService.rebuildAll();
+        priceRollupService.rollupPendingReports();
+
+        return loadDataset(false);
+    }
+
+    private Dataset loadDataset(boolean reused) {
+        List<Long> marketIds = jdbcTemplate.queryForList(
+                "SELECT id FROM market_location WHERE market_location LIKE ? ORDER BY id",
+                Long.class, MARKET_PREFIX + "%");
+        List<String> productNames = jdbcTemplate.queryForList(
+                "SELECT product_name FROM product_info WHERE product_name LIKE ? ORDER BY id",
+                String.class, PRODUCT_PREFIX + "%");
+        Long records = jdbcTemplate.queryForObject("""
+                        SELECT COUNT(*) FROM daily_price_record d
+                        JOIN product_info pi ON pi.id = d.product_info_id
+                        WHERE pi.product_name LIKE ?
+                        """,
+                Long.class, PRODUCT_PREFIX + "%");
+        return new Dataset(marketIds, productNames, records != null ? records : 0, reused);
+    }
+}
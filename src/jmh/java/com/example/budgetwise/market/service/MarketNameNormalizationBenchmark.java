@@ -0,0 +1,48 @@
+package com.example.budgetwise.market.service;
+
+import com.example.budgetwise.benchmark.SyntheticData;
+import com.example.budgetwise.market.entity.MarketLocation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name handling of MarketLocationResolver.findOrCreateMarket: trimming / de-duplicating
+ * the scraped names and diffing them against the stored markets (queries not included).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MarketNameNormalizationBenchmark {
+
+    /** Price reports in one ingestion run (8 covered markets each). */
+    @Param({"1", "30"})
+    int reports;
+
+    List<String> scrapedNames;
+    List<MarketLocation> existing;
+
+    @Setup
+    public void setUp() {
+        scrapedNames = SyntheticData.scrapedMarketNames(new Random(42), reports, SyntheticData.MARKETS);
+        // A few markets are new to the database
+        existing = SyntheticData.existingMarkets(SyntheticData.MARKETS - 5);
+    }
+
+    @Benchmark
+    public Set<String> normalize() {
+        return MarketLocationResolver.normalizeMarketNames(scrapedNames);
+    }
+
+    @Benchmark
+    public List<MarketLocation> normalizeAndDiff() {
+        return MarketLocationResolver.newMarkets(
+                MarketLocationResolver.normalizeMarketNames(scrapedNames), existing);
+    }
+}
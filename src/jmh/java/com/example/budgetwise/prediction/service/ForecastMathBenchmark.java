@@ -0,0 +1,70 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.benchmark.SyntheticData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forecast math for a whole bulk run: every (product, market) pair, from its 30-point
+ * window (per-pair path) or from its sufficient statistics (bulk engine path).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForecastMathBenchmark {
+
+    /** Distinct (product, market) pairs with price history. */
+    @Param({"5000", "" + (SyntheticData.PRODUCTS * SyntheticData.MARKETS)})
+    int pairs;
+
+    double[][] windows;
+    double[][] sums;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        windows = new double[pairs][];
+        sums = new double[pairs][];
+        for (int p = 0; p < pairs; p++) {
+            double[] window = SyntheticData.priceWindow(random, ForecastCalculator.WINDOW_SIZE,
+                    20 + random.nextDouble() * 480);
+            double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0, sumYY = 0;
+            for (int i = 0; i < window.length; i++) {
+                sumX += i;
+                sumY += window[i];
+                sumXY += i * window[i];
+                sumXX += (double) i * i;
+                sumYY += window[i] * window[i];
+            }
+            windows[p] = window;
+            sums[p] = new double[]{sumX, sumY, sumXY, sumXX, sumYY};
+        }
+    }
+
+    @Benchmark
+    public void perPairWindows(Blackhole bh) {
+        PriceSeries series = new PriceSeries(ForecastCalculator.WINDOW_SIZE);
+        for (double[] window : windows) {
+            series.clear();
+            for (double price : window) {
+                series.add(0, price);
+            }
+            bh.consume(ForecastCalculator.forecast(series));
+        }
+    }
+
+    @Benchmark
+    public void sufficientStatistics(Blackhole bh) {
+        for (int p = 0; p < pairs; p++) {
+            double[] s = sums[p];
+            bh.consume(ForecastCalculator.forecast(ForecastCalculator.WINDOW_SIZE,
+                    s[0], s[1], s[2], s[3], s[4], windows[p]));
+        }
+    }
+}
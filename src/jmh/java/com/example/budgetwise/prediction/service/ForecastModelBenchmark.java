@@ -0,0 +1,56 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.benchmark.SyntheticData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 7-day projection of every (product, market) pair by each {@link ForecastModel}, on the
+ * 30-point window (what one bulk run costs per model, and what the backtest pays per as-of date).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForecastModelBenchmark {
+
+    @Param({LinearTrendModel.NAME, HoltModel.NAME, SeasonalNaiveModel.NAME, MedianModel.NAME})
+    String model;
+
+    @Param({"" + (SyntheticData.PRODUCTS * SyntheticData.MARKETS)})
+    int pairs;
+
+    ForecastModel forecastModel;
+    double[][] windows;
+
+    @Setup
+    public void setUp() {
+        forecastModel = switch (model) {
+            case HoltModel.NAME -> new HoltModel(0.5, 0.2, 0.9);
+            case SeasonalNaiveModel.NAME -> new SeasonalNaiveModel();
+            case MedianModel.NAME -> new MedianModel(7);
+            default -> new LinearTrendModel();
+        };
+
+        Random random = new Random(42);
+        windows = new double[pairs][];
+        for (int p = 0; p < pairs; p++) {
+            windows[p] = SyntheticData.priceWindow(random, ForecastCalculator.WINDOW_SIZE,
+                    20 + random.nextDouble() * 480);
+        }
+    }
+
+    @Benchmark
+    public void projectAllPairs(Blackhole bh) {
+        double[] path = new double[ForecastCalculator.HORIZON_DAYS];
+        for (double[] window : windows) {
+            forecastModel.forecast(window, 0, window.length, path);
+            bh.consume(path[ForecastCalculator.HORIZON_DAYS - 1]);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.budgetwise.prediction.service;
+
+import org.apache.commons.math3.stat.regression.SimpleRegression;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-pair forecasting statistics: the previous SimpleRegression + boxed streams
+ * implementation against the single-pass {@link PriceSeries} kernel.
+ * <p>
+ * Both sides start from the same newest-first history (what the repository returns)
+ * and produce mean, CV, slope / intercept / R², MAPE and the 7-day projection.
+ * <p>
+ * Run: mvn -P benchmarks test-compile exec:exec -Djmh.args="PriceSeriesBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PriceSeriesBenchmark {
+
+    /** Stand-in for a DailyPriceRecord: a boxed, newest-first history. */
+    public record Point(LocalDate date, Double price) {}
+
+    @Param({"14", "30"})
+    int points;
+
+    List<Point> history;
+    PriceSeries series;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDate date = LocalDate.of(2025, 1, 1);
+        history = new ArrayList<>(points);
+        double price = 120.0;
+        for (int i = 0; i < points; i++) {
+            price = Math.max(1.0, price + random.nextGaussian() * 3.0);
+            history.add(0, new Point(date.plusDays(i), price));
+        }
+        series = new PriceSeries(ForecastCalculator.WINDOW_SIZE);
+    }
+
+    @Benchmark
+    public void legacyStatistics(Blackhole bh) {
+        SimpleRegression regression = new SimpleRegression();
+        for (int i = 0; i < history.size(); i++) {
+            regression.addData(i, history.get(history.size() - 1 - i).price());
+        }
+
+        double avgPrice = history.stream()
+                .mapToDouble(Point::price)
+                .average()
+                .orElse(0.0);
+        double variance = history.stream()
+                .mapToDouble(p -> Math.pow(p.price() - avgPrice, 2))
+                .average()
+                .orElse(0.0);
+        double cv = avgPrice > 0 ? Math.sqrt(variance) / avgPrice * 100 : 0;
+
+        double totalError = 0.0;
+        int checked = Math.min(10, history.size() - 1);
+        for (int i = 0; i < checked; i++) {
+            double actual = history.get(i).price();
+            totalError += Math.abs((actual - regression.predict(history.size() - 1 - i)) / actual) * 100;
+        }
+
+        bh.consume(regression.getSlope());
+        bh.consume(regression.getRSquare());
+        bh.consume(cv);
+        bh.consume(totalError / checked);
+        for (int day = 1; day <= ForecastCalculator.HORIZON_DAYS; day++) {
+            bh.consume(Math.max(0.0, regression.predict(history.size() + day - 1)));
+        }
+    }
+
+    @Benchmark
+    public void kernelStatistics(Blackhole bh) {
+        series.clear();
+        for (int i = history.size() - 1; i >= 0; i--) {
+            Point p = history.get(i);
+            series.add((int) p.date().toEpochDay(), p.price());
+        }
+        series.fit();
+
+        bh.consume(series.slope());
+        bh.consume(series.rSquare());
+        bh.consume(series.coefficientOfVariation());
+        bh.consume(series.mape());
+        for (int day = 1; day <= ForecastCalculator.HORIZON_DAYS; day++) {
+            bh.consume(Math.max(0.0, series.predict(series.size() + day - 1)));
+        }
+    }
+
+    /**
+     * Full per-pair forecast as used by generateForecast (adds confidence and statuses).
+     */
+    @Benchmark
+    public ForecastCalculator.Result kernelForecast() {
+        series.clear();
+        for (int i = history.size() - 1; i >= 0; i--) {
+            Point p = history.get(i);
+            series.add((int) p.date().toEpochDay(), p.price());
+        }
+        return ForecastCalculator.forecast(series);
+    }
+}
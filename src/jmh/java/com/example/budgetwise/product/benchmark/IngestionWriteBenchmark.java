@@ -0,0 +1,206 @@
+package com.example.budgetwise.product.benchmark;
+
+import com.example.budgetwise.market.entity.MarketLocation;
+import com.example.budgetwise.market.repository.MarketLocationRepository;
+import com.example.budgetwise.price_report.entity.PriceReport;
+import com.example.budgetwise.price_report.repository.PriceReportRepository;
+import com.example.budgetwise.product.entity.DailyPriceRecord;
+import com.example.budgetwise.product.entity.ProductInfo;
+import com.example.budgetwise.product.repository.DailyPriceRecordCopyRepository;
+import com.example.budgetwise.product.repository.DailyPriceRecordRepository;
+import com.example.budgetwise.product.repository.ProductInfoRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Write-path benchmark for daily_price_record ingestion.
+ * <p>
+ * Lives with the JMH sources (benchmarks profile), so it is not part of the application.
+ * Run against a scratch database with:
+ * {@code ./mvnw -P benchmarks spring-boot:test-run -Dspring-boot.run.profiles=ingest-benchmark}
+ * <p>
+ * LOGIC:
+ * 1. Builds a synthetic report (200 products x 100 markets = 20,000 rows) inside a transaction.
+ * 2. Writes the rows with one strategy, measures rows/sec, then ROLLS BACK (nothing is kept).
+ * 3. Strategies:
+ *    - ROW_BY_ROW: one INSERT round-trip per row, the pattern IDENTITY ids forced on saveAll.
+ *    - JPA_BATCHED: saveAll with sequence ids + hibernate.jdbc.batch_size, one saveAll per product.
+ *    - COPY: the whole report through {@link DailyPriceRecordCopyRepository}.
+ * Each strategy gets one warm-up round and {@link #MEASURED_ROUNDS} measured rounds.
+ * <p>
+ * No reference rows/sec figures are recorded here: they depend on the database host,
+ * so compare the three strategies from one run on the target environment.
+ */
+@Component
+@Profile("ingest-benchmark")
+@RequiredArgsConstructor
+@Slf4j
+public class IngestionWriteBenchmark implements CommandLineRunner {
+
+    private static final int PRODUCTS = 200;
+    private static final int MARKETS = 100;
+    private static final int MEASURED_ROUNDS = 3;
+
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final MarketLocationRepository marketRepository;
+    private final ProductInfoRepository productRepository;
+    private final PriceReportRepository reportRepository;
+    private final DailyPriceRecordRepository recordRepository;
+    private final DailyPriceRecordCopyRepository copyRepository;
+
+    private record Fixture(PriceReport report, List<ProductInfo> products, List<MarketLocation> markets,
+                           double[] prices) {}
+
+    @Override
+    public void run(String... args) {
+        log.info("Ingestion write benchmark: {} products x {} markets = {} rows per report",
+                PRODUCTS, MARKETS, PRODUCTS * MARKETS);
+
+        measure("ROW_BY_ROW", this::writeRowByRow);
+        measure("JPA_BATCHED", this::writeJpaBatched);
+        measure("COPY", this::writeCopy);
+    }
+
+    private void measure(String strategy, Function<Fixture, Long> writer) {
+        runRound(writer); // warm-up
+
+        double best = 0;
+        double total = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            double rowsPerSec = runRound(writer);
+            best = Math.max(best, rowsPerSec);
+            total += rowsPerSec;
+        }
+
+        log.info("Ingestion write benchmark [{}]: avg {} rows/sec, best {} rows/sec",
+                strategy, String.format("%.0f", total / MEASURED_ROUNDS), String.format("%.0f", best));
+    }
+
+    /**
+     * One round in its own transaction, always rolled back.
+     *
+     * @return Rows per second of the write step only (fixture setup is not timed).
+     */
+    private double runRound(Function<Fixture, Long> writer) {
+        Double rowsPerSec = transactionTemplate.execute(status -> {
+            Fixture fixture = createFixture();
+
+            long start = System.nanoTime();
+            long rows = writer.apply(fixture);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            status.setRollbackOnly();
+            return rows / seconds;
+        });
+        return rowsPerSec != null ? rowsPerSec : 0;
+    }
+
+    private Fixture createFixture() {
+        String runTag = Long.toString(System.nanoTime(), 36);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        PriceReport report = new PriceReport();
+        // Current month: its partition always exists (and every round is rolled back)
+        report.setDateReported(LocalDate.now());
+        report.setDateProcessed(LocalDateTime.now());
+        report.setStatus(PriceReport.Status.COMPLETED);
+        report.setDataSource(PriceReport.DataSource.SYSTEM_GENERATED);
+        reportRepository.save(report);
+
+        List<MarketLocation> markets = new ArrayList<>(MARKETS);
+        for (int i = 0; i < MARKETS; i++) {
+            MarketLocation market = new MarketLocation();
+            market.setMarketLocation("bench-market-" + runTag + "-" + i);
+            market.setType(MarketLocation.Type.WET_MARKET);
+            market.setStatus(MarketLocation.Status.ACTIVE);
+            markets.add(market);
+        }
+        marketRepository.saveAll(markets);
+
+        List<ProductInfo> products = new ArrayList<>(PRODUCTS);
+        double[] prices = new double[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductInfo product = new ProductInfo();
+            product.setProductName("bench-product-" + runTag + "-" + i);
+            product.setCategory("BENCHMARK");
+            product.setStatus(ProductInfo.Status.ACTIVE);
+            products.add(product);
+            prices[i] = 20 + random.nextDouble() * 480;
+        }
+        productRepository.saveAll(products);
+
+        entityManager.flush();
+        entityManager.clear();
+        return new Fixture(report, products, markets, prices);
+    }
+
+    private long writeRowByRow(Fixture f) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long rows = 0;
+        for (int p = 0; p < f.products().size(); p++) {
+            for (MarketLocation market : f.markets()) {
+                rows += jdbcTemplate.update("""
+                                INSERT INTO daily_price_record
+                                    (id, price, unit, origin, created_at, updated_at,
+                                     product_info_id, price_report_id, market_location_id, report_date)
+                                VALUES (nextval('daily_price_record_seq'), ?, 'kg', 'Local', ?, ?, ?, ?, ?, ?)
+                                """,
+                        f.prices()[p], now, now, f.products().get(p).getId(), f.report().getId(), market.getId(),
+                        f.report().getDateReported());
+            }
+        }
+        return rows;
+    }
+
+    private long writeJpaBatched(Fixture f) {
+        PriceReport report = entityManager.getReference(PriceReport.class, f.report().getId());
+        long rows = 0;
+        for (int p = 0; p < f.products().size(); p++) {
+            ProductInfo product = entityManager.getReference(ProductInfo.class, f.products().get(p).getId());
+            List<DailyPriceRecord> batch = new ArrayList<>(f.markets().size());
+            for (MarketLocation market : f.markets()) {
+                DailyPriceRecord record = new DailyPriceRecord();
+                record.setPrice(f.prices()[p]);
+                record.setUnit("kg");
+                record.setOrigin("Local");
+                record.setProductInfo(product);
+                record.setPriceReport(report);
+                record.setReportDate(f.report().getDateReported());
+                record.setMarketLocation(entityManager.getReference(MarketLocation.class, market.getId()));
+                batch.add(record);
+            }
+            recordRepository.saveAll(batch);
+            rows += batch.size();
+        }
+        entityManager.flush();
+        return rows;
+    }
+
+    private long writeCopy(Fixture f) {
+        List<DailyPriceRecordCopyRepository.Row> rows = new ArrayList<>(f.products().size() * f.markets().size());
+        for (int p = 0; p < f.products().size(); p++) {
+            for (MarketLocation market : f.markets()) {
+                rows.add(new DailyPriceRecordCopyRepository.Row(
+                        f.products().get(p).getId(), f.report().getId(), market.getId(),
+                        f.prices()[p], "kg", "Local", f.report().getDateReported()));
+            }
+        }
+        return copyRepository.copy(rows);
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.budgetwise;
 
+import com.example.budgetwise.analytics.service.PriceRollupService;
+import com.example.budgetwise.prediction.service.RegressionStateService;
 import com.example.budgetwise.product.entity.DailyPriceRecord;
 import com.example.budgetwise.price_report.entity.PriceReport;
 import com.example.budgetwise.product.entity.ProductInfo;
@@ -8,6 +10,8 @@ import com.example.budgetwise.market.repository.MarketLocationRepository;
 import com.example.budgetwise.product.repository.DailyPriceRecordRepository;
 import com.example.budgetwise.price_report.repository.PriceReportRepository;
 import com.example.budgetwise.product.repository.ProductInfoRepository;
+import com.example.budgetwise.product.service.LatestPriceService;
+import com.example.budgetwise.product.service.PriceRecordPartitionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -25,6 +29,10 @@ public class DataSeeder implements CommandLineRunner {
     private final ProductInfoRepository productRepository;
     private final PriceReportRepository reportRepository;
     private final DailyPriceRecordRepository recordRepository;
+    private final PriceRecordPartitionService partitionService;
+    private final PriceRollupService rollupService;
+    private final LatestPriceService latestPriceService;
+    private final RegressionStateService regressionStateService;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // CONFIGURATION: Number of months of historical data to generate
@@ -33,11 +41,19 @@ public class DataSeeder implements CommandLineRunner {
     public DataSeeder(MarketLocationRepository marketRepository,
                       ProductInfoRepository productRepository,
                       PriceReportRepository reportRepository,
-                      DailyPriceRecordRepository recordRepository) {
+                      DailyPriceRecordRepository recordRepository,
+                      PriceRecordPartitionService partitionService,
+                      PriceRollupService rollupService,
+                      LatestPriceService latestPriceService,
+                      RegressionStateService regressionStateService) {
         this.marketRepository = marketRepository;
         this.productRepository = productRepository;
         this.reportRepository = reportRepository;
         this.recordRepository = recordRepository;
+        this.partitionService = partitionService;
+        this.rollupService = rollupService;
+        this.latestPriceService = latestPriceService;
+        this.regressionStateService = regressionStateService;
     }
 
     @Override
@@ -52,6 +68,9 @@ public class DataSeeder implements CommandLineRunner {
         LocalDate today = LocalDate.now();
         LocalDate targetStartDate = today.minusMonths(MONTHS_TO_SEED);
 
+        // Price record partitions of the seeded months (own transactions, before any price row is touched)
+        partitionService.ensurePartitions(targetStartDate, today);
+
         // === FIX: FORCE RESET IF DATA IS INSUFFICIENT ===
         // Check if we have enough historical data (approx 120 days for 4 months)
         long currentRecordCount = reportRepository.count();
@@ -63,6 +82,13 @@ public class DataSeeder implements CommandLineRunner {
             // Delete all records to ensure a clean, consistent linear trend
             recordRepository.deleteAll();
             reportRepository.deleteAll();
+            reportRepository.flush();
+
+            // Tables derived from history would otherwise keep the purged prices;
+            // with no history left these empty them, the seeded days below refill them
+            rollupService.rebuildAll();
+            latestPriceService.rebuildAll();
+            regressionStateService.rebuildAll();
 
             System.out.println("✅ Purge complete. Starting fresh seeding...");
         }
@@ -102,6 +128,7 @@ public class DataSeeder implements CommandLineRunner {
             reportRepository.save(report);
 
             List<DailyPriceRecord> batchRecords = new ArrayList<>();
+            Map<MarketLocation, Map<Long, Double>> pricesByMarket = new LinkedHashMap<>();
 
             long daysPassed = ChronoUnit.DAYS.between(targetStartDate, date);
             double timeProgress = (double) daysPassed / totalDaysSpan;
@@ -111,6 +138,7 @@ public class DataSeeder implements CommandLineRunner {
 
                 // Track which products were already added for this market on this date
                 Set<Long> addedProductIds = new HashSet<>();
+                Map<Long, Double> marketPrices = pricesByMarket.computeIfAbsent(market, m -> new LinkedHashMap<>());
 
                 for (PriceItem item : sourceData.price_data) {
                     ProductInfo product = productMap.get(item.commodity + "|" + item.category);
@@ -135,14 +163,24 @@ public class DataSeeder implements CommandLineRunner {
                     record.setMarketLocation(market);
                     record.setProductInfo(product);
                     record.setPriceReport(report);
+                    record.setReportDate(date);
 
                     batchRecords.add(record);
+                    marketPrices.put(product.getId(), record.getPrice());
 
                     addedProductIds.add(product.getId());
                 }
             }
             recordRepository.saveAll(batchRecords);
 
+            // Same bookkeeping as ingestion, so no startup catch-up has to find these rows in history
+            Set<Long> reportProductIds = new HashSet<>();
+            pricesByMarket.values().forEach(prices -> reportProductIds.addAll(prices.keySet()));
+            latestPriceService.recordReportProducts(report.getId(), reportProductIds);
+            for (Map.Entry<MarketLocation, Map<Long, Double>> market : pricesByMarket.entrySet()) {
+                regressionStateService.recordPrices(market.getValue(), List.of(market.getKey()), date);
+            }
+
             if (date.getDayOfMonth() == 1 || date.getDayOfMonth() == 15) {
                 System.out.println(">> Seeded: " + date + " (Progress: " + String.format("%.0f", timeProgress * 100) + "%)");
             }
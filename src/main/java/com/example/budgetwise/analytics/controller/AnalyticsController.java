@@ -24,16 +24,24 @@ public class AnalyticsController {
      * * GET /api/v1/analytics/product
      * - If marketId is present: Returns stats for that specific market.
      * - If marketId is missing: Returns the National Average across all markets.
-     * * @param productName Exact name of the product (case-sensitive).
+     * * @param productId ID of the product (preferred, see the discovery endpoint).
+     * @param productName Name of the product (case-insensitive), used when productId is missing.
      * @param marketId (Optional) ID of the market location.
      * @param days (Optional) Number of days to look back (Default: 30 days).
      */
     @GetMapping("/product")
     public ResponseEntity<ProductAnalyticsResponse> getProductAnalytics(
-            @RequestParam("productName") String productName,
+            @RequestParam(value = "productId", required = false) Long productId,
+            @RequestParam(value = "productName", required = false) String productName,
             @RequestParam(value = "marketId", required = false) Long marketId,
             @RequestParam(value = "days", defaultValue = "30") int days // Default 30 days
     ) {
+        if (productId != null) {
+            return ResponseEntity.ok(analyticsService.getProductAnalytics(productId, marketId, days));
+        }
+        if (productName == null || productName.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
         return ResponseEntity.ok(analyticsService.getProductAnalytics(productName, marketId, days));
     }
 
@@ -45,14 +53,19 @@ public class AnalyticsController {
     }
 
 
+    /**
+     * Average price of a product per market over the last {@code days} days.
+     * Accepts {@code productId} (preferred) or {@code productName}.
+     */
     @GetMapping("/market-comparison")
     public ResponseEntity<List<MarketComparisonChart>> getMarketComparison(
-            @RequestParam String productName,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) String productName,
             @RequestParam Long marketId,
             @RequestParam(defaultValue = "7") int days) {
 
 
-        if (productName == null || productName.trim().isEmpty()) {
+        if (productId == null && (productName == null || productName.trim().isEmpty())) {
             return ResponseEntity.badRequest().build();
         }
 
@@ -60,7 +73,9 @@ public class AnalyticsController {
             return ResponseEntity.badRequest().build();
         }
 
-                List<MarketComparisonChart> comparisonData = analyticsService.getMarketComparison(productName, marketId, days);
+                List<MarketComparisonChart> comparisonData = productId != null
+                        ? analyticsService.getMarketComparison(productId, marketId, days)
+                        : analyticsService.getMarketComparison(productName, marketId, days);
 
         if (comparisonData.isEmpty()) {
             return ResponseEntity.noContent().build();
@@ -0,0 +1,66 @@
+package com.example.budgetwise.analytics.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/admin/cache")
+@RequiredArgsConstructor
+public class CacheAdminController {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Hit / miss / eviction counters of every read cache since startup.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> caches = new LinkedHashMap<>();
+
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (!(cache instanceof CaffeineCache caffeineCache)) continue;
+
+            CacheStats stats = caffeineCache.getNativeCache().stats();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("size", caffeineCache.getNativeCache().estimatedSize());
+            entry.put("hits", stats.hitCount());
+            entry.put("misses", stats.missCount());
+            entry.put("hitRate", stats.hitRate());
+            entry.put("evictions", stats.evictionCount());
+            caches.put(name, entry);
+        }
+
+        return ResponseEntity.ok(Map.of(
+                "caches", caches,
+                "timestamp", LocalDateTime.now()
+        ));
+    }
+
+    /**
+     * Manual escape hatch after out-of-band data fixes (e.g. direct SQL).
+     */
+    @PostMapping("/clear")
+    public ResponseEntity<Map<String, Object>> clearCaches() {
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) cache.invalidate();
+        }
+        return ResponseEntity.ok(Map.of(
+                "status", "CLEARED",
+                "timestamp", LocalDateTime.now()
+        ));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.budgetwise.analytics.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Daily price aggregate of one (product, market) pair: one row per report date.
+ * <p>
+ * Written when a report is COMPLETED (see {@code PriceRollupService}), so analytics charts
+ * read one row per day instead of every raw record of the day. Sum and count are stored
+ * (not the average) so windows over several days / products stay exact averages.
+ */
+@Table(name = "daily_price_rollup",
+        indexes = {
+                @Index(name = "idx_daily_rollup_product_date", columnList = "product_info_id, report_date"),
+                @Index(name = "idx_daily_rollup_market_date", columnList = "market_location_id, report_date")
+        })
+@Entity
+@IdClass(DailyPriceRollup.Key.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class DailyPriceRollup {
+
+    @Id
+    @Column(name = "product_info_id")
+    private Long productInfoId;
+
+    @Id
+    @Column(name = "market_location_id")
+    private Long marketLocationId;
+
+    @Id
+    @Column(name = "report_date")
+    private LocalDate reportDate;
+
+    @Column(name = "min_price", nullable = false)
+    private double minPrice;
+
+    @Column(name = "max_price", nullable = false)
+    private double maxPrice;
+
+    @Column(name = "price_sum", nullable = false)
+    private double priceSum;
+
+    @Column(name = "price_count", nullable = false)
+    private long priceCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long productInfoId;
+        private Long marketLocationId;
+        private LocalDate reportDate;
+    }
+}
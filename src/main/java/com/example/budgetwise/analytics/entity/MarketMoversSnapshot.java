@@ -0,0 +1,67 @@
+package com.example.budgetwise.analytics.entity;
+
+import com.example.budgetwise.analytics.dto.PriceMovement;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Precomputed top gainers / decliners of one market for one look-back window.
+ * <p>
+ * Rebuilt after each ingestion (see {@code MarketMoversService}), so the market-movements
+ * endpoint is a primary-key read. {@link #endDate} is the latest report date the snapshot
+ * was computed for: a snapshot for an older date is stale and ignored.
+ */
+@Table(name = "market_movers_snapshot")
+@Entity
+@IdClass(MarketMoversSnapshot.Key.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class MarketMoversSnapshot {
+
+    @Id
+    @Column(name = "market_location_id")
+    private Long marketLocationId;
+
+    @Id
+    @Column(name = "window_days")
+    private Integer windowDays;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "top_gainers", columnDefinition = "jsonb", nullable = false)
+    private List<PriceMovement> topGainers;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "top_decliners", columnDefinition = "jsonb", nullable = false)
+    private List<PriceMovement> topDecliners;
+
+    @Column(name = "gainers_count", nullable = false)
+    private int gainersCount;
+
+    @Column(name = "decliners_count", nullable = false)
+    private int declinersCount;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long marketLocationId;
+        private Integer windowDays;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.budgetwise.analytics.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Daily price aggregate of one product over every record of the day (all markets),
+ * the source of the "National Average" charts. Maintained with {@link DailyPriceRollup}.
+ */
+@Table(name = "national_price_rollup")
+@Entity
+@IdClass(NationalPriceRollup.Key.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class NationalPriceRollup {
+
+    @Id
+    @Column(name = "product_info_id")
+    private Long productInfoId;
+
+    @Id
+    @Column(name = "report_date")
+    private LocalDate reportDate;
+
+    @Column(name = "min_price", nullable = false)
+    private double minPrice;
+
+    @Column(name = "max_price", nullable = false)
+    private double maxPrice;
+
+    @Column(name = "price_sum", nullable = false)
+    private double priceSum;
+
+    @Column(name = "price_count", nullable = false)
+    private long priceCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long productInfoId;
+        private LocalDate reportDate;
+    }
+}
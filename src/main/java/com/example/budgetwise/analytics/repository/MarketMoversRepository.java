@@ -0,0 +1,88 @@
+package com.example.budgetwise.analytics.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+/**
+ * Price change per (market, product) between two report dates, in one windowed query.
+ * <p>
+ * PERFORMANCE STRATEGY:
+ * 1. Reads {@code daily_price_rollup} (one row per product, market and day) instead of the
+ *    raw records: only the two report dates of each market are touched.
+ * 2. The two dates of a market are single index probes on (market_location_id, report_date):
+ *    the latest date on or before the window end / start, falling back to the market's first date.
+ * 3. LAG over the report date pairs each product's end price with its start price, so no
+ *    second query and no Java-side join by product name. Products sharing a name are averaged
+ *    together, as the per-date lookups did.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MarketMoversRepository {
+
+    private static final String SQL = """
+            WITH bounds AS (
+                SELECT m.id AS market_id,
+                       COALESCE((SELECT MAX(r.report_date) FROM daily_price_rollup r
+                                 WHERE r.market_location_id = m.id AND r.report_date <= ?),
+                                (SELECT MIN(r.report_date) FROM daily_price_rollup r
+                                 WHERE r.market_location_id = m.id)) AS end_date,
+                       COALESCE((SELECT MAX(r.report_date) FROM daily_price_rollup r
+                                 WHERE r.market_location_id = m.id AND r.report_date <= ?),
+                                (SELECT MIN(r.report_date) FROM daily_price_rollup r
+                                 WHERE r.market_location_id = m.id)) AS start_date
+                FROM market_location m
+                WHERE %s
+            ),
+            prices AS (
+                SELECT r.market_location_id,
+                       pi.product_name,
+                       r.report_date,
+                       b.end_date,
+                       SUM(r.price_sum) / SUM(r.price_count) AS price,
+                       LAG(SUM(r.price_sum) / SUM(r.price_count)) OVER (
+                           PARTITION BY r.market_location_id, pi.product_name
+                           ORDER BY r.report_date
+                       ) AS old_price
+                FROM bounds b
+                JOIN daily_price_rollup r ON r.market_location_id = b.market_id
+                                         AND r.report_date IN (b.start_date, b.end_date)
+                JOIN product_info pi ON pi.id = r.product_info_id
+                GROUP BY r.market_location_id, pi.product_name, r.report_date, b.end_date
+            )
+            SELECT market_location_id, product_name, price, old_price
+            FROM prices
+            WHERE report_date = end_date
+              AND old_price IS NOT NULL
+            ORDER BY market_location_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @FunctionalInterface
+    public interface PriceChangeHandler {
+        void accept(long marketId, String productName, double currentPrice, double oldPrice);
+    }
+
+    /**
+     * Products present on both dates of one market. When both dates are the same day
+     * (a single report), nothing is returned.
+     */
+    public void findPriceChanges(Long marketId, LocalDate endDate, LocalDate startDate, PriceChangeHandler handler) {
+        jdbcTemplate.query(SQL.formatted("m.id = ?"), rowHandler(handler), endDate, startDate, marketId);
+    }
+
+    /**
+     * Same for every ACTIVE market, ordered by market (snapshot refresh).
+     */
+    public void findPriceChangesForActiveMarkets(LocalDate endDate, LocalDate startDate, PriceChangeHandler handler) {
+        jdbcTemplate.query(SQL.formatted("m.status = 'ACTIVE'"), rowHandler(handler), endDate, startDate);
+    }
+
+    private static RowCallbackHandler rowHandler(PriceChangeHandler handler) {
+        return rs -> handler.accept(rs.getLong(1), rs.getString(2), rs.getDouble(3), rs.getDouble(4));
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.budgetwise.analytics.repository;
+
+import com.example.budgetwise.analytics.entity.MarketMoversSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MarketMoversSnapshotRepository extends JpaRepository<MarketMoversSnapshot, MarketMoversSnapshot.Key> {
+
+    @Modifying
+    @Query(value = "DELETE FROM market_movers_snapshot", nativeQuery = true)
+    int deleteAllRows();
+}
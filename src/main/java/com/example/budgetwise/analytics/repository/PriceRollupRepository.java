@@ -0,0 +1,242 @@
+package com.example.budgetwise.analytics.repository;
+
+import com.example.budgetwise.analytics.dto.MarketComparisonChart;
+import com.example.budgetwise.analytics.dto.PriceHistoryPoint;
+import com.example.budgetwise.analytics.entity.DailyPriceRollup;
+import com.example.budgetwise.analytics.repository.projection.SummaryStatsProjection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads and maintenance of the analytics rollups ({@code daily_price_rollup},
+ * {@code national_price_rollup}).
+ * <p>
+ * Reads are keyed by product id and report date: a chart costs one row per day
+ * (per market for the comparison), whatever the number of raw records of the day.
+ * Averages are {@code SUM(price_sum) / SUM(price_count)}, identical to AVG over the raw rows.
+ */
+@Repository
+public interface PriceRollupRepository extends JpaRepository<DailyPriceRollup, DailyPriceRollup.Key> {
+
+    // ---------------------------------------------------------------- reads
+
+    @Query("""
+        SELECT SUM(r.priceSum) / SUM(r.priceCount)
+        FROM DailyPriceRollup r
+        WHERE r.productInfoId IN :productIds
+          AND r.marketLocationId = :marketId
+          AND r.reportDate < :startDate
+    """)
+    Optional<Double> findMarketAverageBefore(@Param("productIds") Collection<Long> productIds,
+                                             @Param("marketId") Long marketId,
+                                             @Param("startDate") LocalDate startDate);
+
+    @Query("""
+        SELECT SUM(r.priceSum) / SUM(r.priceCount)
+        FROM NationalPriceRollup r
+        WHERE r.productInfoId IN :productIds
+          AND r.reportDate < :startDate
+    """)
+    Optional<Double> findNationalAverageBefore(@Param("productIds") Collection<Long> productIds,
+                                               @Param("startDate") LocalDate startDate);
+
+    @Query("""
+        SELECT new com.example.budgetwise.analytics.dto.PriceHistoryPoint(
+            r.reportDate,
+            SUM(r.priceSum) / SUM(r.priceCount)
+        )
+        FROM DailyPriceRollup r
+        WHERE r.productInfoId IN :productIds
+          AND r.marketLocationId = :marketId
+          AND r.reportDate >= :startDate
+        GROUP BY r.reportDate
+        ORDER BY r.reportDate ASC
+    """)
+    List<PriceHistoryPoint> findMarketHistory(@Param("productIds") Collection<Long> productIds,
+                                              @Param("marketId") Long marketId,
+                                              @Param("startDate") LocalDate startDate);
+
+    @Query("""
+        SELECT new com.example.budgetwise.analytics.dto.PriceHistoryPoint(
+            r.reportDate,
+            SUM(r.priceSum) / SUM(r.priceCount)
+        )
+        FROM NationalPriceRollup r
+        WHERE r.productInfoId IN :productIds
+          AND r.reportDate >= :startDate
+        GROUP BY r.reportDate
+        ORDER BY r.reportDate ASC
+    """)
+    List<PriceHistoryPoint> findNationalHistory(@Param("productIds") Collection<Long> productIds,
+                                                @Param("startDate") LocalDate startDate);
+
+    @Query("""
+        SELECT MIN(r.minPrice) AS minPrice,
+               MAX(r.maxPrice) AS maxPrice,
+               SUM(r.priceSum) / SUM(r.priceCount) AS avgPrice
+        FROM DailyPriceRollup r
+        WHERE r.productInfoId IN :productIds
+          AND r.marketLocationId = :marketId
+          AND r.reportDate >= :startDate
+    """)
+    Optional<SummaryStatsProjection> findMarketStats(@Param("productIds") Collection<Long> productIds,
+                                                     @Param("marketId") Long marketId,
+                                                     @Param("startDate") LocalDate startDate);
+
+    @Query("""
+        SELECT MIN(r.minPrice) AS minPrice,
+               MAX(r.maxPrice) AS maxPrice,
+               SUM(r.priceSum) / SUM(r.priceCount) AS avgPrice
+        FROM NationalPriceRollup r
+        WHERE r.productInfoId IN :productIds
+          AND r.reportDate >= :startDate
+    """)
+    Optional<SummaryStatsProjection> findNationalStats(@Param("productIds") Collection<Long> productIds,
+                                                       @Param("startDate") LocalDate startDate);
+
+    @Query("""
+        SELECT new com.example.budgetwise.analytics.dto.MarketComparisonChart(
+            m.marketLocation,
+            SUM(r.priceSum) / SUM(r.priceCount),
+            (m.id = :targetMarketId)
+        )
+        FROM DailyPriceRollup r
+        JOIN MarketLocation m ON m.id = r.marketLocationId
+        WHERE r.productInfoId IN :productIds
+          AND r.reportDate >= :startDate
+        GROUP BY m.id, m.marketLocation
+        ORDER BY SUM(r.priceSum) / SUM(r.priceCount) ASC
+    """)
+    List<MarketComparisonChart> findMarketComparison(@Param("productIds") Collection<Long> productIds,
+                                                     @Param("targetMarketId") Long targetMarketId,
+                                                     @Param("startDate") LocalDate startDate);
+
+    // ---------------------------------------------------------- maintenance
+
+    /**
+     * COMPLETED reports not rolled up yet, row-locked for the calling transaction.
+     * Reports locked by a concurrent roll-up are skipped (they are that transaction's work).
+     */
+    @Query(value = """
+        SELECT id FROM price_report
+        WHERE status = 'COMPLETED'
+          AND rolled_up_at IS NULL
+        ORDER BY id
+        FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<Long> lockReportsPendingRollup();
+
+    @Modifying
+    @Query(value = "UPDATE price_report SET rolled_up_at = :now WHERE id IN (:reportIds)", nativeQuery = true)
+    int markRolledUp(@Param("reportIds") Collection<Long> reportIds, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "UPDATE price_report SET rolled_up_at = NULL WHERE rolled_up_at IS NOT NULL", nativeQuery = true)
+    int clearRolledUp();
+
+    /**
+     * Adds the prices of the given reports to the pair rollup (min / max merged, sum / count added).
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO daily_price_rollup (product_info_id, market_location_id, report_date,
+                                        min_price, max_price, price_sum, price_count, updated_at)
+        SELECT dpr.product_info_id, dpr.market_location_id, dpr.report_date,
+               MIN(dpr.price), MAX(dpr.price), SUM(dpr.price), COUNT(*), :now
+        FROM daily_price_record dpr
+        WHERE dpr.price_report_id IN (:reportIds)
+          AND dpr.market_location_id IS NOT NULL
+        GROUP BY dpr.product_info_id, dpr.market_location_id, dpr.report_date
+        ON CONFLICT (product_info_id, market_location_id, report_date) DO UPDATE SET
+            min_price = LEAST(daily_price_rollup.min_price, EXCLUDED.min_price),
+            max_price = GREATEST(daily_price_rollup.max_price, EXCLUDED.max_price),
+            price_sum = daily_price_rollup.price_sum + EXCLUDED.price_sum,
+            price_count = daily_price_rollup.price_count + EXCLUDED.price_count,
+            updated_at = EXCLUDED.updated_at
+    """, nativeQuery = true)
+    int addReportsToPairRollup(@Param("reportIds") Collection<Long> reportIds, @Param("now") LocalDateTime now);
+
+    /**
+     * Adds the prices of the given reports to the national rollup (every record, with or without market).
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO national_price_rollup (product_info_id, report_date,
+                                           min_price, max_price, price_sum, price_count, updated_at)
+        SELECT dpr.product_info_id, dpr.report_date,
+               MIN(dpr.price), MAX(dpr.price), SUM(dpr.price), COUNT(*), :now
+        FROM daily_price_record dpr
+        WHERE dpr.price_report_id IN (:reportIds)
+        GROUP BY dpr.product_info_id, dpr.report_date
+        ON CONFLICT (product_info_id, report_date) DO UPDATE SET
+            min_price = LEAST(national_price_rollup.min_price, EXCLUDED.min_price),
+            max_price = GREATEST(national_price_rollup.max_price, EXCLUDED.max_price),
+            price_sum = national_price_rollup.price_sum + EXCLUDED.price_sum,
+            price_count = national_price_rollup.price_count + EXCLUDED.price_count,
+            updated_at = EXCLUDED.updated_at
+    """, nativeQuery = true)
+    int addReportsToNationalRollup(@Param("reportIds") Collection<Long> reportIds, @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM daily_price_rollup WHERE product_info_id = :productId AND report_date = :reportDate",
+            nativeQuery = true)
+    int deletePairRollupDay(@Param("productId") Long productId, @Param("reportDate") LocalDate reportDate);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM national_price_rollup WHERE product_info_id = :productId AND report_date = :reportDate",
+            nativeQuery = true)
+    int deleteNationalRollupDay(@Param("productId") Long productId, @Param("reportDate") LocalDate reportDate);
+
+    /**
+     * Recomputes one product-day of the pair rollup from the rolled-up reports (after a record edit).
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO daily_price_rollup (product_info_id, market_location_id, report_date,
+                                        min_price, max_price, price_sum, price_count, updated_at)
+        SELECT dpr.product_info_id, dpr.market_location_id, dpr.report_date,
+               MIN(dpr.price), MAX(dpr.price), SUM(dpr.price), COUNT(*), :now
+        FROM daily_price_record dpr
+        JOIN price_report pr ON pr.id = dpr.price_report_id
+        WHERE dpr.product_info_id = :productId
+          AND dpr.report_date = :reportDate
+          AND dpr.market_location_id IS NOT NULL
+          AND pr.rolled_up_at IS NOT NULL
+        GROUP BY dpr.product_info_id, dpr.market_location_id, dpr.report_date
+    """, nativeQuery = true)
+    int insertPairRollupDay(@Param("productId") Long productId, @Param("reportDate") LocalDate reportDate,
+                            @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = """
+        INSERT INTO national_price_rollup (product_info_id, report_date,
+                                           min_price, max_price, price_sum, price_count, updated_at)
+        SELECT dpr.product_info_id, dpr.report_date,
+               MIN(dpr.price), MAX(dpr.price), SUM(dpr.price), COUNT(*), :now
+        FROM daily_price_record dpr
+        JOIN price_report pr ON pr.id = dpr.price_report_id
+        WHERE dpr.product_info_id = :productId
+          AND dpr.report_date = :reportDate
+          AND pr.rolled_up_at IS NOT NULL
+        GROUP BY dpr.product_info_id, dpr.report_date
+    """, nativeQuery = true)
+    int insertNationalRollupDay(@Param("productId") Long productId, @Param("reportDate") LocalDate reportDate,
+                                @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_price_rollup", nativeQuery = true)
+    int deleteAllPairRows();
+
+    @Modifying
+    @Query(value = "DELETE FROM national_price_rollup", nativeQuery = true)
+    int deleteAllNationalRows();
+}
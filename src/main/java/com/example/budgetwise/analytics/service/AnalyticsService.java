@@ -2,11 +2,14 @@ package com.example.budgetwise.analytics.service;
 
 import com.example.budgetwise.analytics.dto.*;
 import com.example.budgetwise.analytics.repository.projection.SummaryStatsProjection; // Refactored import
-import com.example.budgetwise.analytics.repository.AnalyticsRepository;
+import com.example.budgetwise.analytics.repository.PriceRollupRepository;
+import com.example.budgetwise.configuration.CacheConfig;
+import com.example.budgetwise.exception.ResourcesNotFoundException;
 import com.example.budgetwise.market.entity.MarketLocation;
 import com.example.budgetwise.market.repository.MarketLocationRepository;
-import com.example.budgetwise.price_report.repository.PriceReportRepository;
+import com.example.budgetwise.product.entity.ProductInfo;
 import com.example.budgetwise.product.repository.ProductInfoRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,54 +20,79 @@ import java.time.LocalDate;
 @Service
 public class AnalyticsService {
 
-    private final AnalyticsRepository recordRepository;
+    private final PriceRollupRepository rollupRepository;
     private final MarketLocationRepository marketRepository;
     private final ProductInfoRepository productInfoRepository;
-    private final PriceReportRepository reportRepository;
+    private final MarketMoversService moversService;
 
-    public AnalyticsService(AnalyticsRepository recordRepository, MarketLocationRepository marketRepository, ProductInfoRepository productInfoRepository, PriceReportRepository reportRepository) {
-        this.recordRepository = recordRepository;
+    public AnalyticsService(PriceRollupRepository rollupRepository, MarketLocationRepository marketRepository, ProductInfoRepository productInfoRepository, MarketMoversService moversService) {
+        this.rollupRepository = rollupRepository;
         this.marketRepository = marketRepository;
         this.productInfoRepository = productInfoRepository;
-        this.reportRepository = reportRepository;
+        this.moversService = moversService;
     }
 
 
+    /**
+     * Price chart and min / max / avg of one product over the last {@code days} days.
+     *
+     * @throws ResourcesNotFoundException if the product does not exist.
+     */
+    @Transactional(readOnly = true)
+    public ProductAnalyticsResponse getProductAnalytics(Long productId, Long marketId, int days) {
+        ProductInfo product = productInfoRepository.findById(productId)
+                .orElseThrow(() -> new ResourcesNotFoundException("Product", "id", productId));
+        return buildProductAnalytics(List.of(productId), product.getProductName(), marketId, days);
+    }
+
+    /**
+     * Name-based variant: every product whose name matches ignoring case and surrounding
+     * spaces, resolved to ids once through the indexed name key.
+     */
     @Transactional(readOnly = true)
     public ProductAnalyticsResponse getProductAnalytics(String productName, Long marketId, int days) {
+        List<Long> productIds = productInfoRepository.findIdsByNormalizedName(productName);
+        return buildProductAnalytics(productIds, productName, marketId, days);
+    }
+
+    /**
+     * PERFORMANCE STRATEGY:
+     * Reads the daily rollups (see {@link PriceRollupService}) by product id: one row per day
+     * for a market, one row per day for the national average, whatever the number of
+     * markets reporting.
+     */
+    private ProductAnalyticsResponse buildProductAnalytics(List<Long> productIds, String productName, Long marketId, int days) {
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusDays(days - 1);
 
-        Double lastKnownPrice = recordRepository.findLatestPriceBefore(productName, marketId, startDate)
-                .orElse(0.0);
+        boolean byMarket = marketId != null && marketId > 0;
 
-        List<PriceHistoryPoint> rawHistory;
+        Double lastKnownPrice = 0.0;
+        List<PriceHistoryPoint> rawHistory = List.of();
+        SummaryStatsProjection stats = null;
         String marketLabel;
 
-        if (marketId != null && marketId > 0) {
+        if (byMarket) {
             marketLabel = marketRepository.findById(marketId)
                     .map(MarketLocation::getMarketLocation).orElse("Unknown Market");
-            rawHistory = recordRepository.findHistoryByMarket(productName, marketId, startDate);
         } else {
             marketLabel = "National Average";
-            rawHistory = recordRepository.findHistoryNationalAverage(productName, startDate);
         }
 
-        SummaryStatsProjection stats = recordRepository.findCombinedStats(productName, marketId, startDate).orElse(null);
-
-        Map<LocalDate, Double> priceMap = rawHistory.stream()
-                .collect(Collectors.toMap(PriceHistoryPoint::date, PriceHistoryPoint::price));
-
-        List<PriceHistoryPoint> filledHistory = new ArrayList<>();
-        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
-            Double priceToday = priceMap.get(date);
-            if (priceToday != null) {
-                lastKnownPrice = priceToday;
+        if (!productIds.isEmpty()) {
+            if (byMarket) {
+                lastKnownPrice = rollupRepository.findMarketAverageBefore(productIds, marketId, startDate).orElse(0.0);
+                rawHistory = rollupRepository.findMarketHistory(productIds, marketId, startDate);
+                stats = rollupRepository.findMarketStats(productIds, marketId, startDate).orElse(null);
+            } else {
+                lastKnownPrice = rollupRepository.findNationalAverageBefore(productIds, startDate).orElse(0.0);
+                rawHistory = rollupRepository.findNationalHistory(productIds, startDate);
+                stats = rollupRepository.findNationalStats(productIds, startDate).orElse(null);
             }
-            double cleanPrice = Math.round(lastKnownPrice * 100.0) / 100.0;
-            filledHistory.add(new PriceHistoryPoint(date, cleanPrice));
         }
 
+        List<PriceHistoryPoint> filledHistory = fillDailyGaps(rawHistory, startDate, endDate, lastKnownPrice);
+
         double min = 0.0, max = 0.0, avg = 0.0;
         if (stats != null && stats.getMinPrice() != null) {
             min = stats.getMinPrice();
@@ -79,6 +107,27 @@ public class AnalyticsService {
         );
     }
 
+    /**
+     * One point per calendar day from {@code startDate} to {@code endDate}; days without
+     * a report carry the last known price forward.
+     */
+    static List<PriceHistoryPoint> fillDailyGaps(List<PriceHistoryPoint> rawHistory, LocalDate startDate,
+                                                 LocalDate endDate, Double lastKnownPrice) {
+        Map<LocalDate, Double> priceMap = rawHistory.stream()
+                .collect(Collectors.toMap(PriceHistoryPoint::date, PriceHistoryPoint::price));
+
+        List<PriceHistoryPoint> filledHistory = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            Double priceToday = priceMap.get(date);
+            if (priceToday != null) {
+                lastKnownPrice = priceToday;
+            }
+            double cleanPrice = Math.round(lastKnownPrice * 100.0) / 100.0;
+            filledHistory.add(new PriceHistoryPoint(date, cleanPrice));
+        }
+        return filledHistory;
+    }
+
     private String calculateVolatility(Double min, Double max, Double avg) {
         if (avg == null || avg == 0) return "Low";
         double fluctuation = ((max - min) / avg) * 100;
@@ -95,8 +144,10 @@ public class AnalyticsService {
      * <li>Prevents "God Repository" anti-pattern by delegating queries to their respective feature modules.</li>
      * <li>Returns a combined {@link DiscoveryResponse} to minimize initial load API calls from the UI.</li>
      * </ul>
+     * <li>Cached until the next product / market change (see {@code DataChangedEvent}).</li>
      * * @return A {@link DiscoveryResponse} containing lists of {@link MarketLookup} and {@link ProductLookup}.
      */
+    @Cacheable(CacheConfig.DISCOVERY_DATA)
     @Transactional(readOnly = true)
     public DiscoveryResponse getDiscoveryData() {
         List<MarketLookup> markets = marketRepository.findAllMarketLookups();
@@ -106,12 +157,29 @@ public class AnalyticsService {
     }
 
 
+    @Transactional(readOnly = true)
+    public List<MarketComparisonChart> getMarketComparison(Long productId, Long marketId, int days) {
+        if (!productInfoRepository.existsById(productId)) {
+            throw new ResourcesNotFoundException("Product", "id", productId);
+        }
+        return buildMarketComparison(List.of(productId), marketId, days);
+    }
+
     @Transactional(readOnly = true)
     public List<MarketComparisonChart> getMarketComparison(String productName, Long marketId, int days) {
+        return buildMarketComparison(productInfoRepository.findIdsByNormalizedName(productName), marketId, days);
+    }
+
+    private List<MarketComparisonChart> buildMarketComparison(List<Long> productIds, Long marketId, int days) {
         LocalDate startDate = LocalDate.now().minusDays(days - 1);
 
-        List<MarketComparisonChart> rawData = recordRepository.findMarketComparisonData(
-                productName, marketId, startDate
+        if (productIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // One rollup row per market and day
+        List<MarketComparisonChart> rawData = rollupRepository.findMarketComparison(
+                productIds, marketId, startDate
         );
 
         if (rawData.isEmpty()) {
@@ -128,68 +196,11 @@ public class AnalyticsService {
     }
 
 
-    @Transactional(readOnly = true)
+    /**
+     * Top 5 gainers / decliners of a market between the latest report date and {@code days}
+     * earlier, see {@link MarketMoversService}.
+     */
     public GainerDeclinerResponse getMarketTopMovements(Long marketId, int days) {
-        LocalDate endDate = reportRepository.findLatestReportDate().orElse(LocalDate.now());
-        LocalDate startDate = endDate.minusDays(days);
-
-        // 1. Fetch Data
-        List<PriceMovement> currentData = recordRepository.findMarketPricesOnDate(marketId, endDate);
-        List<PriceMovement> pastData = recordRepository.findMarketPricesOnDate(marketId, startDate);
-
-        Map<String, Double> pastPriceMap = pastData.stream()
-                .collect(Collectors.toMap(PriceMovement::productName, PriceMovement::currentPrice));
-
-        List<PriceMovement> allMovements = currentData.stream()
-                .filter(curr -> pastPriceMap.containsKey(curr.productName()))
-                .map(curr -> {
-                    double oldPrice = pastPriceMap.get(curr.productName());
-                    double newPrice = curr.currentPrice();
-
-                    if (oldPrice <= 0) return null;
-
-                    double change = Math.round(((newPrice - oldPrice) / oldPrice * 100) * 100.0) / 100.0;
-
-
-
-                    return new PriceMovement(
-                            curr.productName(),
-                            Math.round(newPrice * 100.0) / 100.0,
-                            Math.round(oldPrice * 100.0) / 100.0,
-                            change,
-                            (change > 0) ? "UP" : (change < 0) ? "DOWN" : "STABLE"
-                    );
-                })
-                .filter(Objects::nonNull) // Remove nulls from 'oldPrice <= 0' check
-                .collect(Collectors.toList());
-
-        int totalGainers = (int) allMovements.stream()
-                .filter(m -> m.percentageChange() > 0)
-                .count();
-
-        int totalDecliners = (int) allMovements.stream()
-                .filter(m -> m.percentageChange() < 0)
-                .count();
-
-        List<PriceMovement> topGainers = allMovements.stream()
-                .filter(m -> m.percentageChange() > 0)
-                .sorted(Comparator.comparing(PriceMovement::percentageChange).reversed()) // Highest % first
-                .limit(5)
-                .toList();
-
-        List<PriceMovement> topDecliners = allMovements.stream()
-                .filter(m -> m.percentageChange() < 0)
-                .sorted(Comparator.comparing(PriceMovement::percentageChange)) // Most negative first
-                .limit(5)
-                .toList();
-
-        return new GainerDeclinerResponse(
-                topGainers,
-                topDecliners,
-                totalGainers,
-                totalDecliners
-        );
+        return moversService.getMovers(marketId, days);
     }
-
-
-}
\ No newline at end of file
+}
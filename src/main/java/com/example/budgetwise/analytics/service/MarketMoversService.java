@@ -0,0 +1,187 @@
+package com.example.budgetwise.analytics.service;
+
+import com.example.budgetwise.analytics.dto.GainerDeclinerResponse;
+import com.example.budgetwise.analytics.dto.PriceMovement;
+import com.example.budgetwise.analytics.entity.MarketMoversSnapshot;
+import com.example.budgetwise.analytics.repository.MarketMoversRepository;
+import com.example.budgetwise.analytics.repository.MarketMoversSnapshotRepository;
+import com.example.budgetwise.price_report.repository.PriceReportRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Top gainers / decliners of a market between the latest report date and {@code days} earlier.
+ * <p>
+ * PERFORMANCE STRATEGY:
+ * 1. Price changes come from ONE windowed query over the daily rollup
+ *    ({@link MarketMoversRepository}), not two date lookups plus a Java join by name.
+ * 2. Ranking is a single pass with two bounded heaps of size {@link #TOP_K}: O(n log k),
+ *    no sort of the full movement list.
+ * 3. The windows in {@code analytics.movers.snapshot-windows} are precomputed for every ACTIVE
+ *    market after each ingestion ({@link MarketMoversSnapshot}); the endpoint then reads one
+ *    row by primary key. Other windows, or a snapshot older than the latest report, are
+ *    computed live with the same query.
+ */
+@Service
+@Slf4j
+public class MarketMoversService {
+
+    static final int TOP_K = 5;
+
+    private final MarketMoversRepository moversRepository;
+    private final MarketMoversSnapshotRepository snapshotRepository;
+    private final PriceReportRepository reportRepository;
+    private final Set<Integer> snapshotWindows;
+
+    /**
+     * A product's price at the window end and at the window start.
+     */
+    record PriceChange(String productName, double currentPrice, double oldPrice) {}
+
+    public MarketMoversService(MarketMoversRepository moversRepository, MarketMoversSnapshotRepository snapshotRepository, PriceReportRepository reportRepository, @Value("${analytics.movers.snapshot-windows:7,30}") Set<Integer> snapshotWindows) {
+        this.moversRepository = moversRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.reportRepository = reportRepository;
+        this.snapshotWindows = snapshotWindows;
+    }
+
+    @Transactional(readOnly = true)
+    public GainerDeclinerResponse getMovers(Long marketId, int days) {
+        LocalDate endDate = reportRepository.findLatestReportDate().orElse(LocalDate.now());
+
+        if (snapshotWindows.contains(days)) {
+            MarketMoversSnapshot snapshot = snapshotRepository
+                    .findById(new MarketMoversSnapshot.Key(marketId, days))
+                    .orElse(null);
+            if (snapshot != null && snapshot.getEndDate().equals(endDate)) {
+                return new GainerDeclinerResponse(snapshot.getTopGainers(), snapshot.getTopDecliners(),
+                        snapshot.getGainersCount(), snapshot.getDeclinersCount());
+            }
+        }
+
+        List<PriceChange> changes = new ArrayList<>();
+        moversRepository.findPriceChanges(marketId, endDate, endDate.minusDays(days),
+                (market, productName, currentPrice, oldPrice) ->
+                        changes.add(new PriceChange(productName, currentPrice, oldPrice)));
+        return rank(changes, TOP_K);
+    }
+
+    /**
+     * Recomputes the snapshots of every ACTIVE market, one query per configured window.
+     * Called after an ingestion commits and after the rollups catch up.
+     *
+     * @return Number of snapshots written.
+     */
+    @Transactional
+    public int refreshSnapshots() {
+        long start = System.currentTimeMillis();
+        LocalDate endDate = reportRepository.findLatestReportDate().orElse(null);
+        snapshotRepository.deleteAllRows();
+        if (endDate == null) return 0;
+
+        LocalDateTime now = LocalDateTime.now();
+        List<MarketMoversSnapshot> snapshots = new ArrayList<>();
+        for (Integer days : snapshotWindows) {
+            Map<Long, List<PriceChange>> changesByMarket = new HashMap<>();
+            moversRepository.findPriceChangesForActiveMarkets(endDate, endDate.minusDays(days),
+                    (market, productName, currentPrice, oldPrice) ->
+                            changesByMarket.computeIfAbsent(market, id -> new ArrayList<>())
+                                    .add(new PriceChange(productName, currentPrice, oldPrice)));
+
+            changesByMarket.forEach((market, changes) -> {
+                GainerDeclinerResponse movers = rank(changes, TOP_K);
+                snapshots.add(new MarketMoversSnapshot(market, days, endDate,
+                        movers.topGainers(), movers.topDecliners(),
+                        movers.allGainersCount(), movers.allDeclinersCount(), now));
+            });
+        }
+        snapshotRepository.saveAll(snapshots);
+
+        log.info("Refreshed {} market movers snapshots for {} in {} ms",
+                snapshots.size(), endDate, System.currentTimeMillis() - start);
+        return snapshots.size();
+    }
+
+    /**
+     * Drops every snapshot (the rollup they derive from was corrected); readers fall back to
+     * the live query until the next refresh.
+     */
+    @Transactional
+    public void invalidateSnapshots() {
+        snapshotRepository.deleteAllRows();
+    }
+
+    /**
+     * Percentage change of every product, counts of gainers / decliners and the top {@code k}
+     * of each, in one pass.
+     * <p>
+     * The gainers heap keeps the smallest gain on top and the decliners heap the smallest
+     * drop, so each new movement is compared with the weakest of the current top k only.
+     */
+    static GainerDeclinerResponse rank(List<PriceChange> changes, int k) {
+        Comparator<PriceMovement> byChange = Comparator.comparing(PriceMovement::percentageChange);
+        PriorityQueue<PriceMovement> gainers = new PriorityQueue<>(k + 1, byChange);
+        PriorityQueue<PriceMovement> decliners = new PriorityQueue<>(k + 1, byChange.reversed());
+        int totalGainers = 0;
+        int totalDecliners = 0;
+
+        for (PriceChange c : changes) {
+            if (c.oldPrice() <= 0) continue;
+
+            double change = Math.round(((c.currentPrice() - c.oldPrice()) / c.oldPrice() * 100) * 100.0) / 100.0;
+            if (change > 0) {
+                totalGainers++;
+                if (gainers.size() < k || change > gainers.peek().percentageChange()) {
+                    offer(gainers, toMovement(c, change, "UP"), k);
+                }
+            } else if (change < 0) {
+                totalDecliners++;
+                if (decliners.size() < k || change < decliners.peek().percentageChange()) {
+                    offer(decliners, toMovement(c, change, "DOWN"), k);
+                }
+            }
+        }
+
+        return new GainerDeclinerResponse(
+                drain(gainers, byChange.reversed()),   // Highest % first
+                drain(decliners, byChange),            // Most negative first
+                totalGainers,
+                totalDecliners
+        );
+    }
+
+    private static PriceMovement toMovement(PriceChange c, double change, String trend) {
+        return new PriceMovement(
+                c.productName(),
+                Math.round(c.currentPrice() * 100.0) / 100.0,
+                Math.round(c.oldPrice() * 100.0) / 100.0,
+                change,
+                trend
+        );
+    }
+
+    private static void offer(PriorityQueue<PriceMovement> heap, PriceMovement movement, int k) {
+        heap.offer(movement);
+        if (heap.size() > k) {
+            heap.poll();
+        }
+    }
+
+    private static List<PriceMovement> drain(PriorityQueue<PriceMovement> heap, Comparator<PriceMovement> order) {
+        List<PriceMovement> top = new ArrayList<>(heap);
+        top.sort(order);
+        return top;
+    }
+}
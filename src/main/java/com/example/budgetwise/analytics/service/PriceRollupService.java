@@ -0,0 +1,102 @@
+package com.example.budgetwise.analytics.service;
+
+import com.example.budgetwise.analytics.repository.PriceRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Maintains the analytics rollups ({@code daily_price_rollup}, {@code national_price_rollup}).
+ * <p>
+ * LOGIC:
+ * 1. Only COMPLETED reports are in the rollups (the raw analytics queries filtered the same way).
+ *    A report is added exactly once, when ingestion completes it; {@code price_report.rolled_up_at}
+ *    marks it as done. The rows are added to the existing day (min / max merged, sum / count
+ *    added), so two reports of the same date still aggregate correctly.
+ * 2. Reports completed outside ingestion (data seeders, first deployment) are picked up by
+ *    the same catch-up at startup.
+ * 3. An admin edit of a price record recomputes the product's day from the raw rows.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PriceRollupService {
+
+    /** Report ids per INSERT ... WHERE price_report_id IN (...), keeps the statements bounded on a full rebuild. */
+    private static final int REPORTS_PER_STATEMENT = 200;
+
+    private final PriceRollupRepository rollupRepository;
+    private final MarketMoversService moversService;
+
+    /**
+     * Adds every COMPLETED report not rolled up yet. Called by ingestion in the transaction
+     * that completes the report (the status change must be flushed before).
+     *
+     * @return Number of reports added.
+     */
+    @Transactional
+    public int rollupPendingReports() {
+        List<Long> reportIds = rollupRepository.lockReportsPendingRollup();
+        if (reportIds.isEmpty()) return 0;
+
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        int pairRows = 0;
+        for (int from = 0; from < reportIds.size(); from += REPORTS_PER_STATEMENT) {
+            List<Long> chunk = reportIds.subList(from, Math.min(from + REPORTS_PER_STATEMENT, reportIds.size()));
+            pairRows += rollupRepository.addReportsToPairRollup(chunk, now);
+            rollupRepository.addReportsToNationalRollup(chunk, now);
+            rollupRepository.markRolledUp(chunk, now);
+        }
+
+        log.info("Rolled up {} price reports ({} pair-day rows) in {} ms",
+                reportIds.size(), pairRows, System.currentTimeMillis() - start);
+        return reportIds.size();
+    }
+
+    /**
+     * Recomputes one product-day after its raw price rows were edited in place.
+     * The market movers snapshots derive from the rollup and are dropped with it.
+     */
+    @Transactional
+    public void refreshProductDay(Long productId, LocalDate reportDate) {
+        LocalDateTime now = LocalDateTime.now();
+        rollupRepository.deletePairRollupDay(productId, reportDate);
+        rollupRepository.deleteNationalRollupDay(productId, reportDate);
+        rollupRepository.insertPairRollupDay(productId, reportDate, now);
+        rollupRepository.insertNationalRollupDay(productId, reportDate, now);
+        moversService.invalidateSnapshots();
+    }
+
+    /**
+     * Rebuilds both rollups from price history (corrections, backfills).
+     */
+    @Transactional
+    public int rebuildAll() {
+        rollupRepository.deleteAllPairRows();
+        rollupRepository.deleteAllNationalRows();
+        rollupRepository.clearRolledUp();
+        return rollupPendingReports();
+    }
+
+    /**
+     * First start with the rollups, or reports written by the data seeder: catch up once
+     * the runners are done.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void catchUpOnStartup() {
+        int reports = rollupPendingReports();
+        if (reports > 0) {
+            log.info("Analytics rollups caught up with {} completed reports", reports);
+            moversService.refreshSnapshots();
+        }
+    }
+}
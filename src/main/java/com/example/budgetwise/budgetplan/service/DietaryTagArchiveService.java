@@ -4,7 +4,9 @@ import com.example.budgetwise.budgetplan.dto.DietaryArchiveResponse;
 import com.example.budgetwise.budgetplan.dto.DietaryArchiveStatsResponse;
 import com.example.budgetwise.budgetplan.entity.DietaryTag;
 import com.example.budgetwise.budgetplan.repository.DietaryTagRepository;
+import com.example.budgetwise.configuration.DataChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -20,6 +22,7 @@ import java.util.List;
 public class DietaryTagArchiveService {
 
     private final DietaryTagRepository dietaryTagRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     @Transactional(readOnly = true)
@@ -81,6 +84,7 @@ public class DietaryTagArchiveService {
         if (updatedCount == 0) {
             throw new IllegalArgumentException("No tags were updated. Check if IDs exist.");
         }
+        eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.DIETARY_TAGS));
 
         return updatedCount;
     }
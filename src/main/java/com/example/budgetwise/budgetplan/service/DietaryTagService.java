@@ -6,8 +6,12 @@ import com.example.budgetwise.budgetplan.entity.ProductDietaryTag;
 import com.example.budgetwise.budgetplan.repository.DietaryTagRepository;
 import com.example.budgetwise.budgetplan.repository.ProductDietaryTagRepository;
 import com.example.budgetwise.budgetplan.repository.ProductInfoDietaryTagRepository;
+import com.example.budgetwise.configuration.CacheConfig;
+import com.example.budgetwise.configuration.DataChangedEvent;
 import com.example.budgetwise.product.entity.ProductInfo;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -26,8 +30,10 @@ public class DietaryTagService {
     private final DietaryTagRepository dietaryTagRepository;
     private final ProductInfoDietaryTagRepository productInfoDietaryTagRepository;
     private final ProductDietaryTagRepository productDietaryTagRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 
+    @Cacheable(CacheConfig.DIETARY_STATS)
     @Transactional(readOnly = true)
     public DietaryStatsResponse getDietaryStats() {
         ProductInfo.Status activeStatus = ProductInfo.Status.ACTIVE;
@@ -60,7 +66,9 @@ public class DietaryTagService {
         dietaryTag.setStatus(DietaryTag.Status.ACTIVE);
         dietaryTag.setTagName(cleanTagName);
         dietaryTag.setTagDescription(createTagRequest.tagDescription());
-        return dietaryTagRepository.save(dietaryTag);
+        DietaryTag saved = dietaryTagRepository.save(dietaryTag);
+        eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.DIETARY_TAGS));
+        return saved;
 
     }
 
@@ -100,6 +108,7 @@ public class DietaryTagService {
                 .orElseThrow(() -> new IllegalArgumentException("Product with id " + productId + " does not exist"));
 
         productDietaryTagRepository.deleteAllByProductId(productId);
+        eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.DIETARY_TAGS));
 
         if(tagIds == null || tagIds.isEmpty()){
             return;
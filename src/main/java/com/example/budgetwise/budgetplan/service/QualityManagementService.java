@@ -56,11 +56,18 @@ public class QualityManagementService {
 
     @Transactional(readOnly = true)
     public List<QualityIssueResponse> scanForQualityIssues() {
-        List<QualityIssueResponse> issues = new ArrayList<>();
-
         // Fetch ALL Active Products
         List<ProductInfo> products = productInfoDietaryTagRepository.findAllByStatus(ProductInfo.Status.ACTIVE );
 
+        return findQualityIssues(products);
+    }
+
+    /**
+     * Applies the tag rules to already loaded products (tags must be initialized).
+     */
+    static List<QualityIssueResponse> findQualityIssues(List<ProductInfo> products) {
+        List<QualityIssueResponse> issues = new ArrayList<>();
+
         for (ProductInfo product : products) {
             String category = product.getCategory();
             String name = product.getProductName();
@@ -0,0 +1,52 @@
+package com.example.budgetwise.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * In-memory read caches for the dashboard / analytics endpoints.
+ * <p>
+ * Their data only changes when a scrape lands, predictions are regenerated or an admin
+ * edits something, so entries are evicted by {@link DataChangedEvent} and the TTL is only
+ * a safety net for changes made outside the application (manual SQL, other instances).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PREDICTION_DASHBOARD_STATS = "predictionDashboardStats";
+    public static final String PRODUCT_STATS = "productStats";
+    public static final String MARKET_STATS = "marketStats";
+    public static final String DIETARY_STATS = "dietaryStats";
+    public static final String DISCOVERY_DATA = "discoveryData";
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+
+        // Keyed by date: a handful of entries at most
+        cacheManager.registerCustomCache(PREDICTION_DASHBOARD_STATS, build(Duration.ofMinutes(30), 4));
+        cacheManager.registerCustomCache(PRODUCT_STATS, build(Duration.ofMinutes(30), 1));
+        cacheManager.registerCustomCache(MARKET_STATS, build(Duration.ofMinutes(30), 1));
+        cacheManager.registerCustomCache(DIETARY_STATS, build(Duration.ofMinutes(30), 1));
+        // Lookup lists for the analytics filters (every market + every product)
+        cacheManager.registerCustomCache(DISCOVERY_DATA, build(Duration.ofHours(6), 1));
+
+        return cacheManager;
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<Object, Object> build(Duration ttl, long maximumSize) {
+        return Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+}
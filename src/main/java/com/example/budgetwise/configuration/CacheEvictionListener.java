@@ -0,0 +1,33 @@
+package com.example.budgetwise.configuration;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts the read caches affected by a {@link DataChangedEvent}.
+ * <p>
+ * Runs after the publishing transaction commits, so a reader can never re-cache the
+ * pre-commit state. Events published outside a transaction are handled immediately.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheEvictionListener {
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChanged(DataChangedEvent event) {
+        for (String name : event.source().getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.invalidate();
+            }
+        }
+        log.debug("Evicted caches {} after {} change", event.source().getCacheNames(), event.source());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.budgetwise.configuration;
+
+import java.util.List;
+
+/**
+ * Published after a write that changes what the cached dashboard / analytics reads return.
+ * {@link CacheEvictionListener} evicts the caches that depend on the changed data.
+ */
+public record DataChangedEvent(Source source) {
+
+    public enum Source {
+        /** A scrape report was ingested (new prices, products, markets). */
+        INGESTION(List.of(CacheConfig.PREDICTION_DASHBOARD_STATS, CacheConfig.PRODUCT_STATS,
+                CacheConfig.MARKET_STATS, CacheConfig.DIETARY_STATS, CacheConfig.DISCOVERY_DATA)),
+        /** Product status / name changes. */
+        PRODUCTS(List.of(CacheConfig.PREDICTION_DASHBOARD_STATS, CacheConfig.PRODUCT_STATS,
+                CacheConfig.DIETARY_STATS, CacheConfig.DISCOVERY_DATA)),
+        /** Market status / details changes. */
+        MARKETS(List.of(CacheConfig.PREDICTION_DASHBOARD_STATS, CacheConfig.MARKET_STATS,
+                CacheConfig.DISCOVERY_DATA)),
+        /** Dietary tags and product-tag links. */
+        DIETARY_TAGS(List.of(CacheConfig.PRODUCT_STATS, CacheConfig.DIETARY_STATS)),
+        /** Prediction runs and manual overrides. */
+        PREDICTIONS(List.of(CacheConfig.PREDICTION_DASHBOARD_STATS));
+
+        private final List<String> cacheNames;
+
+        Source(List<String> cacheNames) {
+            this.cacheNames = cacheNames;
+        }
+
+        public List<String> getCacheNames() {
+            return cacheNames;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.budgetwise.configuration;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the pooled id sequences past the ids already in their tables.
+ * <p>
+ * LOGIC:
+ * These tables used IDENTITY columns before, so on an existing database the sequences
+ * created by Hibernate start at 1 while the tables already hold rows. Runs once at startup,
+ * after the schema update and before any runner or message listener inserts rows.
+ * A fresh sequence is marked as called, so the first block Hibernate or
+ * {@link PooledIdAllocator} gets is (1, 51] rather than the special-cased initial value.
+ * A sequence that is already ahead is left alone.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class IdSequenceAligner implements InitializingBean {
+
+    /** Sequence name -> table it generates ids for. */
+    static final Map<String, String> SEQUENCES = Map.of(
+            "daily_price_record_seq", "daily_price_record",
+            "price_predictions_seq", "price_predictions",
+            "price_report_seq", "price_report",
+            "product_info_seq", "product_info"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterPropertiesSet() {
+        SEQUENCES.forEach((sequence, table) -> {
+            // Names come from the constant map above, never from user input
+            Long aligned = jdbcTemplate.query(
+                    "SELECT setval('" + sequence + "', GREATEST(m.max_id, 1)) " +
+                    "FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM " + table + ") m, " + sequence + " s " +
+                    "WHERE m.max_id > s.last_value OR NOT s.is_called",
+                    rs -> rs.next() ? rs.getLong(1) : null);
+
+            if (aligned != null) {
+                log.info("Aligned sequence {} to {} (max id of {})", sequence, aligned, table);
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.budgetwise.configuration;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hands out ids for rows written with plain JDBC / COPY into tables whose entities use
+ * a pooled {@code @SequenceGenerator}.
+ * <p>
+ * LOGIC:
+ * Follows Hibernate's pooled optimizer: every {@code nextval} returning {@code v} reserves
+ * the block {@code (v - 50, v]}. Fetching ceil(count / 50) values in one round-trip gives
+ * ids that can never collide with the ones Hibernate allocates from the same sequence.
+ * {@link IdSequenceAligner} makes sure no sequence hands out its initial value 1, so every
+ * block is a full one.
+ */
+@Component
+@RequiredArgsConstructor
+public class PooledIdAllocator {
+
+    /** Must match {@code allocationSize} of the entities' sequence generators. */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param sequence Sequence name (a constant, never user input).
+     * @param count    Number of ids needed.
+     * @return {@code count} unique ids, ascending within each block.
+     */
+    public long[] allocate(String sequence, int count) {
+        long[] ids = new long[count];
+        if (count == 0) return ids;
+
+        int blocks = (count + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+        List<Long> hiValues = jdbcTemplate.queryForList(
+                "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)", Long.class, blocks);
+
+        int i = 0;
+        for (long hi : hiValues) {
+            for (long id = hi - ALLOCATION_SIZE + 1; id <= hi && i < count; id++) {
+                ids[i++] = id;
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.budgetwise.exception;
+
+/**
+ * Exception thrown when a request conflicts with the current state of a resource.
+ *
+ * Usage example:
+ *   throw new ConflictException("A bulk forecast is already running (job 42)");
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
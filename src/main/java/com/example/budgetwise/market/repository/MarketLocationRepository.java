@@ -122,19 +122,12 @@ public interface MarketLocationRepository extends JpaRepository<MarketLocation,
         m.type AS marketType,
         p.productName AS productName, 
         p.category AS productCategory, 
-        dpr.price AS productPrice, 
-        pr.dateReported AS dateRecorded
-    FROM DailyPriceRecord dpr
-    JOIN dpr.marketLocation m
-    JOIN dpr.productInfo p
-    JOIN dpr.priceReport pr
-    WHERE m.id = :marketId
-    AND dpr.id = (
-        SELECT MAX(d2.id) 
-        FROM DailyPriceRecord d2 
-        WHERE d2.marketLocation.id = m.id 
-        AND d2.productInfo.id = p.id
-    )
+        lp.price AS productPrice, 
+        lp.reportDate AS dateRecorded
+    FROM LatestPrice lp
+    JOIN MarketLocation m ON m.id = lp.marketLocationId
+    JOIN ProductInfo p ON p.id = lp.productInfoId
+    WHERE lp.marketLocationId = :marketId
     ORDER BY p.productName ASC
 """)
     List<MarketProductRow> fetchLatestMarketProducts(@Param("marketId") Long marketId);
@@ -1,5 +1,6 @@
 package com.example.budgetwise.market.service;
 
+import com.example.budgetwise.configuration.DataChangedEvent;
 import com.example.budgetwise.market.dto.ArchiveStatsResponse;
 import com.example.budgetwise.market.dto.BulkUpdateMarketStatus;
 import com.example.budgetwise.market.dto.MarketArchiveTableResponse;
@@ -8,6 +9,7 @@ import com.example.budgetwise.market.repository.MarketLocationRepository;
 import com.example.budgetwise.product.dto.BulkUpdateProductStatus;
 import com.example.budgetwise.product.entity.ProductInfo;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -23,6 +25,7 @@ import java.util.List;
 public class ArchiveMarketService {
 
     private final MarketLocationRepository marketLocationRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 
 
@@ -91,6 +94,7 @@ public class ArchiveMarketService {
         if (updatedCount == 0) {
             throw new RuntimeException("No markets were updated. Please check if the IDs exist.");
         }
+        eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.MARKETS));
 
         return updatedCount;
     }
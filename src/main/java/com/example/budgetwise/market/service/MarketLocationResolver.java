@@ -40,15 +40,39 @@ public class MarketLocationResolver {
         //  Pre-processing:
         //    - Trim whitespace to avoid dirty data (" Marikina " vs "Marikina")
         //    - Use Set to automatically remove duplicates from the input
-        Set<String> uniqueMarkets = coveredMarkets.stream()
-                .map(String::trim)
-                .collect(Collectors.toSet());
+        Set<String> uniqueMarkets = normalizeMarketNames(coveredMarkets);
 
         //  Batch Query (Optimization):
         //    Fetch ALL existing markets in ONE database query using 'IN' clause.
         //    Avoids looping through the database 50 times for 50 markets.
         List<MarketLocation> existingMarkets = marketLocationRepository.findByMarketLocationIn(new ArrayList<>(uniqueMarkets));
 
+        List<MarketLocation> newMarkets = newMarkets(uniqueMarkets, existingMarkets);
+
+        //  Batch Save:
+        //    Save all NEW markets in ONE database transaction.
+        if(!newMarkets.isEmpty()){
+            List<MarketLocation> savedNewMarkets = marketLocationRepository.saveAll(newMarkets);
+            existingMarkets.addAll(savedNewMarkets);
+
+        }
+        //  Return the complete list (Old + New) ready for linking
+        return existingMarkets;
+    }
+
+    /**
+     * Trims the scraped names and removes duplicates.
+     */
+    static Set<String> normalizeMarketNames(List<String> coveredMarkets) {
+        return coveredMarkets.stream()
+                .map(String::trim)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Builds the (unsaved, ACTIVE) markets whose names are not in {@code existingMarkets}.
+     */
+    static List<MarketLocation> newMarkets(Set<String> uniqueMarkets, List<MarketLocation> existingMarkets) {
         //  Extraction:
         //    Create a reference Set of names that ALREADY exist in the DB.
         Set<String> existingMarketNames = existingMarkets.stream()
@@ -57,7 +81,7 @@ public class MarketLocationResolver {
 
         //  Filtering (The Logic):
         //    Identify which markets are NEW by checking against the existing set.
-        List<MarketLocation> newMarkets = uniqueMarkets.stream()
+        return uniqueMarkets.stream()
                 .filter(market -> !existingMarketNames.contains(market))
                 .map(market -> {
                     MarketLocation newMarketLocation = new MarketLocation();
@@ -66,15 +90,5 @@ public class MarketLocationResolver {
                     return newMarketLocation;
                 })
                 .collect(Collectors.toList());
-
-        //  Batch Save:
-        //    Save all NEW markets in ONE database transaction.
-        if(!newMarkets.isEmpty()){
-            List<MarketLocation> savedNewMarkets = marketLocationRepository.saveAll(newMarkets);
-            existingMarkets.addAll(savedNewMarkets);
-
-        }
-        //  Return the complete list (Old + New) ready for linking
-        return existingMarkets;
     }
 }
\ No newline at end of file
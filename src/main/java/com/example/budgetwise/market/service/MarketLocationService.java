@@ -3,6 +3,8 @@ package com.example.budgetwise.market.service;
 
 
 import com.example.budgetwise.analytics.dto.MarketComparisonChart;
+import com.example.budgetwise.configuration.CacheConfig;
+import com.example.budgetwise.configuration.DataChangedEvent;
 import com.example.budgetwise.exception.ResourcesNotFoundException;
 import com.example.budgetwise.market.dto.*;
 import com.example.budgetwise.market.entity.MarketLocation;
@@ -10,6 +12,8 @@ import com.example.budgetwise.market.repository.MarketLocationRepository;
 import com.example.budgetwise.market.repository.projection.MarketProductRow;
 import com.example.budgetwise.product.entity.ProductInfo;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -25,6 +29,7 @@ import java.util.Optional;
 public class MarketLocationService {
 
     private final MarketLocationRepository marketLocationRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     /**
@@ -33,6 +38,7 @@ public class MarketLocationService {
      *
      * @return MarketStatsResponse containing current counts of markets by category.
      */
+    @Cacheable(CacheConfig.MARKET_STATS)
     @Transactional(readOnly = true)
     public MarketStatsResponse getMarketStats() {
         long totalMarkets = marketLocationRepository.count();
@@ -110,6 +116,7 @@ public class MarketLocationService {
         if (updatedCount == 0) {
             throw new RuntimeException("No markets were updated. Check if the IDs are valid.");
         }
+        eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.MARKETS));
     }
 
     /**
@@ -146,7 +153,9 @@ public class MarketLocationService {
         market.setRatings(0.0);
         market.setUpdatedAt(LocalDateTime.now());
 
-        return marketLocationRepository.save(market);
+        MarketLocation saved = marketLocationRepository.save(market);
+        eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.MARKETS));
+        return saved;
     }
 
 
@@ -188,6 +197,7 @@ public class MarketLocationService {
         market.setUpdatedAt(LocalDateTime.now());
 
         marketLocationRepository.save(market);
+        eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.MARKETS));
     }
 
 
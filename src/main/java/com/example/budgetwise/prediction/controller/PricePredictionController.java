@@ -1,9 +1,20 @@
 package com.example.budgetwise.prediction.controller;
 
 import com.example.budgetwise.prediction.dto.*;
+import com.example.budgetwise.prediction.entity.BacktestRun;
+import com.example.budgetwise.prediction.entity.PredictionJob;
+import com.example.budgetwise.prediction.entity.PredictionRetentionRun;
 import com.example.budgetwise.prediction.entity.PricePredictions;
 import com.example.budgetwise.prediction.repository.PricePredictionRepository;
+import com.example.budgetwise.prediction.service.BacktestService;
+import com.example.budgetwise.prediction.service.BulkForecastService;
+import com.example.budgetwise.prediction.service.ForecastModelSelector;
+import com.example.budgetwise.prediction.service.ForecastTaskExecutor;
+import com.example.budgetwise.prediction.service.LinearTrendModel;
+import com.example.budgetwise.prediction.service.PredictionJobService;
+import com.example.budgetwise.prediction.service.PredictionRetentionService;
 import com.example.budgetwise.prediction.service.PricePredictionService;
+import com.example.budgetwise.prediction.service.RegressionStateService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
@@ -12,6 +23,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -21,7 +33,6 @@ import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/admin/predictions")
@@ -32,31 +43,54 @@ public class PricePredictionController {
 
     private final PricePredictionService predictionService;
     private final PricePredictionRepository predictionRepo;
+    private final RegressionStateService regressionStateService;
+    private final ForecastTaskExecutor forecastTaskExecutor;
+    private final PredictionJobService jobService;
+    private final PredictionRetentionService retentionService;
+    private final BacktestService backtestService;
+    private final ForecastModelSelector modelSelector;
 
     /**
      * Trigger bulk prediction for all product-market pairs
-     * Returns immediately, processing happens asynchronously
+     * Returns immediately with the job id, processing happens asynchronously.
+     * 409 if a bulk run is already in progress (e.g. the nightly schedule).
      */
     @PostMapping("/bulk-trigger")
-    public ResponseEntity<Map<String, Object>> triggerBulk() {
-        log.info("Bulk prediction triggered via API");
-
-        CompletableFuture.runAsync(() -> {
-            try {
-                predictionService.runBulkPrediction();
-            } catch (Exception e) {
-                log.error("Bulk prediction failed", e);
-            }
-        });
+    public ResponseEntity<Map<String, Object>> triggerBulk(
+            @RequestParam(defaultValue = "FULL") BulkForecastService.Mode mode) {
+        log.info("Bulk prediction ({}) triggered via API", mode);
+
+        // Runs on the forecast executor; progress is tracked on the job
+        BulkForecastService.Run run = predictionService.runBulkPrediction(mode);
 
         Map<String, Object> response = new HashMap<>();
         response.put("status", "STARTED");
+        response.put("jobId", run.jobId());
+        response.put("mode", mode.name());
         response.put("message", "Bulk market-aware prediction triggered successfully");
         response.put("timestamp", System.currentTimeMillis());
 
         return ResponseEntity.accepted().body(response);
     }
 
+    /**
+     * Rebuild the per-pair regression state from price history.
+     * Needed after backfills or manual corrections of old price records.
+     */
+    @PostMapping("/regression-state/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRegressionState() {
+        log.info("Regression state rebuild triggered via API");
+
+        int pairs = regressionStateService.rebuildAll();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "SUCCESS");
+        response.put("pairsRebuilt", pairs);
+        response.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Generate forecast for specific product-market pair
      */
@@ -148,26 +182,13 @@ public class PricePredictionController {
 
         log.info("Batch generate triggered for {} pairs", pairs.size());
 
-        CompletableFuture.runAsync(() -> {
-            int success = 0;
-            int failed = 0;
-
-            for (ProductMarketPairRequest pair : pairs) {
-                try {
-                    predictionService.generateForecast(pair.productId(), pair.marketId());
-                    success++;
-                } catch (Exception e) {
-                    log.error("Failed to generate forecast for pair: {}", pair, e);
-                    failed++;
-                }
-            }
-
-            log.info("Batch generation completed - Success: {}, Failed: {}", success, failed);
-        });
+        // One task per pair, tracked as a BATCH job
+        PredictionJob job = jobService.runBatch(pairs);
 
         Map<String, Object> response = new HashMap<>();
         response.put("status", "STARTED");
         response.put("message", "Batch generation in progress");
+        response.put("jobId", job.getId());
         response.put("totalPairs", pairs.size());
         response.put("timestamp", System.currentTimeMillis());
 
@@ -175,18 +196,180 @@ public class PricePredictionController {
     }
 
     /**
-     * Get prediction status/health check
+     * Forecast executor metrics: queue depth (tasks waiting for a DB permit),
+     * active tasks and totals since startup.
+     */
+    @GetMapping("/executor/stats")
+    public ResponseEntity<ForecastTaskExecutor.Stats> getExecutorStats() {
+        return ResponseEntity.ok(forecastTaskExecutor.stats());
+    }
+
+    /**
+     * Get prediction status: BUSY with the running jobs, or IDLE
      */
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getStatus() {
+        List<PredictionJobResponse> running = jobService.getRunningJobs();
+
         Map<String, Object> status = new HashMap<>();
         status.put("service", "PricePredictionService");
-        status.put("status", "RUNNING");
+        status.put("status", running.isEmpty() ? "IDLE" : "BUSY");
+        status.put("runningJobs", running);
         status.put("timestamp", System.currentTimeMillis());
 
         return ResponseEntity.ok(status);
     }
 
+    /**
+     * Recent prediction jobs (bulk and batch), newest first
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<List<PredictionJobResponse>> getJobs(
+            @RequestParam(defaultValue = "20") @Positive int limit) {
+        return ResponseEntity.ok(jobService.getRecentJobs(limit));
+    }
+
+    /**
+     * Progress of one job: processed / total, failures, throughput, checkpoint
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<PredictionJobResponse> getJob(@PathVariable @Positive Long jobId) {
+        return ResponseEntity.ok(jobService.getJob(jobId));
+    }
+
+    /**
+     * Cancel a running job. It stops before its next chunk / pair;
+     * a bulk job keeps its checkpoint and can be resumed.
+     */
+    @PostMapping("/jobs/{jobId}/cancel")
+    public ResponseEntity<PredictionJobResponse> cancelJob(@PathVariable @Positive Long jobId) {
+        log.info("Cancel of prediction job {} requested via API", jobId);
+        return ResponseEntity.accepted().body(jobService.cancel(jobId));
+    }
+
+    /**
+     * Resume a cancelled, failed or interrupted bulk job from its checkpoint
+     */
+    @PostMapping("/jobs/{jobId}/resume")
+    public ResponseEntity<Map<String, Object>> resumeJob(@PathVariable @Positive Long jobId) {
+        log.info("Resume of prediction job {} requested via API", jobId);
+
+        BulkForecastService.Run run = predictionService.resumeBulkPrediction(jobId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "RESUMED");
+        response.put("jobId", run.jobId());
+        response.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.accepted().body(response);
+    }
+
+
+    /**
+     * Run the prediction retention job now (normally nightly): compacts expired target dates
+     * into the accuracy summary, then reclaims their rows in bounded batches.
+     * 409 if a run is already in progress.
+     */
+    @PostMapping("/retention/run")
+    public ResponseEntity<Map<String, Object>> runRetention() {
+        log.info("Prediction retention triggered via API");
+
+        PredictionRetentionRun run = retentionService.trigger();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "STARTED");
+        response.put("runId", run.getId());
+        response.put("predictionCutoff", run.getPredictionCutoff());
+        response.put("revisionCutoff", run.getRevisionCutoff());
+        response.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.accepted().body(response);
+    }
+
+    /**
+     * Recent retention runs, newest first: rows reclaimed per table, days compacted, duration
+     */
+    @GetMapping("/retention/runs")
+    public ResponseEntity<List<PredictionRetentionRun>> getRetentionRuns(
+            @RequestParam(defaultValue = "20") @Positive int limit) {
+        return ResponseEntity.ok(retentionService.getRecentRuns(limit));
+    }
+
+    /**
+     * Daily prediction accuracy compacted by the retention job, oldest first
+     */
+    @GetMapping("/accuracy")
+    public ResponseEntity<List<PredictionAccuracyDTO>> getAccuracy(
+            @RequestParam(defaultValue = "365") @Positive int days) {
+        return ResponseEntity.ok(retentionService.getAccuracy(days).stream()
+                .map(PredictionAccuracyDTO::from)
+                .toList());
+    }
+
+    /**
+     * Backtest the forecast: replay it as of every date in [from, to] and score it against
+     * the prices reported afterwards, per pair and horizon.
+     * 400 on an invalid range, 409 if a backtest is already in progress.
+     */
+    @PostMapping("/backtests")
+    public ResponseEntity<Map<String, Object>> runBacktest(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Backtest triggered via API for {} .. {}", from, to);
+
+        BacktestRun run = backtestService.trigger(from, to);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "STARTED");
+        response.put("runId", run.getId());
+        response.put("from", run.getFromDate());
+        response.put("to", run.getToDate());
+        response.put("parallelism", run.getParallelism());
+        response.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.accepted().body(response);
+    }
+
+    /**
+     * Recent backtest runs, newest first
+     */
+    @GetMapping("/backtests")
+    public ResponseEntity<List<BacktestRun>> getBacktests(
+            @RequestParam(defaultValue = "20") @Positive int limit) {
+        return ResponseEntity.ok(backtestService.getRecentRuns(limit));
+    }
+
+    /**
+     * One backtest run with MAPE / RMSE / bias per horizon (empty while RUNNING)
+     */
+    @GetMapping("/backtests/{runId}")
+    public ResponseEntity<BacktestReportDTO> getBacktest(@PathVariable Long runId) {
+        return ResponseEntity.ok(backtestService.getReport(runId));
+    }
+
+    /**
+     * Pairs of a backtest run for one model at one horizon, worst MAPE first
+     */
+    @GetMapping("/backtests/{runId}/pairs")
+    public ResponseEntity<List<BacktestPairMetricsDTO>> getBacktestPairs(
+            @PathVariable Long runId,
+            @RequestParam(defaultValue = LinearTrendModel.NAME) String model,
+            @RequestParam(defaultValue = "1") int horizon,
+            @RequestParam(defaultValue = "50") @Positive int limit) {
+        return ResponseEntity.ok(backtestService.getWorstPairs(runId, model, horizon, limit));
+    }
+
+    /**
+     * Registered forecast models and how many pairs each one was selected for by the backtests
+     */
+    @GetMapping("/models")
+    public ResponseEntity<Map<String, Object>> getForecastModels() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("models", modelSelector.models().keySet());
+        response.put("defaultModel", modelSelector.defaultModel().name());
+        response.put("selections", modelSelector.countSelections());
+        return ResponseEntity.ok(response);
+    }
 
     @GetMapping("/debug/history")
     public ResponseEntity<Map<String, Object>> getHistoricalData(
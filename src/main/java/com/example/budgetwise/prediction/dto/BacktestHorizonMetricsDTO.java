@@ -0,0 +1,17 @@
+package com.example.budgetwise.prediction.dto;
+
+/**
+ * Backtest accuracy of one forecast model at one horizon (day +1 .. +7) over every pair.
+ * bias is the mean of predicted - actual in price units, biasPct the same relative to the
+ * actual price (positive = forecasts too high).
+ */
+public record BacktestHorizonMetricsDTO(
+        String model,
+        int horizon,
+        long samples,
+        double mape,
+        double rmse,
+        double bias,
+        double biasPct
+) {
+}
@@ -0,0 +1,19 @@
+package com.example.budgetwise.prediction.dto;
+
+/**
+ * Backtest accuracy of one forecast model for one product-market pair at one horizon.
+ */
+public record BacktestPairMetricsDTO(
+        long productId,
+        String productName,
+        long marketId,
+        String marketName,
+        String model,
+        int horizon,
+        long samples,
+        double mape,
+        double rmse,
+        double bias,
+        double biasPct
+) {
+}
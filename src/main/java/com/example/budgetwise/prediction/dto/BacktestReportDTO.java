@@ -0,0 +1,15 @@
+package com.example.budgetwise.prediction.dto;
+
+import com.example.budgetwise.prediction.entity.BacktestRun;
+
+import java.util.List;
+
+/**
+ * One backtest run with its metrics per model and horizon (GET /backtests/{id}).
+ * horizons is empty while the run is RUNNING.
+ */
+public record BacktestReportDTO(
+        BacktestRun run,
+        List<BacktestHorizonMetricsDTO> horizons
+) {
+}
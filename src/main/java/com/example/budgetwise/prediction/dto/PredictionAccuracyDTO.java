@@ -0,0 +1,33 @@
+package com.example.budgetwise.prediction.dto;
+
+import com.example.budgetwise.prediction.entity.PredictionAccuracyDaily;
+
+import java.time.LocalDate;
+
+/**
+ * Compacted accuracy of one target date (GET /accuracy).
+ * mape is the mean absolute percentage error of the predictions that had an actual price;
+ * null when none had.
+ */
+public record PredictionAccuracyDTO(
+        LocalDate targetDate,
+        long predictionCount,
+        long evaluatedCount,
+        long anomalyCount,
+        long overriddenCount,
+        Double averageConfidence,
+        Double mape
+) {
+
+    public static PredictionAccuracyDTO from(PredictionAccuracyDaily day) {
+        return new PredictionAccuracyDTO(
+                day.getTargetDate(),
+                day.getPredictionCount(),
+                day.getEvaluatedCount(),
+                day.getAnomalyCount(),
+                day.getOverriddenCount(),
+                day.getPredictionCount() > 0 ? day.getConfidenceSum() / day.getPredictionCount() : null,
+                day.getEvaluatedCount() > 0 ? day.getAbsPctErrorSum() / day.getEvaluatedCount() * 100 : null
+        );
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.budgetwise.prediction.dto;
+
+import com.example.budgetwise.prediction.entity.PredictionJob;
+import com.example.budgetwise.prediction.service.BulkForecastService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of one prediction job (GET /jobs, GET /jobs/{id}).
+ * processed = pairs done so far (successful + failed); throughput is measured
+ * from the job start to its end (or to now while it runs).
+ */
+public record PredictionJobResponse(
+        Long id,
+        PredictionJob.Type type,
+        BulkForecastService.Mode mode,
+        PredictionJob.Status status,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt,
+        LocalDateTime heartbeatAt,
+        Integer totalPairs,
+        Integer processed,
+        Integer forecasted,
+        Integer failed,
+        Integer skipped,
+        Integer inserted,
+        Integer updated,
+        Integer overriddenSkipped,
+        Integer chunksCompleted,
+        Integer chunksFailed,
+        Double percentComplete,
+        Double throughputPairsPerSec,
+        Long lastProductId,
+        Long lastMarketId,
+        Boolean cancelRequested,
+        String errorMessage
+) {
+
+    public static PredictionJobResponse from(PredictionJob job) {
+        int processed = job.getPairsScanned() + job.getPairsFailed();
+
+        LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+        double seconds = Duration.between(job.getStartedAt(), end).toMillis() / 1000.0;
+        double throughput = seconds > 0 ? Math.round(processed / seconds * 100.0) / 100.0 : 0.0;
+
+        double percent = job.getTotalPairs() > 0
+                ? Math.min(100.0, Math.round(processed * 10000.0 / job.getTotalPairs()) / 100.0)
+                : (job.getStatus() == PredictionJob.Status.COMPLETED ? 100.0 : 0.0);
+
+        return new PredictionJobResponse(
+                job.getId(),
+                job.getType(),
+                job.getMode(),
+                job.getStatus(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                job.getHeartbeatAt(),
+                job.getTotalPairs(),
+                processed,
+                job.getPairsForecasted(),
+                job.getPairsFailed(),
+                job.getPairsSkipped(),
+                job.getInserted(),
+                job.getUpdated(),
+                job.getOverriddenSkipped(),
+                job.getChunksCompleted(),
+                job.getChunksFailed(),
+                percent,
+                throughput,
+                job.getLastProductId(),
+                job.getLastMarketId(),
+                job.isCancelRequested(),
+                job.getErrorMessage()
+        );
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.budgetwise.prediction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * Error sums of one forecast model for one (product, market) pair at one horizon
+ * (day +1 .. +7) in a backtest run.
+ * <p>
+ * Sums are stored (not MAPE / RMSE / bias themselves) so results aggregate exactly over
+ * pairs, markets or horizons. With e = predicted - actual:
+ * MAPE = 100 * absPctErrorSum / n, RMSE = sqrt(sqErrorSum / n), bias = errorSum / n.
+ */
+@Table(name = "backtest_result")
+@Entity
+@IdClass(BacktestResult.Key.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BacktestResult {
+
+    @Id
+    @Column(name = "run_id")
+    private Long runId;
+
+    @Id
+    @Column(name = "product_info_id")
+    private Long productInfoId;
+
+    @Id
+    @Column(name = "market_location_id")
+    private Long marketLocationId;
+
+    /** {@code ForecastModel#name()}. */
+    @Id
+    @Column(name = "model", length = 30)
+    private String model;
+
+    @Id
+    @Column(name = "horizon")
+    private Integer horizon;
+
+    @Column(name = "sample_count", nullable = false)
+    private int sampleCount;
+
+    @Column(name = "abs_pct_error_sum", nullable = false)
+    private double absPctErrorSum;
+
+    @Column(name = "pct_error_sum", nullable = false)
+    private double pctErrorSum;
+
+    @Column(name = "sq_error_sum", nullable = false)
+    private double sqErrorSum;
+
+    @Column(name = "error_sum", nullable = false)
+    private double errorSum;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long runId;
+        private Long productInfoId;
+        private Long marketLocationId;
+        private String model;
+        private Integer horizon;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.budgetwise.prediction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One forecast backtest: forecasts replayed as of every report date in
+ * [{@link #fromDate}, {@link #toDate}] and scored against the prices realized afterwards.
+ * Per-pair, per-horizon scores are in {@link BacktestResult}.
+ */
+@Table(name = "backtest_run",
+        indexes = {
+                @Index(name = "idx_backtest_run_started", columnList = "started_at")
+        })
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class BacktestRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private Status status;
+
+    @Column(name = "from_date", nullable = false)
+    private LocalDate fromDate;
+
+    @Column(name = "to_date", nullable = false)
+    private LocalDate toDate;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "parallelism", nullable = false)
+    private int parallelism;
+
+    @Column(name = "pairs", nullable = false)
+    private int pairs;
+
+    /** As-of dates with enough history to forecast, over all pairs. */
+    @Column(name = "forecasts", nullable = false)
+    private long forecasts;
+
+    /** Forecast days that had a realized price to be scored against. */
+    @Column(name = "samples", nullable = false)
+    private long samples;
+
+    /** Pairs whose forecast model selection was written at the end of the run. */
+    @Column(name = "models_selected")
+    private Integer modelsSelected;
+
+    @Column(name = "load_ms")
+    private Long loadMs;
+
+    @Column(name = "compute_ms")
+    private Long computeMs;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+}
@@ -0,0 +1,45 @@
+package com.example.budgetwise.prediction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Change-tracking feed for the forecaster.
+ * <p>
+ * One row per (product, market) pair that received new prices since the last
+ * prediction run. Written by the ingestion pipeline, consumed (and cleared) by the
+ * DELTA mode of the bulk forecast.
+ */
+@Table(name = "forecast_dirty_pair")
+@Entity
+@IdClass(ForecastDirtyPair.Key.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class ForecastDirtyPair {
+
+    @Id
+    @Column(name = "product_info_id")
+    private Long productInfoId;
+
+    @Id
+    @Column(name = "market_location_id")
+    private Long marketLocationId;
+
+    @Column(name = "marked_at", nullable = false)
+    private LocalDateTime markedAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long productInfoId;
+        private Long marketLocationId;
+    }
+}
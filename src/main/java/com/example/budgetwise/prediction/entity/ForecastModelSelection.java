@@ -0,0 +1,63 @@
+package com.example.budgetwise.prediction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Forecast model chosen for one product-market pair from its backtest error.
+ * <p>
+ * Written at the end of every completed backtest for the pairs with enough scored days;
+ * pairs without a row are forecast with the linear trend. Read as a whole into memory by
+ * {@code ForecastModelSelector}.
+ */
+@Table(name = "forecast_model_selection")
+@Entity
+@IdClass(ForecastModelSelection.Key.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class ForecastModelSelection {
+
+    @Id
+    @Column(name = "product_info_id")
+    private Long productInfoId;
+
+    @Id
+    @Column(name = "market_location_id")
+    private Long marketLocationId;
+
+    /** {@code ForecastModel#name()} of the chosen model. */
+    @Column(name = "model", length = 30, nullable = false)
+    private String model;
+
+    /** Backtest MAPE (%) of the chosen model, all horizons. */
+    @Column(name = "mape", nullable = false)
+    private double mape;
+
+    /** Backtest MAPE (%) of the linear trend on the same days, for comparison. */
+    @Column(name = "linear_mape", nullable = false)
+    private double linearMape;
+
+    @Column(name = "sample_count", nullable = false)
+    private int sampleCount;
+
+    @Column(name = "backtest_run_id", nullable = false)
+    private Long backtestRunId;
+
+    @Column(name = "selected_at", nullable = false)
+    private LocalDateTime selectedAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long productInfoId;
+        private Long marketLocationId;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.budgetwise.prediction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Accuracy of all predictions for one target date, kept after the predictions themselves
+ * are removed by the retention job ({@code PredictionRetentionService}).
+ * <p>
+ * Sums are stored (not averages) so any range of days aggregates exactly. A prediction is
+ * evaluated when its pair has a rolled-up actual price on the target date.
+ */
+@Table(name = "prediction_accuracy_daily")
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class PredictionAccuracyDaily {
+
+    @Id
+    @Column(name = "target_date")
+    private LocalDate targetDate;
+
+    @Column(name = "prediction_count", nullable = false)
+    private long predictionCount;
+
+    @Column(name = "evaluated_count", nullable = false)
+    private long evaluatedCount;
+
+    @Column(name = "anomaly_count", nullable = false)
+    private long anomalyCount;
+
+    @Column(name = "overridden_count", nullable = false)
+    private long overriddenCount;
+
+    @Column(name = "confidence_sum", nullable = false)
+    private double confidenceSum;
+
+    /** Sum of |predicted - actual| / actual over the evaluated predictions. */
+    @Column(name = "abs_pct_error_sum", nullable = false)
+    private double absPctErrorSum;
+
+    @Column(name = "compacted_at", nullable = false)
+    private LocalDateTime compactedAt;
+}
@@ -0,0 +1,111 @@
+package com.example.budgetwise.prediction.entity;
+
+import com.example.budgetwise.prediction.service.BulkForecastService;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One prediction job (bulk run or batch generation), its progress and its checkpoint.
+ * <p>
+ * A BULK run walks the regression states in (product, market) order, one chunk per
+ * transaction. The checkpoint (last pair of the last committed chunk) and the counters
+ * are written in the same transaction as the chunk's predictions, so after a crash the
+ * next run resumes right after the last committed chunk.
+ */
+@Table(name = "prediction_job",
+        indexes = {
+                @Index(name = "idx_prediction_job_status", columnList = "type, status, started_at")
+        })
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class PredictionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prediction_job_seq")
+    @SequenceGenerator(name = "prediction_job_seq", sequenceName = "prediction_job_seq", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+
+    public enum Type {
+        BULK, BATCH
+    }
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", length = 20, nullable = false)
+    private Type type;
+
+    /** FULL / DELTA for BULK jobs, null for BATCH jobs. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "mode", length = 20)
+    private BulkForecastService.Mode mode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private Status status;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /** Updated with every committed chunk / pair; a RUNNING job without heartbeat is stale. */
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    /** Pairs the job will process (known once the job has started). */
+    @Column(name = "total_pairs", nullable = false)
+    private int totalPairs;
+
+    /** Last pair of the last committed chunk, null before the first chunk. */
+    @Column(name = "last_product_id")
+    private Long lastProductId;
+
+    @Column(name = "last_market_id")
+    private Long lastMarketId;
+
+    @Column(name = "pairs_scanned", nullable = false)
+    private int pairsScanned;
+
+    @Column(name = "pairs_forecasted", nullable = false)
+    private int pairsForecasted;
+
+    @Column(name = "pairs_skipped", nullable = false)
+    private int pairsSkipped;
+
+    /** Pairs of failed chunks (BULK) or failed pairs (BATCH). */
+    @Column(name = "pairs_failed", nullable = false)
+    private int pairsFailed;
+
+    @Column(name = "inserted", nullable = false)
+    private int inserted;
+
+    @Column(name = "updated", nullable = false)
+    private int updated;
+
+    @Column(name = "overridden_skipped", nullable = false)
+    private int overriddenSkipped;
+
+    @Column(name = "chunks_completed", nullable = false)
+    private int chunksCompleted;
+
+    /** Chunks given up after all retries; their pairs stay dirty for the next run. */
+    @Column(name = "chunks_failed", nullable = false)
+    private int chunksFailed;
+
+    /** Set by an operator; the runner stops before its next chunk / pair. */
+    @Column(name = "cancel_requested", nullable = false)
+    private boolean cancelRequested;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+}
@@ -0,0 +1,69 @@
+package com.example.budgetwise.prediction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One run of the prediction retention job: horizons applied, rows reclaimed, duration.
+ */
+@Table(name = "prediction_retention_run",
+        indexes = {
+                @Index(name = "idx_prediction_retention_run_started", columnList = "started_at")
+        })
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class PredictionRetentionRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 20, nullable = false)
+    private Status status;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /** Predictions with a target date before this were expired. */
+    @Column(name = "prediction_cutoff", nullable = false)
+    private LocalDate predictionCutoff;
+
+    /** Revisions with a target date before this were expired. */
+    @Column(name = "revision_cutoff", nullable = false)
+    private LocalDate revisionCutoff;
+
+    @Column(name = "days_compacted", nullable = false)
+    private int daysCompacted;
+
+    @Column(name = "predictions_deleted", nullable = false)
+    private long predictionsDeleted;
+
+    @Column(name = "predictions_archived", nullable = false)
+    private long predictionsArchived;
+
+    @Column(name = "revisions_deleted", nullable = false)
+    private long revisionsDeleted;
+
+    @Column(name = "batches", nullable = false)
+    private int batches;
+
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+}
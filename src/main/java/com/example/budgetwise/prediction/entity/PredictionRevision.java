@@ -0,0 +1,63 @@
+package com.example.budgetwise.prediction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only history of replaced prediction values.
+ * <p>
+ * {@code price_predictions} keeps one row per (product, market, targetDate); when
+ * {@code forecast.audit-revisions} is on, the previous values of a row are copied here before
+ * a forecast run overwrites them. Duplicates removed by {@code PredictionKeyMigration} land
+ * here as well, and so do expired predictions when the retention job archives instead of
+ * deleting. Never read on a request path; trimmed by the retention job after its own horizon.
+ */
+@Table(name = "price_prediction_revision",
+        indexes = {
+                @Index(name = "idx_prediction_revision_key",
+                        columnList = "product_info_id, market_location_id, target_date"),
+                @Index(name = "idx_prediction_revision_target", columnList = "target_date")
+        })
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class PredictionRevision {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "prediction_id", nullable = false)
+    private Long predictionId;
+
+    @Column(name = "product_info_id", nullable = false)
+    private Long productInfoId;
+
+    @Column(name = "market_location_id", nullable = false)
+    private Long marketLocationId;
+
+    @Column(name = "target_date", nullable = false)
+    private LocalDate targetDate;
+
+    @Column(name = "predicted_price", nullable = false)
+    private Double predictedPrice;
+
+    @Column(name = "confidence_score", nullable = false)
+    private Double confidenceScore;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private PricePredictions.Status status;
+
+    /** When the replaced values were computed (their {@code created_at}). */
+    @Column(name = "computed_at")
+    private LocalDateTime computedAt;
+
+    @Column(name = "revised_at", nullable = false)
+    private LocalDateTime revisedAt;
+}
@@ -11,13 +11,20 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+/**
+ * Current prediction of one (product, market, targetDate) key. The key is unique
+ * ({@code uk_prediction_pair_target}, created by {@code PredictionKeyMigration}): forecast runs
+ * update the row in place, replaced values optionally go to {@link PredictionRevision}.
+ */
 @Table(name = "price_predictions" ,
                                      indexes = {
                                         @Index(name = "idx_prediction_product_date" ,columnList = "product_info_id, targetDate"),
-                                             @Index(name = "idx_prediction_lookup",
-                                                     columnList = "product_info_id, market_location_id, targetDate DESC"),
                                              @Index(name = "idx_prediction_status",
-                                                     columnList = "status, targetDate")
+                                                     columnList = "status, targetDate"),
+                                             @Index(name = "idx_prediction_target_pair",
+                                                     columnList = "targetDate, product_info_id, market_location_id, id"),
+                                             @Index(name = "idx_prediction_created_at",
+                                                     columnList = "createdAt")
                                      })
 @Entity
 @AllArgsConstructor
@@ -27,7 +34,8 @@ import java.time.LocalDateTime;
 public class PricePredictions {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "price_predictions_seq")
+    @SequenceGenerator(name = "price_predictions_seq", sequenceName = "price_predictions_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,99 @@
+package com.example.budgetwise.prediction.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Incremental regression state (sufficient statistics) for one product-market pair.
+ * <p>
+ * Holds the sums needed for an OLS line fit over the last 30 prices, plus the prices
+ * themselves in a ring buffer, so the nightly forecaster never reads price history.
+ * X is the position inside the window (0 = oldest, n-1 = newest).
+ * Maintained at ingest time by {@code RegressionStateService}.
+ */
+@Table(name = "price_regression_state")
+@Entity
+@IdClass(PriceRegressionState.Key.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class PriceRegressionState implements Persistable<PriceRegressionState.Key> {
+
+    @Id
+    @Column(name = "product_info_id")
+    private Long productInfoId;
+
+    @Id
+    @Column(name = "market_location_id")
+    private Long marketLocationId;
+
+    @Column(name = "sample_count", nullable = false)
+    private int sampleCount;
+
+    @Column(name = "sum_x", nullable = false)
+    private double sumX;
+
+    @Column(name = "sum_y", nullable = false)
+    private double sumY;
+
+    @Column(name = "sum_xy", nullable = false)
+    private double sumXY;
+
+    @Column(name = "sum_xx", nullable = false)
+    private double sumXX;
+
+    @Column(name = "sum_yy", nullable = false)
+    private double sumYY;
+
+    /** Ring buffer of the last 30 prices. {@link #ringStart} points at the oldest one. */
+    @Column(name = "recent_prices", nullable = false)
+    private double[] recentPrices;
+
+    @Column(name = "ring_start", nullable = false)
+    private int ringStart;
+
+    @Column(name = "last_report_date")
+    private LocalDate lastReportDate;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Transient
+    private boolean isNew;
+
+    /** {@code forecast_dirty_pair.marked_at} read together with the state by the bulk walk, null if clean. */
+    @Transient
+    private LocalDateTime dirtyMarkedAt;
+
+    @Override
+    public Key getId() {
+        return new Key(productInfoId, marketLocationId);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long productInfoId;
+        private Long marketLocationId;
+    }
+}
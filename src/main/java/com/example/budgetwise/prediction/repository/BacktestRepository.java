@@ -0,0 +1,225 @@
+package com.example.budgetwise.prediction.repository;
+
+import com.example.budgetwise.prediction.dto.BacktestHorizonMetricsDTO;
+import com.example.budgetwise.prediction.dto.BacktestPairMetricsDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access of the forecast backtest.
+ * <p>
+ * PERFORMANCE STRATEGY:
+ * 1. Price history is read from {@code daily_price_rollup} (one row per pair and report
+ *    date, the daily average of the raw records), streamed with a server-side cursor in
+ *    (pair, date) order, so the caller packs it straight into primitive arrays.
+ * 2. Results and model selections are written with JDBC batches; metrics are aggregated
+ *    in SQL from the stored error sums.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BacktestRepository {
+
+    private static final int STREAM_FETCH_SIZE = 5000;
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @FunctionalInterface
+    public interface PricePointHandler {
+        void accept(long productId, long marketId, int epochDay, double price);
+    }
+
+    @FunctionalInterface
+    public interface ModelSelectionHandler {
+        void accept(long productId, long marketId, String model);
+    }
+
+    /**
+     * Error sums of one model for one pair at one horizon, see {@code BacktestResult}.
+     */
+    public record ResultRow(long productId, long marketId, String model, int horizon, int sampleCount,
+                            double absPctErrorSum, double pctErrorSum, double sqErrorSum, double errorSum) {}
+
+    /**
+     * Model chosen for one pair, see {@code ForecastModelSelection}.
+     */
+    public record SelectionRow(long productId, long marketId, String model, double mape,
+                               double linearMape, int sampleCount) {}
+
+    /**
+     * Daily prices of every ACTIVE product's pairs between two dates, ordered by pair then date.
+     * Must be called inside a transaction for PostgreSQL to honor the fetch size.
+     */
+    public void streamDailyPrices(LocalDate fromDate, LocalDate toDate, PricePointHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                    SELECT r.product_info_id, r.market_location_id, r.report_date,
+                           r.price_sum / r.price_count
+                    FROM daily_price_rollup r
+                    JOIN product_info pi ON pi.id = r.product_info_id
+                    WHERE pi.status = 'ACTIVE'
+                      AND r.report_date BETWEEN ? AND ?
+                      AND r.price_count > 0
+                    ORDER BY r.product_info_id, r.market_location_id, r.report_date
+                    """);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setObject(1, fromDate);
+            ps.setObject(2, toDate);
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.accept(
+                rs.getLong(1),
+                rs.getLong(2),
+                (int) rs.getObject(3, LocalDate.class).toEpochDay(),
+                rs.getDouble(4)
+        ));
+    }
+
+    public void insertResults(long runId, List<ResultRow> rows) {
+        if (rows.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO backtest_result
+                            (run_id, product_info_id, market_location_id, model, horizon, sample_count,
+                             abs_pct_error_sum, pct_error_sum, sq_error_sum, error_sum)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        """,
+                rows, WRITE_BATCH_SIZE, (ps, row) -> {
+                    ps.setLong(1, runId);
+                    ps.setLong(2, row.productId());
+                    ps.setLong(3, row.marketId());
+                    ps.setString(4, row.model());
+                    ps.setInt(5, row.horizon());
+                    ps.setInt(6, row.sampleCount());
+                    ps.setDouble(7, row.absPctErrorSum());
+                    ps.setDouble(8, row.pctErrorSum());
+                    ps.setDouble(9, row.sqErrorSum());
+                    ps.setDouble(10, row.errorSum());
+                });
+    }
+
+    /**
+     * Writes (or replaces) the model selection of each pair. Pairs absent from {@code rows}
+     * keep their previous selection.
+     */
+    public void upsertModelSelections(long runId, List<SelectionRow> rows, LocalDateTime now) {
+        if (rows.isEmpty()) return;
+
+        Timestamp selectedAt = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO forecast_model_selection
+                            (product_info_id, market_location_id, model, mape, linear_mape,
+                             sample_count, backtest_run_id, selected_at)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+                        ON CONFLICT (product_info_id, market_location_id) DO UPDATE SET
+                            model = EXCLUDED.model,
+                            mape = EXCLUDED.mape,
+                            linear_mape = EXCLUDED.linear_mape,
+                            sample_count = EXCLUDED.sample_count,
+                            backtest_run_id = EXCLUDED.backtest_run_id,
+                            selected_at = EXCLUDED.selected_at
+                        """,
+                rows, WRITE_BATCH_SIZE, (ps, row) -> {
+                    ps.setLong(1, row.productId());
+                    ps.setLong(2, row.marketId());
+                    ps.setString(3, row.model());
+                    ps.setDouble(4, row.mape());
+                    ps.setDouble(5, row.linearMape());
+                    ps.setInt(6, row.sampleCount());
+                    ps.setLong(7, runId);
+                    ps.setTimestamp(8, selectedAt);
+                });
+    }
+
+    /**
+     * Every model selection, for the in-memory snapshot of the selector.
+     */
+    public void streamModelSelections(ModelSelectionHandler handler) {
+        jdbcTemplate.query("""
+                        SELECT product_info_id, market_location_id, model
+                        FROM forecast_model_selection
+                        """,
+                (RowCallbackHandler) rs -> handler.accept(rs.getLong(1), rs.getLong(2), rs.getString(3)));
+    }
+
+    /**
+     * Number of pairs per selected model, most used first.
+     */
+    public Map<String, Long> countModelSelections() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                        SELECT model, COUNT(*) FROM forecast_model_selection
+                        GROUP BY model
+                        ORDER BY COUNT(*) DESC, model
+                        """,
+                (RowCallbackHandler) rs -> counts.put(rs.getString(1), rs.getLong(2)));
+        return counts;
+    }
+
+    /**
+     * MAPE / RMSE / bias of a run per model and horizon, over every pair.
+     */
+    public List<BacktestHorizonMetricsDTO> findHorizonMetrics(long runId) {
+        return jdbcTemplate.query("""
+                        SELECT model,
+                               horizon,
+                               SUM(sample_count),
+                               100 * SUM(abs_pct_error_sum) / SUM(sample_count),
+                               SQRT(SUM(sq_error_sum) / SUM(sample_count)),
+                               SUM(error_sum) / SUM(sample_count),
+                               100 * SUM(pct_error_sum) / SUM(sample_count)
+                        FROM backtest_result
+                        WHERE run_id = ?
+                          AND sample_count > 0
+                        GROUP BY model, horizon
+                        ORDER BY model, horizon
+                        """,
+                (rs, rowNum) -> new BacktestHorizonMetricsDTO(
+                        rs.getString(1), rs.getInt(2), rs.getLong(3), rs.getDouble(4),
+                        rs.getDouble(5), rs.getDouble(6), rs.getDouble(7)),
+                runId);
+    }
+
+    /**
+     * Pairs of a run for one model at one horizon, worst MAPE first.
+     */
+    public List<BacktestPairMetricsDTO> findWorstPairs(long runId, String model, int horizon, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT b.product_info_id, pi.product_name, b.market_location_id, m.market_location,
+                               b.model, b.horizon, b.sample_count,
+                               100 * b.abs_pct_error_sum / b.sample_count AS mape,
+                               SQRT(b.sq_error_sum / b.sample_count),
+                               b.error_sum / b.sample_count,
+                               100 * b.pct_error_sum / b.sample_count
+                        FROM backtest_result b
+                        JOIN product_info pi ON pi.id = b.product_info_id
+                        JOIN market_location m ON m.id = b.market_location_id
+                        WHERE b.run_id = ?
+                          AND b.model = ?
+                          AND b.horizon = ?
+                          AND b.sample_count > 0
+                        ORDER BY mape DESC, b.product_info_id, b.market_location_id
+                        LIMIT ?
+                        """,
+                (rs, rowNum) -> mapPair(rs),
+                runId, model, horizon, limit);
+    }
+
+    private static BacktestPairMetricsDTO mapPair(ResultSet rs) throws SQLException {
+        return new BacktestPairMetricsDTO(
+                rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getString(4),
+                rs.getString(5), rs.getInt(6), rs.getLong(7), rs.getDouble(8), rs.getDouble(9),
+                rs.getDouble(10), rs.getDouble(11));
+    }
+}
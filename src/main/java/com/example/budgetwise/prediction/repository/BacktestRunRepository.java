@@ -0,0 +1,14 @@
+package com.example.budgetwise.prediction.repository;
+
+import com.example.budgetwise.prediction.entity.BacktestRun;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BacktestRunRepository extends JpaRepository<BacktestRun, Long> {
+
+    List<BacktestRun> findAllByOrderByStartedAtDesc(Pageable pageable);
+}
@@ -0,0 +1,103 @@
+package com.example.budgetwise.prediction.repository;
+
+import com.example.budgetwise.prediction.entity.PricePredictions;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-query page of the calibration grid (ACTIVE products x one market).
+ * <p>
+ * PERFORMANCE STRATEGY:
+ * 1. Current price comes from {@code latest_price} (primary-key join).
+ * 2. Tomorrow's forecast is a join on the unique (product, market, targetDate) key
+ *    {@code uk_prediction_pair_target}: one row per product, no "latest" subquery.
+ * 3. Trend % is computed in SQL, so the grid can be sorted on it (and on every other
+ *    computed column) server-side, before LIMIT/OFFSET.
+ * <p>
+ * Sort properties are translated through a whitelist; the SQL never contains user input.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CalibrationQueryRepository {
+
+    /**
+     * Sortable DTO properties -> SQL expressions of the query below.
+     */
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "productId", "pi.id",
+            "id", "pi.id",
+            "productName", "pi.product_name",
+            "currentPrice", "lp.price",
+            "forecastPrice", "pp.predicted_price",
+            "trendPercentage", "trend_percentage",
+            "confidenceScore", "pp.confidence_score",
+            "status", "pp.status"
+    );
+
+    private static final String DEFAULT_ORDER = "pi.product_name ASC";
+
+    public record CalibrationRow(long productId, String productName, Double currentPrice,
+                                 Double forecastPrice, Double trendPercentage,
+                                 Double confidenceScore, PricePredictions.Status status) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<CalibrationRow> findPage(Long marketId, LocalDate targetDate, Pageable pageable) {
+        String sql = """
+                SELECT pi.id, pi.product_name, lp.price AS current_price,
+                       pp.predicted_price, pp.confidence_score, pp.status,
+                       CASE WHEN lp.price > 0 AND pp.predicted_price IS NOT NULL
+                            THEN (pp.predicted_price - lp.price) / lp.price * 100
+                       END AS trend_percentage
+                FROM product_info pi
+                LEFT JOIN latest_price lp
+                       ON lp.product_info_id = pi.id AND lp.market_location_id = ?
+                LEFT JOIN price_predictions pp
+                       ON pp.product_info_id = pi.id
+                      AND pp.market_location_id = ?
+                      AND pp.target_date = ?
+                WHERE pi.status = 'ACTIVE'
+                ORDER BY %s, pi.id
+                LIMIT ? OFFSET ?
+                """.formatted(orderBy(pageable.getSort()));
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+                    String status = rs.getString("status");
+                    return new CalibrationRow(
+                            rs.getLong("id"),
+                            rs.getString("product_name"),
+                            rs.getObject("current_price", Double.class),
+                            rs.getObject("predicted_price", Double.class),
+                            rs.getObject("trend_percentage", Double.class),
+                            rs.getObject("confidence_score", Double.class),
+                            status != null ? PricePredictions.Status.valueOf(status) : null
+                    );
+                },
+                marketId, marketId, Date.valueOf(targetDate),
+                pageable.getPageSize(), pageable.getOffset());
+    }
+
+    /**
+     * Whitelisted ORDER BY. Unknown properties are ignored; NULLs (no price / no forecast)
+     * always sort last so the interesting rows come first in both directions.
+     */
+    private static String orderBy(Sort sort) {
+        List<String> parts = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column != null) {
+                parts.add(column + (order.isAscending() ? " ASC" : " DESC") + " NULLS LAST");
+            }
+        }
+        return parts.isEmpty() ? DEFAULT_ORDER : String.join(", ", parts);
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.budgetwise.prediction.repository;
 
+import com.example.budgetwise.prediction.repository.projection.PairPriceProjection;
+import com.example.budgetwise.prediction.repository.projection.PairRecordCountProjection;
 import com.example.budgetwise.product.entity.DailyPriceRecord;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -7,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,21 +18,19 @@ public interface DailyPriceRecordPredictionRepository extends JpaRepository<Dail
 
     @Query("""
            SELECT d FROM DailyPriceRecord d 
-                      JOIN d.priceReport r 
                       WHERE d.productInfo.id = :productId 
-                                 ORDER BY r.dateReported DESC, d.createdAt DESC
+                                 ORDER BY d.reportDate DESC, d.createdAt DESC
            """)
     List<DailyPriceRecord> findLatestByProductId(@Param("productId") Long productId, Pageable pageable);
 
 
     @Query("""
         SELECT d FROM DailyPriceRecord d
-        JOIN FETCH d.priceReport pr
         JOIN FETCH d.productInfo pi
         JOIN FETCH d.marketLocation ml
         WHERE pi.id = :productId 
         AND ml.id = :marketId
-        ORDER BY pr.dateReported DESC
+        ORDER BY d.reportDate DESC
         LIMIT 30
     """)
     List<DailyPriceRecord> findTop30ByProductInfoIdAndMarketLocationIdOrderByPriceReport_DateReportedDesc(
@@ -48,19 +49,26 @@ public interface DailyPriceRecordPredictionRepository extends JpaRepository<Dail
     List<Object[]> findExistingProductMarketPairs();
 
     @Query("""
-        SELECT d.price 
-        FROM DailyPriceRecord d
-        JOIN d.priceReport pr
-        WHERE d.productInfo.id = :productId 
-        AND d.marketLocation.id = :marketId
-        ORDER BY pr.dateReported DESC
-        LIMIT 1
+        SELECT lp.price
+        FROM LatestPrice lp
+        WHERE lp.productInfoId = :productId
+        AND lp.marketLocationId = :marketId
     """)
     Optional<Double> findLatestPriceByProductAndMarket(
             @Param("productId") Long productId,
             @Param("marketId") Long marketId
     );
 
+    /**
+     * Latest price of every (product, market) pair of the given products, one query.
+     */
+    @Query("""
+        SELECT lp.productInfoId AS productId, lp.marketLocationId AS marketId, lp.price AS price
+        FROM LatestPrice lp
+        WHERE lp.productInfoId IN :productIds
+    """)
+    List<PairPriceProjection> findLatestPricesByProductIds(@Param("productIds") Collection<Long> productIds);
+
     @Query("""
         SELECT d.productInfo.id, MAX(d.price) 
         FROM DailyPriceRecord d 
@@ -97,4 +105,16 @@ public interface DailyPriceRecordPredictionRepository extends JpaRepository<Dail
             @Param("productId") Long productId,
             @Param("marketId") Long marketId
     );
+
+    /**
+     * Price record count of every (product, market) pair of the given products, one query.
+     */
+    @Query("""
+    SELECT dpr.productInfo.id AS productId, dpr.marketLocation.id AS marketId, COUNT(dpr) AS dataPoints
+    FROM DailyPriceRecord dpr
+    WHERE dpr.productInfo.id IN :productIds
+    AND dpr.marketLocation.id IS NOT NULL
+    GROUP BY dpr.productInfo.id, dpr.marketLocation.id
+""")
+    List<PairRecordCountProjection> countRecordsByProductIds(@Param("productIds") Collection<Long> productIds);
 }
@@ -0,0 +1,55 @@
+package com.example.budgetwise.prediction.repository;
+
+import com.example.budgetwise.prediction.entity.ForecastDirtyPair;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface ForecastDirtyPairRepository extends JpaRepository<ForecastDirtyPair, ForecastDirtyPair.Key> {
+
+    /**
+     * Marks the pairs of the given products in a price report as dirty, in one statement.
+     * Called once per ingestion chunk. Pairs that are already dirty are re-stamped, so a bulk
+     * run that read the pair before these prices never clears the marker (it deletes a marker
+     * only if {@code marked_at} is still the value it read).
+     * Flushes first so the price rows saved in the same transaction are visible.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        INSERT INTO forecast_dirty_pair (product_info_id, market_location_id, marked_at)
+        SELECT DISTINCT dpr.product_info_id, dpr.market_location_id, :markedAt
+        FROM daily_price_record dpr
+        WHERE dpr.price_report_id = :reportId
+          AND dpr.product_info_id IN (:productIds)
+          AND dpr.market_location_id IS NOT NULL
+        ON CONFLICT (product_info_id, market_location_id) DO UPDATE SET marked_at = EXCLUDED.marked_at
+    """, nativeQuery = true)
+    int markPairsFromReportProducts(@Param("reportId") Long reportId,
+                                    @Param("productIds") Collection<Long> productIds,
+                                    @Param("markedAt") LocalDateTime markedAt);
+
+    /**
+     * Clears the markers of pairs a prediction run does not walk (inactive products, pairs
+     * without a regression state). Walked pairs are cleared chunk by chunk,
+     * see {@code PredictionBulkRepository#deleteDirtyPairs}.
+     * Pairs marked while the run was in progress stay dirty for the next run.
+     */
+    @Modifying
+    @Query(value = """
+        DELETE FROM forecast_dirty_pair d
+        WHERE d.marked_at <= :cutoff
+          AND NOT EXISTS (
+                SELECT 1 FROM price_regression_state s
+                JOIN product_info pi ON pi.id = s.product_info_id
+                WHERE pi.status = 'ACTIVE'
+                  AND s.product_info_id = d.product_info_id
+                  AND s.market_location_id = d.market_location_id)
+    """, nativeQuery = true)
+    int deleteUnwalkedMarkedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface MarketLocationPredictionRepository extends JpaRepository<MarketLocation, Long> {
 
@@ -13,4 +15,6 @@ public interface MarketLocationPredictionRepository extends JpaRepository<Market
     WHERE m.status = 'ACTIVE'
 """)
     Integer countActiveMarkets();
+
+    List<MarketLocation> findAllByStatus(MarketLocation.Status status);
 }
@@ -0,0 +1,14 @@
+package com.example.budgetwise.prediction.repository;
+
+import com.example.budgetwise.prediction.entity.PredictionAccuracyDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PredictionAccuracyDailyRepository extends JpaRepository<PredictionAccuracyDaily, LocalDate> {
+
+    List<PredictionAccuracyDaily> findAllByTargetDateGreaterThanEqualOrderByTargetDateAsc(LocalDate fromDate);
+}
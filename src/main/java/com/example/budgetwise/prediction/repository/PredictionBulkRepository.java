@@ -0,0 +1,450 @@
+package com.example.budgetwise.prediction.repository;
+
+import com.example.budgetwise.configuration.PooledIdAllocator;
+import com.example.budgetwise.prediction.entity.PricePredictions;
+import com.example.budgetwise.prediction.entity.PriceRegressionState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set-based JDBC access for the bulk forecasting engine.
+ * <p>
+ * Bypasses the JPA persistence context on purpose: the nightly run touches every
+ * active product-market pair, and loading them as entities (plus one lookup per
+ * target date) was the dominant cost of the old per-pair loop.
+ */
+@Repository
+public class PredictionBulkRepository {
+
+    private static final int STREAM_FETCH_SIZE = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PooledIdAllocator idAllocator;
+    private final boolean auditRevisions;
+
+    public PredictionBulkRepository(JdbcTemplate jdbcTemplate, PooledIdAllocator idAllocator, @Value("${forecast.audit-revisions:false}") boolean auditRevisions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.auditRevisions = auditRevisions;
+    }
+
+    /**
+     * Row callback for the windowed price stream (avoids boxing per row).
+     */
+    @FunctionalInterface
+    public interface PriceRowHandler {
+        void accept(long productId, long marketId, double price, LocalDate dateReported);
+    }
+
+    /**
+     * Row to be written by {@link #upsertPredictions}.
+     */
+    public record PredictionWrite(long productId, long marketId, LocalDate targetDate,
+                                  double predictedPrice, double confidenceScore,
+                                  PricePredictions.Status status) {}
+
+    /**
+     * Outcome of one {@link #upsertPredictions} call. Rows neither inserted nor updated
+     * hit a manual override.
+     */
+    public record UpsertResult(int inserted, int updated, int overriddenSkipped) {}
+
+    /**
+     * Product-market pair, as read by {@link #findPairsReportedAfterStates()}.
+     */
+    public record PairKey(long productId, long marketId) {}
+
+    /**
+     * Streams the newest {@code windowSize} prices of every product-market pair
+     * in one query, ordered by pair and then newest-first.
+     * <p>
+     * Uses a server-side cursor (fetch size) so memory stays bounded regardless of the
+     * number of pairs. Must be called inside a transaction for PostgreSQL to honor the
+     * fetch size.
+     */
+    public void streamRecentPriceWindows(int windowSize, boolean activeOnly, PriceRowHandler handler) {
+        streamRecentPriceWindows(windowSize, activeOnly, null, handler);
+    }
+
+    /**
+     * Same stream, restricted to the given pairs (products of any status).
+     */
+    public void streamRecentPriceWindows(int windowSize, List<PairKey> pairs, PriceRowHandler handler) {
+        if (pairs.isEmpty()) return;
+        streamRecentPriceWindows(windowSize, false, pairs, handler);
+    }
+
+    private void streamRecentPriceWindows(int windowSize, boolean activeOnly, List<PairKey> pairs,
+                                          PriceRowHandler handler) {
+        String pairJoin = pairs == null ? "" : """
+                    JOIN unnest(?::bigint[], ?::bigint[]) AS k(product_info_id, market_location_id)
+                      ON k.product_info_id = dpr.product_info_id
+                     AND k.market_location_id = dpr.market_location_id
+                """;
+        String sql = """
+                SELECT w.product_info_id, w.market_location_id, w.price, w.report_date
+                FROM (
+                    SELECT dpr.product_info_id,
+                           dpr.market_location_id,
+                           dpr.price,
+                           dpr.report_date,
+                           ROW_NUMBER() OVER (
+                               PARTITION BY dpr.product_info_id, dpr.market_location_id
+                               ORDER BY dpr.report_date DESC, dpr.id DESC
+                           ) AS rn
+                    FROM daily_price_record dpr
+                    JOIN product_info pi ON pi.id = dpr.product_info_id
+                %s
+                    WHERE (? = FALSE OR pi.status = 'ACTIVE')
+                      AND dpr.market_location_id IS NOT NULL
+                ) w
+                WHERE w.rn <= ?
+                ORDER BY w.product_info_id, w.market_location_id, w.rn
+                """.formatted(pairJoin);
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            int i = 1;
+            if (pairs != null) {
+                Long[] productIds = new Long[pairs.size()];
+                Long[] marketIds = new Long[pairs.size()];
+                for (int p = 0; p < pairs.size(); p++) {
+                    productIds[p] = pairs.get(p).productId();
+                    marketIds[p] = pairs.get(p).marketId();
+                }
+                ps.setArray(i++, con.createArrayOf("bigint", productIds));
+                ps.setArray(i++, con.createArrayOf("bigint", marketIds));
+            }
+            ps.setBoolean(i++, activeOnly);
+            ps.setInt(i, windowSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> handler.accept(
+                rs.getLong(1),
+                rs.getLong(2),
+                rs.getDouble(3),
+                rs.getObject(4, LocalDate.class)
+        ));
+    }
+
+    /**
+     * Writes the current prediction of every (product, market, targetDate) key in one statement.
+     * <p>
+     * The key is unique ({@code uk_prediction_pair_target}): a new key is inserted, an existing
+     * one is updated in place, so there is never a read before the write and never more than
+     * one row per key. Manual overrides are left untouched unless {@code overwriteOverrides}.
+     * With {@code forecast.audit-revisions} on, the replaced values are first appended to
+     * {@code price_prediction_revision}.
+     * <p>
+     * Ids of inserted rows come from {@code price_predictions_seq}, the same sequence the
+     * entity uses; ids of rows that turn out to be updates are simply not used.
+     * Keys must be distinct within one call.
+     */
+    public UpsertResult upsertPredictions(List<PredictionWrite> rows, boolean overwriteOverrides) {
+        if (rows.isEmpty()) return new UpsertResult(0, 0, 0);
+
+        int n = rows.size();
+        long[] ids = idAllocator.allocate("price_predictions_seq", n);
+        Long[] boxedIds = new Long[n];
+        Long[] productIds = new Long[n];
+        Long[] marketIds = new Long[n];
+        Date[] targetDates = new Date[n];
+        Double[] prices = new Double[n];
+        Double[] confidences = new Double[n];
+        String[] statuses = new String[n];
+        for (int i = 0; i < n; i++) {
+            PredictionWrite row = rows.get(i);
+            boxedIds[i] = ids[i];
+            productIds[i] = row.productId();
+            marketIds[i] = row.marketId();
+            targetDates[i] = Date.valueOf(row.targetDate());
+            prices[i] = row.predictedPrice();
+            confidences[i] = row.confidenceScore();
+            statuses[i] = row.status().name();
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        if (auditRevisions) {
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement("""
+                        INSERT INTO price_prediction_revision
+                            (prediction_id, product_info_id, market_location_id, target_date,
+                             predicted_price, confidence_score, status, computed_at, revised_at)
+                        SELECT p.id, p.product_info_id, p.market_location_id, p.target_date,
+                               p.predicted_price, p.confidence_score, p.status, p.created_at, ?
+                        FROM price_predictions p
+                        JOIN unnest(?::bigint[], ?::bigint[], ?::date[]) AS k(product_info_id, market_location_id, target_date)
+                          ON p.product_info_id = k.product_info_id
+                         AND p.market_location_id = k.market_location_id
+                         AND p.target_date = k.target_date
+                        WHERE p.status <> 'OVERRIDDEN' OR ?
+                        """);
+                ps.setTimestamp(1, now);
+                ps.setArray(2, con.createArrayOf("bigint", productIds));
+                ps.setArray(3, con.createArrayOf("bigint", marketIds));
+                ps.setArray(4, con.createArrayOf("date", targetDates));
+                ps.setBoolean(5, overwriteOverrides);
+                return ps;
+            });
+        }
+
+        int[] inserted = {0};
+        int[] updated = {0};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                    INSERT INTO price_predictions
+                        (id, product_info_id, market_location_id, target_date,
+                         predicted_price, confidence_score, status, created_at)
+                    SELECT k.id, k.product_info_id, k.market_location_id, k.target_date,
+                           k.predicted_price, k.confidence_score, k.status, ?
+                    FROM unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::date[], ?::float8[], ?::float8[], ?::varchar[])
+                         AS k(id, product_info_id, market_location_id, target_date,
+                              predicted_price, confidence_score, status)
+                    ON CONFLICT (product_info_id, market_location_id, target_date) DO UPDATE SET
+                        predicted_price = EXCLUDED.predicted_price,
+                        confidence_score = EXCLUDED.confidence_score,
+                        status = EXCLUDED.status,
+                        created_at = EXCLUDED.created_at
+                    WHERE price_predictions.status <> 'OVERRIDDEN' OR ?
+                    RETURNING (xmax = 0)
+                    """);
+            ps.setTimestamp(1, now);
+            ps.setArray(2, con.createArrayOf("bigint", boxedIds));
+            ps.setArray(3, con.createArrayOf("bigint", productIds));
+            ps.setArray(4, con.createArrayOf("bigint", marketIds));
+            ps.setArray(5, con.createArrayOf("date", targetDates));
+            ps.setArray(6, con.createArrayOf("float8", prices));
+            ps.setArray(7, con.createArrayOf("float8", confidences));
+            ps.setArray(8, con.createArrayOf("varchar", statuses));
+            ps.setBoolean(9, overwriteOverrides);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            // xmax = 0 only on a freshly inserted row version
+            if (rs.getBoolean(1)) inserted[0]++;
+            else updated[0]++;
+        });
+
+        return new UpsertResult(inserted[0], updated[0], n - inserted[0] - updated[0]);
+    }
+
+    /**
+     * Keyset page of the regression states of every ACTIVE product's pairs, in
+     * (product, market) order, starting right after the given pair.
+     * One row per pair, no price history involved. The pair's change marker timestamp, if any,
+     * is read in the same statement ({@link PriceRegressionState#getDirtyMarkedAt()}).
+     *
+     * @param dirtyOnly If true, only pairs listed in {@code forecast_dirty_pair} are returned.
+     */
+    public List<PriceRegressionState> findActiveRegressionStatesAfter(boolean dirtyOnly, long afterProductId,
+                                                                      long afterMarketId, int limit) {
+        return jdbcTemplate.query("""
+                        SELECT s.product_info_id, s.market_location_id, s.sample_count,
+                               s.sum_x, s.sum_y, s.sum_xy, s.sum_xx, s.sum_yy,
+                               s.recent_prices, s.ring_start, s.last_report_date, d.marked_at
+                        FROM price_regression_state s
+                        JOIN product_info pi ON pi.id = s.product_info_id
+                        LEFT JOIN forecast_dirty_pair d
+                               ON d.product_info_id = s.product_info_id
+                              AND d.market_location_id = s.market_location_id
+                        WHERE pi.status = 'ACTIVE'
+                          AND (s.product_info_id, s.market_location_id) > (?, ?)
+                          AND (? = FALSE OR d.product_info_id IS NOT NULL)
+                        ORDER BY s.product_info_id, s.market_location_id
+                        LIMIT ?
+                        """,
+                (rs, rowNum) -> mapRegressionState(rs),
+                afterProductId, afterMarketId, dirtyOnly, limit);
+    }
+
+    /**
+     * Number of pairs a run of the given mode will walk (job progress denominator).
+     */
+    public int countActiveRegressionStates(boolean dirtyOnly) {
+        Integer count = jdbcTemplate.queryForObject("""
+                        SELECT COUNT(*)
+                        FROM price_regression_state s
+                        JOIN product_info pi ON pi.id = s.product_info_id
+                        WHERE pi.status = 'ACTIVE'
+                          AND (? = FALSE OR EXISTS (
+                                SELECT 1 FROM forecast_dirty_pair d
+                                WHERE d.product_info_id = s.product_info_id
+                                  AND d.market_location_id = s.market_location_id))
+                        """,
+                Integer.class, dirtyOnly);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Clears the change markers of the given states, in one statement.
+     * A marker is deleted only if its {@code marked_at} still equals the value read with the
+     * state: a pair re-stamped by an ingestion since then (its state may be newer than the
+     * one forecast) stays dirty for the next run.
+     */
+    public int deleteDirtyPairs(List<PriceRegressionState> states) {
+        List<PriceRegressionState> marked = states.stream()
+                .filter(s -> s.getDirtyMarkedAt() != null)
+                .toList();
+        if (marked.isEmpty()) return 0;
+
+        Long[] productIds = new Long[marked.size()];
+        Long[] marketIds = new Long[marked.size()];
+        Timestamp[] markedAts = new Timestamp[marked.size()];
+        for (int i = 0; i < marked.size(); i++) {
+            PriceRegressionState s = marked.get(i);
+            productIds[i] = s.getProductInfoId();
+            marketIds[i] = s.getMarketLocationId();
+            markedAts[i] = Timestamp.valueOf(s.getDirtyMarkedAt());
+        }
+
+        return jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                    DELETE FROM forecast_dirty_pair d
+                    USING unnest(?::bigint[], ?::bigint[], ?::timestamp[]) AS k(product_info_id, market_location_id, marked_at)
+                    WHERE d.product_info_id = k.product_info_id
+                      AND d.market_location_id = k.market_location_id
+                      AND d.marked_at = k.marked_at
+                    """);
+            ps.setArray(1, con.createArrayOf("bigint", productIds));
+            ps.setArray(2, con.createArrayOf("bigint", marketIds));
+            ps.setArray(3, con.createArrayOf("timestamp", markedAts));
+            return ps;
+        });
+    }
+
+    /**
+     * Regression states of every (product, market) combination of the given ids, in one query.
+     * Combinations without a state are simply absent.
+     */
+    public List<PriceRegressionState> findRegressionStates(Collection<Long> productIds, Collection<Long> marketIds) {
+        if (productIds.isEmpty() || marketIds.isEmpty()) return List.of();
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                    SELECT s.product_info_id, s.market_location_id, s.sample_count,
+                           s.sum_x, s.sum_y, s.sum_xy, s.sum_xx, s.sum_yy,
+                           s.recent_prices, s.ring_start, s.last_report_date, NULL::timestamp
+                    FROM price_regression_state s
+                    WHERE s.product_info_id = ANY(?)
+                      AND s.market_location_id = ANY(?)
+                    """);
+            ps.setArray(1, con.createArrayOf("bigint", productIds.toArray()));
+            ps.setArray(2, con.createArrayOf("bigint", marketIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> mapRegressionState(rs));
+    }
+
+    /**
+     * Pairs with a price record dated after the newest state (rows written outside ingestion,
+     * e.g. a manual import). The date filter prunes daily_price_record to its newest partitions,
+     * so nothing older than the state table is read.
+     */
+    public List<PairKey> findPairsReportedAfterStates() {
+        return jdbcTemplate.query("""
+                        SELECT DISTINCT dpr.product_info_id, dpr.market_location_id
+                        FROM daily_price_record dpr
+                        WHERE dpr.market_location_id IS NOT NULL
+                          AND dpr.report_date > (SELECT MAX(s.last_report_date) FROM price_regression_state s)
+                        ORDER BY dpr.product_info_id, dpr.market_location_id
+                        """,
+                (rs, rowNum) -> new PairKey(rs.getLong(1), rs.getLong(2)));
+    }
+
+    public void deleteAllRegressionStates() {
+        jdbcTemplate.update("DELETE FROM price_regression_state");
+    }
+
+    /**
+     * JDBC batch insert of freshly rebuilt regression states.
+     */
+    public void insertRegressionStates(List<PriceRegressionState> states, int batchSize) {
+        writeRegressionStates(states, batchSize, "");
+    }
+
+    /**
+     * JDBC batch upsert of regression states: existing pairs are overwritten with the given state.
+     */
+    public void upsertRegressionStates(List<PriceRegressionState> states, int batchSize) {
+        writeRegressionStates(states, batchSize, """
+                ON CONFLICT (product_info_id, market_location_id) DO UPDATE SET
+                    sample_count = EXCLUDED.sample_count,
+                    sum_x = EXCLUDED.sum_x,
+                    sum_y = EXCLUDED.sum_y,
+                    sum_xy = EXCLUDED.sum_xy,
+                    sum_xx = EXCLUDED.sum_xx,
+                    sum_yy = EXCLUDED.sum_yy,
+                    recent_prices = EXCLUDED.recent_prices,
+                    ring_start = EXCLUDED.ring_start,
+                    last_report_date = EXCLUDED.last_report_date,
+                    updated_at = EXCLUDED.updated_at
+                """);
+    }
+
+    private void writeRegressionStates(List<PriceRegressionState> states, int batchSize, String onConflict) {
+        if (states.isEmpty()) return;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate("""
+                        INSERT INTO price_regression_state
+                            (product_info_id, market_location_id, sample_count,
+                             sum_x, sum_y, sum_xy, sum_xx, sum_yy,
+                             recent_prices, ring_start, last_report_date, updated_at)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        """ + onConflict,
+                states, batchSize, (ps, s) -> {
+                    double[] ring = s.getRecentPrices();
+                    Double[] boxed = new Double[ring.length];
+                    for (int i = 0; i < ring.length; i++) boxed[i] = ring[i];
+
+                    ps.setLong(1, s.getProductInfoId());
+                    ps.setLong(2, s.getMarketLocationId());
+                    ps.setInt(3, s.getSampleCount());
+                    ps.setDouble(4, s.getSumX());
+                    ps.setDouble(5, s.getSumY());
+                    ps.setDouble(6, s.getSumXY());
+                    ps.setDouble(7, s.getSumXX());
+                    ps.setDouble(8, s.getSumYY());
+                    ps.setArray(9, ps.getConnection().createArrayOf("float8", boxed));
+                    ps.setInt(10, s.getRingStart());
+                    ps.setObject(11, s.getLastReportDate());
+                    ps.setTimestamp(12, now);
+                });
+    }
+
+    private PriceRegressionState mapRegressionState(ResultSet rs) throws SQLException {
+        PriceRegressionState s = new PriceRegressionState();
+        s.setProductInfoId(rs.getLong(1));
+        s.setMarketLocationId(rs.getLong(2));
+        s.setSampleCount(rs.getInt(3));
+        s.setSumX(rs.getDouble(4));
+        s.setSumY(rs.getDouble(5));
+        s.setSumXY(rs.getDouble(6));
+        s.setSumXX(rs.getDouble(7));
+        s.setSumYY(rs.getDouble(8));
+
+        Array array = rs.getArray(9);
+        Object[] values = (Object[]) array.getArray();
+        double[] ring = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ring[i] = values[i] != null ? ((Number) values[i]).doubleValue() : 0.0;
+        }
+        s.setRecentPrices(ring);
+
+        s.setRingStart(rs.getInt(10));
+        s.setLastReportDate(rs.getObject(11, LocalDate.class));
+        s.setDirtyMarkedAt(rs.getObject(12, LocalDateTime.class));
+        return s;
+    }
+}
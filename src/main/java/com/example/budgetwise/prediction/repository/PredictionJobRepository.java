@@ -0,0 +1,87 @@
+package com.example.budgetwise.prediction.repository;
+
+import com.example.budgetwise.prediction.entity.PredictionJob;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PredictionJobRepository extends JpaRepository<PredictionJob, Long> {
+
+    /**
+     * Takes a transaction-scoped PostgreSQL advisory lock (released at commit / rollback).
+     * Serializes check-then-insert sections across instances, e.g. claiming the bulk run.
+     */
+    @Query(value = "SELECT COUNT(*) FROM (SELECT pg_advisory_xact_lock(:key)) l", nativeQuery = true)
+    long lockForTransaction(@Param("key") long key);
+
+    Optional<PredictionJob> findFirstByTypeAndStatusOrderByStartedAtDesc(PredictionJob.Type type,
+                                                                       PredictionJob.Status status);
+
+    List<PredictionJob> findAllByStatusOrderByStartedAtDesc(PredictionJob.Status status);
+
+    Page<PredictionJob> findAllByOrderByStartedAtDesc(Pageable pageable);
+
+    @Query("SELECT j.cancelRequested FROM PredictionJob j WHERE j.id = :id")
+    boolean isCancelRequested(@Param("id") Long id);
+
+    /**
+     * Moves the checkpoint past a committed chunk and adds the chunk's counters.
+     * Runs in the chunk's transaction, so checkpoint and predictions commit together.
+     */
+    @Modifying
+    @Query("""
+        UPDATE PredictionJob j SET
+            j.lastProductId = :lastProductId,
+            j.lastMarketId = :lastMarketId,
+            j.pairsScanned = j.pairsScanned + :scanned,
+            j.pairsForecasted = j.pairsForecasted + :forecasted,
+            j.pairsSkipped = j.pairsSkipped + :skipped,
+            j.inserted = j.inserted + :inserted,
+            j.updated = j.updated + :updated,
+            j.overriddenSkipped = j.overriddenSkipped + :overriddenSkipped,
+            j.chunksCompleted = j.chunksCompleted + 1,
+            j.heartbeatAt = :now
+        WHERE j.id = :id
+    """)
+    int advanceCheckpoint(@Param("id") Long id,
+                          @Param("now") LocalDateTime now,
+                          @Param("lastProductId") Long lastProductId,
+                          @Param("lastMarketId") Long lastMarketId,
+                          @Param("scanned") int scanned,
+                          @Param("forecasted") int forecasted,
+                          @Param("skipped") int skipped,
+                          @Param("inserted") int inserted,
+                          @Param("updated") int updated,
+                          @Param("overriddenSkipped") int overriddenSkipped);
+
+    /**
+     * Counts one finished pair of a BATCH job (atomic, tasks run concurrently).
+     * As for BULK jobs, a failed pair counts in pairsFailed only.
+     */
+    @Modifying
+    @Query("""
+        UPDATE PredictionJob j SET
+            j.pairsScanned = j.pairsScanned + :forecasted,
+            j.pairsForecasted = j.pairsForecasted + :forecasted,
+            j.pairsFailed = j.pairsFailed + :failed,
+            j.heartbeatAt = :now
+        WHERE j.id = :id
+    """)
+    int recordBatchPair(@Param("id") Long id,
+                        @Param("forecasted") int forecasted,
+                        @Param("failed") int failed,
+                        @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE PredictionJob j SET j.cancelRequested = TRUE WHERE j.id = :id AND j.status = 'RUNNING'")
+    int requestCancel(@Param("id") Long id);
+}
@@ -0,0 +1,129 @@
+package com.example.budgetwise.prediction.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Set-based statements of the prediction retention job.
+ * <p>
+ * PERFORMANCE STRATEGY:
+ * 1. Work is walked one target date at a time, and every statement filters on that single
+ *    date: an index range on {@code idx_prediction_target_pair} (targetDate first), never a
+ *    scan of the whole table.
+ * 2. Deletes are bounded ({@code LIMIT} in an id subquery), so each batch holds its row locks
+ *    and WAL for a short transaction only.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PredictionRetentionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Oldest target date before {@code cutoff} that still has removable (not OVERRIDDEN) predictions.
+     */
+    public LocalDate findOldestExpiredTargetDate(LocalDate cutoff) {
+        return jdbcTemplate.queryForObject("""
+                        SELECT MIN(target_date) FROM price_predictions
+                        WHERE target_date < ?
+                          AND status <> 'OVERRIDDEN'
+                        """,
+                LocalDate.class, cutoff);
+    }
+
+    /**
+     * Writes the accuracy summary of one target date, from every prediction of that date
+     * against the rolled-up actual price of its pair. A date already summarized is kept as is
+     * (it was summarized before any of its rows were removed).
+     *
+     * @return 1 if a summary row was written, 0 if it existed.
+     */
+    public int compactDay(LocalDate targetDate, LocalDateTime now) {
+        return jdbcTemplate.update("""
+                        INSERT INTO prediction_accuracy_daily
+                            (target_date, prediction_count, evaluated_count, anomaly_count, overridden_count,
+                             confidence_sum, abs_pct_error_sum, compacted_at)
+                        SELECT p.target_date,
+                               COUNT(*),
+                               COUNT(*) FILTER (WHERE r.price_sum > 0),
+                               COUNT(*) FILTER (WHERE p.status = 'ANOMALY'),
+                               COUNT(*) FILTER (WHERE p.status = 'OVERRIDDEN'),
+                               SUM(p.confidence_score),
+                               COALESCE(SUM(ABS(p.predicted_price - r.price_sum / r.price_count)
+                                            / (r.price_sum / r.price_count))
+                                        FILTER (WHERE r.price_sum > 0), 0),
+                               ?
+                        FROM price_predictions p
+                        LEFT JOIN daily_price_rollup r
+                               ON r.product_info_id = p.product_info_id
+                              AND r.market_location_id = p.market_location_id
+                              AND r.report_date = p.target_date
+                        WHERE p.target_date = ?
+                        GROUP BY p.target_date
+                        ON CONFLICT (target_date) DO NOTHING
+                        """,
+                Timestamp.valueOf(now), targetDate);
+    }
+
+    /**
+     * Deletes up to {@code limit} non-overridden predictions of one target date.
+     *
+     * @return Rows deleted; fewer than {@code limit} means the date is done.
+     */
+    public int deleteBatch(LocalDate targetDate, int limit) {
+        return jdbcTemplate.update("""
+                        DELETE FROM price_predictions
+                        WHERE id IN (
+                            SELECT id FROM price_predictions
+                            WHERE target_date = ?
+                              AND status <> 'OVERRIDDEN'
+                            LIMIT ?)
+                        """,
+                targetDate, limit);
+    }
+
+    /**
+     * Same as {@link #deleteBatch}, the removed rows are moved to {@code price_prediction_revision}
+     * in the same statement.
+     */
+    public int archiveBatch(LocalDate targetDate, int limit, LocalDateTime now) {
+        return jdbcTemplate.update("""
+                        WITH moved AS (
+                            DELETE FROM price_predictions
+                            WHERE id IN (
+                                SELECT id FROM price_predictions
+                                WHERE target_date = ?
+                                  AND status <> 'OVERRIDDEN'
+                                LIMIT ?)
+                            RETURNING id, product_info_id, market_location_id, target_date,
+                                      predicted_price, confidence_score, status, created_at
+                        )
+                        INSERT INTO price_prediction_revision
+                            (prediction_id, product_info_id, market_location_id, target_date,
+                             predicted_price, confidence_score, status, computed_at, revised_at)
+                        SELECT id, product_info_id, market_location_id, target_date,
+                               predicted_price, confidence_score, status, created_at, ?
+                        FROM moved
+                        """,
+                targetDate, limit, Timestamp.valueOf(now));
+    }
+
+    /**
+     * Deletes up to {@code limit} revisions with a target date before {@code cutoff}.
+     */
+    public int deleteRevisionBatch(LocalDate cutoff, int limit) {
+        return jdbcTemplate.update("""
+                        DELETE FROM price_prediction_revision
+                        WHERE id IN (
+                            SELECT id FROM price_prediction_revision
+                            WHERE target_date < ?
+                            LIMIT ?)
+                        """,
+                cutoff, limit);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.budgetwise.prediction.repository;
+
+import com.example.budgetwise.prediction.entity.PredictionRetentionRun;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PredictionRetentionRunRepository extends JpaRepository<PredictionRetentionRun, Long> {
+
+    List<PredictionRetentionRun> findAllByOrderByStartedAtDesc(Pageable pageable);
+}
@@ -1,17 +1,16 @@
 package com.example.budgetwise.prediction.repository;
 
-import com.example.budgetwise.market.entity.MarketLocation;
 import com.example.budgetwise.prediction.entity.PricePredictions;
-import com.example.budgetwise.product.entity.ProductInfo;
+import com.example.budgetwise.prediction.repository.projection.PairPredictionProjection;
+import com.example.budgetwise.prediction.repository.projection.PredictionDashboardProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,22 +30,29 @@ public interface PricePredictionRepository extends JpaRepository<PricePrediction
             @Param("targetDate") LocalDate targetDate
     );
 
-    Optional<PricePredictions> findByProductInfoAndMarketLocationAndTargetDate(
-            ProductInfo product, MarketLocation market, LocalDate targetDate);
-
+    /**
+     * Predictions of every market for the given products on one target date, one query.
+     * Scalar columns only, so no product / market entity is loaded.
+     */
     @Query("""
-        SELECT p FROM PricePredictions p 
-        WHERE p.productInfo.id = :productId 
-        AND p.marketLocation.id = :marketId 
-        AND p.targetDate = :targetDate 
-        ORDER BY p.createdAt DESC 
-        LIMIT 1
+        SELECT p.id AS id, p.productInfo.id AS productId, p.marketLocation.id AS marketId,
+               p.predictedPrice AS predictedPrice, p.confidenceScore AS confidenceScore,
+               p.status AS status, p.createdAt AS createdAt
+        FROM PricePredictions p
+        WHERE p.productInfo.id IN :productIds
+        AND p.targetDate = :targetDate
     """)
-    Optional<PricePredictions> findLatestPrediction(
-            @Param("productId") Long productId,
-            @Param("marketId") Long marketId,
+    List<PairPredictionProjection> findPredictionsByProductIdsAndDate(
+            @Param("productIds") Collection<Long> productIds,
             @Param("targetDate") LocalDate targetDate);
 
+    /**
+     * The prediction of one pair for one date: (product, market, targetDate) is unique,
+     * so this is a point lookup on {@code uk_prediction_pair_target}.
+     */
+    Optional<PricePredictions> findByProductInfoIdAndMarketLocationIdAndTargetDate(
+            Long productInfoId, Long marketLocationId, LocalDate targetDate);
+
     // BATCH QUERY - kunin lahat ng existing predictions sa isang query
     @Query("""
         SELECT p FROM PricePredictions p 
@@ -59,14 +65,6 @@ public interface PricePredictionRepository extends JpaRepository<PricePrediction
             @Param("marketId") Long marketId,
             @Param("targetDates") List<LocalDate> targetDates);
 
-    // BULK DELETE para sa cleanup
-    @Modifying
-    @Query("""
-        DELETE FROM PricePredictions p 
-        WHERE p.targetDate < :cutoffDate 
-        AND p.status != 'OVERRIDDEN'
-    """)
-    int deleteOldPredictions(@Param("cutoffDate") LocalDate cutoffDate);
 
 
 
@@ -115,67 +113,31 @@ public interface PricePredictionRepository extends JpaRepository<PricePrediction
 """)
     Double calculateAverageConfidence(@Param("targetDate") LocalDate targetDate);
 
-    @Query("""
-    SELECT MAX(p.createdAt) FROM PricePredictions p
-""")
-    LocalDateTime findLatestPredictionTime();
-
 
 
-    @Query("""
-    SELECT p FROM PricePredictions p
-    WHERE p.targetDate = :targetDate
-    AND p.id IN (
-        SELECT MAX(p2.id) 
-        FROM PricePredictions p2
-        WHERE p2.targetDate = :targetDate
-        GROUP BY p2.productInfo.id, p2.marketLocation.id
-    )
-""")
-    List<PricePredictions> findLatestPredictionsByDate(@Param("targetDate") LocalDate targetDate);
-
     /**
-     * Count UNIQUE product-market pairs with predictions
+     * The current prediction of every pair for one date (one row per pair by construction).
      */
     @Query("""
-    SELECT COUNT(DISTINCT CONCAT(p.productInfo.id, '-', p.marketLocation.id))
-    FROM PricePredictions p 
-    WHERE p.targetDate = :targetDate
-""")
-    Integer countUniquePredictionsByDate(@Param("targetDate") LocalDate targetDate);
-
-    /**
-     * Calculate average confidence from LATEST predictions only
-     */
-    @Query("""
-    SELECT AVG(p.confidenceScore) 
-    FROM PricePredictions p
+    SELECT p FROM PricePredictions p
     WHERE p.targetDate = :targetDate
-    AND p.id IN (
-        SELECT MAX(p2.id) 
-        FROM PricePredictions p2
-        WHERE p2.targetDate = :targetDate
-        GROUP BY p2.productInfo.id, p2.marketLocation.id
-    )
 """)
-    Double calculateAverageConfidenceFromLatest(@Param("targetDate") LocalDate targetDate);
+    List<PricePredictions> findLatestPredictionsByDate(@Param("targetDate") LocalDate targetDate);
 
     /**
-     * Count anomalies from LATEST predictions only
+     * Every prediction metric of the dashboard in one statement: the predictions of the target
+     * date (one per pair) are counted, filtered for anomalies and averaged in the same pass.
+     * The last update is an index probe on created_at.
      */
     @Query("""
-    SELECT COUNT(p) 
+    SELECT COUNT(p) AS totalPredictions,
+           SUM(CASE WHEN p.status = 'ANOMALY' THEN 1 ELSE 0 END) AS anomalies,
+           AVG(p.confidenceScore) AS averageConfidence,
+           (SELECT MAX(p3.createdAt) FROM PricePredictions p3) AS lastUpdate
     FROM PricePredictions p
     WHERE p.targetDate = :targetDate
-    AND p.status = 'ANOMALY' 
-    AND p.id IN (
-        SELECT MAX(p2.id) 
-        FROM PricePredictions p2
-        WHERE p2.targetDate = :targetDate
-        GROUP BY p2.productInfo.id, p2.marketLocation.id
-    )
 """)
-    Integer countLatestAnomaliesByDate(@Param("targetDate") LocalDate targetDate);
+    PredictionDashboardProjection findDashboardStats(@Param("targetDate") LocalDate targetDate);
 
 
     List<PricePredictions> findByProductInfoIdAndMarketLocationIdAndTargetDateAfter(
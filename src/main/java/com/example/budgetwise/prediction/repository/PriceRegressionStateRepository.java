@@ -0,0 +1,10 @@
+package com.example.budgetwise.prediction.repository;
+
+import com.example.budgetwise.prediction.entity.PriceRegressionState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PriceRegressionStateRepository
+        extends JpaRepository<PriceRegressionState, PriceRegressionState.Key> {
+}
@@ -0,0 +1,15 @@
+package com.example.budgetwise.prediction.repository.projection;
+
+import com.example.budgetwise.prediction.entity.PricePredictions;
+
+import java.time.LocalDateTime;
+
+public interface PairPredictionProjection {
+    Long getId();
+    Long getProductId();
+    Long getMarketId();
+    Double getPredictedPrice();
+    Double getConfidenceScore();
+    PricePredictions.Status getStatus();
+    LocalDateTime getCreatedAt();
+}
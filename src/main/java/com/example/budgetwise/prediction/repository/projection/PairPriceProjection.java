@@ -0,0 +1,7 @@
+package com.example.budgetwise.prediction.repository.projection;
+
+public interface PairPriceProjection {
+    Long getProductId();
+    Long getMarketId();
+    Double getPrice();
+}
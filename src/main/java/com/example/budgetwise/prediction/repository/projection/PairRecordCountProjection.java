@@ -0,0 +1,7 @@
+package com.example.budgetwise.prediction.repository.projection;
+
+public interface PairRecordCountProjection {
+    Long getProductId();
+    Long getMarketId();
+    Long getDataPoints();
+}
@@ -0,0 +1,10 @@
+package com.example.budgetwise.prediction.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface PredictionDashboardProjection {
+    Long getTotalPredictions();
+    Long getAnomalies();
+    Double getAverageConfidence();
+    LocalDateTime getLastUpdate();
+}
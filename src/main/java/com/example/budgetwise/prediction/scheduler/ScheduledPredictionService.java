@@ -1,5 +1,7 @@
 package com.example.budgetwise.prediction.scheduler;
 
+import com.example.budgetwise.exception.ConflictException;
+import com.example.budgetwise.prediction.service.BulkForecastService;
 import com.example.budgetwise.prediction.service.PricePredictionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,12 +24,13 @@ public class ScheduledPredictionService {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     /**
-     * Daily prediction generation
-     * Runs every day at midnight (12:00 AM)
+     * Daily prediction generation (DELTA)
+     * Runs Monday to Saturday at midnight (12:00 AM)
      *
+     * Only re-forecasts pairs whose price history changed since the last run.
      * Uses last 30 days to predict next 7 days
      */
-    @Scheduled(cron = "0 0 0 * * *")
+    @Scheduled(cron = "0 0 0 * * MON-SAT")
     public void dailyPredictionGeneration() {
         String timestamp = LocalDateTime.now().format(FORMATTER);
 
@@ -39,17 +42,40 @@ public class ScheduledPredictionService {
         try {
             long startTime = System.currentTimeMillis();
 
-            // Run bulk prediction
-            predictionService.runBulkPrediction();
+            // Run bulk prediction for changed pairs only (waits, so the duration is real)
+            predictionService.runBulkPrediction(BulkForecastService.Mode.DELTA).completion().join();
 
             long duration = (System.currentTimeMillis() - startTime) / 1000;
             log.info("Daily prediction completed in {} seconds", duration);
 
+        } catch (ConflictException e) {
+            log.warn("Daily prediction skipped: {}", e.getMessage());
         } catch (Exception e) {
             log.error(" Failed to complete daily prediction generation", e);
         }
     }
 
+    /**
+     * Weekly full sweep (FULL)
+     * Runs every Sunday at midnight (12:00 AM)
+     *
+     * Safety net for the delta runs: re-forecasts every active pair, e.g. products
+     * re-activated by an admin or pairs whose change marker was lost.
+     */
+    @Scheduled(cron = "0 0 0 * * SUN")
+    public void weeklyFullPredictionSweep() {
+        log.info("AUTOMATED TASK: Weekly full prediction sweep started at {}",
+                LocalDateTime.now().format(FORMATTER));
+
+        try {
+            predictionService.runBulkPrediction(BulkForecastService.Mode.FULL).completion().join();
+        } catch (ConflictException e) {
+            log.warn("Weekly full prediction sweep skipped: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error(" Failed to complete weekly full prediction sweep", e);
+        }
+    }
+
     /**
      * Alternative schedules (uncomment to use):
      */
@@ -0,0 +1,450 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.exception.ConflictException;
+import com.example.budgetwise.exception.ResourcesNotFoundException;
+import com.example.budgetwise.prediction.dto.BacktestPairMetricsDTO;
+import com.example.budgetwise.prediction.dto.BacktestReportDTO;
+import com.example.budgetwise.prediction.entity.BacktestRun;
+import com.example.budgetwise.prediction.repository.BacktestRepository;
+import com.example.budgetwise.prediction.repository.BacktestRunRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.budgetwise.prediction.service.ForecastCalculator.HORIZON_DAYS;
+import static com.example.budgetwise.prediction.service.ForecastCalculator.MIN_DATA_POINTS;
+import static com.example.budgetwise.prediction.service.ForecastCalculator.WINDOW_SIZE;
+
+/**
+ * Out-of-sample accuracy of the 7-day forecast, and the per-pair choice of forecast model.
+ * <p>
+ * LOGIC:
+ * 1. For every pair and every report date t in [from, to], the forecast is replayed as it
+ *    would have run on t: every registered {@link ForecastModel} projects day +1 .. +7 from
+ *    the last {@link ForecastCalculator#WINDOW_SIZE} daily prices up to t (at least
+ *    {@link ForecastCalculator#MIN_DATA_POINTS}), the same window as the live forecast.
+ * 2. Each projection is scored against the daily price actually reported on t + d, when
+ *    there is one. Errors are summed per (pair, model, horizon) and stored as
+ *    {@code BacktestResult}; MAPE / RMSE / bias are derived from the sums in SQL.
+ * 3. A completed run then stores each pair's best model ({@link ForecastModelSelector#choose})
+ *    in {@code forecast_model_selection} and reloads the selector, so the next forecasts use it.
+ * 4. One run at a time per instance, on the forecast executor; each run is recorded as a
+ *    {@link BacktestRun} (counts, load / compute / total time).
+ * <p>
+ * PERFORMANCE STRATEGY:
+ * 1. History is streamed once from the daily rollup (the per-day average of the
+ *    {@code DailyPriceRecord} rows) into one int[] of epoch days and one double[] of prices
+ *    per pair. No entity is loaded.
+ * 2. Pairs are independent, so they are split over a dedicated {@link ForkJoinPool} of
+ *    {@code backtest.parallelism} workers. Models read each window in place from the pair's
+ *    array and write into one path buffer per leaf; sums go to the pair's own slots of flat
+ *    primitive arrays: no copying, no locking, no boxing.
+ * 3. The database is only touched before (load) and after (one batch insert) the compute
+ *    phase, so a run holds a single forecast permit.
+ */
+@Service
+@Slf4j
+public class BacktestService {
+
+    /** Pairs per fork-join leaf. */
+    private static final int LEAF_PAIRS = 64;
+
+    private final BacktestRepository backtestRepository;
+    private final BacktestRunRepository runRepository;
+    private final ForecastModelSelector modelSelector;
+    private final ForecastTaskExecutor forecastTaskExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final int parallelism;
+    private final int lookbackDays;
+    private final int maxDays;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * Daily price history of one pair, oldest first.
+     */
+    record PairHistory(long productId, long marketId, int[] epochDays, double[] prices) {}
+
+    public BacktestService(BacktestRepository backtestRepository, BacktestRunRepository runRepository, ForecastModelSelector modelSelector, ForecastTaskExecutor forecastTaskExecutor, PlatformTransactionManager transactionManager, @Value("${backtest.parallelism:0}") int parallelism, @Value("${backtest.lookback-days:120}") int lookbackDays, @Value("${backtest.max-days:366}") int maxDays) {
+        this.backtestRepository = backtestRepository;
+        this.runRepository = runRepository;
+        this.modelSelector = modelSelector;
+        this.forecastTaskExecutor = forecastTaskExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.lookbackDays = lookbackDays;
+        this.maxDays = maxDays;
+    }
+
+    /**
+     * Starts a backtest of the as-of dates [from, to] on the forecast executor and returns
+     * it right away (RUNNING).
+     *
+     * @throws IllegalArgumentException if the range is empty, in the future or longer than {@code maxDays}.
+     * @throws ConflictException        if a backtest is in progress on this instance.
+     */
+    public BacktestRun trigger(LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("Backtest range must have from <= to");
+        }
+        if (to.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Backtest range cannot end in the future");
+        }
+        if (ChronoUnit.DAYS.between(from, to) + 1 > maxDays) {
+            throw new IllegalArgumentException("Backtest range cannot exceed " + maxDays + " days");
+        }
+
+        BacktestRun run = start(from, to);
+        try {
+            forecastTaskExecutor.submit("backtest-" + run.getId(), () -> execute(run));
+        } catch (RuntimeException e) {
+            finish(run, e);
+            throw e;
+        }
+        return run;
+    }
+
+    public List<BacktestRun> getRecentRuns(int limit) {
+        return runRepository.findAllByOrderByStartedAtDesc(PageRequest.of(0, limit));
+    }
+
+    public BacktestReportDTO getReport(Long runId) {
+        BacktestRun run = runRepository.findById(runId)
+                .orElseThrow(() -> new ResourcesNotFoundException("BacktestRun", "id", runId));
+        return new BacktestReportDTO(run, backtestRepository.findHorizonMetrics(runId));
+    }
+
+    public List<BacktestPairMetricsDTO> getWorstPairs(Long runId, String model, int horizon, int limit) {
+        if (horizon < 1 || horizon > HORIZON_DAYS) {
+            throw new IllegalArgumentException("Horizon must be between 1 and " + HORIZON_DAYS);
+        }
+        if (!modelSelector.models().containsKey(model)) {
+            throw new IllegalArgumentException("Unknown forecast model " + model + ", expected one of " + modelSelector.models().keySet());
+        }
+        if (!runRepository.existsById(runId)) {
+            throw new ResourcesNotFoundException("BacktestRun", "id", runId);
+        }
+        return backtestRepository.findWorstPairs(runId, model, horizon, limit);
+    }
+
+    private BacktestRun start(LocalDate from, LocalDate to) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("A backtest is already in progress");
+        }
+
+        BacktestRun run = new BacktestRun();
+        run.setStatus(BacktestRun.Status.RUNNING);
+        run.setFromDate(from);
+        run.setToDate(to);
+        run.setStartedAt(LocalDateTime.now());
+        run.setParallelism(parallelism);
+        try {
+            return runRepository.save(run);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private BacktestRun execute(BacktestRun run) {
+        try {
+            // --- LOAD ---
+            long loadStart = System.currentTimeMillis();
+            List<PairHistory> pairs = loadHistory(run.getFromDate().minusDays(lookbackDays),
+                    run.getToDate().plusDays(HORIZON_DAYS));
+            run.setPairs(pairs.size());
+            run.setLoadMs(System.currentTimeMillis() - loadStart);
+
+            // --- COMPUTE ---
+            long computeStart = System.currentTimeMillis();
+            ForecastModel[] models = modelSelector.models().values().toArray(ForecastModel[]::new);
+            ErrorSums sums = new ErrorSums(pairs.size(), models.length);
+            int fromDay = (int) run.getFromDate().toEpochDay();
+            int toDay = (int) run.getToDate().toEpochDay();
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new ReplayTask(pairs, models, sums, fromDay, toDay, 0, pairs.size()));
+            } finally {
+                pool.shutdown();
+            }
+            run.setComputeMs(System.currentTimeMillis() - computeStart);
+
+            // --- PERSIST: results, then each pair's best model ---
+            String[] names = Arrays.stream(models).map(ForecastModel::name).toArray(String[]::new);
+            List<BacktestRepository.ResultRow> rows = sums.toRows(pairs, names);
+            List<BacktestRepository.SelectionRow> selections = sums.toSelections(pairs, names, modelSelector);
+            run.setForecasts(Arrays.stream(sums.forecasts).sum());
+            run.setSamples(Arrays.stream(sums.scored).sum());
+            run.setModelsSelected(selections.size());
+            transactionTemplate.executeWithoutResult(status -> {
+                backtestRepository.insertResults(run.getId(), rows);
+                backtestRepository.upsertModelSelections(run.getId(), selections, LocalDateTime.now());
+            });
+            int nonDefault = modelSelector.reload();
+
+            finish(run, null);
+            log.info("Backtest run {} [{} .. {}]: {} pairs, {} models, {} forecasts, {} scored days, {} model selections ({} pairs off the linear trend) (load {} ms, compute {} ms on {} workers, total {} ms)",
+                    run.getId(), run.getFromDate(), run.getToDate(), run.getPairs(), models.length, run.getForecasts(),
+                    run.getSamples(), selections.size(), nonDefault, run.getLoadMs(), run.getComputeMs(), parallelism,
+                    run.getDurationMs());
+        } catch (RuntimeException e) {
+            finish(run, e);
+            log.error("Backtest run {} failed", run.getId(), e);
+        }
+        return run;
+    }
+
+    /**
+     * Streams the daily prices of [from, to] into one {@link PairHistory} per pair.
+     * Read-only transaction so the driver honors the fetch size.
+     */
+    private List<PairHistory> loadHistory(LocalDate from, LocalDate to) {
+        List<PairHistory> pairs = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            PairHistoryBuilder builder = new PairHistoryBuilder(pairs);
+            backtestRepository.streamDailyPrices(from, to, builder::accept);
+            builder.flush();
+        });
+        return pairs;
+    }
+
+    /**
+     * Packs the (pair, date)-ordered stream into primitive arrays, reusing one growable buffer.
+     */
+    private static final class PairHistoryBuilder {
+        private final List<PairHistory> pairs;
+        private long productId = -1;
+        private long marketId = -1;
+        private int[] epochDays = new int[256];
+        private double[] prices = new double[256];
+        private int size;
+
+        PairHistoryBuilder(List<PairHistory> pairs) {
+            this.pairs = pairs;
+        }
+
+        void accept(long productId, long marketId, int epochDay, double price) {
+            if (productId != this.productId || marketId != this.marketId) {
+                flush();
+                this.productId = productId;
+                this.marketId = marketId;
+            }
+            if (size == prices.length) {
+                epochDays = Arrays.copyOf(epochDays, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+            }
+            epochDays[size] = epochDay;
+            prices[size] = price;
+            size++;
+        }
+
+        void flush() {
+            if (size >= MIN_DATA_POINTS) {
+                pairs.add(new PairHistory(productId, marketId,
+                        Arrays.copyOf(epochDays, size), Arrays.copyOf(prices, size)));
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * Per (pair, model, horizon) error sums, flattened:
+     * slot = (pairIndex * models + modelIndex) * HORIZON_DAYS + (horizon - 1).
+     * Every pair is written by exactly one leaf, so no synchronization is needed.
+     */
+    static final class ErrorSums {
+        final int models;
+        final int[] counts;
+        final double[] absPctErrors;
+        final double[] pctErrors;
+        final double[] sqErrors;
+        final double[] errors;
+        /** As-of dates forecast, per pair. */
+        final long[] forecasts;
+        /** (as-of date, horizon) days with a realized price, per pair; the same for every model. */
+        final long[] scored;
+
+        ErrorSums(int pairCount, int models) {
+            this.models = models;
+            int slots = pairCount * models * HORIZON_DAYS;
+            counts = new int[slots];
+            absPctErrors = new double[slots];
+            pctErrors = new double[slots];
+            sqErrors = new double[slots];
+            errors = new double[slots];
+            forecasts = new long[pairCount];
+            scored = new long[pairCount];
+        }
+
+        int slot(int pairIndex, int modelIndex, int horizon) {
+            return (pairIndex * models + modelIndex) * HORIZON_DAYS + horizon - 1;
+        }
+
+        List<BacktestRepository.ResultRow> toRows(List<PairHistory> pairs, String[] names) {
+            List<BacktestRepository.ResultRow> rows = new ArrayList<>();
+            for (int p = 0; p < pairs.size(); p++) {
+                PairHistory pair = pairs.get(p);
+                for (int m = 0; m < models; m++) {
+                    for (int h = 1; h <= HORIZON_DAYS; h++) {
+                        int slot = slot(p, m, h);
+                        if (counts[slot] == 0) continue;
+                        rows.add(new BacktestRepository.ResultRow(pair.productId(), pair.marketId(), names[m], h,
+                                counts[slot], absPctErrors[slot], pctErrors[slot], sqErrors[slot], errors[slot]));
+                    }
+                }
+            }
+            return rows;
+        }
+
+        /**
+         * Each pair's model, from its error over all horizons; pairs the selector can't
+         * decide for (too few scored days) get no row and keep their previous choice.
+         */
+        List<BacktestRepository.SelectionRow> toSelections(List<PairHistory> pairs, String[] names,
+                                                           ForecastModelSelector selector) {
+            int linear = Arrays.asList(names).indexOf(LinearTrendModel.NAME);
+            int[] modelCounts = new int[models];
+            double[] modelAbsPctErrors = new double[models];
+
+            List<BacktestRepository.SelectionRow> rows = new ArrayList<>();
+            for (int p = 0; p < pairs.size(); p++) {
+                for (int m = 0; m < models; m++) {
+                    modelCounts[m] = 0;
+                    modelAbsPctErrors[m] = 0.0;
+                    for (int h = 1; h <= HORIZON_DAYS; h++) {
+                        int slot = slot(p, m, h);
+                        modelCounts[m] += counts[slot];
+                        modelAbsPctErrors[m] += absPctErrors[slot];
+                    }
+                }
+
+                int chosen = selector.choose(names, modelCounts, modelAbsPctErrors);
+                if (chosen < 0) continue;
+
+                PairHistory pair = pairs.get(p);
+                rows.add(new BacktestRepository.SelectionRow(pair.productId(), pair.marketId(), names[chosen],
+                        100 * modelAbsPctErrors[chosen] / modelCounts[chosen],
+                        100 * modelAbsPctErrors[linear] / modelCounts[linear],
+                        modelCounts[chosen]));
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Splits the pair range in halves down to {@link #LEAF_PAIRS}, then replays each pair.
+     */
+    static final class ReplayTask extends RecursiveAction {
+        private final List<PairHistory> pairs;
+        private final ForecastModel[] models;
+        private final ErrorSums sums;
+        private final int fromDay;
+        private final int toDay;
+        private final int start;
+        private final int end;
+
+        ReplayTask(List<PairHistory> pairs, ForecastModel[] models, ErrorSums sums, int fromDay, int toDay, int start, int end) {
+            this.pairs = pairs;
+            this.models = models;
+            this.sums = sums;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= LEAF_PAIRS) {
+                double[] path = new double[HORIZON_DAYS];
+                int[] actualIndex = new int[HORIZON_DAYS];
+                for (int p = start; p < end; p++) {
+                    replay(p, pairs.get(p), path, actualIndex);
+                }
+                return;
+            }
+            int mid = (start + end) >>> 1;
+            invokeAll(new ReplayTask(pairs, models, sums, fromDay, toDay, start, mid),
+                    new ReplayTask(pairs, models, sums, fromDay, toDay, mid, end));
+        }
+
+        private void replay(int pairIndex, PairHistory pair, double[] path, int[] actualIndex) {
+            int[] days = pair.epochDays();
+            double[] prices = pair.prices();
+
+            for (int t = MIN_DATA_POINTS - 1; t < days.length; t++) {
+                if (days[t] < fromDay) continue;
+                if (days[t] > toDay) break;
+                sums.forecasts[pairIndex]++;
+
+                // Realized prices are the later points dated t + d; walk forward once
+                int scored = 0;
+                int j = t + 1;
+                for (int d = 1; d <= HORIZON_DAYS; d++) {
+                    int targetDay = days[t] + d;
+                    while (j < days.length && days[j] < targetDay) j++;
+                    boolean realized = j < days.length && days[j] == targetDay && prices[j] > 0;
+                    actualIndex[d - 1] = realized ? j : -1;
+                    if (realized) scored++;
+                }
+                if (scored == 0) continue;
+                sums.scored[pairIndex] += scored;
+
+                // Same window as the live forecast: the newest WINDOW_SIZE prices up to t, read in place
+                int windowStart = Math.max(0, t - WINDOW_SIZE + 1);
+                int n = t - windowStart + 1;
+                for (int m = 0; m < models.length; m++) {
+                    models[m].forecast(prices, windowStart, n, path);
+
+                    for (int d = 1; d <= HORIZON_DAYS; d++) {
+                        int a = actualIndex[d - 1];
+                        if (a < 0) continue;
+
+                        double actual = prices[a];
+                        double error = path[d - 1] - actual;
+
+                        int slot = sums.slot(pairIndex, m, d);
+                        sums.counts[slot]++;
+                        sums.absPctErrors[slot] += Math.abs(error) / actual;
+                        sums.pctErrors[slot] += error / actual;
+                        sums.sqErrors[slot] += error * error;
+                        sums.errors[slot] += error;
+                    }
+                }
+            }
+        }
+    }
+
+    private void finish(BacktestRun run, RuntimeException failure) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            run.setFinishedAt(now);
+            run.setDurationMs(Duration.between(run.getStartedAt(), now).toMillis());
+            if (failure == null) {
+                run.setStatus(BacktestRun.Status.COMPLETED);
+            } else {
+                run.setStatus(BacktestRun.Status.FAILED);
+                String message = String.valueOf(failure.getMessage());
+                run.setErrorMessage(message.length() > 1000 ? message.substring(0, 1000) : message);
+            }
+            runRepository.save(run);
+        } finally {
+            running.set(false);
+        }
+    }
+}
@@ -0,0 +1,518 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.configuration.DataChangedEvent;
+import com.example.budgetwise.exception.ConflictException;
+import com.example.budgetwise.exception.ResourcesNotFoundException;
+import com.example.budgetwise.prediction.entity.PredictionJob;
+import com.example.budgetwise.prediction.entity.PriceRegressionState;
+import com.example.budgetwise.prediction.repository.ForecastDirtyPairRepository;
+import com.example.budgetwise.prediction.repository.PredictionBulkRepository;
+import com.example.budgetwise.prediction.repository.PredictionBulkRepository.PredictionWrite;
+import com.example.budgetwise.prediction.repository.PredictionJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Set-based forecasting engine for the nightly bulk run.
+ * <p>
+ * PERFORMANCE STRATEGY:
+ * 1. Reads the {@code price_regression_state} rows of the active pairs (sufficient
+ *    statistics maintained at ingest time), so no price history is read at all.
+ * 2. Slope / intercept / R² / CV come straight from the sums: O(1) arithmetic per pair.
+ *    Pairs on another {@link ForecastModel} ({@link ForecastModelSelector}, an in-memory
+ *    lookup) read their 30-price window once more for the price path.
+ * 3. Each chunk's predictions are written by ONE INSERT ... ON CONFLICT DO UPDATE on the
+ *    unique (product, market, targetDate) key: no prefetch, no insert / update split.
+ * <p>
+ * JOB MODEL:
+ * 1. The pairs are walked in (product, market) keyset order, one chunk per short
+ *    REQUIRES_NEW transaction. Memory and connection hold time are bounded by the chunk
+ *    size, not by the number of pairs.
+ * 2. Each chunk commits its predictions, clears its change markers and advances the
+ *    {@link PredictionJob} checkpoint atomically.
+ * 3. A failing chunk is retried; after the last attempt it is skipped (its pairs stay
+ *    dirty for the next run) and the run continues.
+ * 4. A run left RUNNING by a crash (no heartbeat for {@code forecast.job.stale-after-minutes})
+ *    is resumed from its checkpoint by the next run of the same mode.
+ * 5. Operators can cancel a run (it stops before its next chunk) and resume it later.
+ * 6. One run at a time: a second trigger fails with a conflict, on this instance through
+ *    a local guard, across instances through the RUNNING job's heartbeat. The check and the
+ *    write of the RUNNING job happen under a PostgreSQL advisory lock ({@link #BULK_SLOT_LOCK}),
+ *    so two instances can never both claim the run.
+ * 7. The regression states are seeded from history at startup
+ *    ({@link RegressionStateService#catchUpOnStartup()}), never inside a run, so a long
+ *    rebuild cannot make a live job look stale.
+ * <p>
+ * MODES:
+ * - FULL: every active pair (weekly safety sweep, manual trigger).
+ * - DELTA: only pairs in {@code forecast_dirty_pair}, i.e. pairs that received new prices
+ *   since the last run. On most days this is a small fraction of all pairs.
+ */
+@Service
+@Slf4j
+public class BulkForecastService {
+
+    private static final long RETRY_BACKOFF_MS = 500;
+
+    /** Advisory lock key of the bulk run slot, held by the claim transaction only. */
+    static final long BULK_SLOT_LOCK = 0x4255_4C4B_4A4F_4200L;
+
+    private final PredictionBulkRepository bulkRepository;
+    private final ForecastModelSelector modelSelector;
+    private final ForecastDirtyPairRepository dirtyPairRepository;
+    private final PredictionJobRepository jobRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final int maxChunkAttempts;
+    private final Duration staleAfter;
+
+    /** Only one bulk run per instance; a second trigger is rejected. */
+    private final AtomicBoolean running = new AtomicBoolean();
+    /** Job run by this instance, null when idle. */
+    private volatile Long currentJobId;
+
+    public BulkForecastService(PredictionBulkRepository bulkRepository, ForecastModelSelector modelSelector, ForecastDirtyPairRepository dirtyPairRepository, PredictionJobRepository jobRepository, ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager, @Value("${forecast.bulk.chunk-size:1000}") int chunkSize, @Value("${forecast.bulk.max-chunk-attempts:3}") int maxChunkAttempts, @Value("${forecast.job.stale-after-minutes:15}") long staleAfterMinutes) {
+        this.bulkRepository = bulkRepository;
+        this.modelSelector = modelSelector;
+        this.dirtyPairRepository = dirtyPairRepository;
+        this.jobRepository = jobRepository;
+        this.eventPublisher = eventPublisher;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.maxChunkAttempts = Math.max(1, maxChunkAttempts);
+        this.staleAfter = Duration.ofMinutes(staleAfterMinutes);
+    }
+
+    public enum Mode { FULL, DELTA }
+
+    public record Summary(int pairsScanned, int pairsForecasted, int pairsSkipped,
+                          int inserted, int updated, int overriddenSkipped, long durationMs) {}
+
+    /** A scheduled bulk job: its id (for the progress API) and its completion. */
+    public record Run(Long jobId, CompletableFuture<Summary> completion) {}
+
+    private record PairForecast(long productId, long marketId, LocalDate lastDate,
+                                ForecastCalculator.Result result) {}
+
+    /** Counters of one committed chunk. */
+    private record ChunkResult(int scanned, int forecasted, int skipped,
+                               int inserted, int updated, int overriddenSkipped) {}
+
+    /**
+     * Starts (or resumes) a bulk forecast and runs it on the calling thread.
+     *
+     * @throws ConflictException if a bulk run is already in progress.
+     */
+    public Summary forecast(Mode mode) {
+        return runJob(startJob(mode));
+    }
+
+    /**
+     * Claims the bulk run slot and creates the job row, synchronously, so a duplicate
+     * trigger is rejected before anything is scheduled. The caller must hand the job
+     * to {@link #runJob} (or {@link #abandonJob}), which releases the slot.
+     * <p>
+     * A RUNNING job without a recent heartbeat was left behind by a crash: it is resumed
+     * from its checkpoint if it has the same mode, otherwise it is closed as FAILED.
+     *
+     * @throws ConflictException if a bulk run is in progress on this or another instance.
+     */
+    public PredictionJob startJob(Mode mode) {
+        claim();
+        try {
+            PredictionJob job = chunkTransaction.execute(status -> {
+                // A concurrent claim on another instance waits here, then sees our RUNNING job
+                jobRepository.lockForTransaction(BULK_SLOT_LOCK);
+
+                PredictionJob previous = jobRepository
+                        .findFirstByTypeAndStatusOrderByStartedAtDesc(PredictionJob.Type.BULK, PredictionJob.Status.RUNNING)
+                        .orElse(null);
+
+                if (previous != null && !isStale(previous)) {
+                    throw new ConflictException("Bulk forecast job " + previous.getId() + " is already running");
+                }
+
+                if (previous != null && previous.getMode() == mode) {
+                    log.info("Bulk forecast ({}): resuming job {} after pair ({}, {}), {} chunks already committed",
+                            mode, previous.getId(), previous.getLastProductId(), previous.getLastMarketId(),
+                            previous.getChunksCompleted());
+                    previous.setHeartbeatAt(LocalDateTime.now());
+                    return jobRepository.save(previous);
+                }
+
+                if (previous != null) {
+                    previous.setStatus(PredictionJob.Status.FAILED);
+                    previous.setFinishedAt(LocalDateTime.now());
+                    previous.setErrorMessage("Interrupted, superseded by a " + mode + " run");
+                    jobRepository.save(previous);
+                }
+
+                PredictionJob created = new PredictionJob();
+                created.setType(PredictionJob.Type.BULK);
+                created.setMode(mode);
+                created.setStatus(PredictionJob.Status.RUNNING);
+                created.setStartedAt(LocalDateTime.now());
+                created.setHeartbeatAt(created.getStartedAt());
+                return jobRepository.save(created);
+            });
+            currentJobId = job.getId();
+            return job;
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * Reopens a CANCELLED, FAILED or stale RUNNING bulk job; {@link #runJob} then
+     * continues right after its checkpoint.
+     *
+     * @throws ConflictException if the job can't be resumed or another bulk run is in progress.
+     */
+    public PredictionJob resumeJob(Long jobId) {
+        claim();
+        try {
+            PredictionJob job = chunkTransaction.execute(status -> {
+                jobRepository.lockForTransaction(BULK_SLOT_LOCK);
+
+                PredictionJob target = jobRepository.findById(jobId)
+                        .orElseThrow(() -> new ResourcesNotFoundException("PredictionJob", "id", jobId));
+
+                if (target.getType() != PredictionJob.Type.BULK) {
+                    throw new ConflictException("Only bulk jobs can be resumed");
+                }
+                if (target.getStatus() == PredictionJob.Status.COMPLETED) {
+                    throw new ConflictException("Job " + jobId + " is already completed");
+                }
+
+                jobRepository.findFirstByTypeAndStatusOrderByStartedAtDesc(PredictionJob.Type.BULK, PredictionJob.Status.RUNNING)
+                        .filter(other -> !isStale(other))
+                        .ifPresent(other -> {
+                            throw new ConflictException("Bulk forecast job " + other.getId() + " is already running");
+                        });
+
+                log.info("Bulk forecast ({}): resuming job {} ({}) after pair ({}, {})",
+                        target.getMode(), jobId, target.getStatus(), target.getLastProductId(), target.getLastMarketId());
+
+                target.setStatus(PredictionJob.Status.RUNNING);
+                target.setCancelRequested(false);
+                target.setFinishedAt(null);
+                target.setErrorMessage(null);
+                target.setHeartbeatAt(LocalDateTime.now());
+                return jobRepository.save(target);
+            });
+            currentJobId = job.getId();
+            return job;
+        } catch (RuntimeException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes a job claimed by {@link #startJob} / {@link #resumeJob} that could not be
+     * scheduled (e.g. executor shutting down), and releases the slot.
+     */
+    public void abandonJob(PredictionJob job, String reason) {
+        try {
+            finishJob(job, PredictionJob.Status.FAILED, reason);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * @return Id of the bulk job running on this instance, or null.
+     */
+    public Long getCurrentJobId() {
+        return currentJobId;
+    }
+
+    /**
+     * A RUNNING job whose last heartbeat is older than the stale threshold has no live runner.
+     */
+    public boolean isStale(PredictionJob job) {
+        LocalDateTime lastSeen = job.getHeartbeatAt() != null ? job.getHeartbeatAt() : job.getStartedAt();
+        return lastSeen.isBefore(LocalDateTime.now().minus(staleAfter));
+    }
+
+    private void claim() {
+        if (!running.compareAndSet(false, true)) {
+            Long jobId = currentJobId;
+            throw new ConflictException("A bulk forecast is already running"
+                    + (jobId != null ? " (job " + jobId + ")" : ""));
+        }
+    }
+
+    private void release() {
+        currentJobId = null;
+        running.set(false);
+    }
+
+    /**
+     * Runs a job claimed by {@link #startJob} / {@link #resumeJob} from its checkpoint.
+     * Not transactional itself: every chunk commits on its own. The run stops before the
+     * next chunk once a cancel has been requested.
+     */
+    public Summary runJob(PredictionJob job) {
+        try {
+            return walk(job);
+        } finally {
+            release();
+        }
+    }
+
+    private Summary walk(PredictionJob job) {
+        long start = System.currentTimeMillis();
+        Mode mode = job.getMode();
+        // Markers of pairs outside the walk set before the (original) start are consumed by this run
+        LocalDateTime runStartedAt = job.getStartedAt();
+        boolean cancelled = false;
+
+        try {
+            // Latest model choices (a backtest may have run on another instance)
+            modelSelector.reload();
+
+            // Progress denominator, counted once per job (a resumed job keeps its total)
+            if (job.getTotalPairs() == 0 && job.getLastProductId() == null) {
+                job.setTotalPairs(bulkRepository.countActiveRegressionStates(mode == Mode.DELTA));
+                saveJob(job);
+            }
+
+            long afterProductId = job.getLastProductId() != null ? job.getLastProductId() : 0L;
+            long afterMarketId = job.getLastMarketId() != null ? job.getLastMarketId() : 0L;
+
+            while (true) {
+                if (jobRepository.isCancelRequested(job.getId())) {
+                    cancelled = true;
+                    break;
+                }
+
+                List<PriceRegressionState> states = bulkRepository.findActiveRegressionStatesAfter(
+                        mode == Mode.DELTA, afterProductId, afterMarketId, chunkSize);
+                if (states.isEmpty()) break;
+
+                PriceRegressionState last = states.get(states.size() - 1);
+                ChunkResult result = processChunkWithRetry(job, states);
+
+                if (result != null) {
+                    apply(job, result, last);
+                } else {
+                    skipFailedChunk(job, states.size(), last);
+                }
+
+                afterProductId = last.getProductInfoId();
+                afterMarketId = last.getMarketLocationId();
+            }
+
+            if (cancelled) {
+                // Checkpoint is kept: POST /jobs/{id}/resume continues from here
+                log.info("Bulk forecast ({}) job {} cancelled after pair ({}, {})",
+                        mode, job.getId(), job.getLastProductId(), job.getLastMarketId());
+                finishJob(job, PredictionJob.Status.CANCELLED, null);
+            } else {
+                // Markers of pairs outside the walk (e.g. inactive products) are consumed too;
+                // walked pairs had theirs cleared by their chunk
+                chunkTransaction.executeWithoutResult(status -> dirtyPairRepository.deleteUnwalkedMarkedBefore(runStartedAt));
+                finishJob(job, PredictionJob.Status.COMPLETED, null);
+            }
+        } catch (RuntimeException e) {
+            finishJob(job, PredictionJob.Status.FAILED, e.getMessage());
+            throw e;
+        }
+
+        Summary summary = new Summary(
+                job.getPairsScanned(),
+                job.getPairsForecasted(),
+                job.getPairsSkipped(),
+                job.getInserted(),
+                job.getUpdated(),
+                job.getOverriddenSkipped(),
+                System.currentTimeMillis() - start
+        );
+
+        // Dashboard caches are evicted now that every chunk has committed
+        eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.PREDICTIONS));
+
+        log.info("Bulk forecast ({}) job {} {} - Pairs: {}, Forecasted: {}, Skipped: {}, Inserted: {}, Updated: {}, Overridden kept: {}, Chunks: {} ok / {} failed, Took: {} ms",
+                mode, job.getId(), job.getStatus(), summary.pairsScanned(), summary.pairsForecasted(), summary.pairsSkipped(),
+                summary.inserted(), summary.updated(), summary.overriddenSkipped(),
+                job.getChunksCompleted(), job.getChunksFailed(), summary.durationMs());
+
+        return summary;
+    }
+
+    /**
+     * @return The chunk's counters, or null if every attempt failed.
+     */
+    private ChunkResult processChunkWithRetry(PredictionJob job, List<PriceRegressionState> states) {
+        for (int attempt = 1; attempt <= maxChunkAttempts; attempt++) {
+            try {
+                return chunkTransaction.execute(status -> processChunk(job, states));
+            } catch (RuntimeException e) {
+                log.warn("Bulk forecast job {}: chunk starting at pair ({}, {}) failed (attempt {}/{}): {}",
+                        job.getId(), states.get(0).getProductInfoId(), states.get(0).getMarketLocationId(),
+                        attempt, maxChunkAttempts, e.getMessage());
+
+                if (attempt < maxChunkAttempts) {
+                    try {
+                        Thread.sleep(RETRY_BACKOFF_MS * attempt);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Bulk forecast interrupted", ie);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One chunk, inside its own transaction: forecast, write, clear markers,
+     * advance the checkpoint.
+     */
+    private ChunkResult processChunk(PredictionJob job, List<PriceRegressionState> states) {
+
+        // --- STEP 1: FORECAST FROM THE REGRESSION STATES ---
+        StateCollector collector = new StateCollector(modelSelector);
+        states.forEach(collector::accept);
+        List<PairForecast> forecasts = collector.forecasts;
+
+        // --- STEP 2: ONE UPSERT FOR THE WHOLE CHUNK (overrides are skipped by the statement) ---
+        List<PredictionWrite> writes = new ArrayList<>(forecasts.size() * ForecastCalculator.HORIZON_DAYS);
+        for (PairForecast f : forecasts) {
+            ForecastCalculator.Result r = f.result();
+            for (int day = 1; day <= ForecastCalculator.HORIZON_DAYS; day++) {
+                writes.add(new PredictionWrite(
+                        f.productId(),
+                        f.marketId(),
+                        f.lastDate().plusDays(day),
+                        r.prices()[day - 1],
+                        r.confidences()[day - 1],
+                        r.statuses()[day - 1]
+                ));
+            }
+        }
+        PredictionBulkRepository.UpsertResult written = bulkRepository.upsertPredictions(writes, false);
+
+        // --- STEP 3: CONSUME THE CHUNK'S CHANGE MARKERS & CHECKPOINT ---
+        // Only markers unchanged since the states were read: a price ingested meanwhile
+        // re-stamps its marker, which then survives for the next run
+        bulkRepository.deleteDirtyPairs(states);
+
+        ChunkResult result = new ChunkResult(collector.pairsScanned, forecasts.size(), collector.pairsSkipped,
+                written.inserted(), written.updated(), written.overriddenSkipped());
+
+        PriceRegressionState last = states.get(states.size() - 1);
+        jobRepository.advanceCheckpoint(job.getId(), LocalDateTime.now(), last.getProductInfoId(), last.getMarketLocationId(),
+                result.scanned(), result.forecasted(), result.skipped(),
+                result.inserted(), result.updated(), result.overriddenSkipped());
+
+        return result;
+    }
+
+    /**
+     * Mirrors a committed chunk on the in-memory job (same arithmetic as advanceCheckpoint).
+     */
+    private static void apply(PredictionJob job, ChunkResult result, PriceRegressionState last) {
+        job.setLastProductId(last.getProductInfoId());
+        job.setLastMarketId(last.getMarketLocationId());
+        job.setPairsScanned(job.getPairsScanned() + result.scanned());
+        job.setPairsForecasted(job.getPairsForecasted() + result.forecasted());
+        job.setPairsSkipped(job.getPairsSkipped() + result.skipped());
+        job.setInserted(job.getInserted() + result.inserted());
+        job.setUpdated(job.getUpdated() + result.updated());
+        job.setOverriddenSkipped(job.getOverriddenSkipped() + result.overriddenSkipped());
+        job.setChunksCompleted(job.getChunksCompleted() + 1);
+        job.setHeartbeatAt(LocalDateTime.now());
+    }
+
+    /**
+     * Gives up on a chunk: moves the checkpoint past it so the run continues.
+     * Its change markers are untouched, so a DELTA run picks the pairs up again.
+     */
+    private void skipFailedChunk(PredictionJob job, int pairs, PriceRegressionState last) {
+        log.error("Bulk forecast job {}: giving up on chunk ending at pair ({}, {}) after {} attempts",
+                job.getId(), last.getProductInfoId(), last.getMarketLocationId(), maxChunkAttempts);
+
+        job.setLastProductId(last.getProductInfoId());
+        job.setLastMarketId(last.getMarketLocationId());
+        job.setChunksFailed(job.getChunksFailed() + 1);
+        job.setPairsFailed(job.getPairsFailed() + pairs);
+        job.setHeartbeatAt(LocalDateTime.now());
+        job.setErrorMessage("Chunk ending at pair (" + last.getProductInfoId() + ", "
+                + last.getMarketLocationId() + ") failed after " + maxChunkAttempts + " attempts");
+        saveJob(job);
+    }
+
+    private void finishJob(PredictionJob job, PredictionJob.Status status, String errorMessage) {
+        job.setStatus(status);
+        job.setFinishedAt(LocalDateTime.now());
+        if (errorMessage != null) {
+            job.setErrorMessage(errorMessage.length() > 500 ? errorMessage.substring(0, 500) : errorMessage);
+        }
+        saveJob(job);
+    }
+
+    /**
+     * Writes the in-memory job back without losing a cancel an operator requested meanwhile.
+     */
+    private void saveJob(PredictionJob job) {
+        chunkTransaction.executeWithoutResult(status -> {
+            job.setCancelRequested(job.isCancelRequested() || jobRepository.isCancelRequested(job.getId()));
+            jobRepository.save(job);
+        });
+    }
+
+    /**
+     * Forecasts each pair straight from its sufficient statistics, with the pair's model.
+     */
+    private static final class StateCollector {
+
+        private final ForecastModelSelector modelSelector;
+        private final double[] window = new double[ForecastCalculator.WINDOW_SIZE];
+        private final List<PairForecast> forecasts = new ArrayList<>();
+
+        private int pairsScanned;
+        private int pairsSkipped;
+
+        StateCollector(ForecastModelSelector modelSelector) {
+            this.modelSelector = modelSelector;
+        }
+
+        void accept(PriceRegressionState state) {
+            pairsScanned++;
+
+            int n = state.getSampleCount();
+            if (n < ForecastCalculator.MIN_DATA_POINTS || state.getLastReportDate() == null) {
+                pairsSkipped++;
+                return;
+            }
+
+            RegressionStateService.windowOldestFirst(state, window);
+            forecasts.add(new PairForecast(
+                    state.getProductInfoId(),
+                    state.getMarketLocationId(),
+                    state.getLastReportDate(),
+                    ForecastCalculator.forecast(n, state.getSumX(), state.getSumY(), state.getSumXY(),
+                            state.getSumXX(), state.getSumYY(), window,
+                            modelSelector.modelFor(state.getProductInfoId(), state.getMarketLocationId()))
+            ));
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.prediction.entity.PricePredictions;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pure forecasting math shared by the per-pair and the bulk prediction paths.
+ * <p>
+ * Works on a primitive price window ordered OLDEST to NEWEST ({@link PriceSeries}), so
+ * callers can feed it either from {@code DailyPriceRecord} entities or from raw JDBC rows
+ * without materializing any entities.
+ * <p>
+ * The price path comes from the pair's {@link ForecastModel} (linear trend unless
+ * {@link ForecastModelSelector} chose another one); confidence and status rules always read
+ * the window statistics of the line fit (R², CV, MAPE), whatever the model.
+ */
+@Slf4j
+public final class ForecastCalculator {
+
+    public static final int WINDOW_SIZE = 30;
+    public static final int MIN_DATA_POINTS = 14;
+    public static final int HORIZON_DAYS = 7;
+
+    private ForecastCalculator() {
+    }
+
+    /**
+     * Result of fitting one price window.
+     * Index 0 of each array is day +1, index 6 is day +7. {@code model} produced the prices;
+     * slope / intercept / R² are those of the line fit either way.
+     */
+    public record Result(
+            double currentPrice,
+            double slope,
+            double intercept,
+            double rSquare,
+            double coefficientOfVariation,
+            double mape,
+            double baseConfidence,
+            double[] prices,
+            double[] confidences,
+            PricePredictions.Status[] statuses,
+            String model
+    ) {}
+
+    /**
+     * Fits the linear trend over the window and projects the next 7 days.
+     *
+     * @param prices Price window ordered oldest to newest.
+     * @param count  Number of valid points in {@code prices} (starting at index 0).
+     */
+    public static Result forecast(double[] prices, int count) {
+        return forecast(PriceSeries.of(prices, count));
+    }
+
+    /**
+     * Projects the next 7 days from a series fitted by the single-pass {@link PriceSeries} kernel.
+     */
+    public static Result forecast(PriceSeries series) {
+        return forecast(series, null);
+    }
+
+    /**
+     * Same, with the price path of {@code model} (null or linear trend: the fitted line).
+     */
+    public static Result forecast(PriceSeries series, ForecastModel model) {
+        series.fit();
+        double[] path = new double[HORIZON_DAYS];
+        if (isLinear(model)) {
+            linearPath(series.size(), series.slope(), series.intercept(), path);
+        } else {
+            series.project(model, path);
+        }
+        return project(series.size(), series.slope(), series.intercept(), series.rSquare(),
+                series.coefficientOfVariation(), series.mape(), series.lastPrice(), path, modelName(model));
+    }
+
+    /**
+     * Projects the next 7 days straight from pre-aggregated sufficient statistics
+     * (n, Σx, Σy, Σxy, Σx², Σy²), e.g. a {@code PriceRegressionState} row.
+     *
+     * @param window The same n prices ordered oldest to newest. Only the newest 10 are
+     *               read (for MAPE), so this stays O(1) per pair.
+     */
+    public static Result forecast(int n, double sumX, double sumY, double sumXY,
+                                  double sumXX, double sumYY, double[] window) {
+        return forecast(n, sumX, sumY, sumXY, sumXX, sumYY, window, null);
+    }
+
+    /**
+     * Same, with the price path of {@code model} (null or linear trend: the line from the sums,
+     * still O(1); any other model reads the n window prices once).
+     */
+    public static Result forecast(int n, double sumX, double sumY, double sumXY,
+                                  double sumXX, double sumYY, double[] window, ForecastModel model) {
+
+        double sxx = n * sumXX - sumX * sumX;
+        double sxy = n * sumXY - sumX * sumY;
+        double syy = n * sumYY - sumY * sumY;
+
+        double slope = sxx != 0 ? sxy / sxx : 0.0;
+        double intercept = (sumY - slope * sumX) / n;
+        // Same convention as SimpleRegression: undefined when prices never move
+        double rSquare = (sxx > 0 && syy > 0) ? (sxy * sxy) / (sxx * syy) : Double.NaN;
+
+        double avgPrice = sumY / n;
+        double variance = Math.max(0.0, sumYY / n - avgPrice * avgPrice);
+        double stdDev = Math.sqrt(variance);
+        double coefficientOfVariation = (avgPrice > 0) ? (stdDev / avgPrice) * 100 : 0;
+
+        double mape = PriceSeries.mape(window, n, slope, intercept);
+
+        double[] path = new double[HORIZON_DAYS];
+        if (isLinear(model)) {
+            linearPath(n, slope, intercept, path);
+        } else {
+            model.forecast(window, 0, n, path);
+        }
+        return project(n, slope, intercept, rSquare, coefficientOfVariation, mape, window[n - 1],
+                path, modelName(model));
+    }
+
+    private static boolean isLinear(ForecastModel model) {
+        return model == null || LinearTrendModel.NAME.equals(model.name());
+    }
+
+    private static String modelName(ForecastModel model) {
+        return model == null ? LinearTrendModel.NAME : model.name();
+    }
+
+    private static void linearPath(int n, double slope, double intercept, double[] path) {
+        for (int day = 1; day <= HORIZON_DAYS; day++) {
+            path[day - 1] = projectPrice(n, slope, intercept, day);
+        }
+    }
+
+    /**
+     * Confidence and status of each day of a projected price path, from the fitted statistics.
+     */
+    private static Result project(int n, double slope, double intercept, double rSquare,
+                                  double coefficientOfVariation, double mape, double currentPrice,
+                                  double[] forecastPrices, String model) {
+
+        double baseConfidence = calculateImprovedConfidence(rSquare, coefficientOfVariation, mape, n);
+
+        double[] confidences = new double[HORIZON_DAYS];
+        PricePredictions.Status[] statuses = new PricePredictions.Status[HORIZON_DAYS];
+
+        for (int day = 1; day <= HORIZON_DAYS; day++) {
+            double finalPrice = forecastPrices[day - 1];
+
+            // Decrease confidence for far future predictions (3% per day, floor at 30%)
+            double dayConfidence = baseConfidence * (1.0 - (day - 1) * 0.03);
+            dayConfidence = Math.max(0.30, Math.min(1.0, dayConfidence));
+
+            double priceChange = ((finalPrice - currentPrice) / currentPrice) * 100;
+
+            confidences[day - 1] = dayConfidence;
+            statuses[day - 1] = determineStatus(priceChange, dayConfidence, coefficientOfVariation, day, mape);
+        }
+
+        return new Result(
+                currentPrice,
+                slope,
+                intercept,
+                rSquare,
+                coefficientOfVariation,
+                mape,
+                baseConfidence,
+                forecastPrices,
+                confidences,
+                statuses,
+                model
+        );
+    }
+
+    /**
+     * Price of day +{@code day} on the line fitted over {@code n} points (never negative).
+     */
+    static double projectPrice(int n, double slope, double intercept, int day) {
+        return Math.max(0.0, intercept + slope * (n + day - 1));
+    }
+
+    /**
+     * Weighted confidence score:
+     * R² 30%, price stability (CV) 30%, accuracy (MAPE) 25%, data sufficiency 15%.
+     */
+    static double calculateImprovedConfidence(
+            double rSquare,
+            double coefficientOfVariation,
+            double mape,
+            int dataPoints) {
+
+        double rSquareScore = Double.isNaN(rSquare) ? 0.5 : Math.max(0.0, Math.min(1.0, rSquare));
+
+        // CV < 10% = very stable (1.0), CV > 50% = very volatile (0.0)
+        double stabilityScore;
+        if (coefficientOfVariation < 10) {
+            stabilityScore = 1.0;
+        } else if (coefficientOfVariation > 50) {
+            stabilityScore = 0.0;
+        } else {
+            stabilityScore = 1.0 - ((coefficientOfVariation - 10) / 40.0);
+        }
+
+        // MAPE < 5% = excellent (1.0), MAPE > 25% = poor (0.0)
+        double accuracyScore;
+        if (mape < 5) {
+            accuracyScore = 1.0;
+        } else if (mape > 25) {
+            accuracyScore = 0.0;
+        } else {
+            accuracyScore = 1.0 - ((mape - 5) / 20.0);
+        }
+
+        // 14 points = 0.7, 30+ points = 1.0
+        double dataSufficiencyScore;
+        if (dataPoints >= 30) {
+            dataSufficiencyScore = 1.0;
+        } else if (dataPoints < 14) {
+            dataSufficiencyScore = 0.5;
+        } else {
+            dataSufficiencyScore = 0.7 + ((dataPoints - 14) / 16.0) * 0.3;
+        }
+
+        double confidence = (rSquareScore * 0.30) +
+                (stabilityScore * 0.30) +
+                (accuracyScore * 0.25) +
+                (dataSufficiencyScore * 0.15);
+
+        return Math.max(0.0, Math.min(1.0, confidence));
+    }
+
+    /**
+     * Anomaly rules:
+     * 1. Price change > ±40% = ANOMALY (extreme movement)
+     * 2. Price change > ±30% AND confidence < 40% = ANOMALY (big uncertain change)
+     * 3. Confidence < 20% = ANOMALY (very unreliable)
+     * 4. Coefficient of Variation > 60% = ANOMALY (extreme volatility)
+     * 5. Far predictions (5+ days) with confidence < 40% = ANOMALY
+     * 6. MAPE > 30% = ANOMALY (poor fit)
+     */
+    static PricePredictions.Status determineStatus(
+            double priceChange,
+            double confidence,
+            double coefficientOfVariation,
+            int daysAhead,
+            double mape) {
+
+        if (Math.abs(priceChange) > 40.0) {
+            log.info("ANOMALY: Extreme price change {}% (threshold: 40%)", String.format("%.1f", priceChange));
+            return PricePredictions.Status.ANOMALY;
+        }
+
+        if (Math.abs(priceChange) > 30.0 && confidence < 0.40) {
+            log.info("ANOMALY: Large price change {}% with low confidence {}%",
+                    String.format("%.1f", priceChange), String.format("%.0f", confidence * 100));
+            return PricePredictions.Status.ANOMALY;
+        }
+
+        if (confidence < 0.20) {
+            log.info("ANOMALY: Very low confidence {}% (threshold: 20%)", String.format("%.0f", confidence * 100));
+            return PricePredictions.Status.ANOMALY;
+        }
+
+        if (coefficientOfVariation > 60.0) {
+            log.info("ANOMALY: High volatility CV={}% (threshold: 60%)", String.format("%.1f", coefficientOfVariation));
+            return PricePredictions.Status.ANOMALY;
+        }
+
+        if (daysAhead >= 5 && confidence < 0.40) {
+            log.debug("ANOMALY: Far prediction (day {}) with low confidence {}%",
+                    daysAhead, String.format("%.0f", confidence * 100));
+            return PricePredictions.Status.ANOMALY;
+        }
+
+        if (mape > 30.0) {
+            log.info("ANOMALY: High prediction error MAPE={}% (threshold: 30%)", String.format("%.1f", mape));
+            return PricePredictions.Status.ANOMALY;
+        }
+
+        return PricePredictions.Status.NORMAL;
+    }
+}
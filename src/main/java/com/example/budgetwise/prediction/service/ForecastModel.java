@@ -0,0 +1,32 @@
+package com.example.budgetwise.prediction.service;
+
+/**
+ * A price-path forecasting model: projects day +1 .. +{@link ForecastCalculator#HORIZON_DAYS}
+ * from a pair's recent prices.
+ * <p>
+ * Implementations are Spring beans, picked up by {@link ForecastModelSelector}; the model of
+ * each pair is chosen from its backtest error ({@link BacktestService}).
+ * <p>
+ * Contract:
+ * 1. Stateless and thread-safe: one instance is shared by the API, the bulk run and the
+ *    fork-join backtest workers.
+ * 2. Allocation-free per call: reads the window in place, writes into the caller's array.
+ * 3. x is the point index, as everywhere in the forecasting code (one point per report).
+ */
+public interface ForecastModel {
+
+    /**
+     * Stable identifier, stored with backtest results and model selections.
+     */
+    String name();
+
+    /**
+     * Projects the next {@code out.length} points.
+     *
+     * @param prices Price array ordered oldest to newest.
+     * @param offset Index of the oldest point of the window.
+     * @param count  Number of points in the window (at least {@link ForecastCalculator#MIN_DATA_POINTS}).
+     * @param out    Receives day +1 at index 0; never negative.
+     */
+    void forecast(double[] prices, int offset, int count, double[] out);
+}
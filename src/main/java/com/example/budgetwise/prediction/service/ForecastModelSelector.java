@@ -0,0 +1,151 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.prediction.repository.BacktestRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the {@link ForecastModel} beans and the model of each product-market pair.
+ * <p>
+ * LOGIC:
+ * 1. A backtest scores every registered model on every pair ({@link BacktestService}); the
+ *    pair's model is the one with the lowest MAPE over all horizons, if it has at least
+ *    {@code minSamples} scored days and beats the linear trend by {@code minImprovementPct}
+ *    (relative), so noise does not flip pairs between runs. Otherwise: linear trend.
+ * 2. Choices are stored in {@code forecast_model_selection} and cached here as one
+ *    immutable map, swapped on {@link #reload()} (after each backtest, at the start of each
+ *    bulk run so other instances pick new choices up).
+ * 3. Pairs without a choice, choices naming a model that is no longer registered, or
+ *    {@code forecast.model.selection-enabled=false}: linear trend, i.e. the original forecast.
+ * <p>
+ * PERFORMANCE STRATEGY:
+ * {@link #modelFor} is a hash lookup on the in-memory map, no query per pair, so the nightly
+ * bulk run keeps its throughput.
+ */
+@Service
+@Slf4j
+public class ForecastModelSelector {
+
+    private final BacktestRepository backtestRepository;
+    private final Map<String, ForecastModel> models;
+    private final ForecastModel defaultModel;
+    private final boolean enabled;
+    private final int minSamples;
+    private final double minImprovementPct;
+
+    /** Pair -> model; null until first used. */
+    private volatile Map<PairKey, ForecastModel> selections;
+
+    private record PairKey(long productId, long marketId) {}
+
+    public ForecastModelSelector(BacktestRepository backtestRepository, List<ForecastModel> models, @Value("${forecast.model.selection-enabled:true}") boolean enabled, @Value("${forecast.model.min-samples:20}") int minSamples, @Value("${forecast.model.min-improvement-pct:5}") double minImprovementPct) {
+        this.backtestRepository = backtestRepository;
+        Map<String, ForecastModel> byName = new LinkedHashMap<>();
+        for (ForecastModel model : models) {
+            if (byName.putIfAbsent(model.name(), model) != null) {
+                throw new IllegalStateException("Duplicate forecast model name: " + model.name());
+            }
+        }
+        this.defaultModel = byName.get(LinearTrendModel.NAME);
+        if (defaultModel == null) {
+            throw new IllegalStateException("The " + LinearTrendModel.NAME + " forecast model must be registered");
+        }
+        this.models = Collections.unmodifiableMap(byName);
+        this.enabled = enabled;
+        this.minSamples = minSamples;
+        this.minImprovementPct = minImprovementPct;
+        log.info("Forecast models: {} (per-pair selection {})", byName.keySet(), enabled ? "enabled" : "disabled");
+    }
+
+    /**
+     * Every registered model, by name, in registration order.
+     */
+    public Map<String, ForecastModel> models() {
+        return models;
+    }
+
+    public ForecastModel defaultModel() {
+        return defaultModel;
+    }
+
+    /**
+     * Number of pairs per stored choice (pairs without one are on the linear trend).
+     */
+    public Map<String, Long> countSelections() {
+        return backtestRepository.countModelSelections();
+    }
+
+    /**
+     * Model to forecast the pair with.
+     */
+    public ForecastModel modelFor(long productId, long marketId) {
+        if (!enabled) return defaultModel;
+
+        Map<PairKey, ForecastModel> current = selections;
+        if (current == null) {
+            reload();
+            current = selections;
+        }
+        return current.getOrDefault(new PairKey(productId, marketId), defaultModel);
+    }
+
+    /**
+     * Reads every stored choice into a new map and swaps it in.
+     *
+     * @return Number of pairs on a model other than the linear trend.
+     */
+    public synchronized int reload() {
+        Map<PairKey, ForecastModel> loaded = new HashMap<>();
+        int[] unknown = {0};
+        backtestRepository.streamModelSelections((productId, marketId, name) -> {
+            ForecastModel model = models.get(name);
+            if (model == null) {
+                unknown[0]++;
+            } else if (model != defaultModel) {
+                loaded.put(new PairKey(productId, marketId), model);
+            }
+        });
+        if (unknown[0] > 0) {
+            log.warn("{} forecast model selections name an unregistered model, using {}", unknown[0], LinearTrendModel.NAME);
+        }
+
+        selections = Collections.unmodifiableMap(loaded);
+        log.debug("Loaded {} non-default forecast model selections", loaded.size());
+        return loaded.size();
+    }
+
+    /**
+     * Picks a pair's model from its backtest errors (all horizons together).
+     *
+     * @param names         Model names, same order as the other arrays.
+     * @param counts        Scored days per model.
+     * @param absPctErrors  Sum of |e| / actual per model.
+     * @return Index of the chosen model, or -1 when the pair has too few scored days.
+     */
+    public int choose(String[] names, int[] counts, double[] absPctErrors) {
+        int linear = -1;
+        int best = -1;
+        double bestMape = Double.MAX_VALUE;
+        for (int m = 0; m < names.length; m++) {
+            if (counts[m] < minSamples) continue;
+            double mape = absPctErrors[m] / counts[m];
+            if (LinearTrendModel.NAME.equals(names[m])) linear = m;
+            if (mape < bestMape) {
+                bestMape = mape;
+                best = m;
+            }
+        }
+        if (linear < 0) return -1;
+        if (best == linear) return linear;
+
+        double linearMape = absPctErrors[linear] / counts[linear];
+        return bestMape <= linearMape * (1 - minImprovementPct / 100.0) ? best : linear;
+    }
+}
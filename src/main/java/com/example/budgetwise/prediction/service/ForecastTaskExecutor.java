@@ -0,0 +1,138 @@
+package com.example.budgetwise.prediction.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Managed execution layer for forecasting work (bulk runs, batch generation).
+ * <p>
+ * LOGIC:
+ * 1. Every task runs on its own virtual thread, so waiting is cheap and no platform
+ *    thread pool has to be sized or tuned.
+ * 2. Before touching the database a task takes a permit. There are fewer permits than
+ *    Hikari connections, so forecasting can never hold the whole pool: a few connections
+ *    always stay free for API requests.
+ * 3. Tasks waiting for a permit are the queue depth reported by {@link #stats()}.
+ * 4. On shutdown, new tasks are rejected and running ones get a grace period to finish.
+ */
+@Component
+@Slf4j
+public class ForecastTaskExecutor implements DisposableBean {
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("forecast-", 0).factory());
+    private final Semaphore dbPermits;
+    private final int permitCount;
+    private final long shutdownTimeoutSeconds;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public record Stats(long submitted, int queued, int active, long completed, long failed,
+                        int dbPermits, int availableDbPermits, boolean shuttingDown) {}
+
+    public ForecastTaskExecutor(DataSource dataSource,
+                                @Value("${forecast.executor.db-permits:0}") int dbPermits,
+                                @Value("${forecast.executor.api-reserved-connections:3}") int apiReserved,
+                                @Value("${forecast.executor.shutdown-timeout-seconds:30}") long shutdownTimeoutSeconds) {
+        this.permitCount = dbPermits > 0 ? dbPermits : Math.max(1, poolSize(dataSource) - apiReserved);
+        this.dbPermits = new Semaphore(permitCount, true);
+        this.shutdownTimeoutSeconds = shutdownTimeoutSeconds;
+        log.info("Forecast executor: virtual threads, {} concurrent DB permits", permitCount);
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) {
+            return hikari.getMaximumPoolSize();
+        }
+        return 10; // Hikari default
+    }
+
+    /**
+     * Runs {@code task} on a virtual thread while holding one DB permit.
+     *
+     * @throws RejectedExecutionException if the application is shutting down.
+     */
+    public <T> CompletableFuture<T> submit(String taskName, Supplier<T> task) {
+        waiting.incrementAndGet();
+        try {
+            CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> execute(taskName, task), executor);
+            submitted.incrementAndGet();
+            return future;
+        } catch (RejectedExecutionException e) {
+            waiting.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private <T> T execute(String taskName, Supplier<T> task) {
+        boolean acquired = false;
+        try {
+            dbPermits.acquire();
+            acquired = true;
+            waiting.decrementAndGet();
+            active.incrementAndGet();
+
+            T result = task.get();
+            completed.incrementAndGet();
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.incrementAndGet();
+            throw new IllegalStateException("Forecast task interrupted: " + taskName, e);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            log.error("Forecast task {} failed", taskName, e);
+            throw e;
+        } finally {
+            if (acquired) {
+                active.decrementAndGet();
+                dbPermits.release();
+            } else {
+                waiting.decrementAndGet();
+            }
+        }
+    }
+
+    public CompletableFuture<Void> run(String taskName, Runnable task) {
+        return submit(taskName, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public Stats stats() {
+        return new Stats(submitted.get(), waiting.get(), active.get(), completed.get(), failed.get(),
+                permitCount, dbPermits.availablePermits(), executor.isShutdown());
+    }
+
+    /**
+     * Graceful shutdown: runs before the DataSource is closed (this bean depends on it).
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+            log.warn("Forecast executor: {} tasks still running after {} s, interrupting",
+                    active.get() + waiting.get(), shutdownTimeoutSeconds);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.budgetwise.prediction.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holt's linear exponential smoothing with a damped trend.
+ * <p>
+ * Level and trend follow the recent prices more closely than the 30-point line, and the
+ * damping flattens the trend over the horizon, so a short run-up is not extrapolated
+ * for the whole week.
+ * <p>
+ * l(t) = α·y(t) + (1 - α)·(l(t-1) + φ·b(t-1)), b(t) = β·(l(t) - l(t-1)) + (1 - β)·φ·b(t-1),
+ * day +h = l + (φ + φ² + ... + φ^h)·b.
+ */
+@Component
+public class HoltModel implements ForecastModel {
+
+    public static final String NAME = "HOLT";
+
+    private final double alpha;
+    private final double beta;
+    private final double damping;
+
+    public HoltModel(@Value("${forecast.model.holt.alpha:0.5}") double alpha, @Value("${forecast.model.holt.beta:0.2}") double beta, @Value("${forecast.model.holt.damping:0.9}") double damping) {
+        if (alpha <= 0 || alpha > 1 || beta < 0 || beta > 1 || damping <= 0 || damping > 1) {
+            throw new IllegalArgumentException("forecast.model.holt: alpha in (0, 1], beta in [0, 1], damping in (0, 1]");
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+        this.damping = damping;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void forecast(double[] prices, int offset, int count, double[] out) {
+        double level = prices[offset];
+        double trend = count > 1 ? prices[offset + 1] - prices[offset] : 0.0;
+
+        for (int i = 1; i < count; i++) {
+            double previousLevel = level;
+            level = alpha * prices[offset + i] + (1 - alpha) * (level + damping * trend);
+            trend = beta * (level - previousLevel) + (1 - beta) * damping * trend;
+        }
+
+        double factor = 0.0;
+        double phi = 1.0;
+        for (int day = 1; day <= out.length; day++) {
+            phi *= damping;
+            factor += phi;
+            out[day - 1] = Math.max(0.0, level + factor * trend);
+        }
+    }
+}
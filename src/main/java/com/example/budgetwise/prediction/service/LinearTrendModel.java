@@ -0,0 +1,41 @@
+package com.example.budgetwise.prediction.service;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Ordinary least squares line over the window, extended (the original forecast, and the
+ * default for pairs without a selection).
+ * <p>
+ * {@link ForecastCalculator} does not call this for the live forecast: the line is already
+ * fitted there (from the {@link PriceSeries} or the regression state sums). It is used by the
+ * backtest, where every model is evaluated on the same raw window.
+ */
+@Component
+public class LinearTrendModel implements ForecastModel {
+
+    public static final String NAME = "LINEAR_TREND";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void forecast(double[] prices, int offset, int count, double[] out) {
+        // Single pass, x = 0 .. count - 1 relative to the window
+        double sumY = 0.0, sumXY = 0.0;
+        for (int i = 0; i < count; i++) {
+            double y = prices[offset + i];
+            sumY += y;
+            sumXY += i * y;
+        }
+        double meanX = (count - 1) / 2.0;
+        double sxx = count * ((double) count * count - 1) / 12.0;   // Σ(x - meanX)²
+        double slope = sxx != 0 ? (sumXY - meanX * sumY) / sxx : 0.0;
+        double intercept = sumY / count - slope * meanX;
+
+        for (int day = 1; day <= out.length; day++) {
+            out[day - 1] = ForecastCalculator.projectPrice(count, slope, intercept, day);
+        }
+    }
+}
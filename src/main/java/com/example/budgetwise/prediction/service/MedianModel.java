@@ -0,0 +1,64 @@
+package com.example.budgetwise.prediction.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Median of the last k prices, flat over the horizon.
+ * <p>
+ * Ignores trend and isolated spikes, which suits pairs whose price only jumps around a
+ * stable level (a single outlier report moves a line fit, not a median).
+ * The median is found by rank counting in place, O(k²) for a small k, with no scratch array.
+ */
+@Component
+public class MedianModel implements ForecastModel {
+
+    public static final String NAME = "MEDIAN";
+
+    private final int window;
+
+    public MedianModel(@Value("${forecast.model.median.window:7}") int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("forecast.model.median.window must be positive");
+        }
+        this.window = window;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void forecast(double[] prices, int offset, int count, double[] out) {
+        int k = Math.min(window, count);
+        int from = offset + count - k;
+        double median = (k % 2 == 1)
+                ? select(prices, from, k, k / 2)
+                : (select(prices, from, k, k / 2 - 1) + select(prices, from, k, k / 2)) / 2.0;
+
+        double price = Math.max(0.0, median);
+        for (int day = 1; day <= out.length; day++) {
+            out[day - 1] = price;
+        }
+    }
+
+    /**
+     * Value of rank {@code rank} (0 = smallest) among prices[from .. from + k - 1].
+     */
+    private static double select(double[] prices, int from, int k, int rank) {
+        for (int i = from; i < from + k; i++) {
+            double candidate = prices[i];
+            int less = 0;
+            int equal = 0;
+            for (int j = from; j < from + k; j++) {
+                if (prices[j] < candidate) less++;
+                else if (prices[j] == candidate) equal++;
+            }
+            if (less <= rank && rank < less + equal) {
+                return candidate;
+            }
+        }
+        return prices[from + k - 1];
+    }
+}
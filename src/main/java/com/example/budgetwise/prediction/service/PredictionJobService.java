@@ -0,0 +1,199 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.exception.ConflictException;
+import com.example.budgetwise.exception.ResourcesNotFoundException;
+import com.example.budgetwise.prediction.dto.PredictionJobResponse;
+import com.example.budgetwise.prediction.dto.ProductMarketPairRequest;
+import com.example.budgetwise.prediction.entity.PredictionJob;
+import com.example.budgetwise.prediction.repository.PredictionJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Prediction job tracking for operators: progress, cancel, and batch generation jobs.
+ * Bulk jobs are started / resumed through {@link PricePredictionService#runBulkPrediction}
+ * and {@link PricePredictionService#resumeBulkPrediction}.
+ * <p>
+ * LOGIC:
+ * 1. Cancel only sets a flag; the runner checks it before each chunk (BULK) or pair
+ *    (BATCH) and closes the job as CANCELLED. A BULK job keeps its checkpoint.
+ * 2. A RUNNING job whose runner is gone (crash, restart) can't see the flag, so a stale
+ *    job without a local runner is closed directly.
+ * 3. BATCH jobs count every finished pair with an atomic UPDATE, since pairs run
+ *    concurrently on the {@link ForecastTaskExecutor}.
+ */
+@Service
+@Slf4j
+public class PredictionJobService {
+
+    private static final int MAX_LISTED_JOBS = 100;
+
+    private final PredictionJobRepository jobRepository;
+    private final BulkForecastService bulkForecastService;
+    private final PricePredictionService predictionService;
+    private final ForecastTaskExecutor forecastTaskExecutor;
+    private final TransactionTemplate transaction;
+
+    /** BATCH jobs whose pairs are running on this instance. */
+    private final Set<Long> localBatchJobs = ConcurrentHashMap.newKeySet();
+
+    public PredictionJobService(PredictionJobRepository jobRepository, BulkForecastService bulkForecastService, PricePredictionService predictionService, ForecastTaskExecutor forecastTaskExecutor, PlatformTransactionManager transactionManager) {
+        this.jobRepository = jobRepository;
+        this.bulkForecastService = bulkForecastService;
+        this.predictionService = predictionService;
+        this.forecastTaskExecutor = forecastTaskExecutor;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public PredictionJobResponse getJob(Long jobId) {
+        return PredictionJobResponse.from(findJob(jobId));
+    }
+
+    /**
+     * Most recent jobs first.
+     */
+    public List<PredictionJobResponse> getRecentJobs(int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_LISTED_JOBS));
+        return jobRepository.findAllByOrderByStartedAtDesc(PageRequest.of(0, size))
+                .map(PredictionJobResponse::from)
+                .getContent();
+    }
+
+    public List<PredictionJobResponse> getRunningJobs() {
+        return jobRepository.findAllByStatusOrderByStartedAtDesc(PredictionJob.Status.RUNNING)
+                .stream()
+                .map(PredictionJobResponse::from)
+                .toList();
+    }
+
+    /**
+     * Requests the cancellation of a RUNNING job.
+     *
+     * @throws ConflictException if the job is not running.
+     */
+    public PredictionJobResponse cancel(Long jobId) {
+        PredictionJob job = transaction.execute(status -> {
+            PredictionJob target = findJob(jobId);
+            if (target.getStatus() != PredictionJob.Status.RUNNING) {
+                throw new ConflictException("Job " + jobId + " is not running (" + target.getStatus() + ")");
+            }
+
+            if (bulkForecastService.isStale(target) && !hasLocalRunner(target)) {
+                log.info("Prediction job {} has no live runner, closing it as CANCELLED", jobId);
+                target.setStatus(PredictionJob.Status.CANCELLED);
+                target.setCancelRequested(true);
+                target.setFinishedAt(LocalDateTime.now());
+                return jobRepository.save(target);
+            }
+
+            jobRepository.requestCancel(jobId);
+            target.setCancelRequested(true);
+            return target;
+        });
+
+        log.info("Cancel requested for prediction job {}", jobId);
+        return PredictionJobResponse.from(job);
+    }
+
+    private boolean hasLocalRunner(PredictionJob job) {
+        return job.getType() == PredictionJob.Type.BULK
+                ? Objects.equals(bulkForecastService.getCurrentJobId(), job.getId())
+                : localBatchJobs.contains(job.getId());
+    }
+
+    /**
+     * Generates the forecasts of the given pairs as one BATCH job. One task per pair:
+     * pairs run concurrently, bounded by the executor's DB permits.
+     *
+     * @return The job, RUNNING; returns immediately.
+     */
+    public PredictionJob runBatch(List<ProductMarketPairRequest> pairs) {
+        PredictionJob job = transaction.execute(status -> {
+            PredictionJob created = new PredictionJob();
+            created.setType(PredictionJob.Type.BATCH);
+            created.setStatus(PredictionJob.Status.RUNNING);
+            created.setStartedAt(LocalDateTime.now());
+            created.setHeartbeatAt(created.getStartedAt());
+            created.setTotalPairs(pairs.size());
+            return jobRepository.save(created);
+        });
+        Long jobId = job.getId();
+        localBatchJobs.add(jobId);
+
+        CompletableFuture<?>[] tasks = new CompletableFuture[pairs.size()];
+        try {
+            for (int i = 0; i < pairs.size(); i++) {
+                ProductMarketPairRequest pair = pairs.get(i);
+                tasks[i] = forecastTaskExecutor.run(
+                        "batch-" + jobId + "-" + pair.productId() + "-" + pair.marketId(),
+                        () -> generatePair(jobId, pair));
+            }
+        } catch (RejectedExecutionException e) {
+            localBatchJobs.remove(jobId);
+            finishBatch(jobId, "Not scheduled: forecast executor is shutting down");
+            throw e;
+        }
+
+        CompletableFuture.allOf(tasks).whenComplete((ignored, error) -> {
+            localBatchJobs.remove(jobId);
+            finishBatch(jobId, null);
+        });
+
+        return job;
+    }
+
+    private void generatePair(Long jobId, ProductMarketPairRequest pair) {
+        if (jobRepository.isCancelRequested(jobId)) {
+            return;
+        }
+
+        boolean success = false;
+        try {
+            predictionService.generateForecast(pair.productId(), pair.marketId());
+            success = true;
+        } finally {
+            int forecasted = success ? 1 : 0;
+            transaction.executeWithoutResult(status ->
+                    jobRepository.recordBatchPair(jobId, forecasted, 1 - forecasted, LocalDateTime.now()));
+        }
+    }
+
+    private void finishBatch(Long jobId, String errorMessage) {
+        transaction.executeWithoutResult(status -> {
+            PredictionJob job = findJob(jobId);
+            job.setFinishedAt(LocalDateTime.now());
+
+            if (errorMessage != null) {
+                job.setStatus(PredictionJob.Status.FAILED);
+                job.setErrorMessage(errorMessage);
+            } else if (job.isCancelRequested()) {
+                job.setStatus(PredictionJob.Status.CANCELLED);
+            } else {
+                job.setStatus(PredictionJob.Status.COMPLETED);
+                if (job.getPairsFailed() > 0) {
+                    job.setErrorMessage(job.getPairsFailed() + " of " + job.getTotalPairs() + " pairs failed");
+                }
+            }
+            jobRepository.save(job);
+
+            log.info("Batch generation job {} {} - Success: {}, Failed: {}, Total: {}",
+                    jobId, job.getStatus(), job.getPairsForecasted(), job.getPairsFailed(), job.getTotalPairs());
+        });
+    }
+
+    private PredictionJob findJob(Long jobId) {
+        return jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourcesNotFoundException("PredictionJob", "id", jobId));
+    }
+}
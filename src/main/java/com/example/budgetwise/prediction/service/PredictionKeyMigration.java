@@ -0,0 +1,80 @@
+package com.example.budgetwise.prediction.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Makes (product, market, targetDate) the unique key of {@code price_predictions}.
+ * <p>
+ * LOGIC:
+ * 1. Startup, after the Hibernate schema update. Nothing to do once {@link #UNIQUE_INDEX} exists.
+ * 2. Otherwise, in one transaction: every row that is not the newest (highest id) of its key
+ *    is copied to {@code price_prediction_revision} and deleted (the newest row is the one
+ *    every "latest" read returned), then the unique index is built and the old non-unique
+ *    lookup index, now redundant, is dropped.
+ * 3. From then on, writers upsert on the key ({@code PredictionBulkRepository#upsertPredictions}),
+ *    so duplicates cannot come back.
+ * <p>
+ * The index is not declared on the entity: Hibernate's schema update would try to add it
+ * before the duplicates are gone.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class PredictionKeyMigration implements InitializingBean {
+
+    static final String UNIQUE_INDEX = "uk_prediction_pair_target";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public PredictionKeyMigration(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT to_regclass('" + UNIQUE_INDEX + "') IS NOT NULL", Boolean.class);
+        if (Boolean.TRUE.equals(exists)) return;
+
+        long started = System.currentTimeMillis();
+        Integer removed = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("""
+                    INSERT INTO price_prediction_revision
+                        (prediction_id, product_info_id, market_location_id, target_date,
+                         predicted_price, confidence_score, status, computed_at, revised_at)
+                    SELECT p.id, p.product_info_id, p.market_location_id, p.target_date,
+                           p.predicted_price, p.confidence_score, p.status, p.created_at, now()
+                    FROM price_predictions p
+                    WHERE EXISTS (
+                        SELECT 1 FROM price_predictions n
+                        WHERE n.product_info_id = p.product_info_id
+                          AND n.market_location_id = p.market_location_id
+                          AND n.target_date = p.target_date
+                          AND n.id > p.id)
+                    """);
+            int deleted = jdbcTemplate.update("""
+                    DELETE FROM price_predictions p
+                    USING price_predictions n
+                    WHERE n.product_info_id = p.product_info_id
+                      AND n.market_location_id = p.market_location_id
+                      AND n.target_date = p.target_date
+                      AND n.id > p.id
+                    """);
+            jdbcTemplate.execute("CREATE UNIQUE INDEX " + UNIQUE_INDEX
+                    + " ON price_predictions (product_info_id, market_location_id, target_date)");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_prediction_lookup");
+            return deleted;
+        });
+
+        log.info("price_predictions keyed on (product, market, targetDate): {} duplicate rows moved to revisions in {} ms",
+                removed, System.currentTimeMillis() - started);
+    }
+}
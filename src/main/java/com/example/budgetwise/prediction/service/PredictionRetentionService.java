@@ -0,0 +1,194 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.exception.ConflictException;
+import com.example.budgetwise.prediction.entity.PredictionAccuracyDaily;
+import com.example.budgetwise.prediction.entity.PredictionRetentionRun;
+import com.example.budgetwise.prediction.repository.PredictionAccuracyDailyRepository;
+import com.example.budgetwise.prediction.repository.PredictionRetentionRepository;
+import com.example.budgetwise.prediction.repository.PredictionRetentionRunRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Retention of {@code price_predictions} and {@code price_prediction_revision}.
+ * <p>
+ * LOGIC:
+ * 1. Predictions whose target date is more than {@code keepDays} in the past expire. Manual
+ *    overrides never do (they are the admin's record of what was published).
+ * 2. Before the first row of a target date goes, the date is compacted into one
+ *    {@link PredictionAccuracyDaily} row (counts, confidence, error against the actual price),
+ *    so accuracy history survives the rows.
+ * 3. Expired rows are deleted, or moved to {@code price_prediction_revision} when
+ *    {@code archive} is on, in batches of {@code batchSize}, oldest date first, with a pause
+ *    between batches so the nightly forecast and API traffic keep their share of the database.
+ * 4. Revisions expire after their own horizon, {@code revisionKeepDays}.
+ * 5. Each run is recorded as a {@link PredictionRetentionRun} (rows reclaimed per table,
+ *    days compacted, batches, duration). One run at a time per instance.
+ * <p>
+ * Every batch is a single statement in its own (auto-commit) transaction: a failure or a
+ * restart loses at most one batch of progress, and the next run continues from the oldest
+ * date left.
+ */
+@Service
+@Slf4j
+public class PredictionRetentionService {
+
+    private final PredictionRetentionRepository retentionRepository;
+    private final PredictionRetentionRunRepository runRepository;
+    private final PredictionAccuracyDailyRepository accuracyRepository;
+    private final ForecastTaskExecutor forecastTaskExecutor;
+    private final boolean enabled;
+    private final int keepDays;
+    private final int revisionKeepDays;
+    private final int batchSize;
+    private final long batchPauseMs;
+    private final boolean archive;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public PredictionRetentionService(PredictionRetentionRepository retentionRepository, PredictionRetentionRunRepository runRepository, PredictionAccuracyDailyRepository accuracyRepository, ForecastTaskExecutor forecastTaskExecutor, @Value("${prediction.retention.enabled:true}") boolean enabled, @Value("${prediction.retention.keep-days:90}") int keepDays, @Value("${prediction.retention.revision-keep-days:365}") int revisionKeepDays, @Value("${prediction.retention.batch-size:5000}") int batchSize, @Value("${prediction.retention.batch-pause-ms:200}") long batchPauseMs, @Value("${prediction.retention.archive:false}") boolean archive) {
+        this.retentionRepository = retentionRepository;
+        this.runRepository = runRepository;
+        this.accuracyRepository = accuracyRepository;
+        this.forecastTaskExecutor = forecastTaskExecutor;
+        this.enabled = enabled;
+        this.keepDays = keepDays;
+        this.revisionKeepDays = revisionKeepDays;
+        this.batchSize = batchSize;
+        this.batchPauseMs = batchPauseMs;
+        this.archive = archive;
+    }
+
+    /**
+     * Nightly run, after the midnight forecast.
+     */
+    @Scheduled(cron = "${prediction.retention.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        if (!enabled) return;
+        try {
+            execute(start());
+        } catch (ConflictException e) {
+            log.warn("Prediction retention skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a run on the forecast executor and returns it right away (RUNNING).
+     *
+     * @throws ConflictException if a run is in progress on this instance.
+     */
+    public PredictionRetentionRun trigger() {
+        PredictionRetentionRun run = start();
+        try {
+            forecastTaskExecutor.submit("prediction-retention-" + run.getId(), () -> execute(run));
+        } catch (RuntimeException e) {
+            finish(run, e);
+            throw e;
+        }
+        return run;
+    }
+
+    public List<PredictionRetentionRun> getRecentRuns(int limit) {
+        return runRepository.findAllByOrderByStartedAtDesc(PageRequest.of(0, limit));
+    }
+
+    public List<PredictionAccuracyDaily> getAccuracy(int days) {
+        return accuracyRepository.findAllByTargetDateGreaterThanEqualOrderByTargetDateAsc(LocalDate.now().minusDays(days));
+    }
+
+    private PredictionRetentionRun start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("A prediction retention run is already in progress");
+        }
+
+        LocalDate today = LocalDate.now();
+        PredictionRetentionRun run = new PredictionRetentionRun();
+        run.setStatus(PredictionRetentionRun.Status.RUNNING);
+        run.setStartedAt(LocalDateTime.now());
+        run.setPredictionCutoff(today.minusDays(keepDays));
+        run.setRevisionCutoff(today.minusDays(revisionKeepDays));
+        try {
+            return runRepository.save(run);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    private PredictionRetentionRun execute(PredictionRetentionRun run) {
+        try {
+            // --- PREDICTIONS: compact, then reclaim, one target date at a time ---
+            LocalDate targetDate;
+            while ((targetDate = retentionRepository.findOldestExpiredTargetDate(run.getPredictionCutoff())) != null) {
+                run.setDaysCompacted(run.getDaysCompacted() + retentionRepository.compactDay(targetDate, LocalDateTime.now()));
+
+                int removed;
+                do {
+                    removed = archive
+                            ? retentionRepository.archiveBatch(targetDate, batchSize, LocalDateTime.now())
+                            : retentionRepository.deleteBatch(targetDate, batchSize);
+                    run.setPredictionsDeleted(run.getPredictionsDeleted() + removed);
+                    if (archive) run.setPredictionsArchived(run.getPredictionsArchived() + removed);
+                    run.setBatches(run.getBatches() + 1);
+                    if (removed == batchSize) pause();
+                } while (removed == batchSize);
+            }
+
+            // --- REVISIONS: their own horizon ---
+            int removed;
+            do {
+                removed = retentionRepository.deleteRevisionBatch(run.getRevisionCutoff(), batchSize);
+                run.setRevisionsDeleted(run.getRevisionsDeleted() + removed);
+                if (removed > 0) run.setBatches(run.getBatches() + 1);
+                if (removed == batchSize) pause();
+            } while (removed == batchSize);
+
+            finish(run, null);
+            log.info("Prediction retention run {}: {} predictions {} ({} days compacted), {} revisions deleted, {} batches in {} ms",
+                    run.getId(), run.getPredictionsDeleted(), archive ? "archived" : "deleted",
+                    run.getDaysCompacted(), run.getRevisionsDeleted(), run.getBatches(), run.getDurationMs());
+        } catch (RuntimeException e) {
+            finish(run, e);
+            log.error("Prediction retention run {} failed after {} predictions removed", run.getId(),
+                    run.getPredictionsDeleted(), e);
+        }
+        return run;
+    }
+
+    private void finish(PredictionRetentionRun run, RuntimeException failure) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            run.setFinishedAt(now);
+            run.setDurationMs(Duration.between(run.getStartedAt(), now).toMillis());
+            if (failure == null) {
+                run.setStatus(PredictionRetentionRun.Status.COMPLETED);
+            } else {
+                run.setStatus(PredictionRetentionRun.Status.FAILED);
+                String message = String.valueOf(failure.getMessage());
+                run.setErrorMessage(message.length() > 1000 ? message.substring(0, 1000) : message);
+            }
+            runRepository.save(run);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void pause() {
+        if (batchPauseMs <= 0) return;
+        try {
+            Thread.sleep(batchPauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Prediction retention interrupted", e);
+        }
+    }
+}
@@ -1,30 +1,38 @@
 package com.example.budgetwise.prediction.service;
 
+import com.example.budgetwise.configuration.CacheConfig;
+import com.example.budgetwise.configuration.DataChangedEvent;
 import com.example.budgetwise.market.entity.MarketLocation;
 import com.example.budgetwise.prediction.dto.*;
+import com.example.budgetwise.prediction.entity.PredictionJob;
 import com.example.budgetwise.prediction.entity.PricePredictions;
+import com.example.budgetwise.prediction.repository.CalibrationQueryRepository;
 import com.example.budgetwise.prediction.repository.DailyPriceRecordPredictionRepository;
 import com.example.budgetwise.prediction.repository.MarketLocationPredictionRepository;
+import com.example.budgetwise.prediction.repository.PredictionBulkRepository;
+import com.example.budgetwise.prediction.repository.PredictionBulkRepository.PredictionWrite;
 import com.example.budgetwise.prediction.repository.PricePredictionRepository;
 import com.example.budgetwise.prediction.repository.ProductInfoPredictionRepository;
+import com.example.budgetwise.prediction.repository.projection.PredictionDashboardProjection;
 import com.example.budgetwise.product.entity.DailyPriceRecord;
 import com.example.budgetwise.product.entity.ProductInfo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.math3.stat.regression.SimpleRegression;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,350 +41,136 @@ import java.util.stream.Collectors;
 public class PricePredictionService {
 
     private final PricePredictionRepository predictionRepo;
+    private final PredictionBulkRepository bulkRepository;
     private final DailyPriceRecordPredictionRepository priceRepo;
     private final ProductInfoPredictionRepository productRepo;
     private final MarketLocationPredictionRepository marketRepo;
+    private final BulkForecastService bulkForecastService;
+    private final ForecastTaskExecutor forecastTaskExecutor;
+    private final ForecastModelSelector modelSelector;
+    private final ProductCentricPredictionAssembler productCentricAssembler;
+    private final CalibrationQueryRepository calibrationQueryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    private final ExecutorService executorService = Executors.newFixedThreadPool(
-            Math.max(4, Runtime.getRuntime().availableProcessors())
-    );
-
-    // ============================================================================
-// FIXED METHOD 1: generateForecast - Fixed confidence calculation
-// ============================================================================
     @Transactional
     public void generateForecast(Long productId, Long marketId) {
         List<DailyPriceRecord> history = priceRepo
                 .findTop30ByProductInfoIdAndMarketLocationIdOrderByPriceReport_DateReportedDesc(
                         productId, marketId);
 
-        if (history.isEmpty() || history.size() < 14) {
+        if (history.isEmpty() || history.size() < ForecastCalculator.MIN_DATA_POINTS) {
             log.warn("Insufficient data for product {} in market {} (found {} records)",
                     productId, marketId, history.size());
             return;
         }
 
-        LocalDate lastDate = history.get(0).getPriceReport().getDateReported();
-        double currentPrice = history.get(0).getPrice();
-
-        SimpleRegression regression = new SimpleRegression();
-
-        // Build regression model (oldest to newest)
-        for (int i = 0; i < history.size(); i++) {
-            int historyIndex = history.size() - 1 - i;
-            double price = history.get(historyIndex).getPrice();
-            regression.addData(i, price);
-        }
-
-        double slope = regression.getSlope();
-        double rSquare = regression.getRSquare();
-
-        // ========================================================================
-        // IMPROVED STATISTICS CALCULATION
-        // ========================================================================
-        double avgPrice = history.stream()
-                .mapToDouble(DailyPriceRecord::getPrice)
-                .average()
-                .orElse(0.0);
-
-        double variance = history.stream()
-                .mapToDouble(record -> Math.pow(record.getPrice() - avgPrice, 2))
-                .average()
-                .orElse(0.0);
-
-        double stdDev = Math.sqrt(variance);
-        double coefficientOfVariation = (avgPrice > 0) ? (stdDev / avgPrice) * 100 : 0;
-
-        // Calculate Mean Absolute Percentage Error (MAPE) for recent predictions
-        double mape = calculateMAPE(history, regression);
-
-        // ✅ IMPROVED CONFIDENCE CALCULATION
-        double baseConfidence = calculateImprovedConfidence(
-                rSquare,
-                coefficientOfVariation,
-                mape,
-                history.size()
-        );
+        LocalDate lastDate = history.get(0).getReportDate();
+        ForecastCalculator.Result forecast = ForecastCalculator.forecast(toSeries(history),
+                modelSelector.modelFor(productId, marketId));
 
         if (log.isDebugEnabled()) {
-            log.debug("Product {}, Market {} - Points: {}, R²: {:.3f}, CV: {:.2f}%, MAPE: {:.2f}%, BaseConf: {:.1f}%",
-                    productId, marketId, history.size(), rSquare,
-                    coefficientOfVariation, mape, baseConfidence * 100);
+            log.debug("Product {}, Market {} - Model: {}, Points: {}, R²: {}, CV: {}%, MAPE: {}%, BaseConf: {}%",
+                    productId, marketId, forecast.model(), history.size(), forecast.rSquare(),
+                    forecast.coefficientOfVariation(), forecast.mape(), forecast.baseConfidence() * 100);
         }
 
-        // Batch create predictions
-        List<PricePredictions> predictions = new ArrayList<>();
-
-        for (int day = 1; day <= 7; day++) {
-            double rawForecast = regression.predict(history.size() + day - 1);
-            double finalPrice = Math.max(0.0, rawForecast);
-
-            // Decrease confidence for far future predictions
-            double dayConfidence = baseConfidence * (1.0 - (day - 1) * 0.03); // 3% decrease per day
-            dayConfidence = Math.max(0.30, Math.min(1.0, dayConfidence)); // Floor at 30%
-
-            // Calculate price change percentage
-            double priceChange = ((finalPrice - currentPrice) / currentPrice) * 100;
-
-            // ✅ FIXED ANOMALY DETECTION
-            PricePredictions.Status status = determineStatus(
-                    priceChange,
-                    dayConfidence,
-                    coefficientOfVariation,
-                    day,
-                    mape
-            );
-
-            PricePredictions pred = createPrediction(
-                    history.get(0).getProductInfo(),
-                    history.get(0).getMarketLocation(),
-                    finalPrice,
-                    lastDate.plusDays(day),
-                    dayConfidence,
-                    status
-            );
-
-            if (pred != null) {
-                predictions.add(pred);
-            }
-        }
+        // One upsert for the whole horizon; manual overrides are left untouched
+        List<PredictionWrite> predictions = toWrites(history.get(0), lastDate, forecast);
+        PredictionBulkRepository.UpsertResult written = bulkRepository.upsertPredictions(predictions, false);
 
-        if (!predictions.isEmpty()) {
-            predictionRepo.saveAll(predictions);
-            log.debug("Saved {} predictions for product {} in market {} (confidence: {:.1f}%, anomalies: {})",
-                    predictions.size(), productId, marketId, baseConfidence * 100,
-                    predictions.stream().filter(p -> p.getStatus() == PricePredictions.Status.ANOMALY).count());
+        if (written.inserted() + written.updated() > 0) {
+            eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.PREDICTIONS));
+            log.debug("Saved {} predictions for product {} in market {} (confidence: {}%, anomalies: {}, overridden skipped: {})",
+                    written.inserted() + written.updated(), productId, marketId, forecast.baseConfidence() * 100,
+                    countAnomalies(predictions), written.overriddenSkipped());
         }
     }
 
-    // ============================================================================
-// NEW HELPER METHOD: Calculate MAPE (prediction accuracy)
-// ============================================================================
-    private double calculateMAPE(List<DailyPriceRecord> history, SimpleRegression regression) {
-        if (history.size() < 5) return 0.0;
-
-        double totalError = 0.0;
-        int count = Math.min(10, history.size() - 1); // Check last 10 points
-
-        for (int i = 0; i < count; i++) {
-            int idx = i;
-            double actualPrice = history.get(idx).getPrice();
-            double predictedPrice = regression.predict(history.size() - 1 - idx);
-
-            if (actualPrice > 0) {
-                double percentError = Math.abs((actualPrice - predictedPrice) / actualPrice) * 100;
-                totalError += percentError;
-            }
+    /**
+     * One row per horizon day of a pair's forecast, keyed on (product, market, targetDate).
+     */
+    private static List<PredictionWrite> toWrites(DailyPriceRecord latest, LocalDate lastDate,
+                                                  ForecastCalculator.Result forecast) {
+        List<PredictionWrite> writes = new ArrayList<>(ForecastCalculator.HORIZON_DAYS);
+        for (int day = 1; day <= ForecastCalculator.HORIZON_DAYS; day++) {
+            writes.add(new PredictionWrite(
+                    latest.getProductInfo().getId(),
+                    latest.getMarketLocation().getId(),
+                    lastDate.plusDays(day),
+                    forecast.prices()[day - 1],
+                    forecast.confidences()[day - 1],
+                    forecast.statuses()[day - 1]
+            ));
         }
-
-        return count > 0 ? totalError / count : 0.0;
+        return writes;
     }
 
-    // ============================================================================
-// NEW HELPER METHOD: Improved Confidence Calculation
-// ============================================================================
-    private double calculateImprovedConfidence(
-            double rSquare,
-            double coefficientOfVariation,
-            double mape,
-            int dataPoints) {
-
-        // Component 1: R² score (0-1) - weight 30%
-        double rSquareScore = Double.isNaN(rSquare) ? 0.5 : Math.max(0.0, Math.min(1.0, rSquare));
-
-        // Component 2: Price Stability (based on CV) - weight 30%
-        // CV < 10% = very stable (1.0), CV > 50% = very volatile (0.0)
-        double stabilityScore;
-        if (coefficientOfVariation < 10) {
-            stabilityScore = 1.0;
-        } else if (coefficientOfVariation > 50) {
-            stabilityScore = 0.0;
-        } else {
-            stabilityScore = 1.0 - ((coefficientOfVariation - 10) / 40.0);
-        }
-
-        // Component 3: Prediction Accuracy (based on MAPE) - weight 25%
-        // MAPE < 5% = excellent (1.0), MAPE > 25% = poor (0.0)
-        double accuracyScore;
-        if (mape < 5) {
-            accuracyScore = 1.0;
-        } else if (mape > 25) {
-            accuracyScore = 0.0;
-        } else {
-            accuracyScore = 1.0 - ((mape - 5) / 20.0);
-        }
-
-        // Component 4: Data Sufficiency - weight 15%
-        // 14 points = 0.7, 30+ points = 1.0
-        double dataSufficiencyScore;
-        if (dataPoints >= 30) {
-            dataSufficiencyScore = 1.0;
-        } else if (dataPoints < 14) {
-            dataSufficiencyScore = 0.5;
-        } else {
-            dataSufficiencyScore = 0.7 + ((dataPoints - 14) / 16.0) * 0.3;
-        }
-
-        // Weighted combination
-        double confidence = (rSquareScore * 0.30) +
-                (stabilityScore * 0.30) +
-                (accuracyScore * 0.25) +
-                (dataSufficiencyScore * 0.15);
-
-        // Ensure confidence is between 0.0 and 1.0
-        return Math.max(0.0, Math.min(1.0, confidence));
+    private static long countAnomalies(List<PredictionWrite> writes) {
+        return writes.stream().filter(w -> w.status() == PricePredictions.Status.ANOMALY).count();
     }
 
-// ============================================================================
-// FIXED METHOD 2: determineStatus - Less aggressive anomaly detection
-// ============================================================================
     /**
-     * ✅ FIXED ANOMALY DETECTION: More realistic thresholds
-     *
-     * Rules (RELAXED):
-     * 1. Price change > ±40% = ANOMALY (extreme movement)
-     * 2. Price change > ±30% AND confidence < 40% = ANOMALY (big uncertain change)
-     * 3. Confidence < 20% = ANOMALY (very unreliable)
-     * 4. Coefficient of Variation > 60% = ANOMALY (extreme volatility)
-     * 5. Far predictions (5+ days) with confidence < 40% = ANOMALY
+     * Converts a newest-first history (as returned by the repository) into the
+     * oldest-first primitive {@link PriceSeries} expected by {@link ForecastCalculator}.
      */
-    private PricePredictions.Status determineStatus(
-            double priceChange,
-            double confidence,
-            double coefficientOfVariation,
-            int daysAhead,
-            double mape) {
-
-        // Rule 1: Extreme price movements (>40% change) - RELAXED from 25%
-        if (Math.abs(priceChange) > 40.0) {
-            log.info("ANOMALY: Extreme price change {:.1f}% (threshold: 40%)", priceChange);
-            return PricePredictions.Status.ANOMALY;
-        }
-
-        // Rule 2: Large uncertain price movements - RELAXED thresholds
-        if (Math.abs(priceChange) > 30.0 && confidence < 0.40) {
-            log.info("ANOMALY: Large price change {:.1f}% with low confidence {:.0f}%",
-                    priceChange, confidence * 100);
-            return PricePredictions.Status.ANOMALY;
+    private PriceSeries toSeries(List<DailyPriceRecord> history) {
+        PriceSeries series = new PriceSeries(history.size());
+        for (int i = history.size() - 1; i >= 0; i--) {
+            DailyPriceRecord record = history.get(i);
+            series.add((int) record.getReportDate().toEpochDay(), record.getPrice());
         }
-
-        // Rule 3: Very low confidence - RELAXED from 30% to 20%
-        if (confidence < 0.20) {
-            log.info("ANOMALY: Very low confidence {:.0f}% (threshold: 20%)", confidence * 100);
-            return PricePredictions.Status.ANOMALY;
-        }
-
-        // Rule 4: Extreme price volatility - RELAXED from 40% to 60%
-        if (coefficientOfVariation > 60.0) {
-            log.info("ANOMALY: High volatility CV={:.1f}% (threshold: 60%)", coefficientOfVariation);
-            return PricePredictions.Status.ANOMALY;
-        }
-
-        // Rule 5: Far future predictions with low confidence - RELAXED threshold
-        if (daysAhead >= 5 && confidence < 0.40) {
-            log.debug("ANOMALY: Far prediction (day {}) with low confidence {:.0f}%",
-                    daysAhead, confidence * 100);
-            return PricePredictions.Status.ANOMALY;
-        }
-
-        // Rule 6: High prediction error (MAPE > 30%)
-        if (mape > 30.0) {
-            log.info("ANOMALY: High prediction error MAPE={:.1f}% (threshold: 30%)", mape);
-            return PricePredictions.Status.ANOMALY;
-        }
-
-        return PricePredictions.Status.NORMAL;
+        return series;
     }
 
-    // ============================================================================
-// KEEP EXISTING: createPrediction with status parameter (no changes needed)
-// ============================================================================
-    private PricePredictions createPrediction(
-            ProductInfo p,
-            MarketLocation m,
-            double price,
-            LocalDate date,
-            double conf,
-            PricePredictions.Status status) {
-
-        PricePredictions pred = predictionRepo
-                .findByProductInfoAndMarketLocationAndTargetDate(p, m, date)
-                .orElse(new PricePredictions());
-
-        // Don't overwrite manual overrides
-        if (pred.getId() != null && pred.getStatus() == PricePredictions.Status.OVERRIDDEN) {
-            log.debug("Skipping overridden prediction for {} at {}", p.getProductName(), date);
-            return null;
-        }
-
-        pred.setProductInfo(p);
-        pred.setMarketLocation(m);
-        pred.setPredictedPrice(price);
-        pred.setConfidenceScore(conf);
-        pred.setTargetDate(date);
-        pred.setStatus(status);
-
-        return pred;
+    /**
+     * Full bulk run over every active pair.
+     */
+    public BulkForecastService.Run runBulkPrediction() {
+        return runBulkPrediction(BulkForecastService.Mode.FULL);
     }
 
-   
-
-    @Async
-    @Transactional
-    public void runBulkPrediction() {
-        List<Object[]> pairs = priceRepo.findExistingProductMarketPairs();
-        log.info("Processing {} active product-market pairs...", pairs.size());
-
-        int batchSize = 50; // Reduced batch size for better transaction management
-        List<List<Object[]>> batches = partitionList(pairs, batchSize);
-
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-        for (List<Object[]> batch : batches) {
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                processBatch(batch);
-            }, executorService);
-
-            futures.add(future);
-        }
-
-        // Wait for all batches to complete
-        try {
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
-            log.info("Bulk prediction completed successfully - processed {} pairs", pairs.size());
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("Error during bulk prediction", e);
-            Thread.currentThread().interrupt();
-        }
+    /**
+     * Bulk run. Delegates to the set-based {@link BulkForecastService}
+     * instead of calling generateForecast once per product-market pair.
+     * The job is created synchronously (a duplicate run is rejected right here), then
+     * runs on the {@link ForecastTaskExecutor} (virtual thread, one DB permit).
+     *
+     * @param mode FULL for every active pair, DELTA for pairs with new prices only.
+     * @return The job id and a future completing with the run summary; returns immediately.
+     * @throws com.example.budgetwise.exception.ConflictException if a bulk run is in progress.
+     */
+    public BulkForecastService.Run runBulkPrediction(BulkForecastService.Mode mode) {
+        return submitBulkJob(bulkForecastService.startJob(mode));
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void processBatch(List<Object[]> batch) {
-        int success = 0;
-        int failed = 0;
-
-        for (Object[] pair : batch) {
-            try {
-                generateForecast((Long) pair[0], (Long) pair[1]);
-                success++;
-            } catch (Exception e) {
-                failed++;
-                log.error("Failed to generate forecast for product {} in market {}: {}",
-                        pair[0], pair[1], e.getMessage());
-            }
-        }
-
-        log.info("Batch completed - Success: {}, Failed: {}", success, failed);
+    /**
+     * Continues a cancelled, failed or interrupted bulk job from its checkpoint.
+     */
+    public BulkForecastService.Run resumeBulkPrediction(Long jobId) {
+        return submitBulkJob(bulkForecastService.resumeJob(jobId));
     }
 
-    private <T> List<List<T>> partitionList(List<T> list, int size) {
-        List<List<T>> partitions = new ArrayList<>();
-        for (int i = 0; i < list.size(); i += size) {
-            partitions.add(list.subList(i, Math.min(i + size, list.size())));
+    private BulkForecastService.Run submitBulkJob(PredictionJob job) {
+        try {
+            CompletableFuture<BulkForecastService.Summary> completion =
+                    forecastTaskExecutor.submit("bulk-job-" + job.getId(), () -> {
+                        BulkForecastService.Summary summary = bulkForecastService.runJob(job);
+                        log.info("Bulk prediction ({}) job {} finished - processed {} pairs in {} ms",
+                                job.getMode(), job.getId(), summary.pairsScanned(), summary.durationMs());
+                        return summary;
+                    });
+            return new BulkForecastService.Run(job.getId(), completion);
+        } catch (RejectedExecutionException e) {
+            bulkForecastService.abandonJob(job, "Not scheduled: forecast executor is shutting down");
+            throw e;
         }
-        return partitions;
     }
 
+    /**
+     * Calibration grid of one market: every ACTIVE product with its current price and
+     * tomorrow's forecast. One query per page (plus the count), sortable on the computed
+     * columns (currentPrice, forecastPrice, trendPercentage, confidenceScore, status).
+     */
     @Transactional(readOnly = true)
     public Page<PriceCalibrationDTO> getCalibrationTable(Long marketId, Pageable pageable) {
         MarketLocation market = marketRepo.findById(marketId)
@@ -384,35 +178,22 @@ public class PricePredictionService {
 
         LocalDate tomorrow = LocalDate.now().plusDays(1);
 
-        return productRepo.findAllByStatus(ProductInfo.Status.ACTIVE, pageable)
-                .map(product -> {
-                    Double current = priceRepo
-                            .findLatestPriceByProductAndMarket(product.getId(), marketId)
-                            .orElse(null);
-
-                    PricePredictions pred = predictionRepo
-                            .findLatestPrediction(product.getId(), marketId, tomorrow)
-                            .orElse(null);
-
-                    Double forecast = (pred != null) ? pred.getPredictedPrice() : null;
-
-                    Double trend = null;
-                    if (current != null && forecast != null && current > 0) {
-                        trend = ((forecast - current) / current) * 100;
-                    }
-
-                    return new PriceCalibrationDTO(
-                            product.getId(),
-                            product.getProductName(),
-                            market.getId(),
-                            market.getMarketLocation(),
-                            current,
-                            forecast,
-                            trend,
-                            pred != null ? pred.getConfidenceScore() : null,
-                            pred != null ? pred.getStatus().name() : "NO_DATA"
-                    );
-                });
+        List<PriceCalibrationDTO> content = calibrationQueryRepository.findPage(marketId, tomorrow, pageable)
+                .stream()
+                .map(row -> new PriceCalibrationDTO(
+                        row.productId(),
+                        row.productName(),
+                        market.getId(),
+                        market.getMarketLocation(),
+                        row.currentPrice(),
+                        row.forecastPrice(),
+                        row.trendPercentage(),
+                        row.confidenceScore(),
+                        row.status() != null ? row.status().name() : "NO_DATA"
+                ))
+                .toList();
+
+        return new PageImpl<>(content, pageable, productRepo.countActiveProducts());
     }
     /**
      * DEBUG METHOD: Get historical price data and regression analysis
@@ -437,58 +218,66 @@ public class PricePredictionService {
         List<Map<String, Object>> rawHistory = new ArrayList<>();
         for (DailyPriceRecord record : history) {
             Map<String, Object> point = new HashMap<>();
-            point.put("date", record.getPriceReport().getDateReported());
+            point.put("date", record.getReportDate());
             point.put("price", record.getPrice());
             rawHistory.add(point);
         }
         result.put("rawHistory", rawHistory);
 
-        // Regression input (oldest to newest)
+        // Regression input (oldest to newest), fitted in one pass by the shared kernel
+        PriceSeries series = toSeries(history).fit();
         List<Map<String, Object>> regressionInput = new ArrayList<>();
-        SimpleRegression regression = new SimpleRegression();
-
-        for (int i = 0; i < history.size(); i++) {
-            int historyIndex = history.size() - 1 - i;
-            DailyPriceRecord record = history.get(historyIndex);
-            double price = record.getPrice();
-
-            regression.addData(i, price);
 
+        for (int i = 0; i < series.size(); i++) {
             Map<String, Object> point = new HashMap<>();
             point.put("x", i);
-            point.put("date", record.getPriceReport().getDateReported());
-            point.put("price", price);
+            point.put("date", LocalDate.ofEpochDay(series.epochDay(i)));
+            point.put("price", series.price(i));
             regressionInput.add(point);
         }
         result.put("regressionInput", regressionInput);
 
         // Regression stats
         Map<String, Object> stats = new HashMap<>();
-        stats.put("slope", regression.getSlope());
-        stats.put("intercept", regression.getIntercept());
-        stats.put("rSquare", regression.getRSquare());
-        stats.put("slopeDirection", regression.getSlope() > 0 ? "UPWARD" : "DOWNWARD");
+        stats.put("slope", series.slope());
+        stats.put("intercept", series.intercept());
+        stats.put("rSquare", series.rSquare());
+        stats.put("slopeDirection", series.slope() > 0 ? "UPWARD" : "DOWNWARD");
+        stats.put("mean", series.mean());
+        stats.put("stdDev", series.stdDev());
+        stats.put("coefficientOfVariation", series.coefficientOfVariation());
+        stats.put("mape", series.mape());
         result.put("regressionStats", stats);
 
-        // Predictions
-        List<Map<String, Object>> predictions = new ArrayList<>();
-        LocalDate lastDate = history.get(0).getPriceReport().getDateReported();
+        // Predictions of the pair's model, plus every other model's path for comparison
+        ForecastModel selected = modelSelector.modelFor(productId, marketId);
+        LocalDate lastDate = history.get(0).getReportDate();
+        double[] path = new double[ForecastCalculator.HORIZON_DAYS];
+
+        Map<String, List<Double>> modelPaths = new LinkedHashMap<>();
+        for (ForecastModel model : modelSelector.models().values()) {
+            series.project(model, path);
+            modelPaths.put(model.name(), Arrays.stream(path).boxed().toList());
+        }
+        List<Double> selectedPath = modelPaths.get(selected.name());
 
-        for (int day = 1; day <= 7; day++) {
-            double forecast = regression.predict(history.size() + day - 1);
+        List<Map<String, Object>> predictions = new ArrayList<>();
+        for (int day = 1; day <= ForecastCalculator.HORIZON_DAYS; day++) {
             Map<String, Object> pred = new HashMap<>();
             pred.put("day", day);
             pred.put("date", lastDate.plusDays(day));
-            pred.put("predictedPrice", Math.max(0.0, forecast));
+            pred.put("predictedPrice", selectedPath.get(day - 1));
             predictions.add(pred);
         }
+        result.put("model", selected.name());
         result.put("predictions", predictions);
+        result.put("modelPredictions", modelPaths);
 
         // Current vs Predicted
-        double currentPrice = history.get(0).getPrice();
-        double tomorrowPrice = regression.predict(history.size());
+        double currentPrice = series.lastPrice();
+        double tomorrowPrice = selectedPath.get(0);
         result.put("currentPrice", currentPrice);
-        result.put("tomorrowPrice", Math.max(0.0, tomorrowPrice));
+        result.put("tomorrowPrice", tomorrowPrice);
         result.put("change", tomorrowPrice - currentPrice);
         result.put("changePercent", ((tomorrowPrice - currentPrice) / currentPrice) * 100);
 
@@ -541,156 +330,61 @@ public class PricePredictionService {
     }
 
 
+    /**
+     * Page of active products with their per-market predictions.
+     * Constant round-trips per page (see {@link ProductCentricPredictionAssembler}).
+     */
     @Transactional(readOnly = true)
     public Page<ProductCentricPredictionDTO> getProductCentricPredictions(Pageable pageable) {
         LocalDate tomorrow = LocalDate.now().plusDays(1);
 
-        return productRepo.findAllByStatus(ProductInfo.Status.ACTIVE, pageable)
-                .map(product -> buildProductCentricDTO(product, tomorrow));
+        Page<ProductInfo> products = productRepo.findAllByStatus(ProductInfo.Status.ACTIVE, pageable);
+        List<ProductCentricPredictionDTO> content = productCentricAssembler.assemble(products.getContent(), tomorrow);
+
+        return new PageImpl<>(content, pageable, products.getTotalElements());
     }
 
+    /**
+     * Comparison matrix for the given products (top 20 active products if none given).
+     * Products are loaded with one query and returned in the requested order.
+     */
     @Transactional(readOnly = true)
     public List<ProductCentricPredictionDTO> getComparisonMatrix(List<Long> productIds) {
         LocalDate tomorrow = LocalDate.now().plusDays(1);
 
+        List<ProductInfo> products;
+
         // If no IDs provided, get top 20 products
         if (productIds == null || productIds.isEmpty()) {
-            productIds = productRepo.findAllByStatus(
+            products = productRepo.findAllByStatus(
                             ProductInfo.Status.ACTIVE,
                             PageRequest.of(0, 20)
                     )
-                    .stream()
-                    .map(ProductInfo::getId)
-                    .collect(Collectors.toList());
+                    .getContent();
+        } else {
+            Map<Long, ProductInfo> byId = productRepo.findAllById(productIds).stream()
+                    .collect(Collectors.toMap(ProductInfo::getId, p -> p));
+
+            products = new ArrayList<>(productIds.size());
+            for (Long productId : productIds) {
+                ProductInfo product = byId.get(productId);
+                if (product == null) {
+                    throw new IllegalArgumentException("Product not found: " + productId);
+                }
+                products.add(product);
+            }
         }
 
-        return productIds.stream()
-                .map(productId -> {
-                    ProductInfo product = productRepo.findById(productId)
-                            .orElseThrow(() -> new IllegalArgumentException("Product not found: " + productId));
-                    return buildProductCentricDTO(product, tomorrow);
-                })
-                .collect(Collectors.toList());
+        return productCentricAssembler.assemble(products, tomorrow);
     }
 
-    /**
-     * Helper method: Build product-centric DTO with all market data
-     */
-    private ProductCentricPredictionDTO buildProductCentricDTO(ProductInfo product, LocalDate targetDate) {
-        List<MarketLocation> allMarkets = marketRepo.findAll().stream()
-                .filter(m -> m.getStatus() == MarketLocation.Status.ACTIVE)
-                .collect(Collectors.toList());
 
-        // Get predictions for all markets
-        List<ProductCentricPredictionDTO.MarketPrediction> marketPredictions =
-                allMarkets.stream()
-                        .map(market -> createMarketPrediction(product, market, targetDate))
-                        .filter(mp -> mp.currentPrice() != null)  // Only markets with data
-                        .collect(Collectors.toList());
-
-        // Calculate aggregate statistics
-        double avgCurrent = marketPredictions.stream()
-                .filter(mp -> mp.currentPrice() != null)
-                .mapToDouble(ProductCentricPredictionDTO.MarketPrediction::currentPrice)
-                .average()
-                .orElse(0.0);
-
-        double avgForecast = marketPredictions.stream()
-                .filter(mp -> mp.forecastPrice() != null)
-                .mapToDouble(ProductCentricPredictionDTO.MarketPrediction::forecastPrice)
-                .average()
-                .orElse(0.0);
-
-        Double maxPrice = marketPredictions.stream()
-                .filter(mp -> mp.currentPrice() != null)
-                .map(ProductCentricPredictionDTO.MarketPrediction::currentPrice)
-                .max(Double::compareTo)
-                .orElse(null);
-
-        Double minPrice = marketPredictions.stream()
-                .filter(mp -> mp.currentPrice() != null)
-                .map(ProductCentricPredictionDTO.MarketPrediction::currentPrice)
-                .min(Double::compareTo)
-                .orElse(null);
-
-        Double priceDiff = (maxPrice != null && minPrice != null) ? maxPrice - minPrice : null;
-
-        String mostExpensive = marketPredictions.stream()
-                .filter(mp -> mp.currentPrice() != null)
-                .max(Comparator.comparing(ProductCentricPredictionDTO.MarketPrediction::currentPrice))
-                .map(ProductCentricPredictionDTO.MarketPrediction::marketName)
-                .orElse(null);
-
-        String cheapest = marketPredictions.stream()
-                .filter(mp -> mp.currentPrice() != null)
-                .min(Comparator.comparing(ProductCentricPredictionDTO.MarketPrediction::currentPrice))
-                .map(ProductCentricPredictionDTO.MarketPrediction::marketName)
-                .orElse(null);
-
-        long anomalyCount = marketPredictions.stream()
-                .filter(mp -> "ANOMALY".equals(mp.status()))
-                .count();
-
-        return new ProductCentricPredictionDTO(
-                
-                product.getId(),
-                product.getProductName(),
-                String.format("PROD-%03d", product.getId()), // Generate product code
-                product.getCategory() != null ? product.getCategory() : "UNKNOWN",
-                marketPredictions,
-                avgCurrent,
-                avgForecast,
-                priceDiff,
-                mostExpensive,
-                cheapest,
-                marketPredictions.size(),
-                (int) anomalyCount
-        );
-    }
 
     /**
-     * Helper method: Create market prediction for a specific product-market pair
+     * Cached per day: the counts target tomorrow, so the key rolls over at midnight.
+     * Evicted by prediction runs and product / market changes ({@link DataChangedEvent}).
      */
-    private ProductCentricPredictionDTO.MarketPrediction createMarketPrediction(
-            ProductInfo product, MarketLocation market, LocalDate targetDate) {
-
-        Double current = priceRepo
-                .findLatestPriceByProductAndMarket(product.getId(), market.getId())
-                .orElse(null);
-
-        PricePredictions pred = predictionRepo
-                .findLatestPrediction(product.getId(), market.getId(), targetDate)
-                .orElse(null);
-
-        Double forecast = (pred != null) ? pred.getPredictedPrice() : null;
-
-        Double trend = null;
-        if (current != null && forecast != null && current > 0) {
-            trend = ((forecast - current) / current) * 100;
-        }
-
-        Integer dataPoints = priceRepo
-                .countByProductInfoIdAndMarketLocationId(product.getId(), market.getId());
-
-        return new ProductCentricPredictionDTO.MarketPrediction(
-                pred != null ? pred.getId() : null, 
-                market.getId(),
-                market.getMarketLocation(), // This is the name
-                String.format("%s (%.4f, %.4f)",
-                        market.getType().name(),
-                        market.getLatitude(),
-                        market.getLongitude()),
-                current,
-                forecast,
-                trend,
-                pred != null ? pred.getConfidenceScore() : null,
-                pred != null ? pred.getStatus().name() : "NO_DATA",
-                dataPoints
-        );
-    }
-
-
-
+    @Cacheable(cacheNames = CacheConfig.PREDICTION_DASHBOARD_STATS, key = "T(java.time.LocalDate).now()")
     @Transactional(readOnly = true)
     public DashboardStatsDTO getDashboardStats() {
         LocalDate tomorrow = LocalDate.now().plusDays(1);
@@ -699,14 +393,15 @@ public class PricePredictionService {
         Integer totalProducts = productRepo.countActiveProducts();
         Integer activeMarkets = marketRepo.countActiveMarkets();
 
-        Integer totalPredictions = predictionRepo.countUniquePredictionsByDate(tomorrow);
-        Integer anomalies = predictionRepo.countLatestAnomaliesByDate(tomorrow);
-        Double avgConfidence = predictionRepo.calculateAverageConfidenceFromLatest(tomorrow);
+        // One pass over the latest prediction of each pair (count, anomalies, confidence, last update)
+        PredictionDashboardProjection predictions = predictionRepo.findDashboardStats(tomorrow);
+        Integer totalPredictions = predictions.getTotalPredictions().intValue();
+        Integer anomalies = predictions.getAnomalies() != null ? predictions.getAnomalies().intValue() : 0;
+        Double avgConfidence = predictions.getAverageConfidence();
 
         Double modelAccuracy = (avgConfidence != null) ? avgConfidence * 100 : null;
 
-        //  This stays the same
-        LocalDateTime lastUpdate = predictionRepo.findLatestPredictionTime();
+        LocalDateTime lastUpdate = predictions.getLastUpdate();
         String lastUpdated = null;
         if (lastUpdate != null) {
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
@@ -773,6 +468,10 @@ public class PricePredictionService {
             }
         }
 
+        if (successCount > 0) {
+            eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.PREDICTIONS));
+        }
+
         return new BulkManualOverrideResponseDTO(
                 successCount > 0,
                 "Processed " + pairsToProcess.size() + " records",
@@ -823,9 +522,9 @@ public class PricePredictionService {
             Long productId = product.getId();
             Long marketId = market.getId();
 
-           
+            // At most one prediction per (product, market, targetDate): a unique-key lookup
             PricePredictions prediction = predictionRepo
-                    .findLatestPrediction(productId, marketId, targetDate)
+                    .findByProductInfoIdAndMarketLocationIdAndTargetDate(productId, marketId, targetDate)
                     .orElseGet(() -> {
                         PricePredictions newPred = new PricePredictions();
                         newPred.setProductInfo(product);
@@ -930,136 +629,38 @@ public class PricePredictionService {
                 .findTop30ByProductInfoIdAndMarketLocationIdOrderByPriceReport_DateReportedDesc(
                         productId, marketId);
 
-        if (history.isEmpty() || history.size() < 14) {
+        if (history.isEmpty() || history.size() < ForecastCalculator.MIN_DATA_POINTS) {
             log.warn("Insufficient data for product {} in market {} (found {} records)",
                     productId, marketId, history.size());
             return 0;
         }
 
-        LocalDate lastDate = history.get(0).getPriceReport().getDateReported();
-        double currentPrice = history.get(0).getPrice();
-
-        SimpleRegression regression = new SimpleRegression();
-
-        for (int i = 0; i < history.size(); i++) {
-            int historyIndex = history.size() - 1 - i;
-            double price = history.get(historyIndex).getPrice();
-            regression.addData(i, price);
-        }
-
-        double slope = regression.getSlope();
-        double rSquare = regression.getRSquare();
-
-        double avgPrice = history.stream()
-                .mapToDouble(DailyPriceRecord::getPrice)
-                .average()
-                .orElse(0.0);
-
-        double variance = history.stream()
-                .mapToDouble(record -> Math.pow(record.getPrice() - avgPrice, 2))
-                .average()
-                .orElse(0.0);
-
-        double stdDev = Math.sqrt(variance);
-        double coefficientOfVariation = (avgPrice > 0) ? (stdDev / avgPrice) * 100 : 0;
-
-        double mape = calculateMAPE(history, regression);
-
-        double baseConfidence = calculateImprovedConfidence(
-                rSquare,
-                coefficientOfVariation,
-                mape,
-                history.size()
-        );
+        LocalDate lastDate = history.get(0).getReportDate();
+        ForecastCalculator.Result forecast = ForecastCalculator.forecast(toSeries(history),
+                modelSelector.modelFor(productId, marketId));
 
         if (log.isDebugEnabled()) {
-            log.debug("Product {}, Market {} - Points: {}, R²: {:.3f}, CV: {:.2f}%, MAPE: {:.2f}%, BaseConf: {:.1f}%",
-                    productId, marketId, history.size(), rSquare,
-                    coefficientOfVariation, mape, baseConfidence * 100);
-        }
-
-        List<PricePredictions> predictions = new ArrayList<>();
-
-        for (int day = 1; day <= 7; day++) {
-            double rawForecast = regression.predict(history.size() + day - 1);
-            double finalPrice = Math.max(0.0, rawForecast);
-
-            double dayConfidence = baseConfidence * (1.0 - (day - 1) * 0.03);
-            dayConfidence = Math.max(0.30, Math.min(1.0, dayConfidence));
-
-            double priceChange = ((finalPrice - currentPrice) / currentPrice) * 100;
-
-            PricePredictions.Status status = determineStatus(
-                    priceChange,
-                    dayConfidence,
-                    coefficientOfVariation,
-                    day,
-                    mape
-            );
-
-            PricePredictions pred = createPrediction(
-                    history.get(0).getProductInfo(),
-                    history.get(0).getMarketLocation(),
-                    finalPrice,
-                    lastDate.plusDays(day),
-                    dayConfidence,
-                    status,
-                    forceUpdate 
-            );
-
-            if (pred != null) {
-                predictions.add(pred);
-            }
+            log.debug("Product {}, Market {} - Model: {}, Points: {}, R²: {}, CV: {}%, MAPE: {}%, BaseConf: {}%",
+                    productId, marketId, forecast.model(), history.size(), forecast.rSquare(),
+                    forecast.coefficientOfVariation(), forecast.mape(), forecast.baseConfidence() * 100);
         }
 
-        if (!predictions.isEmpty()) {
-            predictionRepo.saveAll(predictions);
-            predictionRepo.flush(); 
+        // Admin regeneration: overwrites manual overrides too
+        List<PredictionWrite> predictions = toWrites(history.get(0), lastDate, forecast);
+        PredictionBulkRepository.UpsertResult written = bulkRepository.upsertPredictions(predictions, true);
 
-            long anomalyCount = predictions.stream()
-                    .filter(p -> p.getStatus() == PricePredictions.Status.ANOMALY)
-                    .count();
+        int saved = written.inserted() + written.updated();
+        if (saved > 0) {
+            eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.PREDICTIONS));
 
-            log.info(" Saved {} predictions for product {} in market {} (confidence: {:.1f}%, anomalies: {})",
-                    predictions.size(), productId, marketId, baseConfidence * 100, anomalyCount);
+            log.info(" Saved {} predictions for product {} in market {} (confidence: {}%, anomalies: {})",
+                    saved, productId, marketId, forecast.baseConfidence() * 100, countAnomalies(predictions));
 
-            return predictions.size();
+            return saved;
         }
 
         log.warn(" No predictions saved for product {} in market {} (all may be overridden or skipped)",
                 productId, marketId);
         return 0;
     }
-
-
-    private PricePredictions createPrediction(
-            ProductInfo p,
-            MarketLocation m,
-            double price,
-            LocalDate date,
-            double conf,
-            PricePredictions.Status status,
-            boolean forceUpdate) {
-
-        PricePredictions pred = predictionRepo
-                .findByProductInfoAndMarketLocationAndTargetDate(p, m, date)
-                .orElse(new PricePredictions());
-
-        if (pred.getId() != null && pred.getStatus() == PricePredictions.Status.OVERRIDDEN) {
-            log.info(" REGENERATING: Overwriting manual override for {} on {} as requested by Admin.",
-                    p.getProductName(), date);
-        }
-
-        pred.setProductInfo(p);
-        pred.setMarketLocation(m);
-        pred.setPredictedPrice(price); 
-        pred.setConfidenceScore(conf);
-        pred.setTargetDate(date);
-
-        pred.setStatus(status);
-
-        return pred;
-    }
-
-   
-}
\ No newline at end of file
+}
@@ -0,0 +1,201 @@
+package com.example.budgetwise.prediction.service;
+
+import java.util.Arrays;
+
+/**
+ * Reusable primitive price series (oldest to newest) with single-pass statistics.
+ * <p>
+ * PERFORMANCE STRATEGY:
+ * 1. Prices and report dates live in a {@code double[]} / {@code int[]} (epoch days),
+ *    no boxing, no entity access while computing.
+ * 2. {@link #fit()} computes mean, variance (Welford), OLS slope / intercept / R²
+ *    (co-moments updated in the same loop) in ONE pass; MAPE then reads only the
+ *    newest 10 points against the fitted line.
+ * 3. The instance is reused: {@link #clear()} resets it without reallocating, so a
+ *    loop over many pairs allocates nothing per pair.
+ * <p>
+ * x is the point index (0 = oldest), the convention of the whole forecasting code
+ * (regression state, bulk engine): prices are one point per report, not per calendar day.
+ * Not thread-safe.
+ */
+public final class PriceSeries {
+
+    private static final int MAPE_POINTS = 10;
+
+    private double[] prices;
+    private int[] epochDays;
+    private int size;
+
+    private boolean fitted;
+    private double mean;
+    private double variance;
+    private double slope;
+    private double intercept;
+    private double rSquare;
+    private double mape;
+
+    public PriceSeries(int capacity) {
+        this.prices = new double[Math.max(1, capacity)];
+        this.epochDays = new int[prices.length];
+    }
+
+    /**
+     * Wraps an existing oldest-first price window (report dates unknown).
+     */
+    public static PriceSeries of(double[] prices, int count) {
+        PriceSeries series = new PriceSeries(count);
+        for (int i = 0; i < count; i++) {
+            series.add(0, prices[i]);
+        }
+        return series;
+    }
+
+    public void clear() {
+        size = 0;
+        fitted = false;
+    }
+
+    /**
+     * Appends the next (newer) point.
+     */
+    public void add(int epochDay, double price) {
+        if (size == prices.length) {
+            prices = Arrays.copyOf(prices, size * 2);
+            epochDays = Arrays.copyOf(epochDays, size * 2);
+        }
+        prices[size] = price;
+        epochDays[size] = epochDay;
+        size++;
+        fitted = false;
+    }
+
+    /**
+     * Single pass over the series: Welford mean / M2 for y and x, plus the x-y co-moment.
+     */
+    public PriceSeries fit() {
+        double meanX = 0.0, meanY = 0.0;
+        double m2x = 0.0, m2y = 0.0, cxy = 0.0;
+
+        for (int i = 0; i < size; i++) {
+            int n = i + 1;
+            double y = prices[i];
+            double dx = i - meanX;
+            double dy = y - meanY;
+            meanX += dx / n;
+            meanY += dy / n;
+            m2x += dx * (i - meanX);
+            m2y += dy * (y - meanY);
+            cxy += dx * (y - meanY);
+        }
+
+        mean = meanY;
+        variance = size > 0 ? m2y / size : 0.0;
+        slope = m2x != 0 ? cxy / m2x : 0.0;
+        intercept = meanY - slope * meanX;
+        // Same convention as SimpleRegression: undefined when prices never move
+        rSquare = (m2x > 0 && m2y > 0) ? (cxy * cxy) / (m2x * m2y) : Double.NaN;
+        mape = mape(prices, size, slope, intercept);
+        fitted = true;
+        return this;
+    }
+
+    /**
+     * Mean Absolute Percentage Error of the line over the newest 10 points (0 below 5 points).
+     */
+    static double mape(double[] prices, int count, double slope, double intercept) {
+        if (count < 5) return 0.0;
+
+        double totalError = 0.0;
+        int checked = Math.min(MAPE_POINTS, count - 1);
+
+        for (int i = 0; i < checked; i++) {
+            int x = count - 1 - i;
+            double actualPrice = prices[x];
+            double predictedPrice = intercept + slope * x;
+
+            if (actualPrice > 0) {
+                totalError += Math.abs((actualPrice - predictedPrice) / actualPrice) * 100;
+            }
+        }
+
+        return checked > 0 ? totalError / checked : 0.0;
+    }
+
+    /**
+     * Fitted line at point index {@code x}; {@code size() + d - 1} is day +d.
+     */
+    public double predict(double x) {
+        ensureFitted();
+        return intercept + slope * x;
+    }
+
+    /**
+     * Writes {@code model}'s projection of this series into {@code out} (day +1 at index 0).
+     */
+    void project(ForecastModel model, double[] out) {
+        model.forecast(prices, 0, size, out);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double price(int index) {
+        return prices[index];
+    }
+
+    public int epochDay(int index) {
+        return epochDays[index];
+    }
+
+    public double lastPrice() {
+        return prices[size - 1];
+    }
+
+    public double mean() {
+        ensureFitted();
+        return mean;
+    }
+
+    /** Population variance. */
+    public double variance() {
+        ensureFitted();
+        return variance;
+    }
+
+    public double stdDev() {
+        return Math.sqrt(variance());
+    }
+
+    /** Coefficient of variation in %, 0 when the mean is not positive. */
+    public double coefficientOfVariation() {
+        double m = mean();
+        return m > 0 ? stdDev() / m * 100 : 0.0;
+    }
+
+    public double slope() {
+        ensureFitted();
+        return slope;
+    }
+
+    public double intercept() {
+        ensureFitted();
+        return intercept;
+    }
+
+    public double rSquare() {
+        ensureFitted();
+        return rSquare;
+    }
+
+    public double mape() {
+        ensureFitted();
+        return mape;
+    }
+
+    private void ensureFitted() {
+        if (!fitted) {
+            fit();
+        }
+    }
+}
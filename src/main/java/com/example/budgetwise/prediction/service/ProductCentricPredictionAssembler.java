@@ -0,0 +1,161 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.market.entity.MarketLocation;
+import com.example.budgetwise.prediction.dto.ProductCentricPredictionDTO;
+import com.example.budgetwise.prediction.repository.DailyPriceRecordPredictionRepository;
+import com.example.budgetwise.prediction.repository.MarketLocationPredictionRepository;
+import com.example.budgetwise.prediction.repository.PricePredictionRepository;
+import com.example.budgetwise.prediction.repository.projection.PairPredictionProjection;
+import com.example.budgetwise.prediction.repository.projection.PairPriceProjection;
+import com.example.budgetwise.prediction.repository.projection.PairRecordCountProjection;
+import com.example.budgetwise.product.entity.ProductInfo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link ProductCentricPredictionDTO}s for a whole set of products at once.
+ * <p>
+ * PERFORMANCE STRATEGY:
+ * 1. Active markets are loaded ONCE per call (not once per product).
+ * 2. Latest prices, predictions and record counts of every (product x market) cell are
+ *    fetched with ONE set-based query each, keyed by the product id list.
+ * 3. DTOs are assembled in memory with O(1) HashMap lookups per cell.
+ * <p>
+ * Round-trips: 4 per call, regardless of the number of products and markets
+ * (previously 1 + 3 x markets per product).
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductCentricPredictionAssembler {
+
+    private final MarketLocationPredictionRepository marketRepo;
+    private final DailyPriceRecordPredictionRepository priceRepo;
+    private final PricePredictionRepository predictionRepo;
+
+    private record Cell(long productId, long marketId) {}
+
+    /**
+     * @param products   Products to build, in the order the DTOs must be returned.
+     * @param targetDate Forecast date shown in the matrix (tomorrow).
+     */
+    public List<ProductCentricPredictionDTO> assemble(List<ProductInfo> products, LocalDate targetDate) {
+        if (products.isEmpty()) return List.of();
+
+        List<Long> productIds = products.stream().map(ProductInfo::getId).toList();
+
+        List<MarketLocation> markets = new ArrayList<>(marketRepo.findAllByStatus(MarketLocation.Status.ACTIVE));
+        markets.sort(Comparator.comparing(MarketLocation::getId));
+
+        Map<Cell, Double> prices = new HashMap<>();
+        for (PairPriceProjection row : priceRepo.findLatestPricesByProductIds(productIds)) {
+            prices.put(new Cell(row.getProductId(), row.getMarketId()), row.getPrice());
+        }
+
+        // (product, market, targetDate) is unique: at most one prediction per cell
+        Map<Cell, PairPredictionProjection> predictions = new HashMap<>();
+        for (PairPredictionProjection row : predictionRepo.findPredictionsByProductIdsAndDate(productIds, targetDate)) {
+            predictions.put(new Cell(row.getProductId(), row.getMarketId()), row);
+        }
+
+        Map<Cell, Integer> dataPoints = new HashMap<>();
+        for (PairRecordCountProjection row : priceRepo.countRecordsByProductIds(productIds)) {
+            dataPoints.put(new Cell(row.getProductId(), row.getMarketId()), row.getDataPoints().intValue());
+        }
+
+        List<ProductCentricPredictionDTO> result = new ArrayList<>(products.size());
+        for (ProductInfo product : products) {
+            List<ProductCentricPredictionDTO.MarketPrediction> marketPredictions = new ArrayList<>();
+
+            for (MarketLocation market : markets) {
+                Cell cell = new Cell(product.getId(), market.getId());
+                Double current = prices.get(cell);
+                if (current == null) continue; // Only markets with data
+
+                marketPredictions.add(toMarketPrediction(market, current, predictions.get(cell),
+                        dataPoints.getOrDefault(cell, 0)));
+            }
+
+            result.add(toProductDTO(product, marketPredictions));
+        }
+        return result;
+    }
+
+    private static ProductCentricPredictionDTO.MarketPrediction toMarketPrediction(
+            MarketLocation market, Double current, PairPredictionProjection pred, int dataPoints) {
+
+        Double forecast = (pred != null) ? pred.getPredictedPrice() : null;
+
+        Double trend = null;
+        if (forecast != null && current > 0) {
+            trend = ((forecast - current) / current) * 100;
+        }
+
+        return new ProductCentricPredictionDTO.MarketPrediction(
+                pred != null ? pred.getId() : null,
+                market.getId(),
+                market.getMarketLocation(), // This is the name
+                String.format("%s (%.4f, %.4f)",
+                        market.getType().name(),
+                        market.getLatitude(),
+                        market.getLongitude()),
+                current,
+                forecast,
+                trend,
+                pred != null ? pred.getConfidenceScore() : null,
+                pred != null ? pred.getStatus().name() : "NO_DATA",
+                dataPoints
+        );
+    }
+
+    /**
+     * Aggregates across the product's markets in a single pass.
+     */
+    private static ProductCentricPredictionDTO toProductDTO(
+            ProductInfo product, List<ProductCentricPredictionDTO.MarketPrediction> marketPredictions) {
+
+        double currentSum = 0;
+        double forecastSum = 0;
+        int forecastCount = 0;
+        int anomalyCount = 0;
+        ProductCentricPredictionDTO.MarketPrediction mostExpensive = null;
+        ProductCentricPredictionDTO.MarketPrediction cheapest = null;
+
+        for (ProductCentricPredictionDTO.MarketPrediction mp : marketPredictions) {
+            currentSum += mp.currentPrice();
+            if (mp.forecastPrice() != null) {
+                forecastSum += mp.forecastPrice();
+                forecastCount++;
+            }
+            if ("ANOMALY".equals(mp.status())) anomalyCount++;
+            if (mostExpensive == null || mp.currentPrice() > mostExpensive.currentPrice()) mostExpensive = mp;
+            if (cheapest == null || mp.currentPrice() < cheapest.currentPrice()) cheapest = mp;
+        }
+
+        int marketCount = marketPredictions.size();
+        double avgCurrent = marketCount > 0 ? currentSum / marketCount : 0.0;
+        double avgForecast = forecastCount > 0 ? forecastSum / forecastCount : 0.0;
+        Double priceDiff = (mostExpensive != null) ? mostExpensive.currentPrice() - cheapest.currentPrice() : null;
+
+        return new ProductCentricPredictionDTO(
+                product.getId(),
+                product.getProductName(),
+                String.format("PROD-%03d", product.getId()), // Generate product code
+                product.getCategory() != null ? product.getCategory() : "UNKNOWN",
+                marketPredictions,
+                avgCurrent,
+                avgForecast,
+                priceDiff,
+                mostExpensive != null ? mostExpensive.marketName() : null,
+                cheapest != null ? cheapest.marketName() : null,
+                marketCount,
+                anomalyCount
+        );
+    }
+}
@@ -0,0 +1,314 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.market.entity.MarketLocation;
+import com.example.budgetwise.prediction.entity.PriceRegressionState;
+import com.example.budgetwise.prediction.repository.PredictionBulkRepository;
+import com.example.budgetwise.prediction.repository.PriceRegressionStateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the per-pair {@link PriceRegressionState} rows.
+ * <p>
+ * LOGIC:
+ * Every ingested price is appended to its pair's 30-slot ring buffer. Once the window is
+ * full, the oldest price is evicted and all X positions shift down by one, which can be
+ * applied to the sums in O(1):
+ * Σx' = Σx - m, Σx²' = Σx² - 2Σx + m, Σxy' = Σxy - Σy (m = points left after eviction).
+ * The forecaster then reads slope / intercept / R² / CV straight from the sums.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RegressionStateService {
+
+    private static final int WRITE_BATCH_SIZE = 1000;
+
+    /** Pairs per windowed history query when rebuilding a subset (backfills, startup catch-up). */
+    private static final int REBUILD_PAIRS_PER_STATEMENT = 5000;
+
+    private final PriceRegressionStateRepository stateRepository;
+    private final PredictionBulkRepository bulkRepository;
+
+    /**
+     * Appends one report's prices to the state of every (product, market) pair of an ingestion chunk.
+     * <p>
+     * PERFORMANCE STRATEGY:
+     * All states of the chunk are loaded with ONE query and written back with ONE batched upsert,
+     * instead of a load and a flush per product.
+     * <p>
+     * LOGIC:
+     * 1. A report dated after the state's last report is appended (O(1)).
+     * 2. The same date again (re-ingestion of a report) is not counted twice.
+     * 3. An older date (backfill) lands inside the window, not at its end: those pairs are rebuilt
+     *    from price history after the chunk's rows are written, instead of being skipped.
+     *
+     * @param pricesByProduct Report price per product id.
+     */
+    @Transactional
+    public void recordPrices(Map<Long, Double> pricesByProduct, List<MarketLocation> markets, LocalDate reportDate) {
+        if (pricesByProduct == null || pricesByProduct.isEmpty() || markets == null || markets.isEmpty()) return;
+
+        List<Long> marketIds = markets.stream().map(MarketLocation::getId).toList();
+        Map<PriceRegressionState.Key, PriceRegressionState> states = bulkRepository
+                .findRegressionStates(pricesByProduct.keySet(), marketIds).stream()
+                .collect(Collectors.toMap(PriceRegressionState::getId, Function.identity()));
+
+        List<PriceRegressionState> changed = new ArrayList<>(pricesByProduct.size() * marketIds.size());
+        List<PredictionBulkRepository.PairKey> backfilled = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Map.Entry<Long, Double> product : pricesByProduct.entrySet()) {
+            Long productId = product.getKey();
+            for (Long marketId : marketIds) {
+                PriceRegressionState state = states.get(new PriceRegressionState.Key(productId, marketId));
+                if (state == null) {
+                    state = newState(productId, marketId);
+                } else if (state.getLastReportDate() != null && !reportDate.isAfter(state.getLastReportDate())) {
+                    if (reportDate.isBefore(state.getLastReportDate())) {
+                        backfilled.add(new PredictionBulkRepository.PairKey(productId, marketId));
+                    }
+                    continue;
+                }
+
+                append(state, product.getValue());
+                state.setLastReportDate(reportDate);
+                state.setUpdatedAt(now);
+                changed.add(state);
+            }
+        }
+
+        bulkRepository.upsertRegressionStates(changed, WRITE_BATCH_SIZE);
+
+        if (!backfilled.isEmpty()) {
+            log.info("Report of {} is a backfill for {} pairs, rebuilding their regression state", reportDate, backfilled.size());
+            rebuildPairs(backfilled);
+        }
+    }
+
+    /**
+     * Rebuilds ALL states from price history (backfills, first deployment, corrections).
+     * Uses the windowed stream query, so it costs one pass over daily_price_record.
+     *
+     * @return Number of pairs written.
+     */
+    @Transactional
+    public int rebuildAll() {
+        long start = System.currentTimeMillis();
+        bulkRepository.deleteAllRegressionStates();
+
+        List<PriceRegressionState> batch = new ArrayList<>();
+        int[] written = {0};
+        PriceRegressionState[] current = {null};
+
+        bulkRepository.streamRecentPriceWindows(ForecastCalculator.WINDOW_SIZE, false,
+                (productId, marketId, price, dateReported) -> {
+                    PriceRegressionState state = current[0];
+                    if (state == null || state.getProductInfoId() != productId
+                            || state.getMarketLocationId() != marketId) {
+                        if (state != null) {
+                            batch.add(finishRebuiltState(state));
+                        }
+                        state = newState(productId, marketId);
+                        // Rows arrive newest first: the first one is the latest report
+                        state.setLastReportDate(dateReported);
+                        current[0] = state;
+                    }
+                    // Temporarily collect newest-first in the buffer, fixed in finishRebuiltState
+                    state.getRecentPrices()[state.getSampleCount()] = price;
+                    state.setSampleCount(state.getSampleCount() + 1);
+
+                    if (batch.size() >= WRITE_BATCH_SIZE) {
+                        bulkRepository.insertRegressionStates(batch, WRITE_BATCH_SIZE);
+                        written[0] += batch.size();
+                        batch.clear();
+                    }
+                });
+
+        if (current[0] != null) {
+            batch.add(finishRebuiltState(current[0]));
+        }
+        bulkRepository.insertRegressionStates(batch, WRITE_BATCH_SIZE);
+        written[0] += batch.size();
+
+        log.info("Rebuilt regression state for {} pairs in {} ms", written[0], System.currentTimeMillis() - start);
+        return written[0];
+    }
+
+    /**
+     * Rebuilds the given pairs from price history, in slices of {@link #REBUILD_PAIRS_PER_STATEMENT}.
+     *
+     * @return Number of pairs written.
+     */
+    @Transactional
+    public int rebuildPairs(List<PredictionBulkRepository.PairKey> pairs) {
+        int written = 0;
+        for (int from = 0; from < pairs.size(); from += REBUILD_PAIRS_PER_STATEMENT) {
+            List<PredictionBulkRepository.PairKey> slice =
+                    pairs.subList(from, Math.min(from + REBUILD_PAIRS_PER_STATEMENT, pairs.size()));
+            List<PriceRegressionState> batch = new ArrayList<>(slice.size());
+            PriceRegressionState[] current = {null};
+
+            bulkRepository.streamRecentPriceWindows(ForecastCalculator.WINDOW_SIZE, slice,
+                    (productId, marketId, price, dateReported) -> {
+                        PriceRegressionState state = current[0];
+                        if (state == null || state.getProductInfoId() != productId
+                                || state.getMarketLocationId() != marketId) {
+                            if (state != null) batch.add(finishRebuiltState(state));
+                            state = newState(productId, marketId);
+                            state.setLastReportDate(dateReported);
+                            current[0] = state;
+                        }
+                        state.getRecentPrices()[state.getSampleCount()] = price;
+                        state.setSampleCount(state.getSampleCount() + 1);
+                    });
+
+            if (current[0] != null) batch.add(finishRebuiltState(current[0]));
+            bulkRepository.upsertRegressionStates(batch, WRITE_BATCH_SIZE);
+            written += batch.size();
+        }
+        return written;
+    }
+
+    /**
+     * Ingestion and the data seeder keep the states current through {@link #recordPrices}.
+     * Once the runners are done, an empty table is rebuilt in one pass; otherwise only the pairs
+     * with prices dated after the newest state are rebuilt (rows written outside ingestion),
+     * without scanning the older history.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void catchUpOnStartup() {
+        if (isEmpty()) {
+            log.info("Regression state is empty, rebuilding from price history");
+            rebuildAll();
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        List<PredictionBulkRepository.PairKey> stale = bulkRepository.findPairsReportedAfterStates();
+        if (stale.isEmpty()) return;
+
+        int written = rebuildPairs(stale);
+        log.info("Regression state caught up for {} pairs in {} ms", written, System.currentTimeMillis() - start);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isEmpty() {
+        return stateRepository.count() == 0;
+    }
+
+    /**
+     * Copies the ring buffer into {@code out} ordered oldest to newest.
+     *
+     * @return Number of prices copied.
+     */
+    public static int windowOldestFirst(PriceRegressionState state, double[] out) {
+        double[] ring = state.getRecentPrices();
+        int n = state.getSampleCount();
+        for (int i = 0; i < n; i++) {
+            out[i] = ring[(state.getRingStart() + i) % ring.length];
+        }
+        return n;
+    }
+
+    /**
+     * O(1) append with eviction of the oldest price once the window is full.
+     */
+    static void append(PriceRegressionState s, double y) {
+        double[] ring = s.getRecentPrices();
+        int capacity = ring.length;
+        int n = s.getSampleCount();
+
+        if (n == capacity) {
+            double oldest = ring[s.getRingStart()];
+
+            // Remove the point at x = 0 (contributes nothing to Σx, Σx², Σxy)
+            double sumY = s.getSumY() - oldest;
+            s.setSumYY(s.getSumYY() - oldest * oldest);
+
+            // Shift remaining x positions down by one
+            int m = n - 1;
+            s.setSumXY(s.getSumXY() - sumY);
+            s.setSumXX(s.getSumXX() - 2 * s.getSumX() + m);
+            s.setSumX(s.getSumX() - m);
+            s.setSumY(sumY);
+
+            ring[s.getRingStart()] = y;
+            s.setRingStart((s.getRingStart() + 1) % capacity);
+            n = m;
+        } else {
+            ring[(s.getRingStart() + n) % capacity] = y;
+        }
+
+        s.setSumX(s.getSumX() + n);
+        s.setSumXX(s.getSumXX() + (double) n * n);
+        s.setSumY(s.getSumY() + y);
+        s.setSumYY(s.getSumYY() + y * y);
+        s.setSumXY(s.getSumXY() + n * y);
+        s.setSampleCount(n + 1);
+
+        // Every full turn of the ring, recompute from the buffer to cancel floating-point drift
+        if (s.getSampleCount() == capacity && s.getRingStart() == 0) {
+            recomputeSums(s);
+        }
+    }
+
+    static void recomputeSums(PriceRegressionState s) {
+        double[] window = new double[s.getRecentPrices().length];
+        int n = windowOldestFirst(s, window);
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0, sumYY = 0;
+        for (int i = 0; i < n; i++) {
+            double y = window[i];
+            sumX += i;
+            sumY += y;
+            sumXY += i * y;
+            sumXX += (double) i * i;
+            sumYY += y * y;
+        }
+        s.setSumX(sumX);
+        s.setSumY(sumY);
+        s.setSumXY(sumXY);
+        s.setSumXX(sumXX);
+        s.setSumYY(sumYY);
+    }
+
+    /**
+     * Reorders a newest-first buffer (as filled by the rebuild stream) into ring order
+     * starting at index 0, then computes the sums.
+     */
+    private static PriceRegressionState finishRebuiltState(PriceRegressionState s) {
+        double[] ring = s.getRecentPrices();
+        int n = s.getSampleCount();
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            double tmp = ring[i];
+            ring[i] = ring[j];
+            ring[j] = tmp;
+        }
+        s.setRingStart(0);
+        recomputeSums(s);
+        s.setUpdatedAt(LocalDateTime.now());
+        return s;
+    }
+
+    private static PriceRegressionState newState(Long productId, Long marketId) {
+        PriceRegressionState state = new PriceRegressionState();
+        state.setProductInfoId(productId);
+        state.setMarketLocationId(marketId);
+        state.setRecentPrices(new double[ForecastCalculator.WINDOW_SIZE]);
+        state.setNew(true);
+        return state;
+    }
+}
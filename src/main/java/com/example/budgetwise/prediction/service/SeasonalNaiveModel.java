@@ -0,0 +1,38 @@
+package com.example.budgetwise.prediction.service;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Weekly seasonal naive: day +d repeats the price one cycle earlier
+ * ({@link #PERIOD} points back), for markets with a weekly supply / demand rhythm.
+ * <p>
+ * The period is in points, so it matches a calendar week only for pairs reported daily;
+ * for the others it scores poorly in the backtest and is simply never selected.
+ */
+@Component
+public class SeasonalNaiveModel implements ForecastModel {
+
+    public static final String NAME = "SEASONAL_NAIVE";
+
+    static final int PERIOD = 7;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public void forecast(double[] prices, int offset, int count, double[] out) {
+        int end = offset + count;
+        if (count < PERIOD) {
+            // Not one full cycle: carry the last price forward
+            for (int day = 1; day <= out.length; day++) {
+                out[day - 1] = Math.max(0.0, prices[end - 1]);
+            }
+            return;
+        }
+        for (int day = 1; day <= out.length; day++) {
+            out[day - 1] = Math.max(0.0, prices[end - PERIOD + (day - 1) % PERIOD]);
+        }
+    }
+}
@@ -23,7 +23,8 @@ import java.time.LocalDateTime;
 public class PriceReport {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "price_report_seq")
+    @SequenceGenerator(name = "price_report_seq", sequenceName = "price_report_seq", allocationSize = 50)
     private Long id;
 
     @Column
@@ -34,7 +35,8 @@ public class PriceReport {
     @Column(columnDefinition = "TEXT")
     private String url;
 
-    public enum Status {COMPLETED, FAILED };
+    // PROCESSING = chunked ingestion still running (or crashed); only COMPLETED/FAILED are final
+    public enum Status {COMPLETED, FAILED, PROCESSING };
 
 
     @Enumerated(EnumType.STRING)
@@ -55,6 +57,10 @@ public class PriceReport {
     @Column
     private Long durationMS;
 
+    /** Set once the report's prices are in the analytics rollups (COMPLETED reports only). */
+    @Column
+    private LocalDateTime rolledUpAt;
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
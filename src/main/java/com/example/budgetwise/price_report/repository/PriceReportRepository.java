@@ -16,6 +16,8 @@ import java.util.Optional;
 public interface PriceReportRepository extends JpaRepository<PriceReport, Long> {
 
     boolean existsByDateReported(LocalDate dateReported);
+
+    Optional<PriceReport> findFirstByDateReported(LocalDate dateReported);
     @Query("SELECT MAX(pr.dateReported) FROM PriceReport pr")
     Optional<LocalDate> findLatestReportDate();
 
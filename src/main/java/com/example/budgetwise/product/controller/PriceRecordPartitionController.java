@@ -0,0 +1,60 @@
+package com.example.budgetwise.product.controller;
+
+import com.example.budgetwise.product.service.PriceRecordPartitionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/admin/price-records/partitions")
+@RequiredArgsConstructor
+public class PriceRecordPartitionController {
+
+    private final PriceRecordPartitionService partitionService;
+
+    /**
+     * Attached monthly partitions of daily_price_record with their estimated row counts.
+     */
+    @GetMapping
+    public ResponseEntity<List<PriceRecordPartitionService.Partition>> getPartitions() {
+        return ResponseEntity.ok(partitionService.listPartitions());
+    }
+
+    /**
+     * Converts a plain daily_price_record into monthly partitions, one month per transaction.
+     * Run it again to resume an interrupted conversion; a no-op once the table is partitioned.
+     */
+    @PostMapping("/convert")
+    public ResponseEntity<Map<String, Object>> convertToPartitioned() {
+        long moved = partitionService.convertToPartitioned();
+        return ResponseEntity.ok(Map.of(
+                "rowsMoved", moved,
+                "timestamp", LocalDateTime.now()
+        ));
+    }
+
+    /**
+     * Archives the price history older than the given month (e.g. {@code before=2024-01}).
+     * The partitions are detached and kept as archive tables, nothing is deleted.
+     */
+    @PostMapping("/detach")
+    public ResponseEntity<Map<String, Object>> detachPartitions(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth before
+    ) {
+        List<String> archived = partitionService.detachPartitionsBefore(before);
+        return ResponseEntity.ok(Map.of(
+                "archivedTables", archived,
+                "timestamp", LocalDateTime.now()
+        ));
+    }
+}
@@ -2,6 +2,7 @@ package com.example.budgetwise.product.controller;
 
 import com.example.budgetwise.market.dto.ProductMarketDetailResponse;
 import com.example.budgetwise.product.dto.*;
+import com.example.budgetwise.product.service.LatestPriceService;
 import com.example.budgetwise.product.service.ProductInfoService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,15 +12,18 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/v1/admin/products")
 public class ProductInfoController {
 
     private final ProductInfoService productInfoService;
+    private final LatestPriceService latestPriceService;
 
-    public ProductInfoController(ProductInfoService productInfoService) {
+    public ProductInfoController(ProductInfoService productInfoService, LatestPriceService latestPriceService) {
         this.productInfoService = productInfoService;
+        this.latestPriceService = latestPriceService;
     }
 
 
@@ -89,4 +93,17 @@ public class ProductInfoController {
         productInfoService.bulkUpdateStatus(request);
         return ResponseEntity.ok("Successfully updated status for selected products.");
     }
+
+    /**
+     * Rebuilds the latest_price table from price history (after backfills or manual data fixes).
+     */
+    @PostMapping("/latest-price/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildLatestPrices() {
+        int pairs = latestPriceService.rebuildAll();
+        return ResponseEntity.ok(Map.of(
+                "status", "SUCCESS",
+                "pairsRebuilt", pairs,
+                "timestamp", System.currentTimeMillis()
+        ));
+    }
 }
\ No newline at end of file
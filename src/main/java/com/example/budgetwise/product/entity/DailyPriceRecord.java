@@ -12,6 +12,7 @@ import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Getter
@@ -24,13 +25,16 @@ import java.time.LocalDateTime;
                                 @Index(name = "idx_dpr_market_location", columnList = "market_location_id"),
                                 @Index(name = "idx_dpr_product_info", columnList = "product_info_id"),
                                 @Index(name = "idx_dpr_price_report", columnList = "price_report_id"),
-                               @Index(name = "idx_dpr_market_product_latest", columnList = "product_info_id, market_location_id, id DESC")
+                               @Index(name = "idx_dpr_market_product_latest", columnList = "product_info_id, market_location_id, id DESC"),
+                                @Index(name = "idx_dpr_product_report_date", columnList = "product_info_id, report_date")
                                         })
 
 public class DailyPriceRecord {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence (not IDENTITY) so Hibernate can batch inserts
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "daily_price_record_seq")
+    @SequenceGenerator(name = "daily_price_record_seq", sequenceName = "daily_price_record_seq", allocationSize = 50)
     private Long id;
 
 
@@ -41,6 +45,13 @@ public class DailyPriceRecord {
     @Column(length = 250)
     private String origin;
 
+    /**
+     * Copy of priceReport.dateReported: the partition key of the table (monthly ranges,
+     * see PriceRecordPartitionService), so date filters prune partitions without a join.
+     */
+    @Column(name = "report_date", nullable = false)
+    private LocalDate reportDate;
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,71 @@
+package com.example.budgetwise.product.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Materialized "latest price" of every (product, market) pair.
+ * <p>
+ * Replaces the correlated {@code MAX(id)} / {@code ORDER BY dateReported DESC LIMIT 1}
+ * lookups over daily_price_record on the hot read paths. Upserted per ingestion chunk and
+ * rebuildable from history with {@code LatestPriceService.rebuildAll()}.
+ * "Latest" means newest report date, then highest record id.
+ */
+@Table(name = "latest_price",
+        indexes = {
+                @Index(name = "idx_latest_price_market", columnList = "market_location_id"),
+                @Index(name = "idx_latest_price_product_record", columnList = "product_info_id, daily_price_record_id DESC")
+        })
+@Entity
+@IdClass(LatestPrice.Key.class)
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class LatestPrice {
+
+    @Id
+    @Column(name = "product_info_id")
+    private Long productInfoId;
+
+    @Id
+    @Column(name = "market_location_id")
+    private Long marketLocationId;
+
+    /** The daily_price_record row this price was taken from. */
+    @Column(name = "daily_price_record_id", nullable = false)
+    private Long dailyPriceRecordId;
+
+    @Column(name = "price", nullable = false)
+    private double price;
+
+    /** Price of the previous report for this pair, null if there is none. */
+    @Column(name = "previous_price")
+    private Double previousPrice;
+
+    @Column(name = "unit", length = 20)
+    private String unit;
+
+    @Column(name = "origin", length = 250)
+    private String origin;
+
+    @Column(name = "report_date", nullable = false)
+    private LocalDate reportDate;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long productInfoId;
+        private Long marketLocationId;
+    }
+}
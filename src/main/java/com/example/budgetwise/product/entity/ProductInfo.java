@@ -5,6 +5,7 @@ import com.example.budgetwise.budgetplan.entity.ProductDietaryTag;
 import com.example.budgetwise.prediction.entity.PricePredictions;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -26,13 +27,15 @@ import java.time.LocalDateTime;
         },
         indexes = {
                 @Index(name = "idx_product_name", columnList = "productName"),
+                @Index(name = "idx_product_name_key", columnList = "name_key"),
                 @Index(name = "idx_product_status", columnList = "status")
         }
         )
 public class ProductInfo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_info_seq")
+    @SequenceGenerator(name = "product_info_seq", sequenceName = "product_info_seq", allocationSize = 50)
     private Long id;
 
 
@@ -40,6 +43,15 @@ public class ProductInfo {
     @Column(unique = true , nullable = false ,length = 250)
     private String productName;
 
+    /**
+     * lower(trim(product_name)), computed by PostgreSQL: case / whitespace-insensitive name
+     * lookups compare this indexed column instead of evaluating functions on every row.
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "name_key", length = 250, insertable = false, updatable = false,
+            columnDefinition = "varchar(250) GENERATED ALWAYS AS (lower(trim(product_name))) STORED")
+    private String nameKey;
+
     @Column(length = 250)
     private String category;
 
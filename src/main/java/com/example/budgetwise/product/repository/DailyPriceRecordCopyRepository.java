@@ -0,0 +1,94 @@
+package com.example.budgetwise.product.repository;
+
+import com.example.budgetwise.configuration.PooledIdAllocator;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bulk loader for {@code daily_price_record} based on PostgreSQL {@code COPY ... FROM STDIN}.
+ * <p>
+ * PERFORMANCE STRATEGY:
+ * 1. One scrape payload (every product x every covered market) becomes one COPY stream,
+ *    so the whole report is a single round-trip instead of one INSERT (or batch) per row.
+ * 2. Ids are reserved up front from {@code daily_price_record_seq} in blocks, so the rows stay
+ *    consistent with the ids Hibernate hands out for the same table.
+ * <p>
+ * Runs on the connection of the surrounding transaction. Entities referenced by the rows
+ * (report, products, markets) must be flushed before calling {@link #copy}, and the
+ * month of {@link Row#reportDate()} must have a partition ({@code PriceRecordPartitionService}).
+ */
+@Repository
+@RequiredArgsConstructor
+public class DailyPriceRecordCopyRepository {
+
+    private static final String COPY_SQL = """
+            COPY daily_price_record
+                (id, price, unit, origin, created_at, updated_at,
+                 product_info_id, price_report_id, market_location_id, report_date)
+            FROM STDIN WITH (FORMAT csv)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PooledIdAllocator idAllocator;
+
+    /**
+     * One price row to load.
+     */
+    public record Row(long productInfoId, long priceReportId, long marketLocationId,
+                      double price, String unit, String origin, LocalDate reportDate) {}
+
+    /**
+     * @return Number of rows written.
+     */
+    public long copy(List<Row> rows) {
+        if (rows.isEmpty()) return 0;
+
+        long[] ids = idAllocator.allocate("daily_price_record_seq", rows.size());
+        String now = LocalDateTime.now().toString();
+
+        StringBuilder csv = new StringBuilder(rows.size() * 96);
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            csv.append(ids[i]).append(',')
+                    .append(row.price()).append(',');
+            appendText(csv, row.unit());
+            csv.append(',');
+            appendText(csv, row.origin());
+            csv.append(',').append(now)
+                    .append(',').append(now)
+                    .append(',').append(row.productInfoId())
+                    .append(',').append(row.priceReportId())
+                    .append(',').append(row.marketLocationId())
+                    .append(',').append(row.reportDate())
+                    .append('\n');
+        }
+
+        return jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            try {
+                return con.unwrap(PGConnection.class)
+                        .getCopyAPI()
+                        .copyIn(COPY_SQL, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("COPY into daily_price_record failed", e);
+            }
+        });
+    }
+
+    /**
+     * CSV field: unquoted empty means NULL, anything else is quoted with doubled quotes.
+     */
+    private static void appendText(StringBuilder csv, String value) {
+        if (value == null) return;
+        csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
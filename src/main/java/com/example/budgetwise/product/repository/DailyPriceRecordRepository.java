@@ -4,6 +4,7 @@ package com.example.budgetwise.product.repository;
 import com.example.budgetwise.product.entity.DailyPriceRecord;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -22,10 +23,6 @@ public interface DailyPriceRecordRepository extends JpaRepository<DailyPriceReco
         Long getTotalMarkets();
     }
 
-    interface PriceProjection {
-        Long getProductId();
-        Double getPrice();
-    }
 
 
     @Query("""
@@ -38,34 +35,17 @@ public interface DailyPriceRecordRepository extends JpaRepository<DailyPriceReco
     List<MarketCountProjection> countCurrentMarketsByProductIds(@Param("productIds") List<Long> productIds);
 
 
-    @Query(value = """
-    WITH RankedPrices AS (
-        SELECT 
-            dpr.product_info_id as productId, 
-            dpr.price as price,
-            DENSE_RANK() OVER (
-                PARTITION BY dpr.product_info_id 
-                ORDER BY pr.date_reported DESC
-            ) as report_rank
-        FROM daily_price_record dpr
-        JOIN price_report pr ON dpr.price_report_id = pr.id
-        WHERE dpr.product_info_id IN :productIds
-        AND pr.status = 'COMPLETED'
-    )
-    SELECT productId, MAX(price) as price
-    FROM RankedPrices
-    WHERE report_rank = 2
-    GROUP BY productId
-""", nativeQuery = true)
-    List<PriceProjection> findPreviousPricesByProductIds(@Param("productIds") List<Long> productIds);
     @Query("""
            SELECT d FROM DailyPriceRecord d 
-                      JOIN d.priceReport r 
                       WHERE d.productInfo.id = :productId 
-                                 ORDER BY r.dateReported DESC, d.createdAt DESC
+                                 ORDER BY d.reportDate DESC, d.createdAt DESC
            """)
     List<DailyPriceRecord> findLatestByProductId(@Param("productId") Long productId, Pageable pageable);
 
-
-   
-}
\ No newline at end of file
+    /**
+     * Removes the rows of a report whose ingestion did not complete, before it is re-ingested.
+     */
+    @Modifying
+    @Query("DELETE FROM DailyPriceRecord d WHERE d.priceReport.id = :reportId")
+    int deleteByPriceReportId(@Param("reportId") Long reportId);
+}
@@ -0,0 +1,132 @@
+package com.example.budgetwise.product.repository;
+
+import com.example.budgetwise.product.entity.LatestPrice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface LatestPriceRepository extends JpaRepository<LatestPrice, LatestPrice.Key> {
+
+    /**
+     * Upserts the latest price of every pair written for the given products of a report.
+     * <p>
+     * LOGIC:
+     * 1. A newer report moves the current price to previous_price.
+     * 2. The same report written again (re-ingestion after a crash) only refreshes the row.
+     * 3. An older report (backfill) never overwrites a newer price.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        INSERT INTO latest_price (product_info_id, market_location_id, daily_price_record_id,
+                                  price, previous_price, unit, origin, report_date, updated_at)
+        SELECT DISTINCT ON (dpr.product_info_id, dpr.market_location_id)
+               dpr.product_info_id, dpr.market_location_id, dpr.id,
+               dpr.price, NULL, dpr.unit, dpr.origin, dpr.report_date, :now
+        FROM daily_price_record dpr
+        WHERE dpr.price_report_id = :reportId
+          AND dpr.product_info_id IN (:productIds)
+          AND dpr.market_location_id IS NOT NULL
+        ORDER BY dpr.product_info_id, dpr.market_location_id, dpr.id DESC
+        ON CONFLICT (product_info_id, market_location_id) DO UPDATE SET
+            previous_price = CASE WHEN EXCLUDED.report_date > latest_price.report_date
+                                  THEN latest_price.price
+                                  ELSE latest_price.previous_price END,
+            daily_price_record_id = EXCLUDED.daily_price_record_id,
+            price = EXCLUDED.price,
+            unit = EXCLUDED.unit,
+            origin = EXCLUDED.origin,
+            report_date = EXCLUDED.report_date,
+            updated_at = EXCLUDED.updated_at
+        WHERE EXCLUDED.report_date > latest_price.report_date
+           OR (EXCLUDED.report_date = latest_price.report_date
+               AND EXCLUDED.daily_price_record_id >= latest_price.daily_price_record_id)
+    """, nativeQuery = true)
+    int upsertFromReportProducts(@Param("reportId") Long reportId,
+                                 @Param("productIds") Collection<Long> productIds,
+                                 @Param("now") LocalDateTime now);
+
+    /**
+     * Re-syncs the row that points at a price record edited by an admin.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        UPDATE latest_price lp
+        SET price = dpr.price, unit = dpr.unit, origin = dpr.origin, updated_at = :now
+        FROM daily_price_record dpr
+        WHERE dpr.id = :recordId
+          AND lp.daily_price_record_id = dpr.id
+    """, nativeQuery = true)
+    int syncFromRecord(@Param("recordId") Long recordId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "DELETE FROM latest_price", nativeQuery = true)
+    int deleteAllRows();
+
+    /**
+     * Backfill: recomputes every pair from history in one statement.
+     * previous_price is the price of the next older record of the pair.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO latest_price (product_info_id, market_location_id, daily_price_record_id,
+                                  price, previous_price, unit, origin, report_date, updated_at)
+        SELECT r.product_info_id, r.market_location_id, r.id,
+               r.price, r.previous_price, r.unit, r.origin, r.report_date, :now
+        FROM (
+            SELECT dpr.id, dpr.product_info_id, dpr.market_location_id, dpr.price, dpr.unit, dpr.origin,
+                   dpr.report_date,
+                   ROW_NUMBER() OVER w AS rn,
+                   LEAD(dpr.price) OVER w AS previous_price
+            FROM daily_price_record dpr
+            WHERE dpr.market_location_id IS NOT NULL
+            WINDOW w AS (PARTITION BY dpr.product_info_id, dpr.market_location_id
+                         ORDER BY dpr.report_date DESC, dpr.id DESC)
+        ) r
+        WHERE r.rn = 1
+    """, nativeQuery = true)
+    int insertAllFromHistory(@Param("now") LocalDateTime now);
+
+    /**
+     * Catch-up: upserts the pairs with records dated after the newest row of latest_price
+     * (written outside ingestion, e.g. a manual import). The date filter prunes
+     * daily_price_record to its newest partitions; older history is not read.
+     * previous_price falls back to the pair's current price when only one newer record exists.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO latest_price (product_info_id, market_location_id, daily_price_record_id,
+                                  price, previous_price, unit, origin, report_date, updated_at)
+        SELECT r.product_info_id, r.market_location_id, r.id,
+               r.price, COALESCE(r.previous_price, lp.price), r.unit, r.origin, r.report_date, :now
+        FROM (
+            SELECT dpr.id, dpr.product_info_id, dpr.market_location_id, dpr.price, dpr.unit, dpr.origin,
+                   dpr.report_date,
+                   ROW_NUMBER() OVER w AS rn,
+                   LEAD(dpr.price) OVER w AS previous_price
+            FROM daily_price_record dpr
+            WHERE dpr.market_location_id IS NOT NULL
+              AND dpr.report_date > (SELECT MAX(l.report_date) FROM latest_price l)
+            WINDOW w AS (PARTITION BY dpr.product_info_id, dpr.market_location_id
+                         ORDER BY dpr.report_date DESC, dpr.id DESC)
+        ) r
+        LEFT JOIN latest_price lp
+               ON lp.product_info_id = r.product_info_id
+              AND lp.market_location_id = r.market_location_id
+        WHERE r.rn = 1
+        ON CONFLICT (product_info_id, market_location_id) DO UPDATE SET
+            daily_price_record_id = EXCLUDED.daily_price_record_id,
+            price = EXCLUDED.price,
+            previous_price = EXCLUDED.previous_price,
+            unit = EXCLUDED.unit,
+            origin = EXCLUDED.origin,
+            report_date = EXCLUDED.report_date,
+            updated_at = EXCLUDED.updated_at
+    """, nativeQuery = true)
+    int upsertReportedAfterTable(@Param("now") LocalDateTime now);
+}
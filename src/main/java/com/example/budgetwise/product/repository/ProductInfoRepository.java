@@ -8,6 +8,8 @@ import com.example.budgetwise.product.dto.ArchiveTableResponse;
 import com.example.budgetwise.product.dto.ProductTableResponse;
 import com.example.budgetwise.product.entity.ProductInfo;
 import com.example.budgetwise.product.repository.Projection.MarketPriceProjection;
+import com.example.budgetwise.product.repository.Projection.ProductIdentityProjection;
+import com.example.budgetwise.product.repository.Projection.ProductOriginProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -35,33 +37,24 @@ public interface ProductInfoRepository extends JpaRepository <ProductInfo, Long>
 
     @Query("SELECT p.id AS id, p.productName AS productName, p.category AS category FROM ProductInfo p ORDER BY p.productName ASC")
     List<ProductLookup> findAllProductLookups();
+
     /**
-     * Checks if a product exists based on composite unique constraints.
+     * Ids of the products whose name matches ignoring case and surrounding spaces (analytics lookups).
+     * Only the parameter is normalized: an index lookup on name_key.
      */
-    @Query(
-            """
-SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END
-FROM ProductInfo p
-JOIN p.priceRecords dpr
-WHERE p.category = :category
-AND p.productName = :productName
-AND dpr.origin = :origin
-""")
-    boolean existsByCategoryAndProductNameAndOrigin(@Param("category") String category,
-                                                    @Param("productName") String productName,
-                                                    @Param("origin") String origin);
+    @Query("SELECT p.id FROM ProductInfo p WHERE p.nameKey = LOWER(TRIM(:productName))")
+    List<Long> findIdsByNormalizedName(@Param("productName") String productName);
 
 
     @Query("""
     SELECT new com.example.budgetwise.product.dto.ProductTableResponse(
         p.id, p.productName, p.category, d.origin, p.localName, d.unit, p.status, d.price, 
-        0.0, 0, 0, r.dateReported
+        d.previousPrice, 0, 0, d.reportDate
     )
     FROM ProductInfo p
-    LEFT JOIN p.priceRecords d 
-    LEFT JOIN d.priceReport r
+    JOIN LatestPrice d ON d.productInfoId = p.id
     WHERE p.status = com.example.budgetwise.product.entity.ProductInfo.Status.ACTIVE
-    AND d.id = (SELECT MAX(d2.id) FROM DailyPriceRecord d2 WHERE d2.productInfo = p)
+    AND d.dailyPriceRecordId = (SELECT MAX(d2.dailyPriceRecordId) FROM LatestPrice d2 WHERE d2.productInfoId = p.id)
 """)
     Page<ProductTableResponse> displayProductTable(Pageable pageable);
 
@@ -106,10 +99,10 @@ AND dpr.origin = :origin
             p.updatedAt
         )
         FROM ProductInfo p
-        LEFT JOIN DailyPriceRecord r ON r.id = (
-            SELECT MAX(r2.id) 
-            FROM DailyPriceRecord r2 
-            WHERE r2.productInfo.id = p.id
+        LEFT JOIN LatestPrice r ON r.productInfoId = p.id AND r.dailyPriceRecordId = (
+            SELECT MAX(r2.dailyPriceRecordId)
+            FROM LatestPrice r2
+            WHERE r2.productInfoId = p.id
         )
         WHERE p.status IN :statuses
           AND LOWER(p.productName) LIKE LOWER(CONCAT('%', :search, '%'))
@@ -132,10 +125,10 @@ AND dpr.origin = :origin
             p.updatedAt
         )
         FROM ProductInfo p
-        LEFT JOIN DailyPriceRecord r ON r.id = (
-            SELECT MAX(r2.id) 
-            FROM DailyPriceRecord r2 
-            WHERE r2.productInfo.id = p.id
+        LEFT JOIN LatestPrice r ON r.productInfoId = p.id AND r.dailyPriceRecordId = (
+            SELECT MAX(r2.dailyPriceRecordId)
+            FROM LatestPrice r2
+            WHERE r2.productInfoId = p.id
         )
         WHERE p.status IN :statuses
     """)
@@ -152,17 +145,11 @@ AND dpr.origin = :origin
             ml.type AS marketType, 
             ml.opening_time AS marketOpeningTime, 
             ml.closing_time AS marketClosingTime, 
-            dpr.price AS currentPrice, 
-            dpr.unit AS unit
-        FROM market_location ml
-        JOIN daily_price_record dpr ON ml.id = dpr.market_location_id
-        WHERE dpr.product_info_id = :productId
-        AND dpr.id IN (
-            SELECT MAX(id) 
-            FROM daily_price_record 
-            WHERE product_info_id = :productId 
-            GROUP BY market_location_id
-        )
+            lp.price AS currentPrice, 
+            lp.unit AS unit
+        FROM latest_price lp
+        JOIN market_location ml ON ml.id = lp.market_location_id
+        WHERE lp.product_info_id = :productId
         """, nativeQuery = true)
     List<MarketPriceProjection> findLatestMarketPricesByProductId(@Param("productId") Long productId);
 
@@ -171,6 +158,49 @@ AND dpr.origin = :origin
     @Query("UPDATE ProductInfo p SET p.status = :status WHERE p.id IN :ids")
     int updateStatusForIds(@Param("status") ProductInfo.Status status, @Param("ids") List<Long> ids);
 
+    /**
+     * Ingestion: re-activates products in one statement without clearing the persistence
+     * context (the chunk still holds pending entities).
+     */
+    @Modifying
+    @Query("""
+        UPDATE ProductInfo p SET p.status = com.example.budgetwise.product.entity.ProductInfo.Status.ACTIVE,
+                                 p.updatedAt = :now
+        WHERE p.id IN :ids
+          AND p.status <> com.example.budgetwise.product.entity.ProductInfo.Status.ACTIVE
+    """)
+    int activateByIds(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Ingestion cache misses: identity of the given products plus every origin they have
+     * price history for, in one round-trip (one row per product x origin).
+     */
+    @Query(value = """
+        SELECT p.id AS id, p.category AS category, p.product_name AS productName,
+               p.status AS status, o.origin AS origin
+        FROM product_info p
+        LEFT JOIN LATERAL (
+            SELECT DISTINCT dpr.origin
+            FROM daily_price_record dpr
+            WHERE dpr.product_info_id = p.id
+        ) o ON TRUE
+        WHERE p.product_name IN (:productNames)
+    """, nativeQuery = true)
+    List<ProductIdentityProjection> findIdentitiesWithOrigins(@Param("productNames") Collection<String> productNames);
+
+    /**
+     * Ingestion: which of the given products have price history for which of the given origins.
+     * Returns the (product, origin) pairs found; callers match them against the exact pairs they asked for.
+     */
+    @Query(value = """
+        SELECT DISTINCT dpr.product_info_id AS productId, dpr.origin AS origin
+        FROM daily_price_record dpr
+        WHERE dpr.product_info_id IN (:productIds)
+          AND dpr.origin IN (:origins)
+    """, nativeQuery = true)
+    List<ProductOriginProjection> findOriginsWithHistory(@Param("productIds") Collection<Long> productIds,
+                                                         @Param("origins") Collection<String> origins);
+
 
     //prediction
     @Query("""
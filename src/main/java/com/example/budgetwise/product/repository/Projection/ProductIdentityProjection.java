@@ -0,0 +1,9 @@
+package com.example.budgetwise.product.repository.Projection;
+
+public interface ProductIdentityProjection {
+    Long getId();
+    String getCategory();
+    String getProductName();
+    String getStatus();
+    String getOrigin();
+}
@@ -0,0 +1,6 @@
+package com.example.budgetwise.product.repository.Projection;
+
+public interface ProductOriginProjection {
+    Long getProductId();
+    String getOrigin();
+}
@@ -3,77 +3,94 @@ package com.example.budgetwise.product.service;
 
 
 import com.example.budgetwise.market.entity.MarketLocation;
-import com.example.budgetwise.product.entity.DailyPriceRecord;
 import com.example.budgetwise.price_report.entity.PriceReport;
+import com.example.budgetwise.prediction.service.RegressionStateService;
 import com.example.budgetwise.product.entity.ProductInfo;
+import com.example.budgetwise.product.repository.DailyPriceRecordCopyRepository;
 import com.example.budgetwise.product.repository.DailyPriceRecordRepository;
 import com.example.budgetwise.scrapper.dto.ScrapeResultDto;
 import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
+@Slf4j
 public class DailyPriceIngestionService {
 
     private final DailyPriceRecordRepository dailyPriceRecordRepository;
+    private final DailyPriceRecordCopyRepository dailyPriceRecordCopyRepository;
+    private final RegressionStateService regressionStateService;
 
-    public DailyPriceIngestionService(DailyPriceRecordRepository dailyPriceRecordRepository) {
+    public DailyPriceIngestionService(DailyPriceRecordRepository dailyPriceRecordRepository, DailyPriceRecordCopyRepository dailyPriceRecordCopyRepository, RegressionStateService regressionStateService) {
         this.dailyPriceRecordRepository = dailyPriceRecordRepository;
+        this.dailyPriceRecordCopyRepository = dailyPriceRecordCopyRepository;
+        this.regressionStateService = regressionStateService;
     }
 
+    /**
+     * A scraped price paired with the product it was matched to.
+     */
+    public record ResolvedProduct(ScrapeResultDto.ScrapedProduct scrapedProduct, ProductInfo productInfo) {}
 
     /**
-     * Broadcasts a single scraped price to ALL covered markets.
+     * Writes the price records of a whole scrape payload.
      * <p>
      * LOGIC:
-     * Since the scraping source (DA PDF) provides a "Prevailing Price"
-     * that applies to a list of markets in a region, we create one record per market
-     * with the same price value.
-     * * @param scrapedProduct The raw price and unit data.
+     * The scraping source (DA PDF) provides one "Prevailing Price" per product for a list
+     * of markets in a region, so each product gets one record per covered market with the
+     * same price value.
+     * <p>
+     * PERFORMANCE STRATEGY:
+     * Every (product x market) row of the report is streamed to PostgreSQL in ONE COPY,
+     * instead of one saveAll per product. Pending JPA changes (report, new products)
+     * are flushed first so the foreign keys resolve.
      *
-     * @param productInfo The resolved Product entity (Foreign Key).
-     * @param priceReport The parent Report entity (Foreign Key).
-     * @param markets     List of markets where this price applies.
+     * @return Number of price rows written.
      */
     @Transactional
-    public void createRecordForAllMarkets(
-            ScrapeResultDto.ScrapedProduct scrapedProduct,
-            ProductInfo productInfo,
+    public long createRecordsForReport(
             PriceReport priceReport,
-            List<MarketLocation> markets) {
+            List<MarketLocation> markets,
+            List<ResolvedProduct> products) {
 
         if (markets == null || markets.isEmpty()) {
-            System.out.println("No markets found for product: " + scrapedProduct.commodity());
-            return;
+            log.warn("No markets found for report {}, no price rows written", priceReport.getId());
+            return 0;
         }
 
-        // Batch Collection (Optimization)
-        // Instead of saving one by one, we collect them in a list first.
-        List<DailyPriceRecord> batchRecords = new ArrayList<>();
-
-        for (MarketLocation market : markets) {
-
-            DailyPriceRecord record = new DailyPriceRecord();
-
-            record.setPrice(scrapedProduct.price());
-            record.setUnit(scrapedProduct.unit());
-            record.setOrigin(scrapedProduct.origin());
-
-            //Connect all entities via foreign keys
-            record.setProductInfo(productInfo);
-            record.setPriceReport(priceReport);
-            record.setMarketLocation(market);
+        dailyPriceRecordRepository.flush();
+
+        List<DailyPriceRecordCopyRepository.Row> rows = new ArrayList<>(products.size() * markets.size());
+        for (ResolvedProduct product : products) {
+            ScrapeResultDto.ScrapedProduct scrapedProduct = product.scrapedProduct();
+            for (MarketLocation market : markets) {
+                rows.add(new DailyPriceRecordCopyRepository.Row(
+                        product.productInfo().getId(),
+                        priceReport.getId(),
+                        market.getId(),
+                        scrapedProduct.price(),
+                        scrapedProduct.unit(),
+                        scrapedProduct.origin(),
+                        priceReport.getDateReported()
+                ));
+            }
+        }
 
-            batchRecords.add(record);
+        long written = dailyPriceRecordCopyRepository.copy(rows);
 
+        // Keep the per-pair regression sums current so the nightly forecast never re-reads history
+        Map<Long, Double> pricesByProduct = new LinkedHashMap<>();
+        for (ResolvedProduct product : products) {
+            pricesByProduct.putIfAbsent(product.productInfo().getId(), product.scrapedProduct().price());
         }
-        dailyPriceRecordRepository.saveAll(batchRecords);
+        regressionStateService.recordPrices(pricesByProduct, markets, priceReport.getDateReported());
 
-        System.out.println("Linked " + batchRecords.size() + " records for: "
-                + scrapedProduct.commodity() + " across " + markets.size() + " markets.");
+        log.debug("Copied {} records for {} products across {} markets", written, products.size(), markets.size());
+        return written;
     }
-
-
-}
\ No newline at end of file
+}
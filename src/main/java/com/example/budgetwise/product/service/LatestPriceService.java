@@ -0,0 +1,80 @@
+package com.example.budgetwise.product.service;
+
+import com.example.budgetwise.product.repository.LatestPriceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Maintains the {@code latest_price} table.
+ * <p>
+ * Ingestion upserts it per chunk, so the product / market / prediction read paths can
+ * read "latest price" with a primary-key or index lookup instead of scanning history.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LatestPriceService {
+
+    private final LatestPriceRepository latestPriceRepository;
+
+    /**
+     * Called by ingestion right after the chunk's price rows are written.
+     *
+     * @return Number of pairs inserted or updated.
+     */
+    @Transactional
+    public int recordReportProducts(Long reportId, Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) return 0;
+        return latestPriceRepository.upsertFromReportProducts(reportId, productIds, LocalDateTime.now());
+    }
+
+    /**
+     * Keeps the table in line after an admin edits a price record in place.
+     */
+    @Transactional
+    public void syncFromRecord(Long recordId) {
+        latestPriceRepository.syncFromRecord(recordId, LocalDateTime.now());
+    }
+
+    /**
+     * Rebuilds the whole table from daily_price_record (backfills, corrections, first deployment).
+     *
+     * @return Number of pairs written.
+     */
+    @Transactional
+    public int rebuildAll() {
+        long start = System.currentTimeMillis();
+        latestPriceRepository.deleteAllRows();
+        int written = latestPriceRepository.insertAllFromHistory(LocalDateTime.now());
+        log.info("Rebuilt latest_price for {} pairs in {} ms", written, System.currentTimeMillis() - start);
+        return written;
+    }
+
+    /**
+     * Ingestion and the data seeder keep the table current through {@link #recordReportProducts}.
+     * Once the runners are done, an empty table (first start) is rebuilt from history; otherwise
+     * only the pairs with records dated after the table's newest row are brought up to date.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void catchUpOnStartup() {
+        if (latestPriceRepository.count() == 0) {
+            log.info("latest_price is empty, rebuilding from price history");
+            rebuildAll();
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int updated = latestPriceRepository.upsertReportedAfterTable(LocalDateTime.now());
+        if (updated > 0) {
+            log.info("latest_price caught up for {} pairs in {} ms", updated, System.currentTimeMillis() - start);
+        }
+    }
+}
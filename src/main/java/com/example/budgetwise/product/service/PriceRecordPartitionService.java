@@ -0,0 +1,344 @@
+package com.example.budgetwise.product.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Monthly range partitions of {@code daily_price_record} on {@code report_date}.
+ * <p>
+ * PERFORMANCE STRATEGY:
+ * 1. History queries filter on the row's own report_date (a copy of the report's date), so
+ *    PostgreSQL prunes to the months of the window instead of walking the whole history
+ *    through a join on price_report.
+ * 2. Archiving old history is a DETACH PARTITION (catalog change only) instead of a DELETE
+ *    over millions of rows. The detached table is renamed {@code daily_price_record_archive_pYYYY_MM}
+ *    and can be dumped / dropped offline.
+ * <p>
+ * LOGIC:
+ * 1. Hibernate only knows plain tables. At startup an EMPTY plain daily_price_record is turned into
+ *    the partitioned one (nothing to move). A plain table with rows is left alone and only reported:
+ *    converting it is an explicit admin operation ({@link #convertToPartitioned}).
+ * 2. The conversion swaps in an empty partitioned table first (one short transaction), then moves
+ *    the old rows one report month per transaction, so it never rewrites the whole history at once
+ *    and resumes where it stopped if interrupted. Rows not moved yet are missing from queries until
+ *    it completes.
+ * 3. Partitions exist from the current month up to {@code monthsAhead} months ahead (checked daily).
+ *    Ingestion of an older report creates its month first through {@link #ensurePartitionFor}.
+ * 4. Partition DDL always runs in its own transaction, never inside an ingestion transaction.
+ */
+@Service
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class PriceRecordPartitionService implements InitializingBean {
+
+    static final String TABLE = "daily_price_record";
+    private static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final String ARCHIVE_PREFIX = TABLE + "_archive_p";
+    private static final String UNPARTITIONED = TABLE + "_unpartitioned";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    /** Same keys and indexes as the mapping of DailyPriceRecord, recreated on the partitioned table. */
+    private static final List<String> KEYS_AND_INDEXES = List.of(
+            "ALTER TABLE daily_price_record ADD CONSTRAINT daily_price_record_pkey PRIMARY KEY (id, report_date)",
+            "ALTER TABLE daily_price_record ADD CONSTRAINT fk_dpr_product_info FOREIGN KEY (product_info_id) REFERENCES product_info (id)",
+            "ALTER TABLE daily_price_record ADD CONSTRAINT fk_dpr_price_report FOREIGN KEY (price_report_id) REFERENCES price_report (id)",
+            "ALTER TABLE daily_price_record ADD CONSTRAINT fk_dpr_market_location FOREIGN KEY (market_location_id) REFERENCES market_location (id)",
+            "CREATE INDEX idx_dpr_market_location ON daily_price_record (market_location_id)",
+            "CREATE INDEX idx_dpr_product_info ON daily_price_record (product_info_id)",
+            "CREATE INDEX idx_dpr_price_report ON daily_price_record (price_report_id)",
+            "CREATE INDEX idx_dpr_market_product_latest ON daily_price_record (product_info_id, market_location_id, id DESC)",
+            "CREATE INDEX idx_dpr_product_report_date ON daily_price_record (product_info_id, report_date)"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ownTransaction;
+    private final int monthsAhead;
+
+    /** False while daily_price_record is still a plain table: there are no partitions to manage. */
+    private volatile boolean partitioned;
+
+    /** Months known to have a partition, so ingestion does not hit the catalog per report. */
+    private final Set<YearMonth> knownMonths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * One attached monthly partition. {@code toDate} is exclusive.
+     */
+    public record Partition(String name, LocalDate fromDate, LocalDate toDate, long estimatedRows) {}
+
+    public PriceRecordPartitionService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, @Value("${price-record.partition.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.monthsAhead = monthsAhead;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!isPartitioned()) {
+            if (hasRows(TABLE)) {
+                log.warn("{} is a plain table: history queries cannot prune by month. Convert it with "
+                        + "POST /api/v1/admin/price-records/partitions/convert", TABLE);
+                return;
+            }
+            convertToPartitioned();
+        } else if (tableExists(UNPARTITIONED)) {
+            log.warn("Conversion of {} to partitions is incomplete: re-run "
+                    + "POST /api/v1/admin/price-records/partitions/convert to move the remaining rows", TABLE);
+        }
+
+        partitioned = true;
+        listPartitions().forEach(partition -> knownMonths.add(YearMonth.from(partition.fromDate())));
+        ensurePartitionsAhead();
+    }
+
+    /**
+     * Keeps the partitions of the coming months in place (daily at 00:30).
+     */
+    @Scheduled(cron = "0 30 0 * * *")
+    public void ensurePartitionsAhead() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            ensurePartition(current.plusMonths(i));
+        }
+    }
+
+    /**
+     * Makes sure price rows dated {@code date} have a partition. Cheap when the month is known.
+     * Must not be called from a transaction that already wrote to daily_price_record.
+     */
+    public void ensurePartitionFor(LocalDate date) {
+        ensurePartition(YearMonth.from(date));
+    }
+
+    /**
+     * Range variant of {@link #ensurePartitionFor} (backfills, seeders).
+     */
+    public void ensurePartitions(LocalDate from, LocalDate to) {
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            ensurePartition(month);
+        }
+    }
+
+    private void ensurePartition(YearMonth month) {
+        if (!partitioned || knownMonths.contains(month)) return;
+
+        ownTransaction.executeWithoutResult(status -> createPartition(month));
+        knownMonths.add(month);
+        log.info("Price record partition {} ready", partitionName(month));
+    }
+
+    /**
+     * Attached partitions, oldest first.
+     */
+    public List<Partition> listPartitions() {
+        List<Partition> partitions = new ArrayList<>();
+        jdbcTemplate.query("""
+                        SELECT c.relname, GREATEST(c.reltuples, 0)::bigint
+                        FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = 'daily_price_record'::regclass
+                        ORDER BY c.relname
+                        """,
+                rs -> {
+                    String name = rs.getString(1);
+                    YearMonth month = parseMonth(name);
+                    if (month == null) {
+                        log.warn("Unexpected partition {} on {}, ignored", name, TABLE);
+                        return;
+                    }
+                    partitions.add(new Partition(name, month.atDay(1), month.plusMonths(1).atDay(1), rs.getLong(2)));
+                });
+        return partitions;
+    }
+
+    /**
+     * Detaches every partition older than {@code before} and renames it to an archive table.
+     * The rows leave every query at once; nothing is deleted.
+     *
+     * @return Names of the archive tables.
+     * @throws IllegalArgumentException if {@code before} would detach the current month.
+     */
+    public List<String> detachPartitionsBefore(YearMonth before) {
+        if (before.isAfter(YearMonth.now())) {
+            throw new IllegalArgumentException("Cannot detach the current month: 'before' must be " + YearMonth.now() + " or earlier");
+        }
+
+        List<String> archived = new ArrayList<>();
+        for (Partition partition : listPartitions()) {
+            YearMonth month = YearMonth.from(partition.fromDate());
+            if (!month.isBefore(before)) continue;
+
+            String archive = ARCHIVE_PREFIX + month.format(SUFFIX);
+            ownTransaction.executeWithoutResult(status -> {
+                // Names are built from YearMonth only, never from user input
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition.name());
+                jdbcTemplate.execute("ALTER TABLE " + partition.name() + " RENAME TO " + archive);
+            });
+            knownMonths.remove(month);
+            archived.add(archive);
+            log.info("Detached price record partition {} ({} rows) as {}",
+                    partition.name(), partition.estimatedRows(), archive);
+        }
+        return archived;
+    }
+
+    private boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('daily_price_record'))",
+                Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    /**
+     * Converts the plain table created by Hibernate into monthly partitions (see class LOGIC 2).
+     * Safe to call again after an interruption: it continues with the rows not moved yet.
+     *
+     * @return Number of rows moved by this call.
+     */
+    public synchronized long convertToPartitioned() {
+        long started = System.currentTimeMillis();
+
+        if (!isPartitioned()) {
+            ownTransaction.executeWithoutResult(status -> swapInPartitionedTable());
+            partitioned = true;
+            knownMonths.clear();
+            listPartitions().forEach(partition -> knownMonths.add(YearMonth.from(partition.fromDate())));
+            log.info("{} swapped for a partitioned table, moving the existing rows month by month", TABLE);
+        }
+        if (!tableExists(UNPARTITIONED)) return 0;
+
+        long moved = 0;
+        List<LocalDate> months = jdbcTemplate.queryForList("""
+                SELECT DISTINCT date_trunc('month', date_reported)::date
+                FROM price_report
+                WHERE date_reported IS NOT NULL
+                ORDER BY 1
+                """, LocalDate.class);
+        for (LocalDate first : months) {
+            YearMonth month = YearMonth.from(first);
+            Integer rows = ownTransaction.execute(status -> {
+                createPartition(month);
+                return moveRows("USING price_report pr", "pr.date_reported",
+                        "pr.id = u.price_report_id AND pr.date_reported >= ? AND pr.date_reported < ?",
+                        month.atDay(1), month.plusMonths(1).atDay(1));
+            });
+            knownMonths.add(month);
+            moved += rows;
+            log.info("Moved {} rows of {} into {}", rows, month, partitionName(month));
+        }
+
+        // Rows whose report has no date (or no longer exists) keep the creation date, as ingestion would
+        Integer leftovers = ownTransaction.execute(status -> {
+            String date = "COALESCE(u.created_at::date, CURRENT_DATE)";
+            jdbcTemplate.query("SELECT MIN(" + date + "), MAX(" + date + ") FROM " + UNPARTITIONED + " u", rs -> {
+                LocalDate min = rs.getObject(1, LocalDate.class);
+                LocalDate max = rs.getObject(2, LocalDate.class);
+                if (min == null) return;
+                for (YearMonth month = YearMonth.from(min); !month.isAfter(YearMonth.from(max)); month = month.plusMonths(1)) {
+                    createPartition(month);
+                    knownMonths.add(month);
+                }
+            });
+            int rows = moveRows("", date, "TRUE");
+            jdbcTemplate.execute("DROP TABLE " + UNPARTITIONED);
+            return rows;
+        });
+        moved += leftovers;
+
+        log.info("Converted {} to monthly partitions on report_date: {} rows moved in {} ms",
+                TABLE, moved, System.currentTimeMillis() - started);
+        return moved;
+    }
+
+    /**
+     * Renames the plain table out of the way and creates the empty partitioned one with its keys
+     * and indexes, plus the partitions new ingestions need. No row is read or written.
+     */
+    private void swapInPartitionedTable() {
+        // Catalog-only change: the column may be missing if Hibernate could not add it as NOT NULL
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD COLUMN IF NOT EXISTS report_date date");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + UNPARTITIONED);
+
+        // Free the key and index names for the partitioned table; only the report lookup is still needed
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS daily_price_record_pkey RENAME TO " + UNPARTITIONED + "_pkey");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS idx_dpr_price_report RENAME TO idx_dpr_unpartitioned_price_report");
+        for (String index : List.of("idx_dpr_market_location", "idx_dpr_product_info",
+                "idx_dpr_market_product_latest", "idx_dpr_product_report_date")) {
+            jdbcTemplate.execute("DROP INDEX IF EXISTS " + index);
+        }
+
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + UNPARTITIONED + " INCLUDING DEFAULTS) PARTITION BY RANGE (report_date)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ALTER COLUMN report_date SET NOT NULL");
+        KEYS_AND_INDEXES.forEach(jdbcTemplate::execute);
+
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(current.plusMonths(i));
+        }
+    }
+
+    /**
+     * Moves the old rows matching {@code condition} (on {@code u}, the old table, plus the optional
+     * {@code using} join) into the partitioned table, dated by {@code reportDate}. Delete and insert
+     * are one statement, so a row is never in both tables.
+     */
+    private int moveRows(String using, String reportDate, String condition, Object... args) {
+        return jdbcTemplate.update("""
+                WITH moved AS (
+                    DELETE FROM %s u
+                    %s
+                    WHERE %s
+                    RETURNING u.id, u.price, u.unit, u.origin, %s, u.created_at, u.updated_at,
+                              u.product_info_id, u.price_report_id, u.market_location_id
+                )
+                INSERT INTO %s (id, price, unit, origin, report_date, created_at, updated_at,
+                                product_info_id, price_report_id, market_location_id)
+                SELECT * FROM moved
+                """.formatted(UNPARTITIONED, using, condition, reportDate, TABLE), args);
+    }
+
+    private boolean tableExists(String table) {
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    private boolean hasRows(String table) {
+        Boolean rows = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + table + ")", Boolean.class);
+        return Boolean.TRUE.equals(rows);
+    }
+
+    private void createPartition(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + TABLE
+                + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX);
+    }
+
+    private static YearMonth parseMonth(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) return null;
+        try {
+            return YearMonth.parse(partitionName.substring(PARTITION_PREFIX.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Service
 public class PriceReportProcessingService {
@@ -30,8 +31,17 @@ public class PriceReportProcessingService {
         return priceReportRepository.existsByDateReported(reportDate);
     }
 
+    /**
+     * Finds the report already stored for the given date string, if any.
+     * Used by the chunked ingestion to detect reports left in PROCESSING by a crash.
+     */
+    public Optional<PriceReport> findExistingReport(String dateStr) {
+        return priceReportRepository.findFirstByDateReported(parseDate(dateStr));
+    }
+
     /**
      * Creates and saves a new PriceReport based on the data received from the scraper.
+     * The report stays PROCESSING until {@link #completeReport} is called.
      *
      * @param result The DTO containing raw data from the Python microservice.
      * @return The persisted PriceReport entity.
@@ -41,7 +51,7 @@ public class PriceReportProcessingService {
 
         // Map DTO fields to Entity
         priceReport.setDateReported(parseDate(result.dateProcessed()));
-        priceReport.setStatus(determineStatus(result.status()));
+        priceReport.setStatus(PriceReport.Status.PROCESSING);
         priceReport.setDateProcessed(LocalDateTime.now());
         priceReport.setUrl(result.url());
 
@@ -49,6 +59,20 @@ public class PriceReportProcessingService {
 
     }
 
+    /**
+     * Completion marker: sets the final status reported by the scraper.
+     * A report that never reaches this point stays PROCESSING and is re-ingested on redelivery.
+     */
+    public void completeReport(Long reportId, ScrapeResultDto result, long durationMs) {
+        PriceReport priceReport = priceReportRepository.findById(reportId)
+                .orElseThrow(() -> new IllegalStateException("Price report not found: " + reportId));
+
+        priceReport.setStatus(determineStatus(result.status()));
+        priceReport.setDurationMS(durationMs);
+        // Flushed: the analytics roll-up that follows in the same transaction selects by status
+        priceReportRepository.saveAndFlush(priceReport);
+    }
+
 
     /**
      * Safely parses the date string (YYYY-MM-DD).
@@ -0,0 +1,116 @@
+package com.example.budgetwise.product.service;
+
+import com.example.budgetwise.product.entity.ProductInfo;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded in-process cache used by {@link ProductMatchingService} during ingestion.
+ * <p>
+ * Holds:
+ * 1. (category, productName) -> (id, status) for every product seen recently.
+ * 2. A compact set of (productId, origin) pairs known to have price history, which replaces the
+ *    exists-join over daily_price_record for the pairs it holds.
+ * <p>
+ * Both maps are access-ordered LRUs, so memory is capped no matter how large the catalog grows.
+ * They evict independently: a cached identity says nothing about its origins, so the origin set
+ * is a positive-only hint and a miss must be confirmed against the database.
+ * Writes made inside a transaction are only published after commit, so a rolled-back
+ * ingestion never leaves ids of products that do not exist in the cache.
+ */
+@Component
+public class ProductIdentityCache {
+
+    private static final int MAX_PRODUCTS = 10_000;
+    private static final int MAX_ORIGINS = 50_000;
+
+    public record ProductKey(String category, String productName) {}
+
+    public record ProductIdentity(Long id, ProductInfo.Status status) {}
+
+    private record OriginKey(Long productId, String origin) {}
+
+    private final Map<ProductKey, ProductIdentity> products = lruMap(MAX_PRODUCTS);
+    private final Map<OriginKey, Boolean> knownOrigins = lruMap(MAX_ORIGINS);
+
+    public synchronized ProductIdentity get(ProductKey key) {
+        return products.get(key);
+    }
+
+    public synchronized boolean isKnownOrigin(Long productId, String origin) {
+        return knownOrigins.get(new OriginKey(productId, origin)) != null;
+    }
+
+    /**
+     * Stores an identity (and optionally a known origin), after commit if a transaction is active.
+     */
+    public void put(ProductKey key, ProductIdentity identity, String knownOrigin) {
+        afterCommit(() -> {
+            synchronized (this) {
+                products.put(key, identity);
+                if (knownOrigin != null) {
+                    knownOrigins.put(new OriginKey(identity.id(), knownOrigin), Boolean.TRUE);
+                }
+            }
+        });
+    }
+
+    /**
+     * Marks a (product, origin) pair as having price history, after commit if a transaction is active.
+     */
+    public void addKnownOrigin(Long productId, String origin) {
+        afterCommit(() -> {
+            synchronized (this) {
+                knownOrigins.put(new OriginKey(productId, origin), Boolean.TRUE);
+            }
+        });
+    }
+
+    /**
+     * Drops the identities of the given products. Called by every path that changes a
+     * product's name, category or status. Evicts now and again after commit, so a concurrent
+     * ingestion cannot re-cache the old values in between.
+     */
+    public void evict(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) return;
+        evictNow(productIds);
+        afterCommit(() -> evictNow(productIds));
+    }
+
+    public void evict(Long productId) {
+        evict(List.of(productId));
+    }
+
+    private synchronized void evictNow(Collection<Long> productIds) {
+        products.values().removeIf(identity -> productIds.contains(identity.id()));
+        // Origins only ever grow for a product, so they stay valid across renames/status changes
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static <K, V> Map<K, V> lruMap(int maxEntries) {
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.budgetwise.product.service;
 
 
+import com.example.budgetwise.analytics.service.PriceRollupService;
+import com.example.budgetwise.configuration.CacheConfig;
+import com.example.budgetwise.configuration.DataChangedEvent;
 import com.example.budgetwise.exception.ResourcesNotFoundException;
 import com.example.budgetwise.market.dto.MarketDetail;
 import com.example.budgetwise.market.dto.ProductMarketDetailResponse;
@@ -13,6 +16,8 @@ import com.example.budgetwise.budgetplan.repository.ProductDietaryTagRepository;
 import com.example.budgetwise.product.repository.ProductInfoRepository;
 import com.example.budgetwise.product.repository.Projection.MarketPriceProjection;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -30,6 +35,10 @@ public class ProductInfoService {
     private final ProductInfoRepository productInfoRepository;
     private final ProductDietaryTagRepository productDietaryTagRepository;
     private final DailyPriceRecordRepository dailyPriceRecordRepository;
+    private final ProductIdentityCache productIdentityCache;
+    private final LatestPriceService latestPriceService;
+    private final PriceRollupService priceRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
 
 
@@ -56,23 +65,16 @@ public class ProductInfoService {
         List<DailyPriceRecordRepository.MarketCountProjection> marketCounts = dailyPriceRecordRepository.countCurrentMarketsByProductIds(productIds);
         List<ProductDietaryTagRepository.TagCountProjection> tagCounts = productDietaryTagRepository.countTagsByProductIds(productIds);
 
-        // 2. NEW: Batch Fetch Previous Prices
-        List<DailyPriceRecordRepository.PriceProjection> previousPrices = dailyPriceRecordRepository.findPreviousPricesByProductIds(productIds);
+        // 2. Previous price comes straight from latest_price (no history scan)
 
         // 3. Mapping
         Map<Long, Integer> countsMap = marketCounts.stream().collect(Collectors.toMap(p -> p.getProductId(), p -> p.getTotalMarkets().intValue()));
         Map<Long, Integer> tagsMap = tagCounts.stream().collect(Collectors.toMap(t -> t.getProductId(), t -> t.getTotalTags().intValue()));
-        Map<Long, Double> prevPriceMap = previousPrices.stream().collect(Collectors.toMap(p -> p.getProductId(), p -> p.getPrice()));
 
         // 4. Assembly & Trend Logic
         productsPage.getContent().forEach(dto -> {
             dto.setTotalMarkets(countsMap.getOrDefault(dto.getId(), 0));
             dto.setTotalDietaryTags(tagsMap.getOrDefault(dto.getId(), 0));
-
-            Double currentPrice = dto.getPrice();
-            Double prevPrice = prevPriceMap.get(dto.getId());
-
-
         });
 
         return productsPage;
@@ -88,6 +90,7 @@ public class ProductInfoService {
      *
      * @return ProductStatsResponse containing real-time counts.
      */
+    @Cacheable(CacheConfig.PRODUCT_STATS)
     @Transactional(readOnly = true)
     public ProductStatsResponse getProductStats() {
         long totalProducts = productInfoRepository.count();
@@ -167,9 +170,7 @@ public class ProductInfoService {
                 origin = firstRecord.getOrigin();
                 unit = firstRecord.getUnit();
 
-                if (firstRecord.getPriceReport() != null) {
-                    detectedDate = firstRecord.getPriceReport().getDateReported();
-                }
+                detectedDate = firstRecord.getReportDate();
             }
         }
 
@@ -212,6 +213,8 @@ public class ProductInfoService {
             product.setLocalName(request.getLocalName());
         }
         ProductInfo updatedProduct = productInfoRepository.save(product);
+        productIdentityCache.evict(updatedProduct.getId());
+        eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.PRODUCTS));
 
         return mapToManageDTO(updatedProduct);
 
@@ -257,6 +260,8 @@ public class ProductInfoService {
 
 
         ProductInfo updatedProduct = productInfoRepository.save(product);
+        productIdentityCache.evict(updatedProduct.getId());
+        eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.PRODUCTS));
 
         return new UpdateProductStatus(
                 updatedProduct.getId(),
@@ -311,6 +316,8 @@ public class ProductInfoService {
 
                product.setLocalName(updateRequest.localName());
                product.setStatus(updateRequest.status());
+        productIdentityCache.evict(productId);
+        eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.PRODUCTS));
 
         DailyPriceRecord latestPriceRecord = dailyPriceRecordRepository.findLatestByProductId(productId, PageRequest.of(0, 1))
                 .stream()
@@ -319,6 +326,8 @@ public class ProductInfoService {
 
         latestPriceRecord.setPrice(updateRequest.price());
         latestPriceRecord.setUnit(updateRequest.unit());
+        latestPriceService.syncFromRecord(latestPriceRecord.getId());
+        priceRollupService.refreshProductDay(productId, latestPriceRecord.getReportDate());
 
     }
 
@@ -345,6 +354,8 @@ public class ProductInfoService {
           ProductInfo.Status status = ProductInfo.Status.valueOf(request.newStatus().toUpperCase());
 
             int updatedCount = productInfoRepository.updateStatusForIds(status, request.ids());
+            productIdentityCache.evict(request.ids());
+            eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.PRODUCTS));
 
             System.out.println("Bulk Update Success: " + updatedCount + " products updated to " + status);
         } catch (IllegalArgumentException e) {
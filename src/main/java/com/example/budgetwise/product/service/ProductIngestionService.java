@@ -2,82 +2,198 @@ package com.example.budgetwise.product.service;
 
 
 
+import com.example.budgetwise.analytics.service.MarketMoversService;
+import com.example.budgetwise.analytics.service.PriceRollupService;
+import com.example.budgetwise.configuration.DataChangedEvent;
 import com.example.budgetwise.market.entity.MarketLocation;
 import com.example.budgetwise.market.service.MarketLocationResolver;
+import com.example.budgetwise.prediction.repository.ForecastDirtyPairRepository;
 import com.example.budgetwise.price_report.entity.PriceReport;
 import com.example.budgetwise.product.entity.ProductInfo;
+import com.example.budgetwise.product.repository.DailyPriceRecordRepository;
 import com.example.budgetwise.scrapper.dto.ScrapeResultDto;
-import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Service
+@Slf4j
 public class ProductIngestionService {
 
     private final PriceReportProcessingService priceReportService;
     private final DailyPriceIngestionService dailyPriceRecordService;
     private final MarketLocationResolver marketLocationService;
     private final ProductMatchingService productMatchingService;
-
-    public ProductIngestionService(PriceReportProcessingService priceReportService, DailyPriceIngestionService dailyPriceRecordService, MarketLocationResolver marketLocationService, ProductMatchingService productMatchingService) {
+    private final ForecastDirtyPairRepository forecastDirtyPairRepository;
+    private final DailyPriceRecordRepository dailyPriceRecordRepository;
+    private final LatestPriceService latestPriceService;
+    private final PriceRecordPartitionService partitionService;
+    private final PriceRollupService priceRollupService;
+    private final MarketMoversService marketMoversService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public ProductIngestionService(PriceReportProcessingService priceReportService, DailyPriceIngestionService dailyPriceRecordService, MarketLocationResolver marketLocationService, ProductMatchingService productMatchingService, ForecastDirtyPairRepository forecastDirtyPairRepository, DailyPriceRecordRepository dailyPriceRecordRepository, LatestPriceService latestPriceService, PriceRecordPartitionService partitionService, PriceRollupService priceRollupService, MarketMoversService marketMoversService, TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher, @Value("${ingestion.chunk-size:50}") int chunkSize) {
         this.priceReportService = priceReportService;
         this.dailyPriceRecordService = dailyPriceRecordService;
         this.marketLocationService = marketLocationService;
         this.productMatchingService = productMatchingService;
+        this.forecastDirtyPairRepository = forecastDirtyPairRepository;
+        this.dailyPriceRecordRepository = dailyPriceRecordRepository;
+        this.latestPriceService = latestPriceService;
+        this.partitionService = partitionService;
+        this.priceRollupService = priceRollupService;
+        this.marketMoversService = marketMoversService;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
     }
 
     /**
-     * Service Orchestrator for Scrape Data Ingestion.
-     * Coordinates the flow between Reports, Markets, Products, and Price Records.
-     * This acts as the "Manager" ensuring all sub-services work together in one transaction.
+     * State carried between the chunk transactions of one report.
+     * Holds ids and detached entities only, never the products of earlier chunks.
      */
-    @Transactional
-    public void processAndSaveScrapeResult(ScrapeResultDto result){
-
-        //  Check for Existing Report to Prevent Duplicates
-        if (priceReportService.reportExists(result.dateProcessed())) {
-            System.out.println(" [SKIPPED] Report already exists for date: " + result.dateProcessed());
-            System.out.println(" [LOGIC] Aborting process to prevent duplication.");
-            return; // <--- EXIT POINT
+    public static final class ReportIngestion {
+        private final ScrapeResultDto header;
+        private final PriceReport priceReport;
+        private final List<MarketLocation> markets;
+        private final long startedAt = System.currentTimeMillis();
+        private int productCount;
+        private long totalRecords;
+        private int dirtyPairs;
+
+        private ReportIngestion(ScrapeResultDto header, PriceReport priceReport, List<MarketLocation> markets) {
+            this.header = header;
+            this.priceReport = priceReport;
+            this.markets = markets;
         }
+    }
 
-        //  Create the Report Header
-        PriceReport priceReport = priceReportService.createFromScrapeResult(result);
-        //  Resolve Markets (Bulk Operation)
-        List<MarketLocation> markets =  marketLocationService.findOrCreateMarket(result.coveredMarkets());
+    /**
+     * Number of products written per chunk transaction.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
 
+    /**
+     * STEP 1 (own transaction): Creates the report header and resolves the covered markets.
+     * <p>
+     * LOGIC:
+     * 1. Report exists and is final (COMPLETED/FAILED) -> skip, prevents duplicates.
+     * 2. Report exists but is still PROCESSING -> an earlier run crashed mid-way:
+     *    its partial price rows are deleted and the report is ingested again.
+     * 3. Otherwise -> new report in PROCESSING state.
+     * 4. After commit, the month of the report date gets its price record partition
+     *    (older reports may predate the partitions created ahead of time).
+     *
+     * @param header Header fields of the scrape result (products are ignored here).
+     * @return The ingestion state, or null if the report must be skipped.
+     */
+    public ReportIngestion startReport(ScrapeResultDto header) {
+        ReportIngestion ingestion = transactionTemplate.execute(status -> {
+
+            //  Check for Existing Report to Prevent Duplicates
+            Optional<PriceReport> existing = priceReportService.findExistingReport(header.dateProcessed());
+            PriceReport priceReport;
+
+            if (existing.isPresent() && existing.get().getStatus() != PriceReport.Status.PROCESSING) {
+                System.out.println(" [SKIPPED] Report already exists for date: " + header.dateProcessed());
+                System.out.println(" [LOGIC] Aborting process to prevent duplication.");
+                return null;
+            }
+
+            if (existing.isPresent()) {
+                priceReport = existing.get();
+                int removed = dailyPriceRecordRepository.deleteByPriceReportId(priceReport.getId());
+                log.info("Report {} was left PROCESSING, removed {} partial rows and restarting", priceReport.getId(), removed);
+            } else {
+                //  Create the Report Header
+                priceReport = priceReportService.createFromScrapeResult(header);
+            }
+
+            //  Resolve Markets (Bulk Operation)
+            List<MarketLocation> markets = marketLocationService.findOrCreateMarket(header.coveredMarkets());
+
+            return new ReportIngestion(header, priceReport, markets);
+        });
+
+        if (ingestion != null) {
+            partitionService.ensurePartitionFor(ingestion.priceReport.getDateReported());
+        }
+        return ingestion;
+    }
 
+    /**
+     * STEP 2 (own transaction per chunk): Resolves a chunk of products and writes their
+     * price rows. The transaction (and the persistence context) is bounded by the chunk
+     * size, not by the report size.
+     */
+    public void ingestChunk(ReportIngestion ingestion, List<ScrapeResultDto.ScrapedProduct> products) {
+        if (products.isEmpty()) return;
+
+        transactionTemplate.executeWithoutResult(status -> {
+            //  Resolve the chunk's Products (cache + at most one bulk query for misses)
+            List<ProductInfo> productInfos = productMatchingService.resolveProducts(products);
+
+            List<DailyPriceIngestionService.ResolvedProduct> resolvedProducts = new ArrayList<>(products.size());
+            List<Long> productIds = new ArrayList<>(products.size());
+
+            for (int i = 0; i < products.size(); i++) {
+                ingestion.productCount++;
+                ProductInfo productInfo = productInfos.get(i);
+                resolvedProducts.add(new DailyPriceIngestionService.ResolvedProduct(products.get(i), productInfo));
+                productIds.add(productInfo.getId());
+            }
+
+            //  Save the chunk's Price Rows (one COPY)
+            ingestion.totalRecords += dailyPriceRecordService.createRecordsForReport(
+                    ingestion.priceReport, ingestion.markets, resolvedProducts);
+
+            //  Upsert the latest price of the touched pairs (one statement)
+            latestPriceService.recordReportProducts(ingestion.priceReport.getId(), productIds);
+
+            //  Flag the touched pairs for the next DELTA prediction run (one statement)
+            ingestion.dirtyPairs += forecastDirtyPairRepository.markPairsFromReportProducts(
+                    ingestion.priceReport.getId(), productIds, LocalDateTime.now());
+        });
+    }
 
-        if(result.products() == null || result.products().isEmpty() ){
+    /**
+     * STEP 3 (own transaction): Completion marker. Only now does the report leave PROCESSING:
+     * a COMPLETED report is added to the analytics rollups in the same transaction, and the
+     * dashboard caches are evicted once it commits. The market movers snapshots are rebuilt
+     * after the commit; a failure there only leaves the endpoint on its live query.
+     */
+    public void completeReport(ReportIngestion ingestion) {
+        long duration = System.currentTimeMillis() - ingestion.startedAt;
+        transactionTemplate.executeWithoutResult(status -> {
+            priceReportService.completeReport(ingestion.priceReport.getId(), ingestion.header, duration);
+            priceRollupService.rollupPendingReports();
+            eventPublisher.publishEvent(new DataChangedEvent(DataChangedEvent.Source.INGESTION));
+        });
+
+        try {
+            marketMoversService.refreshSnapshots();
+        } catch (Exception e) {
+            log.warn("Market movers snapshots not refreshed after report {}", ingestion.priceReport.getId(), e);
+        }
 
+        if (ingestion.productCount == 0) {
             System.out.println("No products found");
-            return;
         }
 
-        int productCount = 0;
-        int totalRecords = 0;
-
-        //  Process Each Product
-        for(ScrapeResultDto.ScrapedProduct scrapedProduct : result.products()){
-            productCount++;
-            System.out.println("Processing product " + productCount + ": " + scrapedProduct.commodity());
-
-            ProductInfo productInfo = productMatchingService.findOrCreateProduct(scrapedProduct);
-
-            dailyPriceRecordService.createRecordForAllMarkets(
-                    scrapedProduct,
-                    productInfo,
-                    priceReport,
-                    markets
-            );
-
-            totalRecords += markets.size();
-        }
         // Final Summary
-        System.out.println("Batch Processing Complete!");
-        System.out.println("   Report ID: " + priceReport.getId());
-        System.out.println("   Products Processed: " + productCount);
-        System.out.println("   Total Price Rows Saved: " + totalRecords);
+        log.info("Batch processing complete for report {}: {} products, {} price rows, {} pairs flagged for forecast in {} ms",
+                ingestion.priceReport.getId(), ingestion.productCount, ingestion.totalRecords, ingestion.dirtyPairs, duration);
     }
 
-}
\ No newline at end of file
+}
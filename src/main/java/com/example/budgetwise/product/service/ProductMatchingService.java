@@ -3,12 +3,23 @@ package com.example.budgetwise.product.service;
 
 import com.example.budgetwise.product.entity.ProductInfo;
 import com.example.budgetwise.product.repository.ProductInfoRepository;
+import com.example.budgetwise.product.repository.Projection.ProductIdentityProjection;
+import com.example.budgetwise.product.repository.Projection.ProductOriginProjection;
+import com.example.budgetwise.product.service.ProductIdentityCache.ProductIdentity;
+import com.example.budgetwise.product.service.ProductIdentityCache.ProductKey;
 import com.example.budgetwise.scrapper.dto.ScrapeResultDto;
 import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
-import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service responsible for resolving Product Identity.
@@ -16,88 +27,141 @@ import java.util.UUID;
  * or a new PENDING product based on historical data.
  */
 @Service
+@Slf4j
 public class ProductMatchingService {
 
     private final ProductInfoRepository productInfoRepository;
+    private final ProductIdentityCache identityCache;
 
-    public ProductMatchingService(ProductInfoRepository productInfoRepository) {
+    public ProductMatchingService(ProductInfoRepository productInfoRepository, ProductIdentityCache identityCache) {
         this.productInfoRepository = productInfoRepository;
-
-
+        this.identityCache = identityCache;
     }
 
+    private record OriginRef(Long productId, String origin) {}
+
     /**
-     * Main decision logic for Product Matching.
+     * Main decision logic for Product Matching, for a whole chunk of scraped products.
      * LOGIC FLOW:
      * 1. Checks if the product (Category + Name) AND Origin (Brand) already exists in history.
      * 2. IF YES (Verified Source): Reactivate or return the Existing Product as ACTIVE.
      * 3. IF NO (New Source/New Product): Return or Create as PENDING (subject for review).
+     * <p>
+     * PERFORMANCE STRATEGY:
+     * 1. Identities and known origins come from {@link ProductIdentityCache} (no query on a warm cache).
+     * 2. All cache misses are loaded with ONE bulk query (identity + known origins).
+     * 3. The cached origins are a positive-only hint (they are evicted independently of the
+     *    identities): non-ACTIVE products whose origin is not known are checked with ONE bulk
+     *    existence query before being left as they are.
+     * 4. Re-activations are applied with ONE bulk UPDATE.
+     * 5. Only genuinely new products are inserted one by one.
+     *
+     * @return The resolved products, in the same order as {@code scrapedProducts}.
+     *         Existing products are returned as references (id only, no extra SELECT).
      */
     @Transactional
-    public ProductInfo findOrCreateProduct(ScrapeResultDto.ScrapedProduct result){
-        // Check if this specific product from this specific origin has appeared before
-        // NOTE: Ensure Repository parameters match: (Category, ProductName, Origin)
-        boolean exist = productInfoRepository.existsByCategoryAndProductNameAndOrigin(
-                result.commodity(),
-                result.category(),
-                result.origin()
-        );
-
-        if(exist){
-            return activateExistingProduct(result);
-        }else {
-            return createOrGetPendingProduct(result);
+    public List<ProductInfo> resolveProducts(List<ScrapeResultDto.ScrapedProduct> scrapedProducts) {
+
+        // --- STEP 1: CACHE LOOKUP ---
+        Map<ProductKey, ProductIdentity> resolved = new HashMap<>();
+        Set<String> missingNames = new LinkedHashSet<>();
+
+        for (ScrapeResultDto.ScrapedProduct scraped : scrapedProducts) {
+            ProductKey key = keyOf(scraped);
+            ProductIdentity cached = identityCache.get(key);
+            if (cached != null) {
+                resolved.put(key, cached);
+            } else if (scraped.commodity() != null) {
+                missingNames.add(scraped.commodity());
+            }
         }
-    }
 
-    /**
-     * Handles products that are known and verified (have history).
-     * Forces status to ACTIVE.
-     */
-    private ProductInfo activateExistingProduct(ScrapeResultDto.ScrapedProduct result){
+        // --- STEP 2: ONE BULK QUERY FOR THE MISSES ---
+        Set<OriginRef> loadedOrigins = new HashSet<>();
+        if (!missingNames.isEmpty()) {
+            for (ProductIdentityProjection row : productInfoRepository.findIdentitiesWithOrigins(missingNames)) {
+                ProductKey key = new ProductKey(row.getCategory(), row.getProductName());
+                ProductIdentity identity = new ProductIdentity(row.getId(), ProductInfo.Status.valueOf(row.getStatus()));
+
+                resolved.put(key, identity);
+                identityCache.put(key, identity, row.getOrigin());
+                if (row.getOrigin() != null) {
+                    loadedOrigins.add(new OriginRef(row.getId(), row.getOrigin()));
+                }
+            }
+        }
 
-        Optional<ProductInfo> existOPT = productInfoRepository.findByCategoryAndProductName(
-                result.category(),
-                result.commodity()
-        );
+        // --- STEP 3: ONE BULK QUERY FOR THE UNKNOWN ORIGINS OF NON-ACTIVE PRODUCTS ---
+        Set<OriginRef> unknownOrigins = new LinkedHashSet<>();
+        for (ScrapeResultDto.ScrapedProduct scraped : scrapedProducts) {
+            ProductIdentity identity = resolved.get(keyOf(scraped));
+            if (identity == null || identity.status() == ProductInfo.Status.ACTIVE || scraped.origin() == null) continue;
 
-        if(existOPT.isEmpty()){
-            throw new IllegalStateException("Product should exist but not found in DB");
+            OriginRef ref = new OriginRef(identity.id(), scraped.origin());
+            if (!loadedOrigins.contains(ref) && !identityCache.isKnownOrigin(ref.productId(), ref.origin())) {
+                unknownOrigins.add(ref);
+            }
+        }
+        if (!unknownOrigins.isEmpty()) {
+            Set<Long> productIds = new HashSet<>();
+            Set<String> origins = new HashSet<>();
+            for (OriginRef ref : unknownOrigins) {
+                productIds.add(ref.productId());
+                origins.add(ref.origin());
+            }
+            for (ProductOriginProjection row : productInfoRepository.findOriginsWithHistory(productIds, origins)) {
+                OriginRef ref = new OriginRef(row.getProductId(), row.getOrigin());
+                if (unknownOrigins.contains(ref)) {
+                    loadedOrigins.add(ref);
+                }
+            }
         }
 
-        ProductInfo product = existOPT.get();
-        if(product.getStatus() != ProductInfo.Status.ACTIVE){
-            product.setStatus(ProductInfo.Status.ACTIVE);
-            productInfoRepository.save(product);
-            System.out.println("Re-activated product: " + product.getProductName() + " in category: " + product.getCategory());
+        // --- STEP 4: DECIDE PER PRODUCT ---
+        List<ProductInfo> products = new ArrayList<>(scrapedProducts.size());
+        Set<Long> toActivate = new LinkedHashSet<>();
+
+        for (ScrapeResultDto.ScrapedProduct scraped : scrapedProducts) {
+            ProductKey key = keyOf(scraped);
+            ProductIdentity identity = resolved.get(key);
+
+            if (identity == null) {
+                // Totally new product -> PENDING
+                ProductInfo created = createNewProduct(scraped);
+                identity = new ProductIdentity(created.getId(), created.getStatus());
+                resolved.put(key, identity);
+                identityCache.put(key, identity, null);
+                products.add(created);
+            } else {
+                // Check if this specific product from this specific origin has appeared before
+                boolean knownOrigin = scraped.origin() != null
+                        && (loadedOrigins.contains(new OriginRef(identity.id(), scraped.origin()))
+                            || identityCache.isKnownOrigin(identity.id(), scraped.origin()));
+
+                if (knownOrigin && identity.status() != ProductInfo.Status.ACTIVE) {
+                    toActivate.add(identity.id());
+                    identity = new ProductIdentity(identity.id(), ProductInfo.Status.ACTIVE);
+                    resolved.put(key, identity);
+                    identityCache.put(key, identity, null);
+                }
+                products.add(productInfoRepository.getReferenceById(identity.id()));
+            }
+
+            // Rows with this origin are written in the same transaction
+            if (scraped.origin() != null) {
+                identityCache.addKnownOrigin(identity.id(), scraped.origin());
+            }
+        }
 
-        }else {
-            System.out.println("Product already active: " + product.getProductName() + " in category: " + product.getCategory());
+        // --- STEP 5: ONE BULK RE-ACTIVATION ---
+        if (!toActivate.isEmpty()) {
+            int activated = productInfoRepository.activateByIds(toActivate, LocalDateTime.now());
+            log.info("Re-activated {} products with known price history", activated);
         }
-        return product;
 
+        return products;
     }
 
-    /**
-     * Handles potential new products.
-     * If product exists but no history with this origin -> Keep as is (don't force active).
-     * If product is totally new -> Create as PENDING.
-     */
-    private ProductInfo createOrGetPendingProduct(ScrapeResultDto.ScrapedProduct result){
-
-        Optional<ProductInfo> existOPT = productInfoRepository.findByCategoryAndProductName(
-                result.category(),
-                result.commodity()
-        );
-
-        if(existOPT.isPresent()){
-            ProductInfo product = existOPT.get();
-            System.out.println("Found existing pending product: " + product.getProductName() + " in category: " + product.getCategory());
-            return product;
-        }else{
-            return createNewProduct(result);
-        }
-    }
     /**
      * Creates a brand new Product entity with PENDING status.
      */
@@ -115,4 +179,8 @@ public class ProductMatchingService {
         return savedProduct;
     }
 
-}
\ No newline at end of file
+    private static ProductKey keyOf(ScrapeResultDto.ScrapedProduct scraped) {
+        return new ProductKey(scraped.category(), scraped.commodity());
+    }
+
+}
@@ -5,24 +5,53 @@ package com.example.budgetwise.scrapper.messaging;
 import com.example.budgetwise.product.service.ProductIngestionService;
 import com.example.budgetwise.scrapper.dto.ScrapeResultDto;
 import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 public class CatalogConsumer {
 
     private final ProductIngestionService productInfoService;
+    private final ScrapeResultStreamReader streamReader;
 
 
 
+    /**
+     * Takes the raw message instead of a bound ScrapeResultDto, so price_data is never
+     * materialized as a whole: products are parsed and committed chunk by chunk.
+     */
     @RabbitListener(queues = "scraped_data_queue")
-    public void receivePythonResult(ScrapeResultDto resultDTO) {
-
-        System.out.println("Received scrape result for URL: " + resultDTO.status());
-        productInfoService.processAndSaveScrapeResult(resultDTO);
+    public void receivePythonResult(Message message) throws IOException {
+
+        ProductIngestionService.ReportIngestion[] ingestion = {null};
+
+        streamReader.read(new ByteArrayInputStream(message.getBody()), productInfoService.getChunkSize(),
+                new ScrapeResultStreamReader.Handler() {
+                    @Override
+                    public boolean onHeader(ScrapeResultDto header) {
+                        System.out.println("Received scrape result for URL: " + header.status());
+                        ingestion[0] = productInfoService.startReport(header);
+                        return ingestion[0] != null;
+                    }
+
+                    @Override
+                    public void onChunk(List<ScrapeResultDto.ScrapedProduct> products) {
+                        productInfoService.ingestChunk(ingestion[0], products);
+                    }
+
+                    @Override
+                    public void onEnd() {
+                        productInfoService.completeReport(ingestion[0]);
+                    }
+                });
 
         System.out.println("Processed scrape result complete");
 
     }
-}
\ No newline at end of file
+}
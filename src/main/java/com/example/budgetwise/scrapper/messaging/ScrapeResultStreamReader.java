@@ -0,0 +1,147 @@
+package com.example.budgetwise.scrapper.messaging;
+
+import com.example.budgetwise.scrapper.dto.ScrapeResultDto;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a scrape result message with Jackson's streaming parser instead of binding the
+ * whole {@link ScrapeResultDto}.
+ * <p>
+ * LOGIC:
+ * 1. Header fields (status, date_processed, original_url, covered_markets) are read as they come.
+ * 2. {@code price_data} is read element by element and handed over in chunks of {@code chunkSize},
+ *    so only one chunk of products is in memory at a time.
+ * 3. The scraper sends the header before {@code price_data}. If a payload has it the other
+ *    way round, the products are buffered until the header is known (same memory as before).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ScrapeResultStreamReader {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Receives the parts of one scrape result in order: header, chunks, end.
+     */
+    public interface Handler {
+        /** @return false to skip the rest of the payload (e.g. duplicate report). */
+        boolean onHeader(ScrapeResultDto header);
+
+        void onChunk(List<ScrapeResultDto.ScrapedProduct> products);
+
+        void onEnd();
+    }
+
+    public void read(InputStream body, int chunkSize, Handler handler) throws IOException {
+        String status = null;
+        String dateProcessed = null;
+        String url = null;
+        List<String> coveredMarkets = null;
+        boolean marketsSeen = false;
+
+        List<ScrapeResultDto.ScrapedProduct> buffered = null;
+        boolean headerSent = false;
+        boolean accepted = true;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Scrape result must be a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+
+                switch (field) {
+                    case "status" -> status = parser.getValueAsString();
+                    case "date_processed" -> dateProcessed = parser.getValueAsString();
+                    case "original_url" -> url = parser.getValueAsString();
+                    case "covered_markets" -> {
+                        coveredMarkets = readStringList(parser);
+                        marketsSeen = true;
+                    }
+                    case "price_data" -> {
+                        if (parser.currentToken() != JsonToken.START_ARRAY) {
+                            parser.skipChildren();
+                            break;
+                        }
+
+                        // Header is complete once the markets are known
+                        if (marketsSeen && !headerSent) {
+                            accepted = handler.onHeader(header(status, dateProcessed, url, coveredMarkets));
+                            headerSent = true;
+                        }
+
+                        if (headerSent && !accepted) {
+                            parser.skipChildren();
+                            break;
+                        }
+
+                        List<ScrapeResultDto.ScrapedProduct> chunk = new ArrayList<>(chunkSize);
+                        JsonToken token;
+                        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                            if (token != JsonToken.START_OBJECT) {
+                                parser.skipChildren();
+                                continue;
+                            }
+                            chunk.add(objectMapper.readValue(parser, ScrapeResultDto.ScrapedProduct.class));
+
+                            if (headerSent && chunk.size() >= chunkSize) {
+                                handler.onChunk(chunk);
+                                chunk = new ArrayList<>(chunkSize);
+                            }
+                        }
+
+                        if (headerSent) {
+                            if (!chunk.isEmpty()) handler.onChunk(chunk);
+                        } else {
+                            log.warn("Scrape result has price_data before its header, buffering {} products", chunk.size());
+                            buffered = chunk;
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+
+        if (!headerSent) {
+            accepted = handler.onHeader(header(status, dateProcessed, url, coveredMarkets));
+            if (accepted && buffered != null) {
+                for (int from = 0; from < buffered.size(); from += chunkSize) {
+                    handler.onChunk(buffered.subList(from, Math.min(from + chunkSize, buffered.size())));
+                }
+            }
+        }
+
+        if (accepted) {
+            handler.onEnd();
+        }
+    }
+
+    private static ScrapeResultDto header(String status, String dateProcessed, String url, List<String> coveredMarkets) {
+        return new ScrapeResultDto(status, dateProcessed, url, coveredMarkets, null);
+    }
+
+    private static List<String> readStringList(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(parser.getValueAsString());
+        }
+        return values;
+    }
+}
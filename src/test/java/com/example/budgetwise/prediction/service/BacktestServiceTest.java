@@ -0,0 +1,177 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.prediction.repository.BacktestRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.example.budgetwise.prediction.service.ForecastCalculator.HORIZON_DAYS;
+import static com.example.budgetwise.prediction.service.ForecastCalculator.MIN_DATA_POINTS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Replay and error sums of the backtest on hand-built histories, with stub models whose
+ * paths are known in advance.
+ */
+class BacktestServiceTest {
+
+    private static final double EPS = 1e-12;
+    private static final int DAY0 = 20_000;
+
+    /** Always forecasts 100. */
+    private static final ForecastModel CONSTANT = stub(LinearTrendModel.NAME, (prices, last) -> 100.0);
+    /** Forecasts the last price of the window. */
+    private static final ForecastModel NAIVE = stub(MedianModel.NAME, (prices, last) -> prices[last]);
+
+    private interface Path {
+        double price(double[] prices, int last);
+    }
+
+    private static ForecastModel stub(String name, Path path) {
+        return new ForecastModel() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void forecast(double[] prices, int offset, int count, double[] out) {
+                Arrays.fill(out, path.price(prices, offset + count - 1));
+            }
+        };
+    }
+
+    /**
+     * MIN_DATA_POINTS consecutive days at 80 (the as-of date is the last one), then the
+     * realized days +1 = 90, +2 = 120, +3 missing, +4 = 50, nothing after.
+     */
+    private static BacktestService.PairHistory gappedHistory(long productId) {
+        int n = MIN_DATA_POINTS + 3;
+        int[] days = new int[n];
+        double[] prices = new double[n];
+        for (int i = 0; i < MIN_DATA_POINTS; i++) {
+            days[i] = DAY0 + i;
+            prices[i] = 80;
+        }
+        int asOf = DAY0 + MIN_DATA_POINTS - 1;
+        days[MIN_DATA_POINTS] = asOf + 1;
+        prices[MIN_DATA_POINTS] = 90;
+        days[MIN_DATA_POINTS + 1] = asOf + 2;
+        prices[MIN_DATA_POINTS + 1] = 120;
+        days[MIN_DATA_POINTS + 2] = asOf + 4;
+        prices[MIN_DATA_POINTS + 2] = 50;
+        return new BacktestService.PairHistory(productId, 7L, days, prices);
+    }
+
+    private static BacktestService.ErrorSums replay(List<BacktestService.PairHistory> pairs, ForecastModel[] models,
+                                                    int fromDay, int toDay) {
+        BacktestService.ErrorSums sums = new BacktestService.ErrorSums(pairs.size(), models.length);
+        new BacktestService.ReplayTask(pairs, models, sums, fromDay, toDay, 0, pairs.size()).invoke();
+        return sums;
+    }
+
+    private static void assertSlot(BacktestService.ErrorSums sums, int slot, int count,
+                                   double absPct, double pct, double sq, double error, String message) {
+        assertEquals(count, sums.counts[slot], message + ": count");
+        assertEquals(absPct, sums.absPctErrors[slot], EPS, message + ": abs %");
+        assertEquals(pct, sums.pctErrors[slot], EPS, message + ": signed %");
+        assertEquals(sq, sums.sqErrors[slot], EPS, message + ": squared");
+        assertEquals(error, sums.errors[slot], EPS, message + ": error");
+    }
+
+    @Test
+    void replaySumsTheErrorsOfEachRealizedHorizon() {
+        int asOf = DAY0 + MIN_DATA_POINTS - 1;
+        List<BacktestService.PairHistory> pairs = List.of(gappedHistory(1L));
+        BacktestService.ErrorSums sums = replay(pairs, new ForecastModel[]{CONSTANT, NAIVE}, asOf, asOf);
+
+        assertEquals(1, sums.forecasts[0]);
+        assertEquals(3, sums.scored[0]);
+
+        // CONSTANT forecasts 100: errors +10, -20, +50
+        assertSlot(sums, sums.slot(0, 0, 1), 1, 10.0 / 90, 10.0 / 90, 100, 10, "constant +1");
+        assertSlot(sums, sums.slot(0, 0, 2), 1, 20.0 / 120, -20.0 / 120, 400, -20, "constant +2");
+        assertSlot(sums, sums.slot(0, 0, 4), 1, 50.0 / 50, 50.0 / 50, 2500, 50, "constant +4");
+
+        // NAIVE forecasts the last price, 80: errors -10, -40, +30
+        assertSlot(sums, sums.slot(0, 1, 1), 1, 10.0 / 90, -10.0 / 90, 100, -10, "naive +1");
+        assertSlot(sums, sums.slot(0, 1, 2), 1, 40.0 / 120, -40.0 / 120, 1600, -40, "naive +2");
+        assertSlot(sums, sums.slot(0, 1, 4), 1, 30.0 / 50, 30.0 / 50, 900, 30, "naive +4");
+
+        List<BacktestRepository.ResultRow> rows = sums.toRows(pairs, new String[]{CONSTANT.name(), NAIVE.name()});
+        assertEquals(6, rows.size());
+        assertTrue(rows.stream().allMatch(row -> row.horizon() == 1 || row.horizon() == 2 || row.horizon() == 4));
+    }
+
+    @Test
+    void missingDaysAreNotScored() {
+        int asOf = DAY0 + MIN_DATA_POINTS - 1;
+        BacktestService.ErrorSums sums = replay(List.of(gappedHistory(1L)), new ForecastModel[]{CONSTANT}, asOf, asOf);
+
+        // +3 has no report, +5 .. +7 are past the history
+        for (int h : new int[]{3, 5, 6, 7}) {
+            assertSlot(sums, sums.slot(0, 0, h), 0, 0, 0, 0, 0, "horizon +" + h);
+        }
+    }
+
+    @Test
+    void asOfDatesWithoutRealizedPricesAreForecastButNotScored() {
+        BacktestService.PairHistory pair = gappedHistory(1L);
+        int last = pair.epochDays()[pair.epochDays().length - 1];
+        // Every as-of date from the first one with a full window to the end of the history
+        BacktestService.ErrorSums sums = replay(List.of(pair), new ForecastModel[]{CONSTANT}, DAY0, last);
+
+        // As-of dates: the first full window, +1, +2 and +4; only the last has nothing after it
+        assertEquals(4, sums.forecasts[0]);
+        // 3 scored from the first window, then +1 -> {+1, +3}, +2 -> {+2}, +4 -> none
+        assertEquals(3 + 2 + 1, sums.scored[0]);
+        assertEquals(Arrays.stream(sums.counts).sum(), sums.scored[0]);
+    }
+
+    @Test
+    void asOfDatesOutsideTheRangeAreSkipped() {
+        int asOf = DAY0 + MIN_DATA_POINTS - 1;
+        BacktestService.ErrorSums sums = replay(List.of(gappedHistory(1L)), new ForecastModel[]{CONSTANT}, DAY0, asOf - 1);
+
+        assertEquals(0, sums.forecasts[0]);
+        assertEquals(0, Arrays.stream(sums.counts).sum());
+    }
+
+    @Test
+    void pairsBelowMinSamplesGetNoSelection() {
+        // minSamples 20, minImprovementPct 5
+        ForecastModelSelector selector = new ForecastModelSelector(mock(BacktestRepository.class),
+                List.of(new LinearTrendModel(), new MedianModel(7)), true, 20, 5);
+        String[] names = {LinearTrendModel.NAME, MedianModel.NAME};
+        List<BacktestService.PairHistory> pairs = List.of(gappedHistory(1L), gappedHistory(2L));
+        BacktestService.ErrorSums sums = new BacktestService.ErrorSums(pairs.size(), names.length);
+
+        // Pair 1: 21 scored days per model, linear 10% off per day, median 5%
+        // Pair 2: 19 scored days per model, median far better but too few samples
+        for (int h = 1; h <= HORIZON_DAYS; h++) {
+            fill(sums, sums.slot(0, 0, h), 3, 0.10);
+            fill(sums, sums.slot(0, 1, h), 3, 0.05);
+            int count = h == 1 ? 1 : 3;
+            fill(sums, sums.slot(1, 0, h), count, 0.10);
+            fill(sums, sums.slot(1, 1, h), count, 0.01);
+        }
+
+        List<BacktestRepository.SelectionRow> rows = sums.toSelections(pairs, names, selector);
+
+        assertEquals(1, rows.size());
+        BacktestRepository.SelectionRow row = rows.get(0);
+        assertEquals(1L, row.productId());
+        assertEquals(MedianModel.NAME, row.model());
+        assertEquals(5.0, row.mape(), 1e-9);
+        assertEquals(10.0, row.linearMape(), 1e-9);
+        assertEquals(21, row.sampleCount());
+    }
+
+    private static void fill(BacktestService.ErrorSums sums, int slot, int count, double absPctError) {
+        sums.counts[slot] = count;
+        sums.absPctErrors[slot] = count * absPctError;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.prediction.entity.PricePredictions;
+import org.apache.commons.math3.stat.regression.SimpleRegression;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The three ways a window gets its statistics must agree: the single-pass {@link PriceSeries}
+ * kernel, the sufficient-statistics path of the bulk engine, and the previous
+ * SimpleRegression + streams code they replaced.
+ */
+class ForecastCalculatorParityTest {
+
+    private static final double EPS = 1e-9;
+
+    private record Case(String name, double[] prices) {}
+
+    private static List<Case> cases() {
+        List<Case> cases = new ArrayList<>();
+
+        double[] flat = new double[30];
+        Arrays.fill(flat, 42.75);
+        cases.add(new Case("flat 30 points", flat));
+
+        cases.add(new Case("trend 14 points", randomWalk(14, 120.0, 0.8, 3.0, 7)));
+        cases.add(new Case("trend 30 points", randomWalk(30, 85.0, -0.4, 2.0, 42)));
+
+        double[] volatile30 = new double[30];
+        for (int i = 0; i < volatile30.length; i++) volatile30[i] = i % 2 == 0 ? 20.0 : 95.0;
+        cases.add(new Case("volatile 30 points", volatile30));
+        return cases;
+    }
+
+    @Test
+    void kernelSumsAndLegacyStatisticsAgree() {
+        for (Case c : cases()) {
+            double[] prices = c.prices();
+            int n = prices.length;
+
+            ForecastCalculator.Result kernel = ForecastCalculator.forecast(PriceSeries.of(prices, n));
+            ForecastCalculator.Result sums = fromSums(prices);
+            Legacy legacy = legacy(prices);
+
+            for (ForecastCalculator.Result r : List.of(kernel, sums)) {
+                String name = c.name() + (r == kernel ? " (kernel)" : " (sums)");
+                assertClose(legacy.slope, r.slope(), name + ": slope");
+                assertClose(legacy.intercept, r.intercept(), name + ": intercept");
+                if (Double.isNaN(legacy.rSquare)) {
+                    assertTrue(Double.isNaN(r.rSquare()), name + ": R² should be NaN");
+                } else {
+                    assertClose(legacy.rSquare, r.rSquare(), name + ": R²");
+                }
+                assertClose(legacy.cv, r.coefficientOfVariation(), name + ": CV");
+                assertClose(legacy.mape, r.mape(), name + ": MAPE");
+                assertArrayEquals(legacy.prices, r.prices(), 1e-7, name + ": prices");
+                assertArrayEquals(legacy.confidences, r.confidences(), 1e-7, name + ": confidences");
+                assertArrayEquals(legacy.statuses, r.statuses(), name + ": statuses");
+            }
+        }
+    }
+
+    @Test
+    void flatSeriesHasUndefinedRSquareAndZeroVariation() {
+        double[] flat = cases().get(0).prices();
+        ForecastCalculator.Result r = ForecastCalculator.forecast(PriceSeries.of(flat, flat.length));
+
+        assertTrue(Double.isNaN(r.rSquare()));
+        assertEquals(0.0, r.slope());
+        assertEquals(0.0, r.coefficientOfVariation());
+        assertEquals(0.0, r.mape());
+    }
+
+    private static ForecastCalculator.Result fromSums(double[] prices) {
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0, sumYY = 0;
+        for (int i = 0; i < prices.length; i++) {
+            double y = prices[i];
+            sumX += i;
+            sumY += y;
+            sumXY += i * y;
+            sumXX += (double) i * i;
+            sumYY += y * y;
+        }
+        return ForecastCalculator.forecast(prices.length, sumX, sumY, sumXY, sumXX, sumYY, prices);
+    }
+
+    private record Legacy(double slope, double intercept, double rSquare, double cv, double mape,
+                          double[] prices, double[] confidences, PricePredictions.Status[] statuses) {}
+
+    /**
+     * The statistics as computed before the kernel: SimpleRegression for the line, boxed
+     * streams for mean / variance, then the unchanged confidence and status rules.
+     */
+    private static Legacy legacy(double[] prices) {
+        int n = prices.length;
+        SimpleRegression regression = new SimpleRegression();
+        List<Double> boxed = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            regression.addData(i, prices[i]);
+            boxed.add(prices[i]);
+        }
+
+        double avgPrice = boxed.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
+        double variance = boxed.stream().mapToDouble(p -> Math.pow(p - avgPrice, 2)).average().orElse(0.0);
+        double cv = avgPrice > 0 ? Math.sqrt(variance) / avgPrice * 100 : 0;
+
+        double totalError = 0.0;
+        int checked = Math.min(10, n - 1);
+        for (int i = 0; i < checked; i++) {
+            int x = n - 1 - i;
+            totalError += Math.abs((prices[x] - regression.predict(x)) / prices[x]) * 100;
+        }
+        double mape = n < 5 ? 0.0 : totalError / checked;
+
+        double base = ForecastCalculator.calculateImprovedConfidence(regression.getRSquare(), cv, mape, n);
+        double current = prices[n - 1];
+        double[] projected = new double[ForecastCalculator.HORIZON_DAYS];
+        double[] confidences = new double[ForecastCalculator.HORIZON_DAYS];
+        PricePredictions.Status[] statuses = new PricePredictions.Status[ForecastCalculator.HORIZON_DAYS];
+        for (int day = 1; day <= ForecastCalculator.HORIZON_DAYS; day++) {
+            double price = Math.max(0.0, regression.predict(n + day - 1));
+            double confidence = Math.max(0.30, Math.min(1.0, base * (1.0 - (day - 1) * 0.03)));
+            projected[day - 1] = price;
+            confidences[day - 1] = confidence;
+            statuses[day - 1] = ForecastCalculator.determineStatus(
+                    (price - current) / current * 100, confidence, cv, day, mape);
+        }
+
+        return new Legacy(regression.getSlope(), regression.getIntercept(), regression.getRSquare(), cv, mape,
+                projected, confidences, statuses);
+    }
+
+    private static double[] randomWalk(int points, double start, double drift, double noise, long seed) {
+        Random random = new Random(seed);
+        double[] prices = new double[points];
+        double price = start;
+        for (int i = 0; i < points; i++) {
+            price = Math.max(1.0, price + drift + random.nextGaussian() * noise);
+            prices[i] = price;
+        }
+        return prices;
+    }
+
+    private static void assertClose(double expected, double actual, String message) {
+        assertEquals(expected, actual, EPS * Math.max(1.0, Math.abs(expected)), message);
+    }
+}
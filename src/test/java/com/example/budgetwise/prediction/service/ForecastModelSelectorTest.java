@@ -0,0 +1,98 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.prediction.repository.BacktestRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class ForecastModelSelectorTest {
+
+    private static final String[] NAMES = {LinearTrendModel.NAME, MedianModel.NAME, SeasonalNaiveModel.NAME};
+    private static final int LINEAR = 0;
+    private static final int MEDIAN = 1;
+    private static final int SEASONAL = 2;
+
+    /** minSamples 20, minImprovementPct 5. */
+    private final ForecastModelSelector selector = selector(true);
+
+    private static ForecastModelSelector selector(boolean enabled) {
+        return new ForecastModelSelector(mock(BacktestRepository.class),
+                List.of(new LinearTrendModel(), new MedianModel(7), new SeasonalNaiveModel()),
+                enabled, 20, 5);
+    }
+
+    /** Sum of |e| / actual for the given MAPE (as a fraction) over {@code count} days. */
+    private static double errors(double mape, int count) {
+        return mape * count;
+    }
+
+    @Test
+    void picksTheLowestErrorModelWhenItBeatsLinearByTheMargin() {
+        int[] counts = {30, 30, 30};
+        double[] errors = {errors(0.10, 30), errors(0.08, 30), errors(0.09, 30)};
+
+        assertEquals(MEDIAN, selector.choose(NAMES, counts, errors));
+    }
+
+    @Test
+    void keepsLinearWhenTheImprovementIsBelowTheMargin() {
+        int[] counts = {30, 30, 30};
+        // 0.096 is 4% better than 0.100, the margin is 5%
+        double[] errors = {errors(0.100, 30), errors(0.096, 30), errors(0.120, 30)};
+
+        assertEquals(LINEAR, selector.choose(NAMES, counts, errors));
+    }
+
+    @Test
+    void exactlyTheMarginIsEnough() {
+        int[] counts = {40, 40, 40};
+        double[] errors = {errors(0.100, 40), errors(0.200, 40), errors(0.095, 40)};
+
+        assertEquals(SEASONAL, selector.choose(NAMES, counts, errors));
+    }
+
+    @Test
+    void ignoresModelsBelowMinSamples() {
+        // Seasonal is best but has 19 scored days
+        int[] counts = {30, 30, 19};
+        double[] errors = {errors(0.10, 30), errors(0.12, 30), errors(0.01, 19)};
+
+        assertEquals(LINEAR, selector.choose(NAMES, counts, errors));
+    }
+
+    @Test
+    void returnsMinusOneWhenLinearIsBelowMinSamples() {
+        int[] counts = {19, 30, 30};
+        double[] errors = {errors(0.10, 19), errors(0.01, 30), errors(0.02, 30)};
+
+        assertEquals(-1, selector.choose(NAMES, counts, errors));
+    }
+
+    @Test
+    void linearWinsWhenItIsTheBest() {
+        int[] counts = {25, 25, 25};
+        double[] errors = {errors(0.05, 25), errors(0.06, 25), errors(0.07, 25)};
+
+        assertEquals(LINEAR, selector.choose(NAMES, counts, errors));
+    }
+
+    @Test
+    void disabledSelectionAlwaysForecastsWithLinear() {
+        ForecastModelSelector disabled = selector(false);
+
+        assertEquals(LinearTrendModel.NAME, disabled.modelFor(1L, 2L).name());
+    }
+
+    @Test
+    void requiresTheLinearModelAndUniqueNames() {
+        BacktestRepository repository = mock(BacktestRepository.class);
+        assertThrows(IllegalStateException.class,
+                () -> new ForecastModelSelector(repository, List.of(new MedianModel(7)), true, 20, 5));
+        assertThrows(IllegalStateException.class,
+                () -> new ForecastModelSelector(repository, List.of(new LinearTrendModel(), new MedianModel(7), new MedianModel(5)), true, 20, 5));
+    }
+}
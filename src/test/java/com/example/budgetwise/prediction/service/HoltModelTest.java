@@ -0,0 +1,82 @@
+package com.example.budgetwise.prediction.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HoltModelTest {
+
+    private static final double EPS = 1e-9;
+
+    private static double[] forecast(HoltModel model, double[] prices) {
+        double[] out = new double[ForecastCalculator.HORIZON_DAYS];
+        model.forecast(prices, 0, prices.length, out);
+        return out;
+    }
+
+    private static double[] linear(int points, double start, double step) {
+        double[] prices = new double[points];
+        for (int i = 0; i < points; i++) prices[i] = start + step * i;
+        return prices;
+    }
+
+    @Test
+    void constantSeriesGivesAFlatPath() {
+        double[] prices = new double[30];
+        Arrays.fill(prices, 42.5);
+        double[] expected = new double[ForecastCalculator.HORIZON_DAYS];
+        Arrays.fill(expected, 42.5);
+
+        assertArrayEquals(expected, forecast(new HoltModel(0.5, 0.2, 0.9), prices), EPS);
+    }
+
+    @Test
+    void linearSeriesGivesADampedTrendWhoseStepsShrinkByPhi() {
+        double phi = 0.8;
+        double[] out = forecast(new HoltModel(0.5, 0.2, phi), linear(30, 100, 2));
+
+        double previousStep = Double.NaN;
+        for (int day = 1; day < out.length; day++) {
+            double step = out[day] - out[day - 1];
+            assertTrue(step > 0, "day " + (day + 1) + " should still rise");
+            if (!Double.isNaN(previousStep)) {
+                assertEquals(phi, step / previousStep, EPS, "day " + (day + 1));
+            }
+            previousStep = step;
+        }
+    }
+
+    @Test
+    void undampedLinearSeriesIsExtrapolatedExactly() {
+        double[] out = forecast(new HoltModel(0.5, 0.2, 1.0), linear(30, 100, 2));
+        // Last price 158, +2 per day
+        for (int day = 1; day <= out.length; day++) {
+            assertEquals(158 + 2.0 * day, out[day - 1], EPS, "day " + day);
+        }
+    }
+
+    @Test
+    void steepDeclineIsNeverForecastBelowZero() {
+        double[] out = forecast(new HoltModel(0.9, 0.9, 1.0), linear(10, 50, -5));
+
+        for (double price : out) {
+            assertTrue(price >= 0, "negative price " + price);
+        }
+        assertEquals(0.0, out[out.length - 1]);
+    }
+
+    @Test
+    void rejectsParametersOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new HoltModel(0, 0.2, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new HoltModel(1.1, 0.2, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new HoltModel(0.5, -0.1, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new HoltModel(0.5, 1.1, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new HoltModel(0.5, 0.2, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HoltModel(0.5, 0.2, 1.1));
+    }
+}
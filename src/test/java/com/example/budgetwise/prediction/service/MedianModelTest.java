@@ -0,0 +1,57 @@
+package com.example.budgetwise.prediction.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MedianModelTest {
+
+    private static double[] forecast(int window, double[] prices, int offset, int count) {
+        double[] out = new double[ForecastCalculator.HORIZON_DAYS];
+        new MedianModel(window).forecast(prices, offset, count, out);
+        return out;
+    }
+
+    private static double[] flat(double price) {
+        double[] out = new double[ForecastCalculator.HORIZON_DAYS];
+        Arrays.fill(out, price);
+        return out;
+    }
+
+    @Test
+    void oddWindowTakesTheMiddlePrice() {
+        double[] prices = {1, 1, 1, 50, 10, 30, 20, 90, 40, 60};
+        // Last 7: 50 10 30 20 90 40 60 -> sorted 10 20 30 40 50 60 90
+        assertArrayEquals(flat(40), forecast(7, prices, 0, prices.length));
+    }
+
+    @Test
+    void evenWindowAveragesTheTwoMiddlePrices() {
+        double[] prices = {99, 30, 10, 40, 20};
+        // Last 4: 30 10 40 20 -> (20 + 30) / 2
+        assertArrayEquals(flat(25), forecast(4, prices, 0, prices.length));
+    }
+
+    @Test
+    void duplicatePricesKeepTheirRank() {
+        assertArrayEquals(flat(5), forecast(5, new double[]{5, 9, 5, 1, 5}, 0, 5));
+        // Sorted 2 2 2 7 7 7 -> (2 + 7) / 2
+        assertArrayEquals(flat(4.5), forecast(6, new double[]{7, 2, 7, 2, 7, 2}, 0, 6));
+        assertArrayEquals(flat(3), forecast(4, new double[]{3, 3, 3, 3}, 0, 4));
+    }
+
+    @Test
+    void windowIsClippedToTheSeriesAndHonoursTheOffset() {
+        double[] prices = {1000, 1000, 8, 2, 6};
+        // Offset 2, count 3, window 7 -> median of 8 2 6
+        assertArrayEquals(flat(6), forecast(7, prices, 2, 3));
+    }
+
+    @Test
+    void rejectsAnEmptyWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new MedianModel(0));
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.budgetwise.prediction.service;
+
+import com.example.budgetwise.market.entity.MarketLocation;
+import com.example.budgetwise.prediction.entity.PriceRegressionState;
+import com.example.budgetwise.prediction.repository.PredictionBulkRepository;
+import com.example.budgetwise.prediction.repository.PriceRegressionStateRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RegressionStateServiceTest {
+
+    private static final int WINDOW = ForecastCalculator.WINDOW_SIZE;
+    private static final LocalDate FIRST_DATE = LocalDate.of(2026, 1, 1);
+    private static final double EPS = 1e-6;
+
+    private final PredictionBulkRepository bulkRepository = mock(PredictionBulkRepository.class);
+    private final PriceRegressionStateRepository stateRepository = mock(PriceRegressionStateRepository.class);
+    private final RegressionStateService service = new RegressionStateService(stateRepository, bulkRepository);
+
+    @Test
+    void appendKeepsSumsEqualToRecomputedSumsPastTheWindow() {
+        PriceRegressionState state = emptyState();
+        for (int i = 0; i < 3 * WINDOW + 7; i++) {
+            RegressionStateService.append(state, price(i));
+
+            PriceRegressionState recomputed = copy(state);
+            RegressionStateService.recomputeSums(recomputed);
+            assertSumsEqual(recomputed, state, "after append #" + (i + 1));
+        }
+        assertEquals(WINDOW, state.getSampleCount());
+    }
+
+    @Test
+    void appendedStateMatchesRebuildForTheSameHistory() {
+        int points = 2 * WINDOW + 11;
+        PriceRegressionState appended = emptyState();
+        for (int i = 0; i < points; i++) {
+            RegressionStateService.append(appended, price(i));
+        }
+
+        // The windowed stream hands rows over newest first
+        doAnswer(invocation -> {
+            PredictionBulkRepository.PriceRowHandler handler = invocation.getArgument(2);
+            for (int i = points - 1; i >= points - WINDOW; i--) {
+                handler.accept(1L, 2L, price(i), FIRST_DATE.plusDays(i));
+            }
+            return null;
+        }).when(bulkRepository).streamRecentPriceWindows(eq(WINDOW), eq(false), any(PredictionBulkRepository.PriceRowHandler.class));
+
+        assertEquals(1, service.rebuildAll());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PriceRegressionState>> written = ArgumentCaptor.forClass(List.class);
+        verify(bulkRepository).insertRegressionStates(written.capture(), anyInt());
+        PriceRegressionState rebuilt = written.getValue().get(0);
+
+        assertEquals(FIRST_DATE.plusDays(points - 1), rebuilt.getLastReportDate());
+        assertEquals(appended.getSampleCount(), rebuilt.getSampleCount());
+        assertArrayEquals(window(appended), window(rebuilt), EPS);
+        assertSumsEqual(rebuilt, appended, "rebuilt vs appended");
+    }
+
+    @Test
+    void recordPricesAppendsNewerReportsAndRebuildsBackfills() {
+        PriceRegressionState current = emptyState();
+        current.setProductInfoId(1L);
+        current.setMarketLocationId(10L);
+        RegressionStateService.append(current, 100.0);
+        current.setLastReportDate(FIRST_DATE.plusDays(5));
+        when(bulkRepository.findRegressionStates(anyCollection(), anyCollection())).thenReturn(List.of(current));
+
+        // Older than the state: the pair is rebuilt from history, not appended
+        service.recordPrices(Map.of(1L, 90.0), List.of(market(10L)), FIRST_DATE.plusDays(2));
+        verify(bulkRepository).streamRecentPriceWindows(eq(WINDOW),
+                eq(List.of(new PredictionBulkRepository.PairKey(1L, 10L))), any(PredictionBulkRepository.PriceRowHandler.class));
+        assertEquals(1, current.getSampleCount());
+
+        // Newer: appended in place, together with the pair that had no state yet
+        service.recordPrices(Map.of(1L, 110.0), List.of(market(10L), market(11L)), FIRST_DATE.plusDays(6));
+        assertEquals(2, current.getSampleCount());
+        assertEquals(FIRST_DATE.plusDays(6), current.getLastReportDate());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PriceRegressionState>> upserted = ArgumentCaptor.forClass(List.class);
+        verify(bulkRepository, atLeastOnce()).upsertRegressionStates(upserted.capture(), anyInt());
+        List<PriceRegressionState> lastWrite = upserted.getAllValues().get(upserted.getAllValues().size() - 1);
+        assertEquals(2, lastWrite.size());
+        assertTrue(lastWrite.contains(current));
+    }
+
+    @Test
+    void recordPricesSkipsTheSameReportDate() {
+        PriceRegressionState current = emptyState();
+        current.setProductInfoId(1L);
+        current.setMarketLocationId(10L);
+        RegressionStateService.append(current, 100.0);
+        current.setLastReportDate(FIRST_DATE);
+        when(bulkRepository.findRegressionStates(anyCollection(), anyCollection())).thenReturn(List.of(current));
+
+        service.recordPrices(Map.of(1L, 120.0), List.of(market(10L)), FIRST_DATE);
+
+        assertEquals(1, current.getSampleCount());
+        verify(bulkRepository, never()).streamRecentPriceWindows(anyInt(), anyList(), any(PredictionBulkRepository.PriceRowHandler.class));
+        verify(bulkRepository, never()).streamRecentPriceWindows(anyInt(), anyBoolean(), any(PredictionBulkRepository.PriceRowHandler.class));
+    }
+
+    @Test
+    void startupCatchUpOnlyRebuildsPairsReportedAfterTheStates() {
+        when(stateRepository.count()).thenReturn(5L);
+        when(bulkRepository.findPairsReportedAfterStates())
+                .thenReturn(List.of(new PredictionBulkRepository.PairKey(1L, 10L)));
+
+        service.catchUpOnStartup();
+
+        verify(bulkRepository).streamRecentPriceWindows(eq(WINDOW),
+                eq(List.of(new PredictionBulkRepository.PairKey(1L, 10L))), any(PredictionBulkRepository.PriceRowHandler.class));
+        verify(bulkRepository, never()).streamRecentPriceWindows(anyInt(), anyBoolean(), any(PredictionBulkRepository.PriceRowHandler.class));
+        verify(bulkRepository, never()).deleteAllRegressionStates();
+    }
+
+    private static double price(int i) {
+        return 100 + 0.37 * i + 5 * Math.sin(i) + (i % 7 == 3 ? 12.5 : 0);
+    }
+
+    private static PriceRegressionState emptyState() {
+        PriceRegressionState state = new PriceRegressionState();
+        state.setRecentPrices(new double[WINDOW]);
+        return state;
+    }
+
+    private static PriceRegressionState copy(PriceRegressionState s) {
+        PriceRegressionState c = emptyState();
+        c.setRecentPrices(s.getRecentPrices().clone());
+        c.setRingStart(s.getRingStart());
+        c.setSampleCount(s.getSampleCount());
+        return c;
+    }
+
+    private static double[] window(PriceRegressionState s) {
+        double[] out = new double[WINDOW];
+        int n = RegressionStateService.windowOldestFirst(s, out);
+        return Arrays.copyOf(out, n);
+    }
+
+    private static MarketLocation market(long id) {
+        MarketLocation market = new MarketLocation();
+        market.setId(id);
+        return market;
+    }
+
+    private static void assertSumsEqual(PriceRegressionState expected, PriceRegressionState actual, String message) {
+        assertEquals(expected.getSampleCount(), actual.getSampleCount(), message);
+        assertEquals(expected.getSumX(), actual.getSumX(), EPS, message + ": sumX");
+        assertEquals(expected.getSumY(), actual.getSumY(), EPS * Math.abs(expected.getSumY()), message + ": sumY");
+        assertEquals(expected.getSumXY(), actual.getSumXY(), EPS * Math.abs(expected.getSumXY()), message + ": sumXY");
+        assertEquals(expected.getSumXX(), actual.getSumXX(), EPS, message + ": sumXX");
+        assertEquals(expected.getSumYY(), actual.getSumYY(), EPS * Math.abs(expected.getSumYY()), message + ": sumYY");
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.budgetwise.prediction.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class SeasonalNaiveModelTest {
+
+    private final SeasonalNaiveModel model = new SeasonalNaiveModel();
+
+    @Test
+    void repeatsTheLastFullCycle() {
+        double[] prices = {1, 2, 3, 10, 11, 12, 13, 14, 15, 16};
+        double[] out = new double[ForecastCalculator.HORIZON_DAYS];
+        model.forecast(prices, 0, prices.length, out);
+
+        assertArrayEquals(new double[]{10, 11, 12, 13, 14, 15, 16}, out);
+    }
+
+    @Test
+    void carriesTheLastPriceForwardBelowOnePeriod() {
+        double[] prices = {0, 0, 4, 5, 6, 7, 8, 9, 0};
+        double[] out = new double[ForecastCalculator.HORIZON_DAYS];
+        // Offset 2, count PERIOD - 1: 4 5 6 7 8 9
+        model.forecast(prices, 2, SeasonalNaiveModel.PERIOD - 1, out);
+
+        assertArrayEquals(new double[]{9, 9, 9, 9, 9, 9, 9}, out);
+    }
+
+    @Test
+    void neverProjectsNegativePrices() {
+        double[] prices = {-1, -2, -3};
+        double[] out = new double[ForecastCalculator.HORIZON_DAYS];
+        model.forecast(prices, 0, prices.length, out);
+
+        assertArrayEquals(new double[ForecastCalculator.HORIZON_DAYS], out);
+    }
+}